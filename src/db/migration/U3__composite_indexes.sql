@@ -0,0 +1,16 @@
+-- Undo for V3. MySQL may have dropped the implicit foreign key indexes once V3's
+-- indexes covered them, and it will not drop an index a foreign key still relies on,
+-- so single-column replacements go in before the composite indexes come out.
+
+create index idx_appointments_staff on appointments (staff_id);
+drop index idx_appointments_staff_datetime on appointments;
+
+create index idx_patient_vitals_patient on patient_vitals (patient_id);
+drop index idx_patient_vitals_patient_recorded on patient_vitals;
+
+create index idx_nursing_tasks_nurse on nursing_tasks (assigned_nurse_id);
+drop index idx_nursing_tasks_nurse_status on nursing_tasks;
+
+drop index idx_billing_records_status_created on billing_records;
+
+drop index idx_prescriptions_status_prescribed on prescriptions;
@@ -0,0 +1,2 @@
+-- Undo for V4.
+drop index idx_patients_dob on patients;
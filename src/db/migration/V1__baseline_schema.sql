@@ -0,0 +1,42 @@
+-- Schema as it stood when hbm2ddl=update was retired.
+-- Databases created before then already have these tables and are recorded as baselined instead.
+
+create table appointments (appointmentDateTime datetime(6), id bigint not null, patient_id bigint not null, staff_id bigint not null, status varchar(100), primary key (id)) engine=InnoDB;
+create table audit_logs (entityId bigint, id bigint not null, performedAt datetime(6), details varchar(2000), action varchar(255), entityName varchar(255), performedBy varchar(255), primary key (id)) engine=InnoDB;
+create table billing_records (amount float(53) not null, createdAt datetime(6), id bigint not null, patient_id bigint not null, paymentMethod varchar(50), status varchar(100), primary key (id)) engine=InnoDB;
+create table department_staff (department_id bigint not null, staff_id bigint not null) engine=InnoDB;
+create table medical_units (budget float(53), id bigint not null auto_increment, parent_hospital_id bigint, unit_type varchar(31) not null, address varchar(255), department_code varchar(255), description varchar(255), hospital_code varchar(255), name varchar(255), primary key (id)) engine=InnoDB;
+create table medications (expiryDate date, minimumStock integer not null, stockQuantity integer not null, unitPrice float(53) not null, id bigint not null, status varchar(20), batchNumber varchar(50), category varchar(50) not null, dosageForm varchar(50), strength varchar(50), name varchar(100) not null, description varchar(200), manufacturer varchar(255) not null, primary key (id)) engine=InnoDB;
+create table nursing_tasks (assigned_nurse_id bigint not null, completedAt datetime(6), createdAt datetime(6) not null, created_by_id bigint not null, dueDateTime datetime(6), id bigint not null, patient_id bigint, priority varchar(50), status varchar(50), taskType varchar(100), title varchar(200) not null, completionNotes varchar(1000), description varchar(1000), primary key (id)) engine=InnoDB;
+create table patient_vitals (diastolicBP integer, heartRate integer, height float(53), oxygenSaturation float(53), respiratoryRate integer, systolicBP integer, temperature float(53), weight float(53), id bigint not null, nurse_id bigint not null, patient_id bigint not null, recordedAt datetime(6) not null, notes varchar(500), primary key (id)) engine=InnoDB;
+create table patients (dob date, id bigint not null, firstName varchar(100) not null, lastName varchar(100) not null, contactNumber varchar(200), address varchar(500), gender varchar(255), primary key (id)) engine=InnoDB;
+create table permissions (id bigint not null auto_increment, name varchar(100) not null, primary key (id)) engine=InnoDB;
+create table prescription_items (durationDays integer not null, quantity integer not null, id bigint not null, medication_id bigint not null, prescription_id bigint not null, dosageInstructions varchar(200), specialInstructions varchar(500), primary key (id)) engine=InnoDB;
+create table prescriptions (dispensedDate datetime(6), doctor_id bigint not null, id bigint not null, patient_id bigint not null, pharmacist_id bigint, prescribedDate datetime(6) not null, status varchar(20), notes varchar(500), primary key (id)) engine=InnoDB;
+create table role_permissions (permission_id bigint not null, role_id bigint not null, primary key (permission_id, role_id)) engine=InnoDB;
+create table roles (id bigint not null auto_increment, name varchar(50) not null, primary key (id)) engine=InnoDB;
+create table staff (id bigint not null, role_id bigint, email varchar(100) not null, name varchar(100) not null, password varchar(255) not null, primary key (id)) engine=InnoDB;
+alter table medical_units add constraint UK8hrs82lpg1wthp2qh2aulq4iu unique (department_code);
+alter table medical_units add constraint UKq3pp6bmcdtno4hvip4x66rh1g unique (hospital_code);
+alter table permissions add constraint UKpnvtwliis6p05pn6i3ndjrqt2 unique (name);
+alter table roles add constraint UKofx66keruapi6vyqpv6f2or37 unique (name);
+alter table staff add constraint UKpvctx4dbua9qh4p4s3gm3scrh unique (email);
+alter table appointments add constraint FKt8qcv3eqavhpasweqhp2oxdxj foreign key (staff_id) references staff (id);
+alter table appointments add constraint FK8exap5wmg8kmb1g1rx3by21yt foreign key (patient_id) references patients (id);
+alter table billing_records add constraint FKhs4kbb3ql7gaesoch0o5ibo2d foreign key (patient_id) references patients (id);
+alter table department_staff add constraint FKmloge4e64t1knbw1tviu8pn3n foreign key (staff_id) references staff (id);
+alter table department_staff add constraint FKfssatc0gkdy4i12f8s39dmgyg foreign key (department_id) references medical_units (id);
+alter table medical_units add constraint FKop6smx29tjybfp82xd398hwb5 foreign key (parent_hospital_id) references medical_units (id);
+alter table nursing_tasks add constraint FKbbgmoq3xqke7nwfnsyr80nxuu foreign key (assigned_nurse_id) references staff (id);
+alter table nursing_tasks add constraint FKhu2vtd4ujs610wihqgysbk3aa foreign key (created_by_id) references staff (id);
+alter table nursing_tasks add constraint FKt38x2g3akano3anrvp0teamfp foreign key (patient_id) references patients (id);
+alter table patient_vitals add constraint FKkswma9lk3ad8ukohyed9nbilm foreign key (nurse_id) references staff (id);
+alter table patient_vitals add constraint FKdjdd04qmunue0563dvj57sp5d foreign key (patient_id) references patients (id);
+alter table prescription_items add constraint FKedqiiymwh98fpomx841xjuuq7 foreign key (medication_id) references medications (id);
+alter table prescription_items add constraint FK6uh7tdy2lv6sx34u1365acqsf foreign key (prescription_id) references prescriptions (id);
+alter table prescriptions add constraint FKtkj1k38c30pqem1qougg3o093 foreign key (doctor_id) references staff (id);
+alter table prescriptions add constraint FKqydyol76jn1o37k1bdbkjgq74 foreign key (patient_id) references patients (id);
+alter table prescriptions add constraint FKi7pjmfhlq7jjskyk6qpbs8j6e foreign key (pharmacist_id) references staff (id);
+alter table role_permissions add constraint FKegdk29eiy7mdtefy5c7eirr6e foreign key (permission_id) references permissions (id);
+alter table role_permissions add constraint FKn5fotdgk8d1xvo8nav9uv3muc foreign key (role_id) references roles (id);
+alter table staff add constraint FKm671w66r18c9w9a38i9ysxyh9 foreign key (role_id) references roles (id);
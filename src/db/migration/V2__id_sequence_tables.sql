@@ -0,0 +1,33 @@
+-- Tables backing the entities' @SequenceGenerator ids (GenerationType.SEQUENCE). MySQL has
+-- no sequences, so Hibernate keeps each generator's next value in a one-row table.
+-- Kept apart from V1 so a baselined database that is missing one still gets it.
+
+create table if not exists appointments_seq (next_val bigint) engine=InnoDB;
+insert into appointments_seq (next_val) select 1 from dual where not exists (select 1 from appointments_seq);
+
+create table if not exists audit_logs_seq (next_val bigint) engine=InnoDB;
+insert into audit_logs_seq (next_val) select 1 from dual where not exists (select 1 from audit_logs_seq);
+
+create table if not exists billing_records_seq (next_val bigint) engine=InnoDB;
+insert into billing_records_seq (next_val) select 1 from dual where not exists (select 1 from billing_records_seq);
+
+create table if not exists medications_seq (next_val bigint) engine=InnoDB;
+insert into medications_seq (next_val) select 1 from dual where not exists (select 1 from medications_seq);
+
+create table if not exists nursing_tasks_seq (next_val bigint) engine=InnoDB;
+insert into nursing_tasks_seq (next_val) select 1 from dual where not exists (select 1 from nursing_tasks_seq);
+
+create table if not exists patient_vitals_seq (next_val bigint) engine=InnoDB;
+insert into patient_vitals_seq (next_val) select 1 from dual where not exists (select 1 from patient_vitals_seq);
+
+create table if not exists patients_seq (next_val bigint) engine=InnoDB;
+insert into patients_seq (next_val) select 1 from dual where not exists (select 1 from patients_seq);
+
+create table if not exists prescription_items_seq (next_val bigint) engine=InnoDB;
+insert into prescription_items_seq (next_val) select 1 from dual where not exists (select 1 from prescription_items_seq);
+
+create table if not exists prescriptions_seq (next_val bigint) engine=InnoDB;
+insert into prescriptions_seq (next_val) select 1 from dual where not exists (select 1 from prescriptions_seq);
+
+create table if not exists staff_seq (next_val bigint) engine=InnoDB;
+insert into staff_seq (next_val) select 1 from dual where not exists (select 1 from staff_seq);
@@ -0,0 +1,16 @@
+-- Composite indexes for the list and lookup queries on the dashboards.
+
+-- Doctor schedule: appointments for one doctor within a date range.
+create index idx_appointments_staff_datetime on appointments (staff_id, appointmentDateTime);
+
+-- Latest vitals per patient.
+create index idx_patient_vitals_patient_recorded on patient_vitals (patient_id, recordedAt);
+
+-- A nurse's task list filtered by status.
+create index idx_nursing_tasks_nurse_status on nursing_tasks (assigned_nurse_id, status);
+
+-- Billing lists filtered by status, newest first.
+create index idx_billing_records_status_created on billing_records (status, createdAt);
+
+-- Pharmacy queue filtered by status, ordered by prescribed date.
+create index idx_prescriptions_status_prescribed on prescriptions (status, prescribedDate);
@@ -0,0 +1,2 @@
+-- Age filters compile to date-of-birth ranges.
+create index idx_patients_dob on patients (dob);
@@ -2,6 +2,8 @@ package lk.jiat.globemed.app;
 
 import com.formdev.flatlaf.intellijthemes.materialthemeuilite.FlatGitHubDarkIJTheme;
 import javax.swing.*;
+import lk.jiat.globemed.search.GlobalSearch;
+import lk.jiat.globemed.search.MedicationLookup;
 import lk.jiat.globemed.ui.LoginForm;
 import lk.jiat.globemed.util.HibernateUtil;
 import org.hibernate.Session;
@@ -22,6 +24,9 @@ public class MainApp {
                     = new lk.jiat.globemed.service.DataInitializationService();
             dataInit.initializeSystemData();
 
+            GlobalSearch.start();
+            MedicationLookup.start();
+
             lk.jiat.globemed.service.SystemStatusService statusService
                     = new lk.jiat.globemed.service.SystemStatusService();
             System.out.println(statusService.getSystemHealthSummary());
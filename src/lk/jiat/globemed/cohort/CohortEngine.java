@@ -0,0 +1,152 @@
+package lk.jiat.globemed.cohort;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import lk.jiat.globemed.dao.AppointmentDao;
+import lk.jiat.globemed.dao.AsyncDao;
+import lk.jiat.globemed.dao.PatientDao;
+import lk.jiat.globemed.dto.AppointmentStatusRow;
+import lk.jiat.globemed.dto.PatientProfileRow;
+import lk.jiat.globemed.interpreter.Expression;
+import lk.jiat.globemed.interpreter.QueryTarget;
+import lk.jiat.globemed.model.Appointment;
+import lk.jiat.globemed.model.Patient;
+import lk.jiat.globemed.util.IndexLifecycle;
+
+/**
+ * Counts population cohorts such as {@code QueryBuilder.seniorPatients()} from bitmap
+ * indexes over patient gender, date of birth and appointment status, without loading a
+ * single entity. Results agree with {@code interpret} on every row. The indexes are
+ * read from the database the first time they are asked for and then kept current from
+ * committed Hibernate writes, the same way as {@code GlobalSearch}.
+ */
+public final class CohortEngine {
+
+    private static final CohortIndex INDEX = new CohortIndex();
+    private static final IndexLifecycle<CohortIndex.Key> LIFECYCLE = new IndexLifecycle<>("Cohort index", "👥",
+            CohortIndexListener::install, CohortEngine::buildIndex,
+            () -> INDEX.patientCount() + " patients, " + INDEX.appointmentCount() + " appointments");
+
+    private CohortEngine() {
+    }
+
+    /**
+     * Starts keeping the indexes current and builds them in the background; calling it
+     * again returns the first build. The other methods call it when needed.
+     *
+     * @return the number of patients indexed, once the build is done
+     */
+    public static CompletableFuture<Integer> start() {
+        return LIFECYCLE.start();
+    }
+
+    /**
+     * Re-reads patients and appointments, for changes made outside this application.
+     * Returns the running build if there is one.
+     */
+    public static CompletableFuture<Integer> rebuild() {
+        return LIFECYCLE.rebuild();
+    }
+
+    /**
+     * Starts the first build in the background if nothing has asked for the indexes yet.
+     *
+     * @return whether the indexes are built; until then, callers that must not wait
+     * should fall back to a query
+     */
+    public static boolean isReady() {
+        if (!LIFECYCLE.isReady()) {
+            LIFECYCLE.start();
+        }
+        return LIFECYCLE.isReady();
+    }
+
+    public static int patientCount() {
+        awaitIndex();
+        return INDEX.patientCount();
+    }
+
+    public static int appointmentCount() {
+        awaitIndex();
+        return INDEX.appointmentCount();
+    }
+
+    /**
+     * @return whether every node of the expression is one the indexes answer: the
+     * interpreter's own AND, OR, NOT, age, gender and status
+     */
+    public static boolean supports(Expression expression) {
+        return expression != null && CohortIndex.supports(expression);
+    }
+
+    /**
+     * @return how many patients or appointments match, by today's ages; the first call
+     * waits for the indexes to be built
+     * @throws IllegalArgumentException if the expression is not {@link #supports supported}
+     */
+    public static int count(QueryTarget target, Expression expression) {
+        return count(target, expression, LocalDate.now());
+    }
+
+    public static int count(QueryTarget target, Expression expression, LocalDate today) {
+        awaitIndex();
+        return INDEX.count(target, expression, today);
+    }
+
+    /**
+     * @return ids of the matching patients or appointments, ascending, for loading a
+     * page of them with {@code findAllById}; the first call waits for the indexes to be
+     * built
+     */
+    public static List<Long> matchingIds(QueryTarget target, Expression expression) {
+        awaitIndex();
+        return INDEX.matchingIds(target, expression, LocalDate.now());
+    }
+
+    static void indexed(Patient patient) {
+        LIFECYCLE.changed(new CohortIndex.Key(QueryTarget.PATIENT, patient.getId()));
+        INDEX.putPatient(patient.getId(), patient.getGender(), patient.getDob());
+    }
+
+    static void indexed(Appointment appointment) {
+        LIFECYCLE.changed(new CohortIndex.Key(QueryTarget.APPOINTMENT, appointment.getId()));
+        Patient patient = appointment.getPatient();
+        INDEX.putAppointment(appointment.getId(), patient != null ? patient.getId() : null, appointment.getStatus());
+    }
+
+    static void patientRemoved(Long id) {
+        LIFECYCLE.changed(new CohortIndex.Key(QueryTarget.PATIENT, id));
+        INDEX.removePatient(id);
+    }
+
+    static void appointmentRemoved(Long id) {
+        LIFECYCLE.changed(new CohortIndex.Key(QueryTarget.APPOINTMENT, id));
+        INDEX.removeAppointment(id);
+    }
+
+    /**
+     * Builds the indexes on first use, or again if the last build failed.
+     */
+    private static void awaitIndex() {
+        if (LIFECYCLE.isReady()) {
+            return;
+        }
+        CompletableFuture<Integer> build = LIFECYCLE.start();
+        if (build.isCompletedExceptionally()) {
+            build = LIFECYCLE.rebuild();
+        }
+        build.join();
+    }
+
+    private static CompletableFuture<Integer> buildIndex(Set<CohortIndex.Key> changedDuringBuild) {
+        CompletableFuture<List<PatientProfileRow>> patients = AsyncDao.supply(new PatientDao()::findProfiles);
+        CompletableFuture<List<AppointmentStatusRow>> appointments = AsyncDao.supply(new AppointmentDao()::findStatuses);
+
+        return patients.thenCombine(appointments, (patientRows, appointmentRows) -> {
+            INDEX.reconcile(patientRows, appointmentRows, changedDuringBuild);
+            return INDEX.patientCount();
+        });
+    }
+}
@@ -0,0 +1,492 @@
+package lk.jiat.globemed.cohort;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lk.jiat.globemed.dto.AppointmentStatusRow;
+import lk.jiat.globemed.dto.PatientProfileRow;
+import lk.jiat.globemed.interpreter.AndExpression;
+import lk.jiat.globemed.interpreter.AppointmentStatusExpression;
+import lk.jiat.globemed.interpreter.Expression;
+import lk.jiat.globemed.interpreter.NotExpression;
+import lk.jiat.globemed.interpreter.OrExpression;
+import lk.jiat.globemed.interpreter.PatientAgeExpression;
+import lk.jiat.globemed.interpreter.PatientGenderExpression;
+import lk.jiat.globemed.interpreter.QueryContext;
+import lk.jiat.globemed.interpreter.QueryTarget;
+
+/**
+ * Patients and appointments numbered densely, with a {@link CompressedBitmap} of the
+ * members of each gender, birth year and appointment status. Expressions are evaluated
+ * as set operations: AND intersects, OR unites and NOT complements against everything
+ * still present.
+ * <p>
+ * Ages are answered from birth years rather than age bands, which would go stale every
+ * day. A year whose patients are all in or all out of the range is taken or skipped
+ * whole; only the year or two at each end of the range are checked patient by patient,
+ * with the same {@link Period} arithmetic as {@code interpret}.
+ * <p>
+ * Ordinals are never reused, so an appointment keeps pointing at its patient's slot
+ * even while that patient is missing; {@link #reconcile} renumbers from scratch.
+ */
+final class CohortIndex {
+
+    private static final int NONE = -1;
+    private static final int NO_DOB = Integer.MIN_VALUE;
+    private static final CompressedBitmap EMPTY = new CompressedBitmap();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> patientOrdinals = new HashMap<>();
+    private long[] patientIds = new long[0];
+    private int[] genderOf = new int[0];
+    private int[] dobOf = new int[0];
+    private CompressedBitmap livePatients = new CompressedBitmap();
+    private final Values genders = new Values();
+    private final TreeMap<Integer, CompressedBitmap> byBirthYear = new TreeMap<>();
+
+    private final Map<Long, Integer> appointmentOrdinals = new HashMap<>();
+    private long[] appointmentIds = new long[0];
+    private int[] patientOf = new int[0];
+    private int[] statusOf = new int[0];
+    private CompressedBitmap liveAppointments = new CompressedBitmap();
+    private final Values statuses = new Values();
+
+    void putPatient(Long id, String gender, LocalDate dob) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = patientOrdinal(id);
+            unlinkPatient(ordinal);
+            livePatients.add(ordinal);
+            genderOf[ordinal] = genders.add(gender, ordinal);
+            if (dob != null) {
+                dobOf[ordinal] = (int) dob.toEpochDay();
+                byBirthYear.computeIfAbsent(dob.getYear(), year -> new CompressedBitmap()).add(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void removePatient(Long id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = patientOrdinals.get(id);
+            if (ordinal != null) {
+                unlinkPatient(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void putAppointment(Long id, Long patientId, String status) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = appointmentOrdinal(id);
+            unlinkAppointment(ordinal);
+            liveAppointments.add(ordinal);
+            patientOf[ordinal] = patientId != null ? patientOrdinal(patientId) : NONE;
+            statusOf[ordinal] = statuses.add(status, ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void removeAppointment(Long id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = appointmentOrdinals.get(id);
+            if (ordinal != null) {
+                unlinkAppointment(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * A patient or appointment by id.
+     */
+    record Key(QueryTarget target, Long id) {
+    }
+
+    /**
+     * Replaces the contents with a snapshot, except for the rows in {@code newer}, whose
+     * current state was written after the snapshot was read and is kept.
+     */
+    void reconcile(List<PatientProfileRow> patientRows, List<AppointmentStatusRow> appointmentRows,
+            Set<Key> newer) {
+        lock.writeLock().lock();
+        try {
+            Set<Long> newerPatients = new HashSet<>();
+            Set<Long> newerAppointments = new HashSet<>();
+            for (Key key : newer) {
+                (key.target() == QueryTarget.PATIENT ? newerPatients : newerAppointments).add(key.id());
+            }
+            List<PatientProfileRow> keptPatients = new ArrayList<>();
+            for (Long id : newerPatients) {
+                Integer ordinal = patientOrdinals.get(id);
+                if (ordinal != null && livePatients.contains(ordinal)) {
+                    keptPatients.add(new PatientProfileRow(id, genders.name(genderOf[ordinal]),
+                            dobOf[ordinal] == NO_DOB ? null : LocalDate.ofEpochDay(dobOf[ordinal])));
+                }
+            }
+            List<AppointmentStatusRow> keptAppointments = new ArrayList<>();
+            for (Long id : newerAppointments) {
+                Integer ordinal = appointmentOrdinals.get(id);
+                if (ordinal != null && liveAppointments.contains(ordinal)) {
+                    int patient = patientOf[ordinal];
+                    keptAppointments.add(new AppointmentStatusRow(id, patient == NONE ? null : patientIds[patient],
+                            statuses.name(statusOf[ordinal])));
+                }
+            }
+            clear();
+            for (PatientProfileRow row : patientRows) {
+                if (!newerPatients.contains(row.id())) {
+                    putPatient(row.id(), row.gender(), row.dob());
+                }
+            }
+            keptPatients.forEach(row -> putPatient(row.id(), row.gender(), row.dob()));
+            for (AppointmentStatusRow row : appointmentRows) {
+                if (!newerAppointments.contains(row.id())) {
+                    putAppointment(row.id(), row.patientId(), row.status());
+                }
+            }
+            keptAppointments.forEach(row -> putAppointment(row.id(), row.patientId(), row.status()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int patientCount() {
+        lock.readLock().lock();
+        try {
+            return livePatients.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int appointmentCount() {
+        lock.readLock().lock();
+        try {
+            return liveAppointments.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the expression has a node other than the
+     * interpreter's own, which no bitmap answers
+     */
+    int count(QueryTarget target, Expression expression, LocalDate today) {
+        lock.readLock().lock();
+        try {
+            return evaluate(target, expression, today).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return ids of the matching patients or appointments, ascending
+     */
+    List<Long> matchingIds(QueryTarget target, Expression expression, LocalDate today) {
+        long[] ids;
+        lock.readLock().lock();
+        try {
+            CompressedBitmap matches = evaluate(target, expression, today);
+            long[] ordinalIds = target == QueryTarget.PATIENT ? patientIds : appointmentIds;
+            ids = new long[matches.cardinality()];
+            int[] next = {0};
+            matches.forEach(ordinal -> ids[next[0]++] = ordinalIds[ordinal]);
+        } finally {
+            lock.readLock().unlock();
+        }
+        Arrays.sort(ids);
+        List<Long> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    static boolean supports(Expression expression) {
+        if (expression instanceof AndExpression and) {
+            return supports(and.getExpr1()) && supports(and.getExpr2());
+        }
+        if (expression instanceof OrExpression or) {
+            return supports(or.getExpr1()) && supports(or.getExpr2());
+        }
+        if (expression instanceof NotExpression not) {
+            return supports(not.getExpression());
+        }
+        return expression instanceof PatientAgeExpression || expression instanceof PatientGenderExpression
+                || expression instanceof AppointmentStatusExpression;
+    }
+
+    private CompressedBitmap evaluate(QueryTarget target, Expression expression, LocalDate today) {
+        if (expression == null) {
+            throw new IllegalArgumentException("Nothing to evaluate: the expression is null");
+        }
+        if (!supports(expression)) {
+            throw new IllegalArgumentException("The cohort index cannot evaluate " + expression);
+        }
+        return target == QueryTarget.PATIENT ? patients(expression, today) : appointments(expression, today);
+    }
+
+    // The result may be one of the index's own bitmaps; callers only read it.
+    private CompressedBitmap patients(Expression expression, LocalDate today) {
+        if (expression instanceof AndExpression and) {
+            return patients(and.getExpr1(), today).and(patients(and.getExpr2(), today));
+        }
+        if (expression instanceof OrExpression or) {
+            return patients(or.getExpr1(), today).or(patients(or.getExpr2(), today));
+        }
+        if (expression instanceof NotExpression not) {
+            return livePatients.andNot(patients(not.getExpression(), today));
+        }
+        if (expression instanceof PatientGenderExpression gender) {
+            return genders.members(gender.getGender());
+        }
+        if (expression instanceof PatientAgeExpression age) {
+            return age(age.getOperator(), age.getAge(), today);
+        }
+        // A patient on its own has no appointment status.
+        return EMPTY;
+    }
+
+    private CompressedBitmap appointments(Expression expression, LocalDate today) {
+        if (!mentionsStatus(expression)) {
+            // Decided by the patient alone: evaluate once per patient, then join. An
+            // appointment whose patient is gone gets the value interpret() gives without one.
+            return withPatientIn(patients(expression, today), expression.interpret(new QueryContext()));
+        }
+        if (expression instanceof AndExpression and) {
+            return appointments(and.getExpr1(), today).and(appointments(and.getExpr2(), today));
+        }
+        if (expression instanceof OrExpression or) {
+            return appointments(or.getExpr1(), today).or(appointments(or.getExpr2(), today));
+        }
+        if (expression instanceof NotExpression not) {
+            return liveAppointments.andNot(appointments(not.getExpression(), today));
+        }
+        return statuses.members(((AppointmentStatusExpression) expression).getStatus());
+    }
+
+    private static boolean mentionsStatus(Expression expression) {
+        if (expression instanceof AndExpression and) {
+            return mentionsStatus(and.getExpr1()) || mentionsStatus(and.getExpr2());
+        }
+        if (expression instanceof OrExpression or) {
+            return mentionsStatus(or.getExpr1()) || mentionsStatus(or.getExpr2());
+        }
+        if (expression instanceof NotExpression not) {
+            return mentionsStatus(not.getExpression());
+        }
+        return expression instanceof AppointmentStatusExpression;
+    }
+
+    private CompressedBitmap withPatientIn(CompressedBitmap matchingPatients, boolean whenMissing) {
+        long[] matching = matchingPatients.toWords(patientIds.length);
+        long[] present = livePatients.toWords(patientIds.length);
+        long[] result = new long[(appointmentIds.length + 63) >>> 6];
+        liveAppointments.forEach(ordinal -> {
+            int patient = patientOf[ordinal];
+            boolean matches = patient == NONE || (present[patient >>> 6] & (1L << patient)) == 0
+                    ? whenMissing
+                    : (matching[patient >>> 6] & (1L << patient)) != 0;
+            if (matches) {
+                result[ordinal >>> 6] |= 1L << ordinal;
+            }
+        });
+        return CompressedBitmap.fromWords(result);
+    }
+
+    private CompressedBitmap age(String operator, int years, LocalDate today) {
+        if (operator == null) {
+            return EMPTY;
+        }
+        // Age in [atLeast, below).
+        long atLeast = Long.MIN_VALUE;
+        long below = Long.MAX_VALUE;
+        switch (operator) {
+            case ">=" -> atLeast = years;
+            case ">" -> atLeast = years + 1L;
+            case "<" -> below = years;
+            case "<=" -> below = years + 1L;
+            case "=", "==" -> {
+                atLeast = years;
+                below = years + 1L;
+            }
+            default -> {
+                // interpret() is false for an operator it does not know.
+                return EMPTY;
+            }
+        }
+        return bornWithAge(atLeast, below, today);
+    }
+
+    private CompressedBitmap bornWithAge(long atLeast, long below, LocalDate today) {
+        long[] result = new long[(patientIds.length + 63) >>> 6];
+        for (Map.Entry<Integer, CompressedBitmap> year : byBirthYear.entrySet()) {
+            // Age never increases with the date of birth, so the oldest and youngest
+            // possible ages in the year bound everyone born in it.
+            int oldest = ageOn(LocalDate.of(year.getKey(), 1, 1), today);
+            int youngest = ageOn(LocalDate.of(year.getKey(), 12, 31), today);
+            if (youngest >= atLeast && oldest < below) {
+                year.getValue().orInto(result);
+            } else if (oldest >= atLeast && youngest < below) {
+                year.getValue().forEach(ordinal -> {
+                    int age = ageOn(LocalDate.ofEpochDay(dobOf[ordinal]), today);
+                    if (age >= atLeast && age < below) {
+                        result[ordinal >>> 6] |= 1L << ordinal;
+                    }
+                });
+            }
+        }
+        return CompressedBitmap.fromWords(result);
+    }
+
+    private static int ageOn(LocalDate dob, LocalDate today) {
+        return Period.between(dob, today).getYears();
+    }
+
+    private int patientOrdinal(Long id) {
+        Integer ordinal = patientOrdinals.get(id);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        int next = patientOrdinals.size();
+        if (next == patientIds.length) {
+            int capacity = Math.max(1024, next * 2);
+            patientIds = Arrays.copyOf(patientIds, capacity);
+            genderOf = Arrays.copyOf(genderOf, capacity);
+            dobOf = Arrays.copyOf(dobOf, capacity);
+        }
+        patientIds[next] = id;
+        genderOf[next] = NONE;
+        dobOf[next] = NO_DOB;
+        patientOrdinals.put(id, next);
+        return next;
+    }
+
+    private int appointmentOrdinal(Long id) {
+        Integer ordinal = appointmentOrdinals.get(id);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        int next = appointmentOrdinals.size();
+        if (next == appointmentIds.length) {
+            int capacity = Math.max(1024, next * 2);
+            appointmentIds = Arrays.copyOf(appointmentIds, capacity);
+            patientOf = Arrays.copyOf(patientOf, capacity);
+            statusOf = Arrays.copyOf(statusOf, capacity);
+        }
+        appointmentIds[next] = id;
+        patientOf[next] = NONE;
+        statusOf[next] = NONE;
+        appointmentOrdinals.put(id, next);
+        return next;
+    }
+
+    private void unlinkPatient(int ordinal) {
+        livePatients.remove(ordinal);
+        genders.remove(genderOf[ordinal], ordinal);
+        genderOf[ordinal] = NONE;
+        if (dobOf[ordinal] != NO_DOB) {
+            int year = LocalDate.ofEpochDay(dobOf[ordinal]).getYear();
+            CompressedBitmap born = byBirthYear.get(year);
+            born.remove(ordinal);
+            if (born.isEmpty()) {
+                byBirthYear.remove(year);
+            }
+            dobOf[ordinal] = NO_DOB;
+        }
+    }
+
+    private void unlinkAppointment(int ordinal) {
+        liveAppointments.remove(ordinal);
+        statuses.remove(statusOf[ordinal], ordinal);
+        statusOf[ordinal] = NONE;
+        patientOf[ordinal] = NONE;
+    }
+
+    private void clear() {
+        patientOrdinals.clear();
+        patientIds = new long[0];
+        genderOf = new int[0];
+        dobOf = new int[0];
+        livePatients = new CompressedBitmap();
+        genders.clear();
+        byBirthYear.clear();
+        appointmentOrdinals.clear();
+        appointmentIds = new long[0];
+        patientOf = new int[0];
+        statusOf = new int[0];
+        liveAppointments = new CompressedBitmap();
+        statuses.clear();
+    }
+
+    /**
+     * The distinct values of one text attribute, compared ignoring case as
+     * {@code interpret} does, each with the bitmap of who has it.
+     */
+    private static final class Values {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private final List<CompressedBitmap> members = new ArrayList<>();
+
+        int add(String value, int ordinal) {
+            if (value == null) {
+                return NONE;
+            }
+            Integer code = codes.get(key(value));
+            if (code == null) {
+                code = names.size();
+                codes.put(key(value), code);
+                names.add(value);
+                members.add(new CompressedBitmap());
+            }
+            members.get(code).add(ordinal);
+            return code;
+        }
+
+        void remove(int code, int ordinal) {
+            if (code != NONE) {
+                members.get(code).remove(ordinal);
+            }
+        }
+
+        CompressedBitmap members(String value) {
+            Integer code = value != null ? codes.get(key(value)) : null;
+            return code != null ? members.get(code) : EMPTY;
+        }
+
+        String name(int code) {
+            return code == NONE ? null : names.get(code);
+        }
+
+        void clear() {
+            codes.clear();
+            names.clear();
+            members.clear();
+        }
+
+        private static String key(String value) {
+            return value.toLowerCase(Locale.ROOT);
+        }
+    }
+}
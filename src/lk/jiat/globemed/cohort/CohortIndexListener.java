@@ -0,0 +1,93 @@
+package lk.jiat.globemed.cohort;
+
+import java.util.Set;
+import lk.jiat.globemed.model.Appointment;
+import lk.jiat.globemed.model.Patient;
+import lk.jiat.globemed.util.HibernateUtil;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Applies committed patient and appointment writes to {@link CohortEngine}. Rolled-back
+ * writes never reach the indexes.
+ */
+final class CohortIndexListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private static final Set<Class<?>> INDEXED = Set.of(Patient.class, Appointment.class);
+
+    private static boolean installed;
+
+    /**
+     * Registers the listener with the session factory; only the first call does anything.
+     */
+    static synchronized void install() {
+        if (installed) {
+            return;
+        }
+        CohortIndexListener listener = new CohortIndexListener();
+        EventListenerRegistry registry = HibernateUtil.getSessionFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+        installed = true;
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return INDEXED.contains(persister.getMappedClass());
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        indexed(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        indexed(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (!(event.getId() instanceof Long id)) {
+            return;
+        }
+        if (event.getEntity() instanceof Patient) {
+            CohortEngine.patientRemoved(id);
+        } else if (event.getEntity() instanceof Appointment) {
+            CohortEngine.appointmentRemoved(id);
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    private void indexed(Object entity) {
+        if (entity instanceof Patient patient) {
+            CohortEngine.indexed(patient);
+        } else if (entity instanceof Appointment appointment) {
+            CohortEngine.indexed(appointment);
+        }
+    }
+}
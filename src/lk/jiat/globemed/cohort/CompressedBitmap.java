@@ -0,0 +1,438 @@
+package lk.jiat.globemed.cohort;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A set of non-negative ints split into chunks of 65536 by their high 16 bits, each
+ * chunk stored the cheaper way: a sorted array of low bits while it holds up to
+ * {@value #ARRAY_LIMIT} values, a plain 8 KB bitset above that. Sparse cohorts stay
+ * small and dense ones are combined a word at a time.
+ * <p>
+ * Not thread-safe; {@link CohortIndex} guards every bitmap with its lock.
+ */
+final class CompressedBitmap {
+
+    static final int ARRAY_LIMIT = 4096;
+    private static final int WORDS = 1024;
+
+    private int[] keys = new int[0];
+    private Object[] chunks = new Object[0];
+    private int size;
+
+    void add(int value) {
+        int key = value >>> 16;
+        int index = indexOf(key);
+        if (index < 0) {
+            index = -index - 1;
+            insertChunk(index, key, new ArrayChunk());
+        }
+        Object chunk = chunks[index];
+        if (chunk instanceof ArrayChunk array) {
+            if (array.add((char) value) && array.size > ARRAY_LIMIT) {
+                chunks[index] = array.toBits();
+            }
+        } else {
+            ((BitsChunk) chunk).add((char) value);
+        }
+    }
+
+    void remove(int value) {
+        int index = indexOf(value >>> 16);
+        if (index < 0) {
+            return;
+        }
+        Object chunk = chunks[index];
+        int remaining;
+        if (chunk instanceof ArrayChunk array) {
+            array.remove((char) value);
+            remaining = array.size;
+        } else {
+            BitsChunk bits = (BitsChunk) chunk;
+            bits.remove((char) value);
+            remaining = bits.cardinality;
+            if (remaining <= ARRAY_LIMIT / 2) {
+                chunks[index] = bits.toArray();
+            }
+        }
+        if (remaining == 0) {
+            removeChunk(index);
+        }
+    }
+
+    boolean contains(int value) {
+        int index = indexOf(value >>> 16);
+        if (index < 0) {
+            return false;
+        }
+        Object chunk = chunks[index];
+        return chunk instanceof ArrayChunk array ? array.contains((char) value) : ((BitsChunk) chunk).contains((char) value);
+    }
+
+    int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += chunks[i] instanceof ArrayChunk array ? array.size : ((BitsChunk) chunks[i]).cardinality;
+        }
+        return cardinality;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return a new bitmap with the values in both
+     */
+    CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.appendChunk(keys[i], combine(chunks[i], other.chunks[j], Op.AND));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return a new bitmap with the values in either
+     */
+    CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j >= other.size || (i < size && keys[i] < other.keys[j])) {
+                result.appendChunk(keys[i], copyOf(chunks[i]));
+                i++;
+            } else if (i >= size || keys[i] > other.keys[j]) {
+                result.appendChunk(other.keys[j], copyOf(other.chunks[j]));
+                j++;
+            } else {
+                result.appendChunk(keys[i], combine(chunks[i], other.chunks[j], Op.OR));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return a new bitmap with the values in this one but not in {@code other}
+     */
+    CompressedBitmap andNot(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            if (j < other.size && other.keys[j] == keys[i]) {
+                result.appendChunk(keys[i], combine(chunks[i], other.chunks[j], Op.AND_NOT));
+            } else {
+                result.appendChunk(keys[i], copyOf(chunks[i]));
+            }
+        }
+        return result;
+    }
+
+    void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            int high = keys[i] << 16;
+            if (chunks[i] instanceof ArrayChunk array) {
+                for (int k = 0; k < array.size; k++) {
+                    action.accept(high | array.values[k]);
+                }
+            } else {
+                long[] words = ((BitsChunk) chunks[i]).words;
+                for (int w = 0; w < WORDS; w++) {
+                    long word = words[w];
+                    while (word != 0) {
+                        action.accept(high | (w << 6) | Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the values below {@code bound}, rounded up to a multiple of 64, as a flat
+     * bitset, for tests in a loop
+     */
+    long[] toWords(int bound) {
+        long[] flat = new long[(bound + 63) >>> 6];
+        orInto(flat);
+        return flat;
+    }
+
+    /**
+     * Sets this bitmap's values below {@code flat.length * 64} in a flat bitset.
+     */
+    void orInto(long[] flat) {
+        for (int i = 0; i < size; i++) {
+            int first = keys[i] * WORDS;
+            if (first >= flat.length) {
+                break;
+            }
+            if (chunks[i] instanceof BitsChunk bits) {
+                int end = Math.min(WORDS, flat.length - first);
+                for (int w = 0; w < end; w++) {
+                    flat[first + w] |= bits.words[w];
+                }
+            } else {
+                ArrayChunk array = (ArrayChunk) chunks[i];
+                int high = keys[i] << 16;
+                for (int k = 0; k < array.size; k++) {
+                    int value = high | array.values[k];
+                    if (value >>> 6 < flat.length) {
+                        flat[value >>> 6] |= 1L << value;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the values set in a flat bitset, compressed
+     */
+    static CompressedBitmap fromWords(long[] flat) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int first = 0; first < flat.length; first += WORDS) {
+            int end = Math.min(flat.length, first + WORDS);
+            int cardinality = 0;
+            for (int w = first; w < end; w++) {
+                cardinality += Long.bitCount(flat[w]);
+            }
+            if (cardinality > 0) {
+                long[] words = Arrays.copyOfRange(flat, first, first + WORDS);
+                BitsChunk chunk = new BitsChunk(words, cardinality);
+                bitmap.appendChunk(first / WORDS, cardinality <= ARRAY_LIMIT ? chunk.toArray() : chunk);
+            }
+        }
+        return bitmap;
+    }
+
+    private enum Op {
+        AND, OR, AND_NOT
+    }
+
+    private static Object combine(Object left, Object right, Op op) {
+        if (left instanceof ArrayChunk a && right instanceof ArrayChunk b) {
+            return ArrayChunk.merge(a, b, op);
+        }
+        if (op == Op.AND && (left instanceof ArrayChunk || right instanceof ArrayChunk)) {
+            // Intersecting with a small array only needs lookups into the other side.
+            ArrayChunk small = left instanceof ArrayChunk a ? a : (ArrayChunk) right;
+            BitsChunk bits = (BitsChunk) (left instanceof ArrayChunk ? right : left);
+            ArrayChunk result = new ArrayChunk();
+            for (int k = 0; k < small.size; k++) {
+                if (bits.contains(small.values[k])) {
+                    result.append(small.values[k]);
+                }
+            }
+            return result;
+        }
+        long[] a = bitsOf(left);
+        long[] b = bitsOf(right);
+        long[] words = new long[WORDS];
+        int cardinality = 0;
+        for (int w = 0; w < WORDS; w++) {
+            words[w] = switch (op) {
+                case AND -> a[w] & b[w];
+                case OR -> a[w] | b[w];
+                case AND_NOT -> a[w] & ~b[w];
+            };
+            cardinality += Long.bitCount(words[w]);
+        }
+        BitsChunk result = new BitsChunk(words, cardinality);
+        return cardinality <= ARRAY_LIMIT ? result.toArray() : result;
+    }
+
+    private static long[] bitsOf(Object chunk) {
+        return chunk instanceof BitsChunk bits ? bits.words : ((ArrayChunk) chunk).toBits().words;
+    }
+
+    private static Object copyOf(Object chunk) {
+        return chunk instanceof ArrayChunk array ? array.copy() : ((BitsChunk) chunk).copy();
+    }
+
+    private void appendChunk(int key, Object chunk) {
+        boolean empty = chunk instanceof ArrayChunk array ? array.size == 0 : ((BitsChunk) chunk).cardinality == 0;
+        if (!empty) {
+            insertChunk(size, key, chunk);
+        }
+    }
+
+    private int indexOf(int key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertChunk(int index, int key, Object chunk) {
+        if (size == keys.length) {
+            int capacity = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            chunks = Arrays.copyOf(chunks, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(chunks, index, chunks, index + 1, size - index);
+        keys[index] = key;
+        chunks[index] = chunk;
+        size++;
+    }
+
+    private void removeChunk(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(chunks, index + 1, chunks, index, size - index - 1);
+        size--;
+        chunks[size] = null;
+    }
+
+    private static final class ArrayChunk {
+
+        private char[] values = new char[4];
+        private int size;
+
+        boolean add(char value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return false;
+            }
+            index = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+            size++;
+            return true;
+        }
+
+        void append(char value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void remove(char value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                size--;
+            }
+        }
+
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+
+        ArrayChunk copy() {
+            ArrayChunk copy = new ArrayChunk();
+            copy.values = Arrays.copyOf(values, Math.max(4, size));
+            copy.size = size;
+            return copy;
+        }
+
+        BitsChunk toBits() {
+            long[] words = new long[WORDS];
+            for (int k = 0; k < size; k++) {
+                words[values[k] >>> 6] |= 1L << values[k];
+            }
+            return new BitsChunk(words, size);
+        }
+
+        static Object merge(ArrayChunk a, ArrayChunk b, Op op) {
+            ArrayChunk result = new ArrayChunk();
+            result.values = new char[Math.max(4, op == Op.OR ? a.size + b.size : a.size)];
+            int i = 0;
+            int j = 0;
+            while (i < a.size && j < b.size) {
+                if (a.values[i] < b.values[j]) {
+                    if (op != Op.AND) {
+                        result.append(a.values[i]);
+                    }
+                    i++;
+                } else if (a.values[i] > b.values[j]) {
+                    if (op == Op.OR) {
+                        result.append(b.values[j]);
+                    }
+                    j++;
+                } else {
+                    if (op != Op.AND_NOT) {
+                        result.append(a.values[i]);
+                    }
+                    i++;
+                    j++;
+                }
+            }
+            while (op != Op.AND && i < a.size) {
+                result.append(a.values[i++]);
+            }
+            while (op == Op.OR && j < b.size) {
+                result.append(b.values[j++]);
+            }
+            if (result.size > ARRAY_LIMIT) {
+                // Only a union can outgrow an array.
+                return result.toBits();
+            }
+            return result;
+        }
+    }
+
+    private static final class BitsChunk {
+
+        private final long[] words;
+        private int cardinality;
+
+        BitsChunk(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        void add(char value) {
+            long before = words[value >>> 6];
+            words[value >>> 6] = before | (1L << value);
+            if (before != words[value >>> 6]) {
+                cardinality++;
+            }
+        }
+
+        void remove(char value) {
+            long before = words[value >>> 6];
+            words[value >>> 6] = before & ~(1L << value);
+            if (before != words[value >>> 6]) {
+                cardinality--;
+            }
+        }
+
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        BitsChunk copy() {
+            return new BitsChunk(words.clone(), cardinality);
+        }
+
+        ArrayChunk toArray() {
+            ArrayChunk array = new ArrayChunk();
+            array.values = new char[Math.max(4, cardinality)];
+            for (int w = 0; w < WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    array.values[array.size++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return array;
+        }
+    }
+}
@@ -1,120 +1,233 @@
 package lk.jiat.globemed.dao;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
+import lk.jiat.globemed.dao.RowCriteria.Criterion;
+import lk.jiat.globemed.dto.AppointmentRow;
+import lk.jiat.globemed.dto.AppointmentStatusRow;
+import lk.jiat.globemed.interpreter.Expression;
+import lk.jiat.globemed.interpreter.ExpressionCompiler;
+import lk.jiat.globemed.interpreter.QueryTarget;
 import lk.jiat.globemed.model.Appointment;
-import lk.jiat.globemed.util.HibernateUtil;
-import org.hibernate.Session;
-import org.hibernate.Transaction;
+import lk.jiat.globemed.util.UnitOfWork;
 import org.hibernate.query.Query;
 
 public class AppointmentDao {
 
     public Appointment create(Appointment appointment) {
-        Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            tx = session.beginTransaction();
+        return UnitOfWork.fromTransaction(session -> {
             session.persist(appointment);
-            tx.commit();
             return appointment;
-        } catch (Exception e) {
-            if (tx != null) {
-                tx.rollback();
-            }
-            throw e;
-        }
+        });
     }
 
     public Appointment findById(Long id) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return session.get(Appointment.class, id);
-        }
+        return UnitOfWork.fromSession(session -> session.get(Appointment.class, id));
     }
 
     public List<Appointment> findAll() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<Appointment> q = session.createQuery("FROM Appointment", Appointment.class);
             return q.getResultList();
-        }
+        });
+    }
+
+    /**
+     * Appointments, with their patient and doctor, matching an interpreter expression,
+     * filtered in the database as far as {@link ExpressionCompiler} can translate it.
+     */
+    public List<Appointment> findMatching(Expression expression) {
+        return EntityQueries.findMatching(Appointment.class,
+                "FROM Appointment a JOIN FETCH a.patient JOIN FETCH a.doctor",
+                ExpressionCompiler.compile(expression, QueryTarget.APPOINTMENT));
+    }
+
+    /**
+     * Patient and status of every appointment, without loading the entities.
+     */
+    public List<AppointmentStatusRow> findStatuses() {
+        return UnitOfWork.fromSession(session -> session.createQuery(
+                "SELECT new lk.jiat.globemed.dto.AppointmentStatusRow(a.id, a.patient.id, a.status) " +
+                "FROM Appointment a ORDER BY a.id", AppointmentStatusRow.class).getResultList());
+    }
+
+    public Page<Appointment> findPage(Long afterId, int limit) {
+        return findPage(afterId, limit, SortOrder.ASCENDING);
+    }
+
+    public Page<Appointment> findPage(Long afterId, int limit, SortOrder sort) {
+        return EntityQueries.findPage(Appointment.class, Appointment::getId, afterId, limit, sort);
+    }
+
+    public Stream<Appointment> streamAll() {
+        return EntityQueries.stream(Appointment.class, SortOrder.ASCENDING);
     }
 
     public Appointment update(Appointment appointment) {
-        Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            tx = session.beginTransaction();
+        return UnitOfWork.fromTransaction(session -> {
             Appointment merged = (Appointment) session.merge(appointment);
-            tx.commit();
             return merged;
-        } catch (Exception e) {
-            if (tx != null) {
-                tx.rollback();
-            }
-            throw e;
-        }
+        });
     }
 
     public boolean deleteById(Long id) {
-        Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromTransaction(session -> {
             Appointment a = session.get(Appointment.class, id);
             if (a == null) {
                 return false;
             }
-            tx = session.beginTransaction();
             session.remove(a);
-            tx.commit();
             return true;
-        } catch (Exception e) {
-            if (tx != null) {
-                tx.rollback();
-            }
-            throw e;
-        }
+        });
+    }
+
+    public BulkWriteResult createAll(Collection<Appointment> appointments) {
+        return createAll(appointments, BulkWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkWriteResult createAll(Collection<Appointment> appointments, int chunkSize) {
+        return BulkWriter.persistAll(appointments, chunkSize);
+    }
+
+    public BulkWriteResult updateAll(Collection<Appointment> appointments) {
+        return updateAll(appointments, BulkWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkWriteResult updateAll(Collection<Appointment> appointments, int chunkSize) {
+        return BulkWriter.mergeAll(appointments, chunkSize);
+    }
+
+    public BulkWriteResult deleteAllById(Collection<Long> ids) {
+        return deleteAllById(ids, BulkWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkWriteResult deleteAllById(Collection<Long> ids, int chunkSize) {
+        return BulkWriter.removeAllById(Appointment.class, ids, chunkSize);
     }
 
     public List<Appointment> findByDoctor(Long doctorId) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             return session.createQuery(
                     "FROM Appointment a WHERE a.doctor.id = :doctorId", Appointment.class)
                     .setParameter("doctorId", doctorId)
                     .getResultList();
-        }
+        });
     }
 
     public List<Appointment> findByPatientId(Long patientId) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<Appointment> q = session.createQuery("FROM Appointment a WHERE a.patient.id = :pid", Appointment.class);
             q.setParameter("pid", patientId);
             return q.getResultList();
-        }
+        });
     }
 
     public List<Appointment> findByStaffId(Long staffId) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<Appointment> q = session.createQuery("FROM Appointment a WHERE a.doctor.id = :sid", Appointment.class);
             q.setParameter("sid", staffId);
             return q.getResultList();
-        }
+        });
     }
 
     public List<Appointment> findByStatus(String status) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<Appointment> q = session.createQuery("FROM Appointment a WHERE a.status = :st", Appointment.class);
             q.setParameter("st", status);
             return q.getResultList();
-        }
+        });
     }
 
     public List<Appointment> findBetween(LocalDateTime from, LocalDateTime to) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<Appointment> q = session.createQuery(
                     "FROM Appointment a WHERE a.appointmentDateTime >= :from AND a.appointmentDateTime <= :to",
                     Appointment.class);
             q.setParameter("from", from);
             q.setParameter("to", to);
             return q.getResultList();
+        });
+    }
+
+    public List<AppointmentRow> findRows() {
+        return findRows(RowCriteria.all());
+    }
+
+    /**
+     * Rows matching {@code criteria}: status, text found in the patient or doctor name,
+     * and a range of appointment times.
+     */
+    public List<AppointmentRow> findRows(RowCriteria criteria) {
+        return rowQuery(criteria).list();
+    }
+
+    public List<AppointmentRow> findRows(RowCriteria criteria, PageRequest page) {
+        return rowQuery(criteria).list(page);
+    }
+
+    public long countRows(RowCriteria criteria) {
+        return rowQuery(criteria).count();
+    }
+
+    /**
+     * Streams the rows matching {@code criteria} in id order, without holding them; close
+     * the stream when done.
+     */
+    public Stream<AppointmentRow> streamRowsById(RowCriteria criteria) {
+        return rowQuery(criteria).streamById();
+    }
+
+    /**
+     * Streams the rows matching {@code criteria} in appointment time order, without
+     * holding them; close the stream when done.
+     */
+    public Stream<AppointmentRow> streamRows(RowCriteria criteria) {
+        return rowQuery(criteria).stream();
+    }
+
+    /**
+     * @return the number of appointments with each status; those without one are under
+     * {@code null}
+     */
+    public Map<String, Long> countsByStatus() {
+        return EntityQueries.countBy(
+                "SELECT a.status, COUNT(a) FROM Appointment a GROUP BY a.status ORDER BY a.status");
+    }
+
+    public List<AppointmentRow> findRowsByPatient(Long patientId) {
+        if (patientId == null) {
+            throw new IllegalArgumentException("patientId is required");
+        }
+        return rowQuery(RowCriteria.all()).where("p.id = :patientId", "patientId", patientId).list();
+    }
+
+    public List<AppointmentRow> findRowsByDoctor(Long doctorId) {
+        if (doctorId == null) {
+            throw new IllegalArgumentException("doctorId is required");
         }
+        return rowQuery(RowCriteria.all()).where("d.id = :doctorId", "doctorId", doctorId).list();
+    }
+
+    private RowQuery<AppointmentRow> rowQuery(RowCriteria criteria) {
+        criteria.requireOnly("Appointments", Criterion.STATUS, Criterion.TEXT, Criterion.DATE_RANGE);
+        return new RowQuery<>(AppointmentRow.class,
+                "SELECT new lk.jiat.globemed.dto.AppointmentRow(a.id, a.appointmentDateTime, a.status, " +
+                "CONCAT(p.firstName, ' ', p.lastName), d.name)",
+                "FROM Appointment a JOIN a.patient p JOIN a.doctor d", "a.id")
+                .where("a.status = :status", "status", criteria.getStatus())
+                .where("(LOWER(CONCAT(p.firstName, ' ', p.lastName)) LIKE :text ESCAPE '!' " +
+                        "OR LOWER(d.name) LIKE :text ESCAPE '!')", "text", RowQuery.containsPattern(criteria.getText()))
+                .where("a.appointmentDateTime >= :from", "from", criteria.getFrom())
+                .where("a.appointmentDateTime <= :to", "to", criteria.getTo())
+                .sortable("appointmentDateTime", "a.appointmentDateTime")
+                .sortable("status", "a.status")
+                .sortable("patientName", "p.firstName", "p.lastName")
+                .sortable("doctorName", "d.name")
+                .defaultSort("appointmentDateTime", SortOrder.ASCENDING);
     }
 
     public Optional<Appointment> findOptionalById(Long id) {
@@ -0,0 +1,132 @@
+package lk.jiat.globemed.dao;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lk.jiat.globemed.util.HibernateUtil;
+
+/**
+ * Runs DAO and service calls off the calling thread, one virtual thread per call.
+ * At most one call fewer than the connection pool size runs at once, so a
+ * synchronous call from the EDT can always get a connection; the rest wait for a
+ * permit without holding one.
+ * <p>
+ * Cancelling the returned future with {@code cancel(true)}, or letting its timeout
+ * expire, interrupts the call. A call interrupted inside JDBC loses its connection,
+ * which the pool then discards. {@code cancel(false)} only stops a call still waiting
+ * to run; one already running finishes and its result is dropped. Futures derived
+ * with {@code thenApply} and friends do not propagate cancellation back, so keep the
+ * future returned here if you may cancel it.
+ */
+public final class AsyncDao {
+
+    private static final ExecutorService EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("dao-", 0).factory());
+    private static final int MAX_CONCURRENCY = Math.max(1, HibernateUtil.getConnectionPool().getMaxConnections() - 1);
+    private static final Semaphore PERMITS = new Semaphore(MAX_CONCURRENCY, true);
+
+    private AsyncDao() {
+    }
+
+    public static <T> CompletableFuture<T> supply(Supplier<T> call) {
+        QueryFuture<T> future = new QueryFuture<>();
+        EXECUTOR.execute(() -> execute(future, call));
+        return future;
+    }
+
+    public static <T> CompletableFuture<T> supply(Supplier<T> call, Duration timeout) {
+        CompletableFuture<T> future = supply(call);
+        future.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    public static CompletableFuture<Void> run(Runnable call) {
+        return supply(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    public static CompletableFuture<Void> run(Runnable call, Duration timeout) {
+        CompletableFuture<Void> future = run(call);
+        future.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    public static int getMaxConcurrency() {
+        return MAX_CONCURRENCY;
+    }
+
+    public static int getRunningCount() {
+        return MAX_CONCURRENCY - PERMITS.availablePermits();
+    }
+
+    public static int getWaitingCount() {
+        return PERMITS.getQueueLength();
+    }
+
+    private static <T> void execute(QueryFuture<T> future, Supplier<T> call) {
+        future.worker = Thread.currentThread();
+        try {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                PERMITS.acquire();
+            } catch (InterruptedException e) {
+                future.completeExceptionally(new CancellationException("Cancelled while waiting to run"));
+                return;
+            }
+            try {
+                // Marked first, so a cancel(false) from here on no longer interrupts.
+                future.running = true;
+                // Cancelled or timed out while waiting for a permit.
+                if (!future.isDone()) {
+                    future.complete(call.get());
+                }
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                PERMITS.release();
+            }
+        } finally {
+            future.worker = null;
+        }
+    }
+
+    private static final class QueryFuture<T> extends CompletableFuture<T> {
+
+        private volatile Thread worker;
+        private volatile boolean running;
+
+        @Override
+        public boolean completeExceptionally(Throwable ex) {
+            boolean completed = super.completeExceptionally(ex);
+            if (completed) {
+                interruptWorker();
+            }
+            return completed;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && (mayInterruptIfRunning || !running)) {
+                interruptWorker();
+            }
+            return cancelled;
+        }
+
+        private void interruptWorker() {
+            Thread thread = worker;
+            if (thread != null && thread != Thread.currentThread()) {
+                thread.interrupt();
+            }
+        }
+    }
+}
@@ -1,31 +1,46 @@
 package lk.jiat.globemed.dao;
 
+import java.util.Collection;
+import java.util.stream.Stream;
 import lk.jiat.globemed.model.AuditLog;
-import lk.jiat.globemed.util.HibernateUtil;
+import lk.jiat.globemed.util.UnitOfWork;
 import org.hibernate.Session;
-import org.hibernate.Transaction;
 
 public class AuditDao {
 
     public AuditLog create(AuditLog log) {
-        Transaction tx = null;
-        try (Session s = HibernateUtil.getSessionFactory().openSession()) {
-            tx = s.beginTransaction();
+        return UnitOfWork.fromTransaction(s -> {
             s.persist(log);
-            tx.commit();
             return log;
-        } catch (Exception e) {
-            if (tx != null) {
-                try {
-                    tx.rollback();
-                } catch (Exception ex) {
-                    System.out.println("AuditLog create");
-                }
-            }
-            throw e;
+        });
+    }
+
+    public BulkWriteResult createAll(Collection<AuditLog> logs) {
+        return createAll(logs, BulkWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkWriteResult createAll(Collection<AuditLog> logs, int chunkSize) {
+        return BulkWriter.persistAll(logs, chunkSize);
+    }
+
+    /**
+     * @return whether a connection to the database can be had and answers
+     */
+    public boolean isReachable() {
+        try {
+            return UnitOfWork.fromSession(s -> s.doReturningWork(connection -> connection.isValid(5)));
+        } catch (RuntimeException e) {
+            return false;
         }
     }
 
+    /**
+     * Streams every audit entry, oldest first; close the stream when done.
+     */
+    public Stream<AuditLog> streamAll() {
+        return EntityQueries.stream(AuditLog.class, SortOrder.ASCENDING);
+    }
+
     public void persistWithSession(Session session, AuditLog log) {
         if (session == null) {
             throw new IllegalArgumentException("session is null");
@@ -0,0 +1,469 @@
+package lk.jiat.globemed.dao;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import lk.jiat.globemed.model.AuditLog;
+import lk.jiat.globemed.util.HibernateUtil;
+
+/**
+ * Stores audit entries off the caller's thread. {@link #submit} only queues an entry; a
+ * background thread takes whatever has queued up, up to the batch size, and stores it as
+ * one JDBC batch in one commit, so a burst of changes costs one round trip instead of one
+ * each.
+ * <p>
+ * When the queue is full, or the database cannot be reached, entries are appended to
+ * the spill file and forced to disk. The writer loads the file into the database once it
+ * is reachable again, or on the next start. When the database is up but refuses a batch,
+ * the entries are stored one at a time, and any it refuses on its own goes to the
+ * dead-letter file beside the spill file, so it cannot hold back the rest.
+ * <p>
+ * At shutdown the queue is drained before the session factory closes, but entries still
+ * queued in memory are lost if the process dies. An entry replayed from the file by a
+ * run that died part way may be stored twice.
+ */
+public final class AuditWriter {
+
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final long RETRY_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final long SHUTDOWN_WAIT_MILLIS = 10_000;
+    private static final String NULL = "\\N";
+
+    private static AuditWriter defaultWriter;
+
+    private final AuditDao auditDao;
+    private final int capacity;
+    private final int batchSize;
+    private final Path spillFile;
+    private final Path replayFile;
+    private final Path deadLetterFile;
+
+    private final ConcurrentLinkedQueue<AuditLog> queue = new ConcurrentLinkedQueue<>();
+    // Slots taken in the queue; reserved before an entry goes in, so it never passes capacity.
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong handled = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final Object spillLock = new Object();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    // Used by the writer thread only.
+    private boolean databaseDown;
+    private long retryAt;
+
+    /**
+     * Starts the writer thread, which first loads any entries an earlier run spilled.
+     *
+     * @param capacity entries queued before further ones go straight to the spill file
+     * @param batchSize most entries stored in one commit
+     */
+    public AuditWriter(AuditDao auditDao, int capacity, int batchSize, Path spillFile) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.auditDao = auditDao;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.spillFile = spillFile.toAbsolutePath();
+        this.replayFile = this.spillFile.resolveSibling(this.spillFile.getFileName() + ".replay");
+        this.deadLetterFile = this.spillFile.resolveSibling(this.spillFile.getFileName() + ".dead");
+        this.writer = new Thread(this::run, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * The writer shared by the application, configured by {@code AUDIT_QUEUE_CAPACITY},
+     * {@code AUDIT_BATCH_SIZE} and {@code AUDIT_SPILL_FILE}, and closed at shutdown.
+     */
+    public static synchronized AuditWriter getDefault() {
+        if (defaultWriter == null) {
+            Dotenv env = Dotenv.configure().ignoreIfMissing().ignoreIfMalformed().load();
+            String spillFile = env.get("AUDIT_SPILL_FILE");
+            defaultWriter = new AuditWriter(new AuditDao(),
+                    intSetting(env, "AUDIT_QUEUE_CAPACITY", 10_000),
+                    intSetting(env, "AUDIT_BATCH_SIZE", 200),
+                    spillFile == null || spillFile.isBlank()
+                            ? Path.of(System.getProperty("user.home"), ".globemed", "audit-spill.log")
+                            : Path.of(spillFile.trim()));
+            HibernateUtil.runBeforeShutdown(defaultWriter::close);
+        }
+        return defaultWriter;
+    }
+
+    /**
+     * Queues {@code log} to be stored, or spills it at once when the queue is full.
+     *
+     * @throws UncheckedIOException when the entry had to be spilled and could not be
+     */
+    public void submit(AuditLog log) {
+        Objects.requireNonNull(log, "log");
+        submitted.incrementAndGet();
+        if (!running) {
+            spillNow(log);
+            return;
+        }
+        if (queued.incrementAndGet() > capacity) {
+            queued.decrementAndGet();
+            spillNow(log);
+            return;
+        }
+        queue.offer(log);
+        LockSupport.unpark(writer);
+    }
+
+    /**
+     * Waits until everything submitted so far has been stored, spilled or dead-lettered.
+     *
+     * @return {@code false} if that took longer than {@code timeoutMillis}
+     */
+    public boolean flush(long timeoutMillis) {
+        long target = submitted.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        LockSupport.unpark(writer);
+        while (handled.get() < target) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    /**
+     * Stores what is queued and stops the writer. Whatever it cannot store in time is
+     * spilled, to be loaded on the next start; entries submitted afterwards are spilled
+     * straight away.
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(SHUTDOWN_WAIT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<AuditLog> left = new ArrayList<>();
+        for (AuditLog log = queue.poll(); log != null; log = queue.poll()) {
+            left.add(log);
+        }
+        if (!left.isEmpty()) {
+            queued.addAndGet(-left.size());
+            spillOrReport(left);
+            handled.addAndGet(left.size());
+        }
+    }
+
+    public String getStatisticsSummary() {
+        return String.format("queued=%d written=%d in %d batches spilled=%d replayed=%d dead-lettered=%d%s",
+                queued.get(), written.get(), batches.get(), spilled.get(), replayed.get(), deadLettered.get(),
+                Files.exists(spillFile) || Files.exists(replayFile) ? " (spill file pending)" : "");
+    }
+
+    private void run() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        while (running || queued.get() > 0) {
+            AuditLog log;
+            while (batch.size() < batchSize && (log = queue.poll()) != null) {
+                batch.add(log);
+            }
+            if (batch.isEmpty()) {
+                if (running) {
+                    replayIfDue();
+                    LockSupport.parkNanos(this, IDLE_NANOS);
+                }
+                continue;
+            }
+
+            queued.addAndGet(-batch.size());
+            List<AuditLog> unstored = store(batch);
+            if (unstored.isEmpty()) {
+                if (running) {
+                    replayIfDue();
+                }
+            } else {
+                spillOrReport(unstored);
+            }
+            handled.addAndGet(batch.size());
+            batch.clear();
+        }
+    }
+
+    private void replayIfDue() {
+        if (System.nanoTime() - retryAt >= 0) {
+            replaySpilled();
+        }
+    }
+
+    /**
+     * Stores {@code batch}, entry by entry if the database is up but refuses it as a
+     * whole; entries it refuses on their own are dead-lettered.
+     *
+     * @return the entries not stored because the database is unreachable, to be spilled;
+     * after that nothing is tried again until {@link #RETRY_NANOS} have passed
+     */
+    private List<AuditLog> store(List<AuditLog> batch) {
+        if (databaseDown && System.nanoTime() - retryAt < 0) {
+            return batch;
+        }
+        Exception cause = storeBatch(batch);
+        if (cause == null) {
+            databaseDown = false;
+            return List.of();
+        }
+        if (!auditDao.isReachable()) {
+            return unreachable(batch, cause);
+        }
+
+        databaseDown = false;
+        for (int i = 0; i < batch.size(); i++) {
+            AuditLog log = batch.get(i);
+            cause = storeBatch(List.of(log));
+            if (cause == null) {
+                continue;
+            }
+            if (!auditDao.isReachable()) {
+                return unreachable(batch.subList(i, batch.size()), cause);
+            }
+            System.err.println("Audit entry refused, moving it to " + deadLetterFile + ": " + cause.getMessage());
+            deadLetter(log);
+        }
+        return List.of();
+    }
+
+    /**
+     * @return the failure, or {@code null} once every entry is stored
+     */
+    private Exception storeBatch(List<AuditLog> batch) {
+        try {
+            BulkWriteResult result = auditDao.createAll(batch, batchSize);
+            if (result.isSuccess()) {
+                written.addAndGet(batch.size());
+                batches.incrementAndGet();
+                return null;
+            }
+            return result.getFailures().get(0).getCause();
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    private List<AuditLog> unreachable(List<AuditLog> unstored, Exception cause) {
+        System.err.println("Could not store " + unstored.size() + " audit entries, spilling them to " + spillFile
+                + ": " + cause.getMessage());
+        databaseDown = true;
+        retryAt = System.nanoTime() + RETRY_NANOS;
+        return unstored;
+    }
+
+    /**
+     * Loads the spill file into the database. Entries the database refuses are
+     * dead-lettered by {@link #store}; once it cannot be reached, the rest of the file is
+     * spilled again for the next attempt.
+     */
+    private void replaySpilled() {
+        try {
+            synchronized (spillLock) {
+                if (!Files.exists(replayFile)) {
+                    if (!Files.exists(spillFile)) {
+                        return;
+                    }
+                    Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+
+            List<AuditLog> batch = new ArrayList<>(batchSize);
+            try (BufferedReader in = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+                for (String line = in.readLine(); line != null; line = in.readLine()) {
+                    try {
+                        batch.add(decode(line));
+                    } catch (RuntimeException e) {
+                        // A line cut short by a crash while it was being spilled.
+                        System.err.println("Skipping unreadable spilled audit entry: " + line);
+                    }
+                    if (batch.size() == batchSize) {
+                        replay(batch);
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                replay(batch);
+            }
+            Files.delete(replayFile);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not replay spilled audit entries from " + replayFile + ": " + e.getMessage());
+            retryAt = System.nanoTime() + RETRY_NANOS;
+        }
+    }
+
+    private void replay(List<AuditLog> batch) {
+        long writtenBefore = written.get();
+        List<AuditLog> unstored = store(batch);
+        if (!unstored.isEmpty()) {
+            spill(unstored);
+        }
+        replayed.addAndGet(written.get() - writtenBefore);
+    }
+
+    /**
+     * Spills from the writer thread, which has no caller to report a failure to.
+     */
+    private void spillOrReport(List<AuditLog> logs) {
+        try {
+            spill(logs);
+        } catch (UncheckedIOException e) {
+            System.err.println("Could not spill audit entries to " + spillFile + ": " + e.getMessage());
+            for (AuditLog log : logs) {
+                System.err.println("Unsaved audit entry: " + encode(log));
+            }
+        }
+    }
+
+    private void spillNow(AuditLog log) {
+        try {
+            spill(List.of(log));
+        } finally {
+            handled.incrementAndGet();
+        }
+    }
+
+    private void spill(List<AuditLog> logs) {
+        append(spillFile, logs);
+        spilled.addAndGet(logs.size());
+    }
+
+    /**
+     * Keeps an entry the database refuses out of the spill file, where it would be
+     * replayed and refused forever. Failing that it is only logged.
+     */
+    private void deadLetter(AuditLog log) {
+        try {
+            append(deadLetterFile, List.of(log));
+            deadLettered.incrementAndGet();
+        } catch (UncheckedIOException e) {
+            System.err.println("Could not dead-letter audit entry to " + deadLetterFile + ": " + e.getMessage());
+            System.err.println("Unsaved audit entry: " + encode(log));
+        }
+    }
+
+    private void append(Path file, List<AuditLog> logs) {
+        StringBuilder lines = new StringBuilder();
+        for (AuditLog log : logs) {
+            lines.append(encode(log)).append('\n');
+        }
+        synchronized (spillLock) {
+            try {
+                Files.createDirectories(file.getParent());
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    ByteBuffer bytes = StandardCharsets.UTF_8.encode(lines.toString());
+                    while (bytes.hasRemaining()) {
+                        channel.write(bytes);
+                    }
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write audit entries to " + file, e);
+            }
+        }
+    }
+
+    /**
+     * One line of tab-separated fields, with backslash escapes for tabs, line breaks and
+     * backslashes, and {@code \N} for null.
+     */
+    private static String encode(AuditLog log) {
+        StringBuilder line = new StringBuilder();
+        Object[] fields = {log.getPerformedAt(), log.getEntityName(), log.getEntityId(), log.getAction(),
+            log.getPerformedBy(), log.getDetails()};
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                line.append('\t');
+            }
+            if (fields[i] == null) {
+                line.append(NULL);
+                continue;
+            }
+            for (char c : fields[i].toString().toCharArray()) {
+                switch (c) {
+                    case '\\' -> line.append("\\\\");
+                    case '\t' -> line.append("\\t");
+                    case '\n' -> line.append("\\n");
+                    case '\r' -> line.append("\\r");
+                    default -> line.append(c);
+                }
+            }
+        }
+        return line.toString();
+    }
+
+    private static AuditLog decode(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 6) {
+            throw new IllegalArgumentException("Not a spilled audit entry: " + line);
+        }
+        AuditLog log = new AuditLog();
+        String performedAt = unescape(fields[0]);
+        String entityId = unescape(fields[2]);
+        log.setPerformedAt(performedAt != null ? LocalDateTime.parse(performedAt) : null);
+        log.setEntityName(unescape(fields[1]));
+        log.setEntityId(entityId != null ? Long.valueOf(entityId) : null);
+        log.setAction(unescape(fields[3]));
+        log.setPerformedBy(unescape(fields[4]));
+        log.setDetails(unescape(fields[5]));
+        return log;
+    }
+
+    private static String unescape(String field) {
+        if (field.equals(NULL)) {
+            return null;
+        }
+        StringBuilder value = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c != '\\' || i + 1 == field.length()) {
+                value.append(c);
+                continue;
+            }
+            char escaped = field.charAt(++i);
+            value.append(switch (escaped) {
+                case 't' -> '\t';
+                case 'n' -> '\n';
+                case 'r' -> '\r';
+                default -> escaped;
+            });
+        }
+        return value.toString();
+    }
+
+    private static int intSetting(Dotenv env, String name, int defaultValue) {
+        String value = env.get(name);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
+}
@@ -1,91 +1,180 @@
 package lk.jiat.globemed.dao;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import lk.jiat.globemed.dao.RowCriteria.Criterion;
+import lk.jiat.globemed.dto.BillingRow;
+import lk.jiat.globemed.dto.GroupTotal;
 import lk.jiat.globemed.model.BillingRecord;
-import lk.jiat.globemed.util.HibernateUtil;
-import org.hibernate.Session;
-import org.hibernate.Transaction;
+import lk.jiat.globemed.util.UnitOfWork;
 import org.hibernate.query.Query;
 
 public class BillingDao {
 
     public BillingRecord create(BillingRecord billing) {
-        Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            tx = session.beginTransaction();
+        return UnitOfWork.fromTransaction(session -> {
             session.persist(billing);
-            tx.commit();
             return billing;
-        } catch (Exception e) {
-            if (tx != null) {
-                tx.rollback();
-            }
-            throw e;
-        }
+        });
     }
 
     public BillingRecord findById(Long id) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return session.get(BillingRecord.class, id);
-        }
+        return UnitOfWork.fromSession(session -> session.get(BillingRecord.class, id));
     }
 
     public List<BillingRecord> findAll() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<BillingRecord> q = session.createQuery("FROM BillingRecord", BillingRecord.class);
             return q.getResultList();
-        }
+        });
+    }
+
+    public Page<BillingRecord> findPage(Long afterId, int limit) {
+        return findPage(afterId, limit, SortOrder.ASCENDING);
+    }
+
+    public Page<BillingRecord> findPage(Long afterId, int limit, SortOrder sort) {
+        return EntityQueries.findPage(BillingRecord.class, BillingRecord::getId, afterId, limit, sort);
+    }
+
+    public Stream<BillingRecord> streamAll() {
+        return EntityQueries.stream(BillingRecord.class, SortOrder.ASCENDING);
     }
 
     public BillingRecord update(BillingRecord billing) {
-        Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            tx = session.beginTransaction();
+        return UnitOfWork.fromTransaction(session -> {
             BillingRecord merged = (BillingRecord) session.merge(billing);
-            tx.commit();
             return merged;
-        } catch (Exception e) {
-            if (tx != null) {
-                tx.rollback();
-            }
-            throw e;
-        }
+        });
     }
 
     public boolean deleteById(Long id) {
-        Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromTransaction(session -> {
             BillingRecord b = session.get(BillingRecord.class, id);
             if (b == null) {
                 return false;
             }
-            tx = session.beginTransaction();
             session.remove(b);
-            tx.commit();
             return true;
-        } catch (Exception e) {
-            if (tx != null) {
-                tx.rollback();
-            }
-            throw e;
-        }
+        });
+    }
+
+    public BulkWriteResult createAll(Collection<BillingRecord> records) {
+        return createAll(records, BulkWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkWriteResult createAll(Collection<BillingRecord> records, int chunkSize) {
+        return BulkWriter.persistAll(records, chunkSize);
+    }
+
+    public BulkWriteResult updateAll(Collection<BillingRecord> records) {
+        return updateAll(records, BulkWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkWriteResult updateAll(Collection<BillingRecord> records, int chunkSize) {
+        return BulkWriter.mergeAll(records, chunkSize);
+    }
+
+    public BulkWriteResult deleteAllById(Collection<Long> ids) {
+        return deleteAllById(ids, BulkWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkWriteResult deleteAllById(Collection<Long> ids, int chunkSize) {
+        return BulkWriter.removeAllById(BillingRecord.class, ids, chunkSize);
     }
 
     public List<BillingRecord> findByPatientId(Long patientId) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<BillingRecord> q = session.createQuery("FROM BillingRecord b WHERE b.patient.id = :pid", BillingRecord.class);
             q.setParameter("pid", patientId);
             return q.getResultList();
-        }
+        });
     }
 
     public List<BillingRecord> findByStatus(String status) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<BillingRecord> q = session.createQuery("FROM BillingRecord b WHERE b.status = :st", BillingRecord.class);
             q.setParameter("st", status);
             return q.getResultList();
-        }
+        });
+    }
+
+    public List<BillingRow> findRows() {
+        return findRows(RowCriteria.all());
+    }
+
+    /**
+     * Rows matching {@code criteria}: status, payment method, text found in the patient
+     * name, and a range of creation dates.
+     */
+    public List<BillingRow> findRows(RowCriteria criteria) {
+        return rowQuery(criteria).list();
+    }
+
+    public List<BillingRow> findRows(RowCriteria criteria, PageRequest page) {
+        return rowQuery(criteria).list(page);
+    }
+
+    public long countRows(RowCriteria criteria) {
+        return rowQuery(criteria).count();
+    }
+
+    /**
+     * Streams the rows matching {@code criteria} in id order, without holding them; close
+     * the stream when done.
+     */
+    public Stream<BillingRow> streamRowsById(RowCriteria criteria) {
+        return rowQuery(criteria).streamById();
+    }
+
+    private RowQuery<BillingRow> rowQuery(RowCriteria criteria) {
+        criteria.requireOnly("Billing records", Criterion.STATUS, Criterion.PAYMENT_METHOD, Criterion.TEXT,
+                Criterion.DATE_RANGE);
+        return new RowQuery<>(BillingRow.class,
+                "SELECT new lk.jiat.globemed.dto.BillingRow(b.id, CONCAT(p.firstName, ' ', p.lastName), " +
+                "b.amount, b.paymentMethod, b.status, b.createdAt)",
+                "FROM BillingRecord b JOIN b.patient p", "b.id")
+                .where("b.status = :status", "status", criteria.getStatus())
+                .where("b.paymentMethod = :paymentMethod", "paymentMethod", criteria.getPaymentMethod())
+                .where("LOWER(CONCAT(p.firstName, ' ', p.lastName)) LIKE :text ESCAPE '!'", "text",
+                        RowQuery.containsPattern(criteria.getText()))
+                .where("b.createdAt >= :from", "from", criteria.getFrom())
+                .where("b.createdAt <= :to", "to", criteria.getTo())
+                .sortable("patientName", "p.firstName", "p.lastName")
+                .sortable("amount", "b.amount")
+                .sortable("paymentMethod", "b.paymentMethod")
+                .sortable("status", "b.status")
+                .sortable("createdAt", "b.createdAt")
+                .defaultSort("createdAt", SortOrder.DESCENDING);
+    }
+
+    /**
+     * @return count and summed amount of the records with each status
+     */
+    public List<GroupTotal> totalsByStatus() {
+        return totalsBy("SELECT b.status, COUNT(b), SUM(b.amount) FROM BillingRecord b GROUP BY b.status");
+    }
+
+    /**
+     * @return count and summed amount of the paid records for each payment method
+     */
+    public List<GroupTotal> paidTotalsByPaymentMethod() {
+        return totalsBy("SELECT b.paymentMethod, COUNT(b), SUM(b.amount) FROM BillingRecord b " +
+                "WHERE LOWER(b.status) = 'paid' GROUP BY b.paymentMethod ORDER BY b.paymentMethod");
+    }
+
+    private List<GroupTotal> totalsBy(String hql) {
+        return UnitOfWork.fromSession(session -> {
+            List<GroupTotal> totals = new ArrayList<>();
+            for (Object[] row : session.createSelectionQuery(hql, Object[].class).getResultList()) {
+                totals.add(new GroupTotal((String) row[0], ((Number) row[1]).longValue(),
+                        row[2] != null ? ((Number) row[2]).doubleValue() : 0.0));
+            }
+            return totals;
+        });
     }
 
     public Optional<BillingRecord> findOptionalById(Long id) {
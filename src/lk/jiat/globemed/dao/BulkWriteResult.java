@@ -0,0 +1,88 @@
+package lk.jiat.globemed.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class BulkWriteResult {
+
+    private final int total;
+    private int succeeded;
+    private final List<ChunkFailure> failures = new ArrayList<>();
+
+    public BulkWriteResult(int total) {
+        this.total = total;
+    }
+
+    void chunkSucceeded(int size) {
+        succeeded += size;
+    }
+
+    void chunkFailed(int chunkIndex, int offset, int size, Exception cause) {
+        failures.add(new ChunkFailure(chunkIndex, offset, size, cause));
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public int getFailed() {
+        return total - succeeded;
+    }
+
+    public List<ChunkFailure> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    public boolean isSuccess() {
+        return failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "BulkWriteResult{total=" + total + ", succeeded=" + succeeded + ", failedChunks=" + failures.size() + "}";
+    }
+
+    public static class ChunkFailure {
+
+        private final int chunkIndex;
+        private final int offset;
+        private final int size;
+        private final Exception cause;
+
+        ChunkFailure(int chunkIndex, int offset, int size, Exception cause) {
+            this.chunkIndex = chunkIndex;
+            this.offset = offset;
+            this.size = size;
+            this.cause = cause;
+        }
+
+        public int getChunkIndex() {
+            return chunkIndex;
+        }
+
+        /**
+         * @return position of the chunk's first element in the submitted collection
+         */
+        public int getOffset() {
+            return offset;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public Exception getCause() {
+            return cause;
+        }
+
+        @Override
+        public String toString() {
+            return "chunk " + chunkIndex + " [" + offset + ".." + (offset + size - 1) + "]: " + cause.getMessage();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package lk.jiat.globemed.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import lk.jiat.globemed.util.UnitOfWork;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+
+/**
+ * Chunked write helper behind the DAOs' {@code createAll/updateAll/deleteAllById}.
+ * Each chunk is flushed as one JDBC batch. Called on its own, every chunk commits
+ * separately and failures are recorded per chunk; inside an active unit of work the
+ * chunks join the caller's transaction and the first failure is rethrown.
+ */
+final class BulkWriter {
+
+    static final int DEFAULT_CHUNK_SIZE = 50;
+
+    private BulkWriter() {
+    }
+
+    static <T> BulkWriteResult persistAll(Collection<T> entities, int chunkSize) {
+        return write(entities, chunkSize, true, (session, chunk) -> chunk.forEach(session::persist));
+    }
+
+    static <T> BulkWriteResult mergeAll(Collection<T> entities, int chunkSize) {
+        return write(entities, chunkSize, false, (session, chunk) -> chunk.forEach(session::merge));
+    }
+
+    static <T> BulkWriteResult removeAllById(Class<T> type, Collection<Long> ids, int chunkSize) {
+        return write(ids, chunkSize, false, (session, chunk) -> {
+            for (T entity : session.findMultiple(type, chunk)) {
+                if (entity != null) {
+                    session.remove(entity);
+                }
+            }
+        });
+    }
+
+    private static <T> BulkWriteResult write(Collection<T> items, int chunkSize, boolean assignsIds,
+            BiConsumer<Session, List<T>> op) {
+        Objects.requireNonNull(items, "items");
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+
+        List<T> all = new ArrayList<>(items);
+        BulkWriteResult result = new BulkWriteResult(all.size());
+        if (all.isEmpty()) {
+            return result;
+        }
+
+        if (UnitOfWork.isActive()) {
+            UnitOfWork.inTransaction(session -> writeJoined(session, all, chunkSize, op, result));
+        } else {
+            writeIsolated(all, chunkSize, assignsIds, op, result);
+        }
+        return result;
+    }
+
+    private static <T> void writeJoined(Session session, List<T> all, int chunkSize,
+            BiConsumer<Session, List<T>> op, BulkWriteResult result) {
+        Integer previousBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(chunkSize);
+        try {
+            for (int offset = 0; offset < all.size(); offset += chunkSize) {
+                List<T> chunk = all.subList(offset, Math.min(offset + chunkSize, all.size()));
+                op.accept(session, chunk);
+                session.flush();
+                result.chunkSucceeded(chunk.size());
+            }
+        } finally {
+            session.setJdbcBatchSize(previousBatchSize);
+        }
+    }
+
+    /**
+     * Commits every chunk in a Session of its own, since a Session that threw cannot be
+     * trusted to match the database. When a chunk of new entities fails, the ids it
+     * handed out are cleared so the caller can store the same objects again.
+     */
+    private static <T> void writeIsolated(List<T> all, int chunkSize, boolean assignsIds,
+            BiConsumer<Session, List<T>> op, BulkWriteResult result) {
+        int chunkIndex = 0;
+        for (int offset = 0; offset < all.size(); offset += chunkSize, chunkIndex++) {
+            List<T> chunk = all.subList(offset, Math.min(offset + chunkSize, all.size()));
+            try {
+                UnitOfWork.inTransaction(session -> {
+                    session.setJdbcBatchSize(chunkSize);
+                    List<T> unsaved = assignsIds ? withoutId(session, chunk) : List.of();
+                    try {
+                        op.accept(session, chunk);
+                        session.flush();
+                    } catch (RuntimeException e) {
+                        clearIds(session, unsaved);
+                        throw e;
+                    }
+                });
+                result.chunkSucceeded(chunk.size());
+            } catch (RuntimeException e) {
+                System.err.println("Bulk write chunk " + chunkIndex + " failed: " + e.getMessage());
+                result.chunkFailed(chunkIndex, offset, chunk.size(), e);
+            }
+        }
+    }
+
+    private static <T> List<T> withoutId(Session session, List<T> entities) {
+        SessionImplementor impl = session.unwrap(SessionImplementor.class);
+        List<T> unsaved = new ArrayList<>();
+        for (T entity : entities) {
+            if (impl.getEntityPersister(null, entity).getIdentifier(entity, impl) == null) {
+                unsaved.add(entity);
+            }
+        }
+        return unsaved;
+    }
+
+    private static void clearIds(Session session, List<?> entities) {
+        SessionImplementor impl = session.unwrap(SessionImplementor.class);
+        for (Object entity : entities) {
+            impl.getEntityPersister(null, entity).setIdentifier(entity, null, impl);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package lk.jiat.globemed.dao;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import lk.jiat.globemed.interpreter.CompiledExpression;
+import lk.jiat.globemed.util.HibernateUtil;
+import lk.jiat.globemed.util.UnitOfWork;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.StatelessSession;
+import org.hibernate.query.SelectionQuery;
+
+/**
+ * Keyset paging, streaming, grouped counts and interpreter filters over whole entity
+ * tables, ordered by id.
+ */
+final class EntityQueries {
+
+    static final int STREAM_FETCH_SIZE = 500;
+
+    private EntityQueries() {
+    }
+
+    static <T> Page<T> findPage(Class<T> type, Function<T, Long> idOf, Long afterId, int limit, SortOrder sort) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive: " + limit);
+        }
+
+        return UnitOfWork.fromSession(session -> {
+            String hql = "FROM " + type.getSimpleName() + " e"
+                    + (afterId != null ? " WHERE e.id " + sort.seekOperator() + " :afterId" : "")
+                    + " ORDER BY e.id " + sort.keyword();
+            SelectionQuery<T> query = session.createSelectionQuery(hql, type);
+            if (afterId != null) {
+                query.setParameter("afterId", afterId);
+            }
+            List<T> rows = query.setMaxResults(limit + 1).getResultList();
+
+            if (rows.size() <= limit) {
+                return new Page<>(rows, null);
+            }
+            List<T> items = rows.subList(0, limit);
+            return new Page<>(items, idOf.apply(items.get(limit - 1)));
+        });
+    }
+
+    static <T> List<T> findAll(Class<T> type, SortOrder sort) {
+        return UnitOfWork.fromSession(session -> session.createSelectionQuery(
+                "FROM " + type.getSimpleName() + " e ORDER BY e.id " + sort.keyword(), type).getResultList());
+    }
+
+    /**
+     * Rows matching {@code compiled}, ordered by id: its condition runs in the database
+     * and its residual, if any, over the rows that come back.
+     *
+     * @param from the FROM clause, declaring the target's alias
+     */
+    static <T> List<T> findMatching(Class<T> type, String from, CompiledExpression compiled) {
+        if (compiled.getTarget().getType() != type) {
+            throw new IllegalArgumentException("Expression was compiled for "
+                    + compiled.getTarget().getType().getSimpleName() + ", not " + type.getSimpleName());
+        }
+        return UnitOfWork.fromSession(session -> {
+            SelectionQuery<T> query = session.createSelectionQuery(from + " WHERE " + compiled.getWhere()
+                    + " ORDER BY " + compiled.getTarget().getAlias() + ".id", type);
+            compiled.getParameters().forEach(query::setParameter);
+            return compiled.filter(query.getResultList());
+        });
+    }
+
+    /**
+     * Streams every row through a stateless session, so rows are not retained after they
+     * are consumed. The session is closed when the stream is exhausted or closed; callers
+     * that may stop early should use try-with-resources.
+     */
+    static <T> Stream<T> stream(Class<T> type, SortOrder sort) {
+        return stream("FROM " + type.getSimpleName() + " e ORDER BY e.id " + sort.keyword(), type, Map.of());
+    }
+
+    /**
+     * Streams the results of any selection, such as a row projection, the same way.
+     */
+    static <R> Stream<R> stream(String hql, Class<R> type, Map<String, Object> parameters) {
+        StatelessSession session = HibernateUtil.getSessionFactory().openStatelessSession();
+        try {
+            SelectionQuery<R> query = session.createSelectionQuery(hql, type).setFetchSize(STREAM_FETCH_SIZE);
+            parameters.forEach(query::setParameter);
+            ScrollableResults<R> results = query.scroll(ScrollMode.FORWARD_ONLY);
+            ScrollingSpliterator<R> spliterator = new ScrollingSpliterator<>(session, results);
+            return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+        } catch (RuntimeException e) {
+            session.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @param hql a selection of a group and its count, such as
+     * {@code SELECT a.status, COUNT(a) FROM Appointment a GROUP BY a.status}
+     * @return the count of each group, in the order of the query
+     */
+    static Map<String, Long> countBy(String hql) {
+        return UnitOfWork.fromSession(session -> {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            for (Object[] row : session.createSelectionQuery(hql, Object[].class).getResultList()) {
+                counts.put((String) row[0], ((Number) row[1]).longValue());
+            }
+            return counts;
+        });
+    }
+
+    private static class ScrollingSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+        private final StatelessSession session;
+        private final ScrollableResults<T> results;
+        private boolean closed;
+
+        ScrollingSpliterator(StatelessSession session, ScrollableResults<T> results) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.session = session;
+            this.results = results;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (closed) {
+                return false;
+            }
+            boolean hasRow;
+            try {
+                hasRow = results.next();
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+            if (!hasRow) {
+                close();
+                return false;
+            }
+            action.accept(results.get());
+            return true;
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                results.close();
+            } finally {
+                session.close();
+            }
+        }
+    }
+}
@@ -1,144 +1,218 @@
 package lk.jiat.globemed.dao;
 
+import lk.jiat.globemed.dao.RowCriteria.Criterion;
+import lk.jiat.globemed.dto.MedicationRow;
 import lk.jiat.globemed.model.Medication;
-import lk.jiat.globemed.util.HibernateUtil;
-import org.hibernate.Session;
-import org.hibernate.Transaction;
+import lk.jiat.globemed.util.UnitOfWork;
 import org.hibernate.query.Query;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 
 public class MedicationDao {
 
     public Medication create(Medication medication) {
-        Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            tx = session.beginTransaction();
+        return UnitOfWork.fromTransaction(session -> {
             session.persist(medication);
-            tx.commit();
             return medication;
-        } catch (Exception e) {
-            if (tx != null) {
-                tx.rollback();
-            }
-            throw e;
-        }
+        });
     }
 
     public Medication findById(Long id) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return session.get(Medication.class, id);
+        return UnitOfWork.fromSession(session -> session.get(Medication.class, id));
+    }
+
+    /**
+     * @return the medications with these ids that still exist, in the order given
+     */
+    public List<Medication> findAllById(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
         }
+        return UnitOfWork.fromSession(session -> session.findMultiple(Medication.class, ids).stream()
+                .filter(Objects::nonNull)
+                .toList());
     }
 
-    public List<Medication> findAll() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return session.createQuery("FROM Medication ORDER BY name", Medication.class).getResultList();
+    /**
+     * @return every medication whose name is one of {@code names}, ignoring case, in any
+     * order
+     */
+    public List<Medication> findAllByNameIgnoringCase(Collection<String> names) {
+        if (names.isEmpty()) {
+            return List.of();
         }
+        List<String> lowerCase = names.stream().map(name -> name.toLowerCase(Locale.ROOT)).toList();
+        return UnitOfWork.fromSession(session -> session.createQuery(
+                "FROM Medication m WHERE LOWER(m.name) IN :names", Medication.class)
+                .setParameter("names", lowerCase)
+                .getResultList());
+    }
+
+    public List<Medication> findAll() {
+        return UnitOfWork.fromSession(session -> session.createQuery(
+                "FROM Medication ORDER BY name", Medication.class).getResultList());
+    }
+
+    public List<MedicationRow> findRows() {
+        return findRows(RowCriteria.all());
+    }
+
+    /**
+     * Rows matching {@code criteria}: status, category, ids, and text found in the name,
+     * category or manufacturer.
+     */
+    public List<MedicationRow> findRows(RowCriteria criteria) {
+        return rowQuery(criteria).list();
+    }
+
+    public List<MedicationRow> findRows(RowCriteria criteria, PageRequest page) {
+        return rowQuery(criteria).list(page);
+    }
+
+    public long countRows(RowCriteria criteria) {
+        return rowQuery(criteria).count();
+    }
+
+    private RowQuery<MedicationRow> rowQuery(RowCriteria criteria) {
+        criteria.requireOnly("Medications", Criterion.STATUS, Criterion.CATEGORY, Criterion.TEXT, Criterion.IDS);
+        return new RowQuery<>(MedicationRow.class,
+                "SELECT new lk.jiat.globemed.dto.MedicationRow(m.id, m.name, m.category, m.manufacturer, " +
+                "m.stockQuantity, m.minimumStock, m.unitPrice, m.dosageForm, m.strength, m.status, m.expiryDate)",
+                "FROM Medication m", "m.id")
+                .where("m.status = :status", "status", criteria.getStatus())
+                .where("m.category = :category", "category", criteria.getCategory())
+                .where("(LOWER(m.name) LIKE :text ESCAPE '!' OR LOWER(m.category) LIKE :text ESCAPE '!' " +
+                        "OR LOWER(m.manufacturer) LIKE :text ESCAPE '!')", "text", RowQuery.containsPattern(criteria.getText()))
+                .where("m.id IN :ids", "ids", criteria.getIds())
+                .sortable("name", "m.name")
+                .sortable("category", "m.category")
+                .sortable("manufacturer", "m.manufacturer")
+                .sortable("stockQuantity", "m.stockQuantity")
+                .sortable("minimumStock", "m.minimumStock")
+                .sortable("unitPrice", "m.unitPrice")
+                .sortable("dosageForm", "m.dosageForm")
+                .sortable("status", "m.status")
+                .sortable("expiryDate", "m.expiryDate")
+                .defaultSort("name", SortOrder.ASCENDING);
     }
 
     public List<Medication> findByCategory(String category) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<Medication> query = session.createQuery(
                 "FROM Medication m WHERE m.category = :category ORDER BY m.name", Medication.class);
             query.setParameter("category", category);
             return query.getResultList();
-        }
+        });
     }
 
     public List<Medication> findByName(String name) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<Medication> query = session.createQuery(
                 "FROM Medication m WHERE LOWER(m.name) LIKE LOWER(:name) ORDER BY m.name", Medication.class);
             query.setParameter("name", "%" + name + "%");
             return query.getResultList();
-        }
+        });
     }
 
     public List<Medication> findLowStock() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             return session.createQuery(
                 "FROM Medication m WHERE m.stockQuantity <= m.minimumStock ORDER BY m.name", Medication.class)
                 .getResultList();
-        }
+        });
     }
 
     public List<Medication> findExpired() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<Medication> query = session.createQuery(
                 "FROM Medication m WHERE m.expiryDate < :currentDate ORDER BY m.expiryDate", Medication.class);
             query.setParameter("currentDate", LocalDate.now());
             return query.getResultList();
-        }
+        });
     }
 
     public List<Medication> findExpiringSoon() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<Medication> query = session.createQuery(
                 "FROM Medication m WHERE m.expiryDate BETWEEN :currentDate AND :futureDate ORDER BY m.expiryDate", 
                 Medication.class);
             query.setParameter("currentDate", LocalDate.now());
             query.setParameter("futureDate", LocalDate.now().plusMonths(3));
             return query.getResultList();
-        }
+        });
     }
 
     public List<Medication> findAvailable() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             return session.createQuery(
                 "FROM Medication m WHERE m.status = 'Available' AND m.stockQuantity > 0 ORDER BY m.name", 
                 Medication.class).getResultList();
-        }
+        });
     }
 
     public Medication update(Medication medication) {
-        Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            tx = session.beginTransaction();
+        return UnitOfWork.fromTransaction(session -> {
             Medication updated = session.merge(medication);
-            tx.commit();
             return updated;
-        } catch (Exception e) {
-            if (tx != null) {
-                tx.rollback();
-            }
-            throw e;
-        }
+        });
     }
 
     public boolean deleteById(Long id) {
-        Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromTransaction(session -> {
             Medication medication = session.get(Medication.class, id);
             if (medication == null) {
                 return false;
             }
-            tx = session.beginTransaction();
             session.remove(medication);
-            tx.commit();
             return true;
-        } catch (Exception e) {
-            if (tx != null) {
-                tx.rollback();
-            }
-            throw e;
-        }
+        });
+    }
+
+    public BulkWriteResult createAll(Collection<Medication> medications) {
+        return createAll(medications, BulkWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkWriteResult createAll(Collection<Medication> medications, int chunkSize) {
+        return BulkWriter.persistAll(medications, chunkSize);
+    }
+
+    public BulkWriteResult updateAll(Collection<Medication> medications) {
+        return updateAll(medications, BulkWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkWriteResult updateAll(Collection<Medication> medications, int chunkSize) {
+        return BulkWriter.mergeAll(medications, chunkSize);
+    }
+
+    public BulkWriteResult deleteAllById(Collection<Long> ids) {
+        return deleteAllById(ids, BulkWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkWriteResult deleteAllById(Collection<Long> ids, int chunkSize) {
+        return BulkWriter.removeAllById(Medication.class, ids, chunkSize);
     }
 
     public List<String> findAllCategories() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             return session.createQuery(
                 "SELECT DISTINCT m.category FROM Medication m ORDER BY m.category", String.class)
+                .setCacheable(true)
+                .setCacheRegion(ReferenceDataCache.MEDICATION_QUERIES)
                 .getResultList();
-        }
+        });
     }
 
     public List<String> findAllManufacturers() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             return session.createQuery(
                 "SELECT DISTINCT m.manufacturer FROM Medication m ORDER BY m.manufacturer", String.class)
+                .setCacheable(true)
+                .setCacheRegion(ReferenceDataCache.MEDICATION_QUERIES)
                 .getResultList();
-        }
+        });
     }
 }
\ No newline at end of file
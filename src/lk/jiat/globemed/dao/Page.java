@@ -0,0 +1,39 @@
+package lk.jiat.globemed.dao;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One keyset page. Pass {@link #getNextAfterId()} back to {@code findPage} to read the
+ * following page; it is {@code null} once the last page has been returned.
+ */
+public class Page<T> {
+
+    private final List<T> items;
+    private final Long nextAfterId;
+
+    public Page(List<T> items, Long nextAfterId) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextAfterId = nextAfterId;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public Long getNextAfterId() {
+        return nextAfterId;
+    }
+
+    public boolean hasNext() {
+        return nextAfterId != null;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+}
@@ -0,0 +1,51 @@
+package lk.jiat.globemed.dao;
+
+/**
+ * A window of rows for the paged {@code findRows} queries: where it starts, how many
+ * rows it holds and, optionally, which row property to sort by. Sort keys are the
+ * component names of the row record; a DAO rejects keys it cannot sort on.
+ */
+public class PageRequest {
+
+    private final int offset;
+    private final int limit;
+    private final String sortKey;
+    private final SortOrder sortOrder;
+
+    private PageRequest(int offset, int limit, String sortKey, SortOrder sortOrder) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative: " + offset);
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive: " + limit);
+        }
+        this.offset = offset;
+        this.limit = limit;
+        this.sortKey = sortKey;
+        this.sortOrder = sortOrder;
+    }
+
+    public static PageRequest of(int offset, int limit) {
+        return new PageRequest(offset, limit, null, SortOrder.ASCENDING);
+    }
+
+    public PageRequest sortedBy(String sortKey, SortOrder sortOrder) {
+        return new PageRequest(offset, limit, sortKey, sortOrder);
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public String getSortKey() {
+        return sortKey;
+    }
+
+    public SortOrder getSortOrder() {
+        return sortOrder;
+    }
+}
@@ -1,92 +1,176 @@
 package lk.jiat.globemed.dao;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
+import lk.jiat.globemed.dao.RowCriteria.Criterion;
+import lk.jiat.globemed.dto.PatientProfileRow;
+import lk.jiat.globemed.interpreter.Expression;
+import lk.jiat.globemed.interpreter.ExpressionCompiler;
+import lk.jiat.globemed.interpreter.QueryTarget;
 import lk.jiat.globemed.model.Patient;
-import lk.jiat.globemed.util.HibernateUtil;
-import org.hibernate.Session;
-import org.hibernate.Transaction;
+import lk.jiat.globemed.util.UnitOfWork;
 import org.hibernate.query.Query;
 
 public class PatientDao {
 
     public Patient create(Patient patient) {
-        Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            tx = session.beginTransaction();
+        return UnitOfWork.fromTransaction(session -> {
             session.persist(patient);
-            tx.commit();
             return patient;
-        } catch (Exception e) {
-            if (tx != null) {
-                tx.rollback();
-            }
-            throw e;
-        }
+        });
     }
 
     public Patient findById(Long id) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return session.get(Patient.class, id);
-        }
+        return UnitOfWork.fromSession(session -> session.get(Patient.class, id));
     }
 
     public List<Patient> findAll() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<Patient> q = session.createQuery("FROM Patient", Patient.class);
             return q.getResultList();
-        }
+        });
+    }
+
+    /**
+     * Gender and date of birth of every patient, without loading the entities.
+     */
+    public List<PatientProfileRow> findProfiles() {
+        return UnitOfWork.fromSession(session -> session.createQuery(
+                "SELECT new lk.jiat.globemed.dto.PatientProfileRow(p.id, p.gender, p.dob) FROM Patient p ORDER BY p.id",
+                PatientProfileRow.class).getResultList());
+    }
+
+    /**
+     * @return the number of patients of each gender, keyed in lower case; patients
+     * without one are under {@code null}
+     */
+    public Map<String, Long> countsByGender() {
+        return EntityQueries.countBy("SELECT LOWER(p.gender), COUNT(p) FROM Patient p GROUP BY LOWER(p.gender)");
+    }
+
+    public Page<Patient> findPage(Long afterId, int limit) {
+        return findPage(afterId, limit, SortOrder.ASCENDING);
+    }
+
+    public Page<Patient> findPage(Long afterId, int limit, SortOrder sort) {
+        return EntityQueries.findPage(Patient.class, Patient::getId, afterId, limit, sort);
+    }
+
+    public List<Patient> findAll(SortOrder sort) {
+        return EntityQueries.findAll(Patient.class, sort);
+    }
+
+    public Stream<Patient> streamAll() {
+        return EntityQueries.stream(Patient.class, SortOrder.ASCENDING);
     }
 
     public Patient update(Patient patient) {
-        Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            tx = session.beginTransaction();
+        return UnitOfWork.fromTransaction(session -> {
             Patient merged = (Patient) session.merge(patient); // returns managed instance
-            tx.commit();
             return merged;
-        } catch (Exception e) {
-            if (tx != null) {
-                tx.rollback();
-            }
-            throw e;
-        }
+        });
     }
 
     public boolean deleteById(Long id) {
-        Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromTransaction(session -> {
             Patient p = session.get(Patient.class, id);
             if (p == null) {
                 return false;
             }
-            tx = session.beginTransaction();
             session.remove(p);
-            tx.commit();
             return true;
-        } catch (Exception e) {
-            if (tx != null) {
-                tx.rollback();
-            }
-            throw e;
-        }
+        });
+    }
+
+    public BulkWriteResult createAll(Collection<Patient> patients) {
+        return createAll(patients, BulkWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkWriteResult createAll(Collection<Patient> patients, int chunkSize) {
+        return BulkWriter.persistAll(patients, chunkSize);
+    }
+
+    public BulkWriteResult updateAll(Collection<Patient> patients) {
+        return updateAll(patients, BulkWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkWriteResult updateAll(Collection<Patient> patients, int chunkSize) {
+        return BulkWriter.mergeAll(patients, chunkSize);
+    }
+
+    public BulkWriteResult deleteAllById(Collection<Long> ids) {
+        return deleteAllById(ids, BulkWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkWriteResult deleteAllById(Collection<Long> ids, int chunkSize) {
+        return BulkWriter.removeAllById(Patient.class, ids, chunkSize);
     }
 
     public List<Patient> findByDoctor(Long doctorId) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             return session.createQuery(
                     "SELECT DISTINCT a.patient FROM Appointment a WHERE a.doctor.id = :doctorId", Patient.class)
                     .setParameter("doctorId", doctorId)
                     .getResultList();
-        }
+        });
     }
 
     public List<Patient> findByLastName(String lastName) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<Patient> q = session.createQuery("FROM Patient p WHERE p.lastName = :ln", Patient.class);
             q.setParameter("ln", lastName);
             return q.getResultList();
+        });
+    }
+
+    /**
+     * Patients matching an interpreter expression, filtered in the database as far as
+     * {@link ExpressionCompiler} can translate it.
+     */
+    public List<Patient> findMatching(Expression expression) {
+        return EntityQueries.findMatching(Patient.class, "FROM Patient p",
+                ExpressionCompiler.compile(expression, QueryTarget.PATIENT));
+    }
+
+    /**
+     * Patients with the given ids, in the same order; ids with no patient are skipped.
+     */
+    public List<Patient> findAllById(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
         }
+        return UnitOfWork.fromSession(session -> session.findMultiple(Patient.class, ids).stream()
+                .filter(Objects::nonNull)
+                .toList());
+    }
+
+    /**
+     * Patients whose full name contains the criteria text, ordered by name.
+     */
+    public List<Patient> search(RowCriteria criteria) {
+        return searchQuery(criteria).list();
+    }
+
+    public List<Patient> search(RowCriteria criteria, PageRequest page) {
+        return searchQuery(criteria).list(page);
+    }
+
+    public long count(RowCriteria criteria) {
+        return searchQuery(criteria).count();
+    }
+
+    private RowQuery<Patient> searchQuery(RowCriteria criteria) {
+        criteria.requireOnly("Patients", Criterion.TEXT);
+        return new RowQuery<>(Patient.class, "SELECT p", "FROM Patient p", "p.id")
+                .where("LOWER(CONCAT(p.firstName, ' ', p.lastName)) LIKE :text ESCAPE '!'", "text",
+                        RowQuery.containsPattern(criteria.getText()))
+                .sortable("name", "p.firstName", "p.lastName")
+                .sortable("dob", "p.dob")
+                .defaultSort("name", SortOrder.ASCENDING);
     }
 
     public Optional<Patient> findOptionalById(Long id) {
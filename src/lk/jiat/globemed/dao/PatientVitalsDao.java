@@ -1,88 +1,114 @@
 package lk.jiat.globemed.dao;
 
+import lk.jiat.globemed.dto.VitalsRow;
 import lk.jiat.globemed.model.PatientVitals;
 import lk.jiat.globemed.model.Patient;
-import lk.jiat.globemed.util.HibernateUtil;
-import org.hibernate.Session;
-import org.hibernate.Transaction;
+import lk.jiat.globemed.util.UnitOfWork;
 import org.hibernate.query.Query;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public class PatientVitalsDao {
 
+    // Associations are fetched in the same query; left to their EAGER defaults they
+    // would cost one extra select per distinct patient and nurse.
+    private static final String LATEST_PER_PATIENT =
+            "SELECT v FROM PatientVitals v JOIN FETCH v.patient JOIN FETCH v.nurse n LEFT JOIN FETCH n.role " +
+            "WHERE v.recordedAt = (SELECT MAX(v2.recordedAt) FROM PatientVitals v2 WHERE v2.patient = v.patient)";
+
+    private static final int ID_CHUNK_SIZE = 1000;
+
     public PatientVitals create(PatientVitals vitals) {
-        Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            tx = session.beginTransaction();
+        return UnitOfWork.fromTransaction(session -> {
             session.persist(vitals);
-            tx.commit();
             return vitals;
-        } catch (Exception e) {
-            if (tx != null) {
-                tx.rollback();
-            }
-            throw e;
-        }
+        });
     }
 
     public PatientVitals findById(Long id) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return session.get(PatientVitals.class, id);
-        }
+        return UnitOfWork.fromSession(session -> session.get(PatientVitals.class, id));
     }
 
     public List<PatientVitals> findAll() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             return session.createQuery("FROM PatientVitals ORDER BY recordedAt DESC", PatientVitals.class)
                     .getResultList();
-        }
+        });
+    }
+
+    public Page<PatientVitals> findPage(Long afterId, int limit) {
+        return findPage(afterId, limit, SortOrder.DESCENDING);
+    }
+
+    public Page<PatientVitals> findPage(Long afterId, int limit, SortOrder sort) {
+        return EntityQueries.findPage(PatientVitals.class, PatientVitals::getId, afterId, limit, sort);
+    }
+
+    public Stream<PatientVitals> streamAll() {
+        return EntityQueries.stream(PatientVitals.class, SortOrder.DESCENDING);
+    }
+
+    /**
+     * Streams every reading with the patient's and nurse's names, in id order and without
+     * loading the entities; close the stream when done.
+     */
+    public Stream<VitalsRow> streamRows() {
+        return EntityQueries.stream("SELECT new lk.jiat.globemed.dto.VitalsRow(v.id, p.id, " +
+                "CONCAT(p.firstName, ' ', p.lastName), n.name, v.recordedAt, v.temperature, v.systolicBP, " +
+                "v.diastolicBP, v.heartRate, v.respiratoryRate, v.oxygenSaturation, v.weight, v.height, v.notes) " +
+                "FROM PatientVitals v JOIN v.patient p JOIN v.nurse n ORDER BY v.id", VitalsRow.class, Map.of());
     }
 
     public List<PatientVitals> findByPatient(Patient patient) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<PatientVitals> query = session.createQuery(
                 "FROM PatientVitals v WHERE v.patient = :patient ORDER BY v.recordedAt DESC", 
                 PatientVitals.class);
             query.setParameter("patient", patient);
             return query.getResultList();
-        }
+        });
     }
 
     public List<PatientVitals> findByPatientId(Long patientId) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<PatientVitals> query = session.createQuery(
                 "FROM PatientVitals v WHERE v.patient.id = :patientId ORDER BY v.recordedAt DESC", 
                 PatientVitals.class);
             query.setParameter("patientId", patientId);
             return query.getResultList();
-        }
+        });
     }
 
     public List<PatientVitals> findByNurseId(Long nurseId) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<PatientVitals> query = session.createQuery(
                 "FROM PatientVitals v WHERE v.nurse.id = :nurseId ORDER BY v.recordedAt DESC", 
                 PatientVitals.class);
             query.setParameter("nurseId", nurseId);
             return query.getResultList();
-        }
+        });
     }
 
     public List<PatientVitals> findByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<PatientVitals> query = session.createQuery(
                 "FROM PatientVitals v WHERE v.recordedAt BETWEEN :startDate AND :endDate ORDER BY v.recordedAt DESC", 
                 PatientVitals.class);
             query.setParameter("startDate", startDate);
             query.setParameter("endDate", endDate);
             return query.getResultList();
-        }
+        });
     }
 
     public PatientVitals getLatestVitalsForPatient(Long patientId) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<PatientVitals> query = session.createQuery(
                 "FROM PatientVitals v WHERE v.patient.id = :patientId ORDER BY v.recordedAt DESC", 
                 PatientVitals.class);
@@ -90,11 +116,51 @@ public class PatientVitalsDao {
             query.setMaxResults(1);
             List<PatientVitals> results = query.getResultList();
             return results.isEmpty() ? null : results.get(0);
+        });
+    }
+
+    /**
+     * Latest vitals for each of the given patients, keyed by patient id. Patients with
+     * no vitals recorded are absent from the map.
+     */
+    public Map<Long, PatientVitals> getLatestVitalsForPatients(Collection<Long> patientIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(patientIds));
+        Map<Long, PatientVitals> latest = new HashMap<>();
+        if (ids.isEmpty()) {
+            return latest;
+        }
+
+        return UnitOfWork.fromSession(session -> {
+            for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size()));
+                keepLatest(latest, session.createSelectionQuery(
+                        LATEST_PER_PATIENT + " AND v.patient.id IN :patientIds", PatientVitals.class)
+                        .setParameterList("patientIds", chunk)
+                        .getResultList());
+            }
+            return latest;
+        });
+    }
+
+    public Map<Long, PatientVitals> getLatestVitalsForAllPatients() {
+        Map<Long, PatientVitals> latest = new HashMap<>();
+        return UnitOfWork.fromSession(session -> {
+            keepLatest(latest, session.createSelectionQuery(LATEST_PER_PATIENT, PatientVitals.class)
+                    .getResultList());
+            return latest;
+        });
+    }
+
+    // Two readings with the same timestamp both match MAX(recordedAt); keep the later insert.
+    private void keepLatest(Map<Long, PatientVitals> latest, List<PatientVitals> rows) {
+        for (PatientVitals vitals : rows) {
+            latest.merge(vitals.getPatient().getId(), vitals,
+                    (current, candidate) -> candidate.getId() > current.getId() ? candidate : current);
         }
     }
 
     public List<PatientVitals> findAbnormalVitals() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<PatientVitals> query = session.createQuery(
                 "FROM PatientVitals v WHERE " +
                 "(v.temperature > 37.5) OR " +
@@ -104,40 +170,48 @@ public class PatientVitalsDao {
                 "ORDER BY v.recordedAt DESC", 
                 PatientVitals.class);
             return query.getResultList();
-        }
+        });
     }
 
     public PatientVitals update(PatientVitals vitals) {
-        Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            tx = session.beginTransaction();
+        return UnitOfWork.fromTransaction(session -> {
             PatientVitals updated = session.merge(vitals);
-            tx.commit();
             return updated;
-        } catch (Exception e) {
-            if (tx != null) {
-                tx.rollback();
-            }
-            throw e;
-        }
+        });
     }
 
     public boolean deleteById(Long id) {
-        Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromTransaction(session -> {
             PatientVitals vitals = session.get(PatientVitals.class, id);
             if (vitals == null) {
                 return false;
             }
-            tx = session.beginTransaction();
             session.remove(vitals);
-            tx.commit();
             return true;
-        } catch (Exception e) {
-            if (tx != null) {
-                tx.rollback();
-            }
-            throw e;
-        }
+        });
+    }
+
+    public BulkWriteResult createAll(Collection<PatientVitals> vitals) {
+        return createAll(vitals, BulkWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkWriteResult createAll(Collection<PatientVitals> vitals, int chunkSize) {
+        return BulkWriter.persistAll(vitals, chunkSize);
+    }
+
+    public BulkWriteResult updateAll(Collection<PatientVitals> vitals) {
+        return updateAll(vitals, BulkWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkWriteResult updateAll(Collection<PatientVitals> vitals, int chunkSize) {
+        return BulkWriter.mergeAll(vitals, chunkSize);
+    }
+
+    public BulkWriteResult deleteAllById(Collection<Long> ids) {
+        return deleteAllById(ids, BulkWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkWriteResult deleteAllById(Collection<Long> ids, int chunkSize) {
+        return BulkWriter.removeAllById(PatientVitals.class, ids, chunkSize);
     }
 }
\ No newline at end of file
@@ -1,30 +1,30 @@
 package lk.jiat.globemed.dao;
 
 import lk.jiat.globemed.model.Permission;
-import lk.jiat.globemed.util.HibernateUtil;
-import org.hibernate.Session;
+import lk.jiat.globemed.util.UnitOfWork;
 
 import java.util.List;
 
 public class PermissionDao {
 
     public Permission findById(Long id) {
-        try (Session s = HibernateUtil.getSessionFactory().openSession()) {
-            return s.get(Permission.class, id);
-        }
+        return UnitOfWork.fromSession(s -> s.get(Permission.class, id));
     }
 
     public List<Permission> findAll() {
-        try (Session s = HibernateUtil.getSessionFactory().openSession()) {
-            return s.createQuery("FROM Permission", Permission.class).getResultList();
-        }
+        return UnitOfWork.fromSession(s -> s.createQuery("FROM Permission", Permission.class)
+                .setCacheable(true)
+                .setCacheRegion(ReferenceDataCache.PERMISSION_QUERIES)
+                .getResultList());
     }
     
     public Permission findByName(String name) {
-        try (Session s = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(s -> {
             return s.createQuery("FROM Permission p WHERE p.name = :name", Permission.class)
                     .setParameter("name", name)
+                    .setCacheable(true)
+                    .setCacheRegion(ReferenceDataCache.PERMISSION_QUERIES)
                     .uniqueResult();
-        }
+        });
     }
 }
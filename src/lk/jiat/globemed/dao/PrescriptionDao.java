@@ -1,54 +1,108 @@
 package lk.jiat.globemed.dao;
 
+import lk.jiat.globemed.dao.RowCriteria.Criterion;
+import lk.jiat.globemed.dto.PrescriptionRow;
 import lk.jiat.globemed.model.Prescription;
 import lk.jiat.globemed.model.Patient;
 import lk.jiat.globemed.model.Staff;
-import lk.jiat.globemed.util.HibernateUtil;
-import org.hibernate.Session;
-import org.hibernate.Transaction;
+import lk.jiat.globemed.util.UnitOfWork;
 import org.hibernate.query.Query;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class PrescriptionDao {
 
     public Prescription create(Prescription prescription) {
-        Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            tx = session.beginTransaction();
+        return UnitOfWork.fromTransaction(session -> {
             session.persist(prescription);
-            tx.commit();
             return prescription;
-        } catch (Exception e) {
-            if (tx != null) {
-                tx.rollback();
-            }
-            throw e;
-        }
+        });
     }
 
     public Prescription findById(Long id) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return session.get(Prescription.class, id);
-        }
+        return UnitOfWork.fromSession(session -> session.get(Prescription.class, id));
     }
 
     public List<Prescription> findAll() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             return session.createQuery(
                 "FROM Prescription p ORDER BY p.prescribedDate DESC", Prescription.class)
                 .getResultList();
-        }
+        });
+    }
+
+    public Page<Prescription> findPage(Long afterId, int limit) {
+        return findPage(afterId, limit, SortOrder.DESCENDING);
+    }
+
+    public Page<Prescription> findPage(Long afterId, int limit, SortOrder sort) {
+        return EntityQueries.findPage(Prescription.class, Prescription::getId, afterId, limit, sort);
+    }
+
+    public Stream<Prescription> streamAll() {
+        return EntityQueries.stream(Prescription.class, SortOrder.DESCENDING);
     }
 
     public List<Prescription> findByStatus(String status) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<Prescription> query = session.createQuery(
                 "FROM Prescription p WHERE p.status = :status ORDER BY p.prescribedDate DESC", Prescription.class);
             query.setParameter("status", status);
             return query.getResultList();
-        }
+        });
+    }
+
+    public List<PrescriptionRow> findRows() {
+        return findRows(RowCriteria.all());
+    }
+
+    /**
+     * Rows matching {@code criteria}: status, text found in the patient or doctor name,
+     * and a range of prescribed dates.
+     */
+    public List<PrescriptionRow> findRows(RowCriteria criteria) {
+        return rowQuery(criteria).list();
+    }
+
+    public List<PrescriptionRow> findRows(RowCriteria criteria, PageRequest page) {
+        return rowQuery(criteria).list(page);
+    }
+
+    public long countRows(RowCriteria criteria) {
+        return rowQuery(criteria).count();
+    }
+
+    /**
+     * Streams the rows matching {@code criteria} in id order, without holding them; close
+     * the stream when done.
+     */
+    public Stream<PrescriptionRow> streamRowsById(RowCriteria criteria) {
+        return rowQuery(criteria).streamById();
+    }
+
+    private RowQuery<PrescriptionRow> rowQuery(RowCriteria criteria) {
+        criteria.requireOnly("Prescriptions", Criterion.STATUS, Criterion.TEXT, Criterion.DATE_RANGE);
+        return new RowQuery<>(PrescriptionRow.class,
+                "SELECT new lk.jiat.globemed.dto.PrescriptionRow(p.id, CONCAT(pa.firstName, ' ', pa.lastName), " +
+                "d.name, p.prescribedDate, p.status, COUNT(i), COALESCE(SUM(i.quantity * m.unitPrice), 0.0))",
+                "FROM Prescription p JOIN p.patient pa JOIN p.doctor d LEFT JOIN p.items i LEFT JOIN i.medication m",
+                "p.id")
+                .where("p.status = :status", "status", criteria.getStatus())
+                .where("(LOWER(CONCAT(pa.firstName, ' ', pa.lastName)) LIKE :text ESCAPE '!' " +
+                        "OR LOWER(d.name) LIKE :text ESCAPE '!')", "text", RowQuery.containsPattern(criteria.getText()))
+                .where("p.prescribedDate >= :from", "from", criteria.getFrom())
+                .where("p.prescribedDate <= :to", "to", criteria.getTo())
+                .groupBy("p.id, pa.firstName, pa.lastName, d.name, p.prescribedDate, p.status")
+                .sortable("patientName", "pa.firstName", "pa.lastName")
+                .sortable("doctorName", "d.name")
+                .sortable("prescribedDate", "p.prescribedDate")
+                .sortable("status", "p.status")
+                .sortable("itemCount", "COUNT(i)")
+                .sortable("totalCost", "COALESCE(SUM(i.quantity * m.unitPrice), 0.0)")
+                .defaultSort("prescribedDate", SortOrder.DESCENDING);
     }
 
     public List<Prescription> findPending() {
@@ -56,98 +110,106 @@ public class PrescriptionDao {
     }
 
     public List<Prescription> findByPatient(Patient patient) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<Prescription> query = session.createQuery(
                 "FROM Prescription p WHERE p.patient = :patient ORDER BY p.prescribedDate DESC", Prescription.class);
             query.setParameter("patient", patient);
             return query.getResultList();
-        }
+        });
     }
 
     public List<Prescription> findByDoctor(Staff doctor) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<Prescription> query = session.createQuery(
                 "FROM Prescription p WHERE p.doctor = :doctor ORDER BY p.prescribedDate DESC", Prescription.class);
             query.setParameter("doctor", doctor);
             return query.getResultList();
-        }
+        });
     }
 
     public List<Prescription> findByPharmacist(Staff pharmacist) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<Prescription> query = session.createQuery(
                 "FROM Prescription p WHERE p.pharmacist = :pharmacist ORDER BY p.dispensedDate DESC", Prescription.class);
             query.setParameter("pharmacist", pharmacist);
             return query.getResultList();
-        }
+        });
     }
 
     public List<Prescription> findByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<Prescription> query = session.createQuery(
                 "FROM Prescription p WHERE p.prescribedDate BETWEEN :startDate AND :endDate ORDER BY p.prescribedDate DESC", 
                 Prescription.class);
             query.setParameter("startDate", startDate);
             query.setParameter("endDate", endDate);
             return query.getResultList();
-        }
+        });
     }
 
     public List<Prescription> findRecentPrescriptions(int days) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<Prescription> query = session.createQuery(
                 "FROM Prescription p WHERE p.prescribedDate >= :cutoffDate ORDER BY p.prescribedDate DESC", 
                 Prescription.class);
             query.setParameter("cutoffDate", LocalDateTime.now().minusDays(days));
             return query.getResultList();
-        }
+        });
     }
 
     public Prescription update(Prescription prescription) {
-        Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            tx = session.beginTransaction();
+        return UnitOfWork.fromTransaction(session -> {
             Prescription updated = session.merge(prescription);
-            tx.commit();
             return updated;
-        } catch (Exception e) {
-            if (tx != null) {
-                tx.rollback();
-            }
-            throw e;
-        }
+        });
     }
 
     public boolean deleteById(Long id) {
-        Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromTransaction(session -> {
             Prescription prescription = session.get(Prescription.class, id);
             if (prescription == null) {
                 return false;
             }
-            tx = session.beginTransaction();
             session.remove(prescription);
-            tx.commit();
             return true;
-        } catch (Exception e) {
-            if (tx != null) {
-                tx.rollback();
-            }
-            throw e;
-        }
+        });
+    }
+
+    public BulkWriteResult createAll(Collection<Prescription> prescriptions) {
+        return createAll(prescriptions, BulkWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkWriteResult createAll(Collection<Prescription> prescriptions, int chunkSize) {
+        return BulkWriter.persistAll(prescriptions, chunkSize);
+    }
+
+    public BulkWriteResult updateAll(Collection<Prescription> prescriptions) {
+        return updateAll(prescriptions, BulkWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkWriteResult updateAll(Collection<Prescription> prescriptions, int chunkSize) {
+        return BulkWriter.mergeAll(prescriptions, chunkSize);
+    }
+
+    public BulkWriteResult deleteAllById(Collection<Long> ids) {
+        return deleteAllById(ids, BulkWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkWriteResult deleteAllById(Collection<Long> ids, int chunkSize) {
+        return BulkWriter.removeAllById(Prescription.class, ids, chunkSize);
     }
 
     public long countByStatus(String status) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<Long> query = session.createQuery(
                 "SELECT COUNT(p) FROM Prescription p WHERE p.status = :status", Long.class);
             query.setParameter("status", status);
             return query.getSingleResult();
-        }
+        });
     }
 
     public double getTotalRevenueByPharmacist(Staff pharmacist) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<Double> query = session.createQuery(
                 "SELECT SUM(pi.quantity * pi.medication.unitPrice) FROM PrescriptionItem pi " +
                 "WHERE pi.prescription.pharmacist = :pharmacist AND pi.prescription.status = 'Filled'", 
@@ -155,6 +217,6 @@ public class PrescriptionDao {
             query.setParameter("pharmacist", pharmacist);
             Double result = query.getSingleResult();
             return result != null ? result : 0.0;
-        }
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+package lk.jiat.globemed.dao;
+
+import lk.jiat.globemed.model.Permission;
+import lk.jiat.globemed.model.Role;
+import lk.jiat.globemed.util.HibernateUtil;
+import org.hibernate.Cache;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Eviction and statistics for the second-level cache over roles, permissions and the
+ * medication catalogue. Medications themselves are not cached, since their stock
+ * changes on every dispense. Writes made through Hibernate invalidate these regions on
+ * their own; the evict methods are for changes Hibernate cannot see, such as another
+ * client or a script editing the same tables.
+ */
+public final class ReferenceDataCache {
+
+    static final String ROLE_QUERIES = "globemed.roles";
+    static final String PERMISSION_QUERIES = "globemed.permissions";
+    static final String MEDICATION_QUERIES = "globemed.medication-catalogue";
+
+    private static final String ROLE_PERMISSIONS = Role.class.getName() + ".permissions";
+
+    private ReferenceDataCache() {
+    }
+
+    public static void evictRoles() {
+        Cache cache = cache();
+        cache.evictEntityData(Role.class);
+        cache.evictCollectionData(ROLE_PERMISSIONS);
+        cache.evictQueryRegion(ROLE_QUERIES);
+    }
+
+    public static void evictPermissions() {
+        Cache cache = cache();
+        cache.evictEntityData(Permission.class);
+        cache.evictCollectionData(ROLE_PERMISSIONS);
+        cache.evictQueryRegion(PERMISSION_QUERIES);
+    }
+
+    public static void evictMedications() {
+        cache().evictQueryRegion(MEDICATION_QUERIES);
+    }
+
+    public static void evictAll() {
+        cache().evictAllRegions();
+    }
+
+    public static String getStatisticsSummary() {
+        Statistics stats = HibernateUtil.getSessionFactory().getStatistics();
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("entities hits=%d misses=%d puts=%d, queries hits=%d misses=%d puts=%d",
+                stats.getSecondLevelCacheHitCount(), stats.getSecondLevelCacheMissCount(),
+                stats.getSecondLevelCachePutCount(), stats.getQueryCacheHitCount(),
+                stats.getQueryCacheMissCount(), stats.getQueryCachePutCount()));
+
+        for (String region : new String[]{Role.class.getName(), Permission.class.getName(), ROLE_QUERIES,
+            PERMISSION_QUERIES, MEDICATION_QUERIES}) {
+            CacheRegionStatistics regionStats = stats.getCacheRegionStatistics(region);
+            if (regionStats != null) {
+                summary.append(String.format("%n  %s: hits=%d misses=%d puts=%d",
+                        region, regionStats.getHitCount(), regionStats.getMissCount(), regionStats.getPutCount()));
+            }
+        }
+        return summary.toString();
+    }
+
+    private static Cache cache() {
+        return HibernateUtil.getSessionFactory().getCache();
+    }
+}
@@ -2,29 +2,28 @@ package lk.jiat.globemed.dao;
 
 import java.util.List;
 import lk.jiat.globemed.model.Role;
-import lk.jiat.globemed.util.HibernateUtil;
-import org.hibernate.Session;
+import lk.jiat.globemed.util.UnitOfWork;
 import org.hibernate.query.Query;
 
 public class RoleDao {
 
     public Role findById(Long id) {
-        try (Session s = HibernateUtil.getSessionFactory().openSession()) {
-            return s.get(Role.class, id);
-        }
+        return UnitOfWork.fromSession(s -> s.get(Role.class, id));
     }
 
     public Role findByName(String name) {
-        try (Session s = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(s -> {
             Query<Role> q = s.createQuery("FROM Role r WHERE r.name = :n", Role.class);
             q.setParameter("n", name);
+            q.setCacheable(true).setCacheRegion(ReferenceDataCache.ROLE_QUERIES);
             return q.uniqueResultOptional().orElse(null);
-        }
+        });
     }
 
     public List<Role> findAll() {
-        try (Session s = HibernateUtil.getSessionFactory().openSession()) {
-            return s.createQuery("FROM Role", Role.class).getResultList();
-        }
+        return UnitOfWork.fromSession(s -> s.createQuery("FROM Role", Role.class)
+                .setCacheable(true)
+                .setCacheRegion(ReferenceDataCache.ROLE_QUERIES)
+                .getResultList());
     }
 }
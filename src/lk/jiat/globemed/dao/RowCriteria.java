@@ -0,0 +1,143 @@
+package lk.jiat.globemed.dao;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Filter for the row and search queries of the DAOs. Criteria are combined with AND;
+ * anything left unset (or a blank search text) matches every row. Each DAO supports
+ * only the criteria that make sense for it and rejects the others, so a filter is
+ * never silently ignored.
+ * <p>
+ * Instances are immutable; every setter returns a copy.
+ */
+public final class RowCriteria {
+
+    public enum Criterion {
+        STATUS, CATEGORY, PAYMENT_METHOD, TEXT, DATE_RANGE, IDS
+    }
+
+    private static final RowCriteria ALL = new RowCriteria(null, null, null, null, null, null, null);
+
+    private final String status;
+    private final String category;
+    private final String paymentMethod;
+    private final String text;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final List<Long> ids;
+
+    private RowCriteria(String status, String category, String paymentMethod, String text,
+            LocalDateTime from, LocalDateTime to, List<Long> ids) {
+        this.status = status;
+        this.category = category;
+        this.paymentMethod = paymentMethod;
+        this.text = text;
+        this.from = from;
+        this.to = to;
+        this.ids = ids;
+    }
+
+    public static RowCriteria all() {
+        return ALL;
+    }
+
+    public RowCriteria status(String status) {
+        return new RowCriteria(status, category, paymentMethod, text, from, to, ids);
+    }
+
+    public RowCriteria category(String category) {
+        return new RowCriteria(status, category, paymentMethod, text, from, to, ids);
+    }
+
+    public RowCriteria paymentMethod(String paymentMethod) {
+        return new RowCriteria(status, category, paymentMethod, text, from, to, ids);
+    }
+
+    /**
+     * Case-insensitive "contains" match on the DAO's searchable columns.
+     */
+    public RowCriteria text(String text) {
+        return new RowCriteria(status, category, paymentMethod, text, from, to, ids);
+    }
+
+    /**
+     * Rows dated from {@code from} to {@code to}, both inclusive; either end may be
+     * {@code null} to leave it open.
+     */
+    public RowCriteria between(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Date range starts after it ends: " + from + " > " + to);
+        }
+        return new RowCriteria(status, category, paymentMethod, text, from, to, ids);
+    }
+
+    /**
+     * Only the rows with these ids, typically the hits of an in-memory search; an empty
+     * collection matches nothing.
+     */
+    public RowCriteria ids(Collection<Long> ids) {
+        return new RowCriteria(status, category, paymentMethod, text, from, to, ids == null ? null : List.copyOf(ids));
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a criterion outside {@code supported} is set
+     */
+    void requireOnly(String target, Criterion first, Criterion... rest) {
+        Set<Criterion> supported = EnumSet.of(first, rest);
+        for (Criterion criterion : Criterion.values()) {
+            if (isSet(criterion) && !supported.contains(criterion)) {
+                throw new IllegalArgumentException(target + " cannot be filtered by "
+                        + criterion.name().toLowerCase().replace('_', ' '));
+            }
+        }
+    }
+
+    private boolean isSet(Criterion criterion) {
+        return switch (criterion) {
+            case STATUS -> status != null;
+            case CATEGORY -> category != null;
+            case PAYMENT_METHOD -> paymentMethod != null;
+            case TEXT -> text != null && !text.isBlank();
+            case DATE_RANGE -> from != null || to != null;
+            case IDS -> ids != null;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "RowCriteria{status=" + status + ", category=" + category + ", paymentMethod=" + paymentMethod
+                + ", text=" + text + ", from=" + from + ", to=" + to + ", ids=" + ids + "}";
+    }
+}
@@ -0,0 +1,144 @@
+package lk.jiat.globemed.dao;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import lk.jiat.globemed.util.UnitOfWork;
+import org.hibernate.query.SelectionQuery;
+
+/**
+ * Builds the list, page, stream and count queries for a row projection. Conditions
+ * whose value is {@code null} are left out, so an unset filter means "any". Sorting
+ * is limited to the registered keys and always ends with the id, which keeps offset
+ * pages stable when the sort column has duplicates.
+ */
+final class RowQuery<R> {
+
+    private final Class<R> type;
+    private final String select;
+    private final String from;
+    private final String id;
+    private final List<String> conditions = new ArrayList<>();
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+    private final Map<String, List<String>> sortExpressions = new HashMap<>();
+    private String groupBy;
+    private String defaultSortKey;
+    private SortOrder defaultSortOrder = SortOrder.ASCENDING;
+
+    RowQuery(Class<R> type, String select, String from, String id) {
+        this.type = type;
+        this.select = select;
+        this.from = from;
+        this.id = id;
+        sortExpressions.put("id", List.of(id));
+    }
+
+    RowQuery<R> where(String condition, String parameter, Object value) {
+        if (value != null) {
+            conditions.add(condition);
+            parameters.put(parameter, value);
+        }
+        return this;
+    }
+
+    RowQuery<R> groupBy(String groupBy) {
+        this.groupBy = groupBy;
+        return this;
+    }
+
+    RowQuery<R> sortable(String key, String... expressions) {
+        sortExpressions.put(key, List.of(expressions));
+        return this;
+    }
+
+    RowQuery<R> defaultSort(String key, SortOrder order) {
+        this.defaultSortKey = key;
+        this.defaultSortOrder = order;
+        return this;
+    }
+
+    List<R> list() {
+        return UnitOfWork.fromSession(session -> bind(session.createSelectionQuery(
+                select + body() + orderBy(defaultSortKey, defaultSortOrder), type)).getResultList());
+    }
+
+    List<R> list(PageRequest page) {
+        String sortKey = page.getSortKey() != null ? page.getSortKey() : defaultSortKey;
+        SortOrder order = page.getSortKey() != null ? page.getSortOrder() : defaultSortOrder;
+        return UnitOfWork.fromSession(session -> bind(session.createSelectionQuery(
+                select + body() + orderBy(sortKey, order), type))
+                .setFirstResult(page.getOffset())
+                .setMaxResults(page.getLimit())
+                .getResultList());
+    }
+
+    /**
+     * Streams the rows in the default order without holding them, through
+     * {@link EntityQueries#stream(String, Class, Map)}; close the stream when done.
+     */
+    Stream<R> stream() {
+        return EntityQueries.stream(select + body() + orderBy(defaultSortKey, defaultSortOrder), type, parameters);
+    }
+
+    /**
+     * Streams the rows in id order, which the database can read straight off the primary
+     * key instead of sorting; for exports of whole tables.
+     */
+    Stream<R> streamById() {
+        return EntityQueries.stream(select + body() + orderBy(null, SortOrder.ASCENDING), type, parameters);
+    }
+
+    long count() {
+        return UnitOfWork.fromSession(session -> bind(session.createSelectionQuery(
+                "SELECT COUNT(DISTINCT " + id + ") " + from + where(), Long.class)).getSingleResult());
+    }
+
+    /**
+     * @return a LIKE pattern matching {@code text} anywhere, case-insensitively, or
+     * {@code null} for blank text; use with {@code LIKE :param ESCAPE '!'}
+     */
+    static String containsPattern(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        String escaped = text.trim().toLowerCase()
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+        return "%" + escaped + "%";
+    }
+
+    private String body() {
+        return " " + from + where() + (groupBy != null ? " GROUP BY " + groupBy : "");
+    }
+
+    private String where() {
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private String orderBy(String sortKey, SortOrder order) {
+        if (sortKey == null) {
+            return " ORDER BY " + id + " " + order.keyword();
+        }
+        List<String> expressions = sortExpressions.get(sortKey);
+        if (expressions == null) {
+            throw new IllegalArgumentException("Cannot sort " + type.getSimpleName() + " by " + sortKey);
+        }
+        List<String> terms = new ArrayList<>();
+        for (String expression : expressions) {
+            terms.add(expression + " " + order.keyword());
+        }
+        if (!expressions.contains(id)) {
+            terms.add(id + " " + order.keyword());
+        }
+        return " ORDER BY " + String.join(", ", terms);
+    }
+
+    private <Q> SelectionQuery<Q> bind(SelectionQuery<Q> query) {
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+}
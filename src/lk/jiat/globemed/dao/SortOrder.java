@@ -0,0 +1,26 @@
+package lk.jiat.globemed.dao;
+
+public enum SortOrder {
+
+    ASCENDING("ASC", ">"),
+    DESCENDING("DESC", "<");
+
+    private final String keyword;
+    private final String seekOperator;
+
+    SortOrder(String keyword, String seekOperator) {
+        this.keyword = keyword;
+        this.seekOperator = seekOperator;
+    }
+
+    String keyword() {
+        return keyword;
+    }
+
+    /**
+     * @return comparison that selects rows after a given key in this order
+     */
+    String seekOperator() {
+        return seekOperator;
+    }
+}
@@ -1,83 +1,125 @@
 package lk.jiat.globemed.dao;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
+import lk.jiat.globemed.dto.StaffRow;
 import lk.jiat.globemed.model.Staff;
-import lk.jiat.globemed.util.HibernateUtil;
-import org.hibernate.Session;
-import org.hibernate.Transaction;
+import lk.jiat.globemed.util.UnitOfWork;
 import org.hibernate.query.Query;
 
 public class StaffDao {
 
+    private static final String ROWS = "SELECT new lk.jiat.globemed.dto.StaffRow(s.id, s.name, s.email, r.name) " +
+            "FROM Staff s LEFT JOIN s.role r ORDER BY s.id";
+
     public Staff create(Staff staff) {
-        Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            tx = session.beginTransaction();
+        return UnitOfWork.fromTransaction(session -> {
             session.persist(staff);
-            tx.commit();
             return staff;
-        } catch (Exception e) {
-            if (tx != null) {
-                tx.rollback();
-            }
-            throw e;
-        }
+        });
     }
 
     public Staff findById(Long id) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return session.get(Staff.class, id);
-        }
+        return UnitOfWork.fromSession(session -> session.get(Staff.class, id));
     }
 
     public Staff findByEmail(String email) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<Staff> q = session.createQuery("FROM Staff s WHERE s.email = :em", Staff.class);
             q.setParameter("em", email);
             return q.uniqueResultOptional().orElse(null);
+        });
+    }
+
+    /**
+     * @return the stored emails that match one of {@code emails}, ignoring case
+     */
+    public List<String> findExistingEmails(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return List.of();
         }
+        List<String> lowerCase = emails.stream().map(email -> email.toLowerCase(Locale.ROOT)).toList();
+        return UnitOfWork.fromSession(session -> session.createQuery(
+                "SELECT s.email FROM Staff s WHERE LOWER(s.email) IN :emails", String.class)
+                .setParameter("emails", lowerCase)
+                .getResultList());
     }
 
     public List<Staff> findAll() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromSession(session -> {
             Query<Staff> q = session.createQuery("FROM Staff", Staff.class);
             return q.getResultList();
-        }
+        });
+    }
+
+    /**
+     * Every staff member with their role name, ordered by id, without loading the entities.
+     */
+    public List<StaffRow> findRows() {
+        return UnitOfWork.fromSession(session -> session.createQuery(ROWS, StaffRow.class).getResultList());
+    }
+
+    /**
+     * Streams the same rows as {@link #findRows()} without holding them; close the stream
+     * when done.
+     */
+    public Stream<StaffRow> streamRows() {
+        return EntityQueries.stream(ROWS, StaffRow.class, Map.of());
+    }
+
+    /**
+     * @return the number of staff in each role, by role name; staff without a role are
+     * under {@code null}
+     */
+    public Map<String, Long> countsByRole() {
+        return EntityQueries.countBy(
+                "SELECT r.name, COUNT(s) FROM Staff s LEFT JOIN s.role r GROUP BY r.name ORDER BY r.name");
     }
 
     public Staff update(Staff staff) {
-        Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            tx = session.beginTransaction();
+        return UnitOfWork.fromTransaction(session -> {
             Staff merged = (Staff) session.merge(staff);
-            tx.commit();
             return merged;
-        } catch (Exception e) {
-            if (tx != null) {
-                tx.rollback();
-            }
-            throw e;
-        }
+        });
     }
 
     public boolean deleteById(Long id) {
-        Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return UnitOfWork.fromTransaction(session -> {
             Staff s = session.get(Staff.class, id);
             if (s == null) {
                 return false;
             }
-            tx = session.beginTransaction();
             session.remove(s);
-            tx.commit();
             return true;
-        } catch (Exception e) {
-            if (tx != null) {
-                tx.rollback();
-            }
-            throw e;
-        }
+        });
+    }
+
+    public BulkWriteResult createAll(Collection<Staff> staff) {
+        return createAll(staff, BulkWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkWriteResult createAll(Collection<Staff> staff, int chunkSize) {
+        return BulkWriter.persistAll(staff, chunkSize);
+    }
+
+    public BulkWriteResult updateAll(Collection<Staff> staff) {
+        return updateAll(staff, BulkWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkWriteResult updateAll(Collection<Staff> staff, int chunkSize) {
+        return BulkWriter.mergeAll(staff, chunkSize);
+    }
+
+    public BulkWriteResult deleteAllById(Collection<Long> ids) {
+        return deleteAllById(ids, BulkWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkWriteResult deleteAllById(Collection<Long> ids, int chunkSize) {
+        return BulkWriter.removeAllById(Staff.class, ids, chunkSize);
     }
 
     public Optional<Staff> findOptionalById(Long id) {
@@ -1,31 +1,37 @@
 package lk.jiat.globemed.dao;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import lk.jiat.globemed.model.AuditLog;
 import lk.jiat.globemed.model.Staff;
 
+/**
+ * Audits every staff change. Entries are handed to an {@link AuditWriter}, which stores
+ * them in the background, so the change returns without waiting for its audit row.
+ */
 public class StaffDaoAuditDecorator {
 
     private final StaffDao delegate;
-    private final AuditDao auditDao;
+    private final AuditWriter auditWriter;
     private final boolean failOnAuditError;
 
-    public StaffDaoAuditDecorator(StaffDao delegate, AuditDao auditDao, boolean failOnAuditError) {
+    public StaffDaoAuditDecorator(StaffDao delegate, AuditWriter auditWriter, boolean failOnAuditError) {
         this.delegate = delegate;
-        this.auditDao = auditDao;
+        this.auditWriter = auditWriter;
         this.failOnAuditError = failOnAuditError;
     }
 
-    public StaffDaoAuditDecorator(StaffDao delegate, AuditDao auditDao) {
-        this(delegate, auditDao, false);
+    public StaffDaoAuditDecorator(StaffDao delegate, AuditWriter auditWriter) {
+        this(delegate, auditWriter, false);
     }
 
     public Staff create(Staff s, String performedBy) {
         Staff created = delegate.create(s);
         try {
             AuditLog log = buildAudit("Staff", created.getId(), "CREATE", performedBy, "Created staff: " + created.getEmail());
-            auditDao.create(log);
+            auditWriter.submit(log);
         } catch (Exception e) {
             System.err.println("Audit write failed after create: " + e.getMessage());
             e.printStackTrace();
@@ -36,11 +42,42 @@ public class StaffDaoAuditDecorator {
         return created;
     }
 
+    /**
+     * Bulk create through {@link StaffDao#createAll}, auditing each row of the chunks that
+     * committed.
+     */
+    public BulkWriteResult createAll(Collection<Staff> staff, int chunkSize, String performedBy) {
+        List<Staff> all = new ArrayList<>(staff);
+        BulkWriteResult result = delegate.createAll(all, chunkSize);
+        boolean[] failed = new boolean[all.size()];
+        for (BulkWriteResult.ChunkFailure failure : result.getFailures()) {
+            for (int i = failure.getOffset(); i < failure.getOffset() + failure.getSize(); i++) {
+                failed[i] = true;
+            }
+        }
+        try {
+            for (int i = 0; i < all.size(); i++) {
+                if (!failed[i]) {
+                    Staff created = all.get(i);
+                    auditWriter.submit(buildAudit("Staff", created.getId(), "CREATE", performedBy,
+                            "Created staff: " + created.getEmail()));
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Audit write failed after bulk create: " + e.getMessage());
+            e.printStackTrace();
+            if (failOnAuditError) {
+                throw e;
+            }
+        }
+        return result;
+    }
+
     public Staff update(Staff s, String performedBy) {
         Staff updated = delegate.update(s);
         try {
             AuditLog log = buildAudit("Staff", updated.getId(), "UPDATE", performedBy, "Updated staff: " + updated.getEmail());
-            auditDao.create(log);
+            auditWriter.submit(log);
         } catch (Exception e) {
             System.err.println("Audit write failed after update: " + e.getMessage());
             e.printStackTrace();
@@ -56,7 +93,7 @@ public class StaffDaoAuditDecorator {
         if (ok) {
             try {
                 AuditLog log = buildAudit("Staff", id, "DELETE", performedBy, "Deleted staff id=" + id);
-                auditDao.create(log);
+                auditWriter.submit(log);
             } catch (Exception e) {
                 System.err.println("Audit write failed after delete: " + e.getMessage());
                 e.printStackTrace();
@@ -0,0 +1,10 @@
+package lk.jiat.globemed.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Columns of the appointment tables on the nurse dashboard and appointment form.
+ */
+public record AppointmentRow(Long id, LocalDateTime appointmentDateTime, String status,
+        String patientName, String doctorName) {
+}
@@ -0,0 +1,7 @@
+package lk.jiat.globemed.dto;
+
+/**
+ * The appointment attributes the cohort index keeps.
+ */
+public record AppointmentStatusRow(Long id, Long patientId, String status) {
+}
@@ -0,0 +1,10 @@
+package lk.jiat.globemed.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Columns of the accountant's billing and payment tables.
+ */
+public record BillingRow(Long id, String patientName, double amount, String paymentMethod,
+        String status, LocalDateTime createdAt) {
+}
@@ -0,0 +1,7 @@
+package lk.jiat.globemed.dto;
+
+/**
+ * One group of a {@code GROUP BY}: its key, row count and summed amount.
+ */
+public record GroupTotal(String group, long count, double amount) {
+}
@@ -0,0 +1,11 @@
+package lk.jiat.globemed.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Columns of the pharmacist's medication table.
+ */
+public record MedicationRow(Long id, String name, String category, String manufacturer,
+        Integer stockQuantity, Integer minimumStock, Double unitPrice, String dosageForm,
+        String strength, String status, LocalDate expiryDate) {
+}
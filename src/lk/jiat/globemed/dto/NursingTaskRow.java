@@ -0,0 +1,10 @@
+package lk.jiat.globemed.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Columns of the nurse's task table. {@code patientName} is null for general tasks.
+ */
+public record NursingTaskRow(Long id, String title, String patientName, String priority,
+        String status, LocalDateTime dueDateTime, String taskType) {
+}
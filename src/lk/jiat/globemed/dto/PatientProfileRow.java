@@ -0,0 +1,9 @@
+package lk.jiat.globemed.dto;
+
+import java.time.LocalDate;
+
+/**
+ * The patient attributes the cohort index keeps.
+ */
+public record PatientProfileRow(Long id, String gender, LocalDate dob) {
+}
@@ -0,0 +1,11 @@
+package lk.jiat.globemed.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Columns of the pharmacist's prescription table. Item count and total cost are
+ * aggregated in the query, so the items themselves are never loaded.
+ */
+public record PrescriptionRow(Long id, String patientName, String doctorName,
+        LocalDateTime prescribedDate, String status, Long itemCount, Double totalCost) {
+}
@@ -0,0 +1,7 @@
+package lk.jiat.globemed.dto;
+
+/**
+ * Columns of the staff report.
+ */
+public record StaffRow(Long id, String name, String email, String roleName) {
+}
@@ -0,0 +1,11 @@
+package lk.jiat.globemed.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One vitals reading with the patient's and nurse's names, for exports.
+ */
+public record VitalsRow(Long id, Long patientId, String patientName, String nurseName, LocalDateTime recordedAt,
+        Double temperature, Integer systolicBP, Integer diastolicBP, Integer heartRate, Integer respiratoryRate,
+        Double oxygenSaturation, Double weight, Double height, String notes) {
+}
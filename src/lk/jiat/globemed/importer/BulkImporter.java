@@ -0,0 +1,411 @@
+package lk.jiat.globemed.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import lk.jiat.globemed.dao.BulkWriteResult;
+import lk.jiat.globemed.report.CsvWriter;
+
+/**
+ * Imports a CSV file in three stages: one thread reads it in chunks of records, a pool
+ * parses and validates the chunks in parallel, and the calling thread checks duplicates
+ * and writes them through the DAO in order. Only a few chunks are between the stages at
+ * any time, so the file's size does not matter.
+ * <p>
+ * Rows that do not parse, that duplicate a stored or earlier row, or that the database
+ * refuses are written to {@link #getRejectFile(Path)} with their line and the reason,
+ * and the import goes on. A failed write batch is retried row by row, so one bad row
+ * does not reject its neighbours.
+ * <p>
+ * After each chunk the progress is saved to {@link #getCheckpointFile(Path)}. Running the
+ * import again on the same file skips what that records and carries on; the checkpoint
+ * is deleted once the file is done. A chunk stored just before the process died, but not
+ * yet checkpointed, is imported again on resume; duplicate checks catch this for staff
+ * and medications.
+ */
+public final class BulkImporter<T> {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+    private static final int WRITE_BATCH_SIZE = 500;
+
+    private final ImportTarget<T> target;
+    private final int chunkSize;
+    private final int workers;
+
+    public BulkImporter(ImportTarget<T> target) {
+        this(target, DEFAULT_CHUNK_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param chunkSize records read and parsed together, and checkpointed after
+     * @param workers threads parsing chunks
+     */
+    public BulkImporter(ImportTarget<T> target, int chunkSize, int workers) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be positive: " + workers);
+        }
+        this.target = target;
+        this.chunkSize = chunkSize;
+        this.workers = workers;
+    }
+
+    public static Path getRejectFile(Path source) {
+        return source.resolveSibling(source.getFileName() + ".rejects.csv");
+    }
+
+    public static Path getCheckpointFile(Path source) {
+        return source.resolveSibling(source.getFileName() + ".checkpoint");
+    }
+
+    /**
+     * Imports {@code source}, or the rest of it when a checkpoint is left from an earlier
+     * run.
+     *
+     * @param progress told after every chunk, on the calling thread
+     * @return the final counts
+     * @throws IllegalArgumentException when the header lacks a required column
+     * @throws IllegalStateException when the file changed since its checkpoint was saved
+     */
+    public ImportProgress run(Path source, Consumer<ImportProgress> progress) throws IOException {
+        Checkpoint checkpoint = Checkpoint.load(source);
+        Path rejectFile = getRejectFile(source);
+
+        try (CsvReader reader = CsvReader.open(source)) {
+            String[] header = reader.readRecord();
+            if (header == null) {
+                throw new IllegalArgumentException(source + " is empty");
+            }
+            if (header[0].startsWith("\uFEFF")) {
+                // Byte order mark, as spreadsheet programs write.
+                header[0] = header[0].substring(1);
+            }
+            Map<String, Integer> columns = columns(header);
+            Set<String> missing = new LinkedHashSet<>(target.getRequiredColumns());
+            missing.removeAll(columns.keySet());
+            if (!missing.isEmpty()) {
+                throw new IllegalArgumentException(source + " lacks column(s) " + String.join(", ", missing));
+            }
+            for (long skipped = 0; skipped < checkpoint.read; skipped++) {
+                if (reader.readRecord() == null) {
+                    throw new IllegalStateException(source + " is shorter than its checkpoint says");
+                }
+            }
+
+            boolean appending = checkpoint.read > 0 && Files.exists(rejectFile);
+            Run run = new Run(checkpoint);
+            try (CsvWriter rejects = appending ? CsvWriter.append(rejectFile) : CsvWriter.open(rejectFile, false)) {
+                if (!appending) {
+                    Object[] rejectHeader = new Object[header.length + 2];
+                    rejectHeader[0] = "line";
+                    rejectHeader[1] = "reason";
+                    System.arraycopy(header, 0, rejectHeader, 2, header.length);
+                    rejects.writeRecord(rejectHeader);
+                }
+                run.execute(reader, columns, rejects, progress);
+            }
+
+            Files.deleteIfExists(getCheckpointFile(source));
+            if (run.rejected == 0) {
+                Files.deleteIfExists(rejectFile);
+            }
+            ImportProgress result = run.snapshot();
+            System.out.println("Imported " + source.getFileName() + ": " + result);
+            return result;
+        }
+    }
+
+    private static Map<String, Integer> columns(String[] header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            columns.putIfAbsent(header[i].trim().toLowerCase(Locale.ROOT), i);
+        }
+        return columns;
+    }
+
+    private record Chunk<T>(List<ImportRow> rows, List<T> entities, String[] errors) {
+    }
+
+    /**
+     * The state of one call to {@link #run}.
+     */
+    private final class Run {
+
+        private final Checkpoint checkpoint;
+        private final long startNanos = System.nanoTime();
+        private final Set<String> seenKeys = new HashSet<>();
+        private long read;
+        private long imported;
+        private long rejected;
+        private long duplicates;
+        private CsvWriter rejects;
+
+        Run(Checkpoint checkpoint) {
+            this.checkpoint = checkpoint;
+            this.read = checkpoint.read;
+            this.imported = checkpoint.imported;
+            this.rejected = checkpoint.rejected;
+            this.duplicates = checkpoint.duplicates;
+        }
+
+        void execute(CsvReader reader, Map<String, Integer> columns, CsvWriter rejects,
+                Consumer<ImportProgress> progress) throws IOException {
+            this.rejects = rejects;
+            AtomicInteger threads = new AtomicInteger();
+            ExecutorService parsers = Executors.newFixedThreadPool(workers, r -> {
+                Thread thread = new Thread(r, "import-parse-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Futures go in in file order and come out the same way, whichever chunk
+            // finishes parsing first; the capacity bounds the chunks in flight.
+            BlockingQueue<Future<Chunk<T>>> parsed = new ArrayBlockingQueue<>(workers * 2);
+            Future<Chunk<T>> end = CompletableFuture.completedFuture(null);
+
+            Thread readerThread = new Thread(() -> {
+                try {
+                    long number = checkpoint.read;
+                    boolean more = true;
+                    while (more) {
+                        List<ImportRow> rows = new ArrayList<>(chunkSize);
+                        String[] values = null;
+                        while (rows.size() < chunkSize && (values = reader.readRecord()) != null) {
+                            rows.add(new ImportRow(++number, reader.getRecordLine(), columns, values));
+                        }
+                        more = values != null;
+                        if (!rows.isEmpty()) {
+                            parsed.put(parsers.submit(() -> parse(rows)));
+                        }
+                    }
+                    parsed.put(end);
+                } catch (InterruptedException e) {
+                    // The writer gave up; nothing is waiting for more.
+                } catch (IOException | RuntimeException e) {
+                    try {
+                        parsed.put(CompletableFuture.failedFuture(e));
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+            }, "import-reader");
+            readerThread.setDaemon(true);
+            readerThread.start();
+
+            try {
+                while (true) {
+                    Future<Chunk<T>> next = parsed.take();
+                    if (next == end) {
+                        return;
+                    }
+                    store(next.get());
+                    rejects.flush();
+                    checkpoint.save(read, imported, rejected, duplicates);
+                    progress.accept(snapshot());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Import interrupted after " + read + " records");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                throw e.getCause() instanceof RuntimeException re ? re : new IllegalStateException(e.getCause());
+            } finally {
+                readerThread.interrupt();
+                parsers.shutdownNow();
+            }
+        }
+
+        ImportProgress snapshot() {
+            return new ImportProgress(read, imported, rejected, duplicates, checkpoint.read,
+                    (System.nanoTime() - startNanos) / 1_000_000);
+        }
+
+        private Chunk<T> parse(List<ImportRow> rows) {
+            List<T> entities = new ArrayList<>(rows.size());
+            String[] errors = new String[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                try {
+                    entities.add(target.parse(rows.get(i)));
+                } catch (RuntimeException e) {
+                    entities.add(null);
+                    errors[i] = e.getMessage() != null ? e.getMessage() : e.toString();
+                }
+            }
+            return new Chunk<>(rows, entities, errors);
+        }
+
+        private void store(Chunk<T> chunk) throws IOException {
+            read += chunk.rows().size();
+
+            Set<String> keys = new HashSet<>();
+            for (T entity : chunk.entities()) {
+                String key = entity != null ? target.getDuplicateKey(entity) : null;
+                if (key != null) {
+                    keys.add(key);
+                }
+            }
+            Set<String> existing = keys.isEmpty() ? Set.of() : target.findExistingKeys(keys);
+
+            List<ImportRow> acceptedRows = new ArrayList<>();
+            List<T> accepted = new ArrayList<>();
+            for (int i = 0; i < chunk.rows().size(); i++) {
+                ImportRow row = chunk.rows().get(i);
+                T entity = chunk.entities().get(i);
+                if (entity == null) {
+                    reject(row, chunk.errors()[i]);
+                    continue;
+                }
+                String key = target.getDuplicateKey(entity);
+                if (key != null && existing.contains(key)) {
+                    duplicates++;
+                    reject(row, "already exists");
+                } else if (key != null && !seenKeys.add(key)) {
+                    duplicates++;
+                    reject(row, "repeats an earlier row");
+                } else {
+                    acceptedRows.add(row);
+                    accepted.add(entity);
+                }
+            }
+            if (accepted.isEmpty()) {
+                return;
+            }
+
+            BulkWriteResult result = target.write(accepted, WRITE_BATCH_SIZE);
+            imported += result.getSucceeded();
+            for (BulkWriteResult.ChunkFailure failure : result.getFailures()) {
+                for (int i = failure.getOffset(); i < failure.getOffset() + failure.getSize(); i++) {
+                    retry(acceptedRows.get(i), failure.getCause());
+                }
+            }
+        }
+
+        /**
+         * Writes one row of a failed batch on its own, from a fresh entity since the
+         * failed one may already carry an id.
+         */
+        private void retry(ImportRow row, Exception batchFailure) throws IOException {
+            T entity = target.parse(row);
+            BulkWriteResult result = target.write(List.of(entity), 1);
+            if (result.isSuccess()) {
+                imported++;
+                return;
+            }
+            String key = target.getDuplicateKey(entity);
+            if (key != null) {
+                seenKeys.remove(key);
+            }
+            Exception cause = result.getFailures().get(0).getCause();
+            reject(row, "could not be stored: " + rootMessage(cause != null ? cause : batchFailure));
+        }
+
+        private void reject(ImportRow row, String reason) throws IOException {
+            String[] values = row.values();
+            Object[] record = new Object[values.length + 2];
+            record[0] = row.getLine();
+            record[1] = reason;
+            System.arraycopy(values, 0, record, 2, values.length);
+            rejects.writeRecord(record);
+            rejected++;
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        while (e.getCause() != null && e.getCause() != e) {
+            e = e.getCause();
+        }
+        return e.getMessage() != null ? e.getMessage() : e.toString();
+    }
+
+    /**
+     * How far an earlier run got, and the size and modification time the file had then.
+     */
+    private static final class Checkpoint {
+
+        private final Path file;
+        private final long sourceSize;
+        private final long sourceModified;
+        private long read;
+        private long imported;
+        private long rejected;
+        private long duplicates;
+
+        private Checkpoint(Path file, long sourceSize, long sourceModified) {
+            this.file = file;
+            this.sourceSize = sourceSize;
+            this.sourceModified = sourceModified;
+        }
+
+        static Checkpoint load(Path source) throws IOException {
+            Path file = getCheckpointFile(source);
+            Checkpoint checkpoint = new Checkpoint(file, Files.size(source),
+                    Files.getLastModifiedTime(source).toMillis());
+            if (!Files.exists(file)) {
+                return checkpoint;
+            }
+
+            Properties saved = new Properties();
+            try (InputStream in = Files.newInputStream(file)) {
+                saved.load(in);
+            }
+            if (checkpoint.sourceSize != Long.parseLong(saved.getProperty("source.size"))
+                    || checkpoint.sourceModified != Long.parseLong(saved.getProperty("source.modified"))) {
+                throw new IllegalStateException(source + " changed since " + file
+                        + " was saved; delete the checkpoint to import the file from the start");
+            }
+            checkpoint.read = Long.parseLong(saved.getProperty("read"));
+            checkpoint.imported = Long.parseLong(saved.getProperty("imported"));
+            checkpoint.rejected = Long.parseLong(saved.getProperty("rejected"));
+            checkpoint.duplicates = Long.parseLong(saved.getProperty("duplicates"));
+            return checkpoint;
+        }
+
+        /**
+         * Replaces the checkpoint file in one step, so a crash leaves the old one or the
+         * new one.
+         */
+        void save(long read, long imported, long rejected, long duplicates) {
+            Properties saved = new Properties();
+            saved.setProperty("source.size", Long.toString(sourceSize));
+            saved.setProperty("source.modified", Long.toString(sourceModified));
+            saved.setProperty("read", Long.toString(read));
+            saved.setProperty("imported", Long.toString(imported));
+            saved.setProperty("rejected", Long.toString(rejected));
+            saved.setProperty("duplicates", Long.toString(duplicates));
+            try {
+                Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    saved.store(out, "Bulk import progress; delete to start over");
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not save import checkpoint " + file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package lk.jiat.globemed.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads RFC 4180 records from a UTF-8 file, gunzipping it when the name ends in
+ * {@code .gz}: the format {@link lk.jiat.globemed.report.CsvWriter} writes. Quoted fields
+ * may hold commas, doubled quotes and line breaks. Records may end with CRLF, LF or CR,
+ * and blank lines are skipped.
+ */
+public final class CsvReader implements Closeable {
+
+    private static final int BUFFER_CHARS = 1 << 16;
+    private static final int STREAM_BUFFER_BYTES = 1 << 16;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_CHARS];
+    private int position;
+    private int limit;
+    private long line = 1;
+    private long recordLine;
+    private final StringBuilder field = new StringBuilder();
+
+    private CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    public static CsvReader open(Path file) throws IOException {
+        InputStream stream = Files.newInputStream(file);
+        try {
+            if (file.getFileName().toString().toLowerCase().endsWith(".gz")) {
+                stream = new GZIPInputStream(stream, STREAM_BUFFER_BYTES);
+            }
+            // Bad bytes become U+FFFD rather than failing the whole file.
+            return new CsvReader(new InputStreamReader(stream, StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)));
+        } catch (IOException | RuntimeException e) {
+            stream.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the next record's fields, or {@code null} at the end of the file
+     * @throws IOException also when the file ends inside a quoted field
+     */
+    public String[] readRecord() throws IOException {
+        int c = read();
+        while (c == '\r' || c == '\n') {
+            endLine(c);
+            c = read();
+        }
+        if (c < 0) {
+            return null;
+        }
+        recordLine = line;
+
+        List<String> fields = new ArrayList<>();
+        while (true) {
+            field.setLength(0);
+            if (c == '"') {
+                c = readQuoted();
+            }
+            // Unquoted text, or anything after a closing quote, is taken as it stands.
+            while (c >= 0 && c != ',' && c != '\r' && c != '\n') {
+                field.append((char) c);
+                c = read();
+            }
+            fields.add(field.toString());
+            if (c != ',') {
+                if (c >= 0) {
+                    endLine(c);
+                }
+                return fields.toArray(String[]::new);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * @return the line the last record read starts on, counting from 1
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Reads a quoted field's contents into {@link #field}.
+     *
+     * @return the character after the closing quote
+     */
+    private int readQuoted() throws IOException {
+        long startLine = line;
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                throw new IOException("Quoted field starting on line " + startLine + " is never closed");
+            }
+            if (c == '"') {
+                c = read();
+                if (c != '"') {
+                    return c;
+                }
+            } else if (c == '\n' || (c == '\r' && peek() != '\n')) {
+                line++;
+            }
+            field.append((char) c);
+        }
+    }
+
+    /**
+     * Consumes the rest of the line break that starts with {@code c}.
+     */
+    private void endLine(int c) throws IOException {
+        line++;
+        if (c == '\r' && peek() == '\n') {
+            position++;
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        while (n == 0) {
+            n = in.read(buffer, 0, buffer.length);
+        }
+        if (n < 0) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+}
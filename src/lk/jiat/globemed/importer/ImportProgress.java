@@ -0,0 +1,30 @@
+package lk.jiat.globemed.importer;
+
+/**
+ * Where an import has got to. Counts cover the whole file, including any records a
+ * resumed run skipped because an earlier run had already handled them.
+ *
+ * @param read records taken from the file
+ * @param imported records stored
+ * @param rejected records written to the reject file, duplicates included
+ * @param duplicates records rejected for a key already in the database or earlier in the file
+ * @param resumedAt records the earlier run had handled when this one started
+ * @param elapsedMillis time spent by this run
+ */
+public record ImportProgress(long read, long imported, long rejected, long duplicates, long resumedAt,
+        long elapsedMillis) {
+
+    /**
+     * @return the records this run has read per second
+     */
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? 0 : (read - resumedAt) * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("read=%d imported=%d rejected=%d (duplicates=%d)%s in %.1f s, %.0f rows/s",
+                read, imported, rejected, duplicates, resumedAt > 0 ? " resumed at " + resumedAt : "",
+                elapsedMillis / 1000.0, getRowsPerSecond());
+    }
+}
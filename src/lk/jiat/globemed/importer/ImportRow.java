@@ -0,0 +1,94 @@
+package lk.jiat.globemed.importer;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+/**
+ * One record of an import file, with its fields looked up by column name. The
+ * conversions throw {@link IllegalArgumentException} with a message fit for the reject
+ * file.
+ */
+public final class ImportRow {
+
+    private final long number;
+    private final long line;
+    private final Map<String, Integer> columns;
+    private final String[] values;
+
+    ImportRow(long number, long line, Map<String, Integer> columns, String[] values) {
+        this.number = number;
+        this.line = line;
+        this.columns = columns;
+        this.values = values;
+    }
+
+    /**
+     * @return the record's position among the data records, counting from 1
+     */
+    public long getNumber() {
+        return number;
+    }
+
+    /**
+     * @return the line of the file the record starts on
+     */
+    public long getLine() {
+        return line;
+    }
+
+    /**
+     * @return the field trimmed, or {@code null} when it is blank or the file has no such
+     * column
+     */
+    public String get(String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= values.length) {
+            return null;
+        }
+        String value = values[index].trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    public String require(String column) {
+        String value = get(column);
+        if (value == null) {
+            throw new IllegalArgumentException(column + " is required");
+        }
+        return value;
+    }
+
+    /**
+     * @return the date in yyyy-MM-dd form, or {@code null} when blank
+     */
+    public LocalDate getDate(String column) {
+        String value = get(column);
+        try {
+            return value == null ? null : LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(column + " must be a date in yyyy-MM-dd form: " + value);
+        }
+    }
+
+    public Integer getInt(String column) {
+        String value = get(column);
+        try {
+            return value == null ? null : Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " must be a whole number: " + value);
+        }
+    }
+
+    public Double getDouble(String column) {
+        String value = get(column);
+        try {
+            return value == null ? null : Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " must be a number: " + value);
+        }
+    }
+
+    String[] values() {
+        return values;
+    }
+}
@@ -0,0 +1,46 @@
+package lk.jiat.globemed.importer;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import lk.jiat.globemed.dao.BulkWriteResult;
+
+/**
+ * What a {@link BulkImporter} builds from each row and where it stores it. See
+ * {@link ImportTargets} for the entities that can be imported.
+ */
+public interface ImportTarget<T> {
+
+    /**
+     * @return the columns the file's header must have
+     */
+    List<String> getRequiredColumns();
+
+    /**
+     * Builds and validates one entity. Called from several threads at once, so it must not
+     * touch the database.
+     *
+     * @throws IllegalArgumentException when the row is not valid
+     */
+    T parse(ImportRow row);
+
+    /**
+     * @return the natural key two copies of an entity would share, or {@code null} when
+     * duplicates are not checked
+     */
+    default String getDuplicateKey(T entity) {
+        return null;
+    }
+
+    /**
+     * @return those of {@code keys} the database already holds
+     */
+    default Set<String> findExistingKeys(Collection<String> keys) {
+        return Set.of();
+    }
+
+    /**
+     * Stores the entities, committing every {@code batchSize} of them on its own.
+     */
+    BulkWriteResult write(List<T> entities, int batchSize);
+}
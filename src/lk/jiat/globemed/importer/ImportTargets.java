@@ -0,0 +1,217 @@
+package lk.jiat.globemed.importer;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lk.jiat.globemed.dao.AuditWriter;
+import lk.jiat.globemed.dao.BulkWriteResult;
+import lk.jiat.globemed.dao.MedicationDao;
+import lk.jiat.globemed.dao.PatientDao;
+import lk.jiat.globemed.dao.RoleDao;
+import lk.jiat.globemed.dao.StaffDao;
+import lk.jiat.globemed.dao.StaffDaoAuditDecorator;
+import lk.jiat.globemed.model.Medication;
+import lk.jiat.globemed.model.Patient;
+import lk.jiat.globemed.model.Role;
+import lk.jiat.globemed.model.Staff;
+
+/**
+ * The entities that can be bulk imported, with the same rules as the dialogs that add
+ * them one at a time. Patient columns match the CSV export, so exported patients can be
+ * imported again.
+ */
+public final class ImportTargets {
+
+    private static final List<String> GENDERS = List.of("Male", "Female", "Other");
+    private static final List<String> MEDICATION_STATUSES = List.of("Available", "Out of Stock", "Expired",
+            "Discontinued");
+
+    private ImportTargets() {
+    }
+
+    /**
+     * Columns {@code first_name, last_name, contact_number, dob}, and optionally
+     * {@code gender, address}. Patients have no natural key, so duplicates are not
+     * checked.
+     */
+    public static ImportTarget<Patient> patients() {
+        PatientDao dao = new PatientDao();
+        return new ImportTarget<>() {
+            @Override
+            public List<String> getRequiredColumns() {
+                return List.of("first_name", "last_name", "contact_number", "dob");
+            }
+
+            @Override
+            public Patient parse(ImportRow row) {
+                Patient patient = new Patient();
+                patient.setFirstName(row.require("first_name"));
+                patient.setLastName(row.require("last_name"));
+                patient.setContactNumber(row.require("contact_number"));
+                row.require("dob");
+                patient.setDob(row.getDate("dob"));
+                patient.setGender(oneOf(row, "gender", GENDERS));
+                patient.setAddress(row.get("address"));
+                return patient;
+            }
+
+            @Override
+            public BulkWriteResult write(List<Patient> entities, int batchSize) {
+                return dao.createAll(entities, batchSize);
+            }
+        };
+    }
+
+    /**
+     * Columns {@code name, email, password, role}, the role given by name. Emails already
+     * taken, or repeated in the file, are rejected. Each imported row is audited like a
+     * staff member added by hand.
+     *
+     * @param performedBy who the audit entries name
+     */
+    public static ImportTarget<Staff> staff(String performedBy) {
+        StaffDao dao = new StaffDao();
+        StaffDaoAuditDecorator audited = new StaffDaoAuditDecorator(dao, AuditWriter.getDefault());
+        Map<String, Role> roles = new HashMap<>();
+        for (Role role : new RoleDao().findAll()) {
+            roles.put(role.getName().toLowerCase(Locale.ROOT), role);
+        }
+        return new ImportTarget<>() {
+            @Override
+            public List<String> getRequiredColumns() {
+                return List.of("name", "email", "password", "role");
+            }
+
+            @Override
+            public Staff parse(ImportRow row) {
+                Staff staff = new Staff();
+                staff.setName(row.require("name"));
+                String email = row.require("email");
+                if (email.indexOf('@') < 1) {
+                    throw new IllegalArgumentException("email is not an address: " + email);
+                }
+                staff.setEmail(email);
+                staff.setPassword(row.require("password"));
+                String roleName = row.require("role");
+                Role role = roles.get(roleName.toLowerCase(Locale.ROOT));
+                if (role == null) {
+                    throw new IllegalArgumentException("role does not exist: " + roleName);
+                }
+                staff.setRole(role);
+                return staff;
+            }
+
+            @Override
+            public String getDuplicateKey(Staff staff) {
+                return staff.getEmail().toLowerCase(Locale.ROOT);
+            }
+
+            @Override
+            public Set<String> findExistingKeys(Collection<String> keys) {
+                return dao.findExistingEmails(keys).stream()
+                        .map(email -> email.toLowerCase(Locale.ROOT))
+                        .collect(Collectors.toSet());
+            }
+
+            @Override
+            public BulkWriteResult write(List<Staff> entities, int batchSize) {
+                return audited.createAll(entities, batchSize, performedBy);
+            }
+        };
+    }
+
+    /**
+     * Columns {@code name, category, manufacturer, unit_price, stock_quantity,
+     * minimum_stock, dosage_form}, and optionally {@code description, strength,
+     * expiry_date, batch_number, status}. A medication whose name and batch number are
+     * already stocked, or repeated in the file, is rejected.
+     */
+    public static ImportTarget<Medication> medications() {
+        MedicationDao dao = new MedicationDao();
+        return new ImportTarget<>() {
+            @Override
+            public List<String> getRequiredColumns() {
+                return List.of("name", "category", "manufacturer", "unit_price", "stock_quantity", "minimum_stock",
+                        "dosage_form");
+            }
+
+            @Override
+            public Medication parse(ImportRow row) {
+                Medication medication = new Medication();
+                medication.setName(row.require("name"));
+                medication.setCategory(row.require("category"));
+                medication.setManufacturer(row.require("manufacturer"));
+                row.require("unit_price");
+                double unitPrice = row.getDouble("unit_price");
+                if (!(unitPrice > 0)) {
+                    throw new IllegalArgumentException("unit_price must be positive: " + unitPrice);
+                }
+                medication.setUnitPrice(unitPrice);
+                medication.setStockQuantity(nonNegative(row, "stock_quantity"));
+                medication.setMinimumStock(nonNegative(row, "minimum_stock"));
+                medication.setDosageForm(row.require("dosage_form"));
+                medication.setDescription(row.get("description"));
+                medication.setStrength(row.get("strength"));
+                medication.setExpiryDate(row.getDate("expiry_date"));
+                medication.setBatchNumber(row.get("batch_number"));
+                String status = oneOf(row, "status", MEDICATION_STATUSES);
+                medication.setStatus(status != null ? status : "Available");
+                return medication;
+            }
+
+            @Override
+            public String getDuplicateKey(Medication medication) {
+                return key(medication.getName(), medication.getBatchNumber());
+            }
+
+            @Override
+            public Set<String> findExistingKeys(Collection<String> keys) {
+                Set<String> names = keys.stream().map(key -> key.substring(0, key.indexOf('\n')))
+                        .collect(Collectors.toSet());
+                return dao.findAllByNameIgnoringCase(names).stream()
+                        .map(m -> key(m.getName(), m.getBatchNumber()))
+                        .filter(keys::contains)
+                        .collect(Collectors.toSet());
+            }
+
+            @Override
+            public BulkWriteResult write(List<Medication> entities, int batchSize) {
+                return dao.createAll(entities, batchSize);
+            }
+        };
+    }
+
+    private static String key(String name, String batchNumber) {
+        return name.toLowerCase(Locale.ROOT) + '\n' + (batchNumber != null ? batchNumber.toLowerCase(Locale.ROOT) : "");
+    }
+
+    private static Integer nonNegative(ImportRow row, String column) {
+        row.require(column);
+        int value = row.getInt(column);
+        if (value < 0) {
+            throw new IllegalArgumentException(column + " must not be negative: " + value);
+        }
+        return value;
+    }
+
+    /**
+     * @return the field with the case of the matching allowed value, or {@code null} when
+     * blank
+     */
+    private static String oneOf(ImportRow row, String column, List<String> allowed) {
+        String value = row.get(column);
+        if (value == null) {
+            return null;
+        }
+        for (String candidate : allowed) {
+            if (candidate.equalsIgnoreCase(value)) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException(column + " must be one of " + String.join(", ", allowed) + ": " + value);
+    }
+}
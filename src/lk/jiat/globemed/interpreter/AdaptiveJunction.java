@@ -0,0 +1,106 @@
+package lk.jiat.globemed.interpreter;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A bound AND or OR that learns its order. For the first {@link #SAMPLE} rows it counts,
+ * for each child, how often the child was tested and how often it decided the result
+ * (false for AND, true for OR); then it settles on the order with the lowest expected
+ * cost, cheap and decisive children first, and stops counting.
+ * <p>
+ * Safe to share between threads: counts may be lost to races, which only blurs the
+ * statistics, and the order is swapped as a whole.
+ */
+final class AdaptiveJunction<T> implements Predicate<T> {
+
+    static final int SAMPLE = 1024;
+
+    // Children never tested yet are assumed to decide this often.
+    private static final double UNKNOWN_RATE = 0.5;
+    private static final double MIN_RATE = 0.001;
+
+    private final PredicateCompiler.Junction<T> plan;
+    private final boolean and;
+    private final List<Predicate<T>> children;
+    private final long[] tested;
+    private final long[] decided;
+    private int sampled;
+    private volatile boolean sampling = true;
+    private volatile int[] order;
+    private volatile Predicate<T>[] ordered;
+
+    AdaptiveJunction(PredicateCompiler.Junction<T> plan, List<Predicate<T>> children, int[] order) {
+        this.plan = plan;
+        this.and = plan.isAnd();
+        this.children = children;
+        this.tested = new long[children.size()];
+        this.decided = new long[children.size()];
+        this.order = order;
+        this.ordered = arrange(order);
+    }
+
+    @Override
+    public boolean test(T row) {
+        if (sampling) {
+            return sample(row);
+        }
+        for (Predicate<T> child : ordered) {
+            if (child.test(row) != and) {
+                return !and;
+            }
+        }
+        return and;
+    }
+
+    private boolean sample(T row) {
+        boolean result = and;
+        for (int index : order) {
+            tested[index]++;
+            if (children.get(index).test(row) != and) {
+                decided[index]++;
+                result = !and;
+                break;
+            }
+        }
+        if (++sampled >= SAMPLE) {
+            settle();
+        }
+        return result;
+    }
+
+    private synchronized void settle() {
+        if (!sampling) {
+            return;
+        }
+        int[] settled = Arrays.stream(order).boxed()
+                .sorted(Comparator.comparingDouble(this::expectedCost))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        ordered = arrange(settled);
+        order = settled;
+        sampling = false;
+        plan.learned(settled);
+    }
+
+    /**
+     * Cost of a child per row it settles: cheap tests that often decide go first.
+     */
+    private double expectedCost(int index) {
+        double rate = tested[index] == 0 ? UNKNOWN_RATE : (double) decided[index] / tested[index];
+        return plan.childCost(index) / Math.max(rate, MIN_RATE);
+    }
+
+    private Predicate<T>[] arrange(int[] order) {
+        // An array rather than a list keeps test() free of iterators; it only ever holds
+        // children, which are all Predicate<T>.
+        @SuppressWarnings("unchecked")
+        Predicate<T>[] arranged = (Predicate<T>[]) new Predicate<?>[order.length];
+        for (int i = 0; i < order.length; i++) {
+            arranged[i] = children.get(order[i]);
+        }
+        return arranged;
+    }
+}
@@ -15,6 +15,14 @@ public class AndExpression implements Expression {
         return expr1.interpret(context) && expr2.interpret(context);
     }
 
+    public Expression getExpr1() {
+        return expr1;
+    }
+
+    public Expression getExpr2() {
+        return expr2;
+    }
+
     @Override
     public String toString() {
         return String.format("(%s AND %s)", expr1.toString(), expr2.toString());
@@ -20,6 +20,10 @@ public class AppointmentStatusExpression implements Expression {
         return appointment.getStatus().equalsIgnoreCase(status);
     }
 
+    public String getStatus() {
+        return status;
+    }
+
     @Override
     public String toString() {
         return String.format("status = '%s'", status);
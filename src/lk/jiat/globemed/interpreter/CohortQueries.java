@@ -0,0 +1,73 @@
+package lk.jiat.globemed.interpreter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entry point for cohort queries written as text, such as
+ * {@code age >= 65 AND gender = 'Female' AND NOT status = 'Cancelled'}; see
+ * {@link CohortQueryParser} for the syntax. Parsed queries are kept in a bounded
+ * least-recently-used cache keyed by their normalized text, so a dashboard that runs the
+ * same queries over and over parses and plans each one once. The text as written is
+ * kept as a second key, so a repeat does not even need tokenizing.
+ */
+public final class CohortQueries {
+
+    static final int CACHE_SIZE = 256;
+
+    private static final Map<String, CohortQuery> CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CohortQuery> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+
+    private CohortQueries() {
+    }
+
+    /**
+     * @throws CohortQuerySyntaxException if {@code text} is not a valid query
+     */
+    public static CohortQuery parse(String text) {
+        // The same dashboard sends the same text; only new spellings pay for tokenizing.
+        CohortQuery cached = text != null ? CACHE.get(text) : null;
+        if (cached == null) {
+            List<CohortQueryParser.Token> tokens = CohortQueryParser.tokenize(text);
+            String normalized = CohortQueryParser.normalize(tokens);
+            cached = CACHE.get(normalized);
+            if (cached == null) {
+                MISSES.incrementAndGet();
+                // Two threads may both parse a new query; the second simply replaces the first.
+                CohortQuery query = new CohortQuery(normalized, CohortQueryParser.parse(text, tokens));
+                CACHE.put(normalized, query);
+                CACHE.put(text, query);
+                return query;
+            }
+            CACHE.put(text, cached);
+        }
+        HITS.incrementAndGet();
+        return cached;
+    }
+
+    public static int cacheSize() {
+        return CACHE.size();
+    }
+
+    public static long cacheHits() {
+        return HITS.get();
+    }
+
+    public static long cacheMisses() {
+        return MISSES.get();
+    }
+
+    public static void clearCache() {
+        CACHE.clear();
+    }
+}
@@ -0,0 +1,60 @@
+package lk.jiat.globemed.interpreter;
+
+import lk.jiat.globemed.model.Appointment;
+import lk.jiat.globemed.model.Patient;
+
+/**
+ * A parsed cohort query, shared through the cache of {@link CohortQueries}. Its
+ * predicates are compiled on first use and then kept, together with the evaluation
+ * order they have learned.
+ */
+public final class CohortQuery {
+
+    private final String text;
+    private final Expression expression;
+    private volatile CompiledPredicate<Patient> patients;
+    private volatile CompiledPredicate<Appointment> appointments;
+
+    CohortQuery(String text, Expression expression) {
+        this.text = text;
+        this.expression = expression;
+    }
+
+    /**
+     * @return the normalized text, which is also the cache key
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return the expression, for {@code PatientDao.findMatching} and
+     * {@code AppointmentDao.findMatching}
+     */
+    public Expression getExpression() {
+        return expression;
+    }
+
+    public CompiledPredicate<Patient> forPatients() {
+        CompiledPredicate<Patient> compiled = patients;
+        if (compiled == null) {
+            compiled = PredicateCompiler.forPatients(expression);
+            patients = compiled;
+        }
+        return compiled;
+    }
+
+    public CompiledPredicate<Appointment> forAppointments() {
+        CompiledPredicate<Appointment> compiled = appointments;
+        if (compiled == null) {
+            compiled = PredicateCompiler.forAppointments(expression);
+            appointments = compiled;
+        }
+        return compiled;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
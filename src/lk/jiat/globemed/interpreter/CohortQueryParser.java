@@ -0,0 +1,311 @@
+package lk.jiat.globemed.interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Parses the text form of a cohort query into {@link Expression}s:
+ * <pre>
+ * query      = or
+ * or         = and { OR and }
+ * and        = unary { AND unary }
+ * unary      = NOT unary | "(" or ")" | condition
+ * condition  = "age" ( "=" | "==" | "!=" | "&lt;&gt;" | "&lt;" | "&lt;=" | "&gt;" | "&gt;=" ) number
+ *            | ( "gender" | "status" ) ( ( "=" | "==" | "!=" | "&lt;&gt;" ) value
+ *                                      | [ NOT ] IN "(" value { "," value } ")" )
+ * value      = 'quoted text' | word
+ * </pre>
+ * Keywords and field names are case-insensitive, and so are comparisons of values, as
+ * in the expressions themselves. A quote inside a quoted value is written twice.
+ */
+final class CohortQueryParser {
+
+    enum Kind {
+        WORD, NUMBER, STRING, OPERATOR, OPEN, CLOSE, COMMA, END
+    }
+
+    record Token(Kind kind, String text, int position) {
+
+        boolean is(String keyword) {
+            return kind == Kind.WORD && text.equalsIgnoreCase(keyword);
+        }
+    }
+
+    private static final List<String> KEYWORDS = List.of("AND", "OR", "NOT", "IN");
+    private static final List<String> FIELDS = List.of("age", "gender", "status");
+
+    private final String query;
+    private final List<Token> tokens;
+    private int next;
+
+    private CohortQueryParser(String query, List<Token> tokens) {
+        this.query = query;
+        this.tokens = tokens;
+    }
+
+    static Expression parse(String query, List<Token> tokens) {
+        CohortQueryParser parser = new CohortQueryParser(query, tokens);
+        Expression expression = parser.or();
+        Token trailing = parser.peek();
+        if (trailing.kind() != Kind.END) {
+            throw trailing.kind() == Kind.CLOSE ? parser.error("Unmatched ')'", trailing.position())
+                    : parser.error("Expected AND or OR", trailing);
+        }
+        return expression;
+    }
+
+    /**
+     * @throws CohortQuerySyntaxException for a character that starts no token or an
+     * unterminated quote
+     */
+    static List<Token> tokenize(String query) {
+        if (query == null || query.isBlank()) {
+            throw new CohortQuerySyntaxException("Empty query", query == null ? "" : query, 0);
+        }
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (Character.isLetter(c) || c == '_') {
+                int start = i;
+                while (i < query.length() && (Character.isLetterOrDigit(query.charAt(i)) || query.charAt(i) == '_')) {
+                    i++;
+                }
+                tokens.add(new Token(Kind.WORD, query.substring(start, i), start));
+            } else if (Character.isDigit(c)) {
+                int start = i;
+                while (i < query.length() && Character.isDigit(query.charAt(i))) {
+                    i++;
+                }
+                tokens.add(new Token(Kind.NUMBER, query.substring(start, i), start));
+            } else if (c == '\'') {
+                int start = i;
+                StringBuilder value = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= query.length()) {
+                        throw new CohortQuerySyntaxException("Unterminated quote", query, start);
+                    }
+                    if (query.charAt(i) == '\'') {
+                        if (i + 1 < query.length() && query.charAt(i + 1) == '\'') {
+                            value.append('\'');
+                            i += 2;
+                            continue;
+                        }
+                        i++;
+                        break;
+                    }
+                    value.append(query.charAt(i++));
+                }
+                tokens.add(new Token(Kind.STRING, value.toString(), start));
+            } else if (c == '(' || c == ')' || c == ',') {
+                tokens.add(new Token(c == '(' ? Kind.OPEN : c == ')' ? Kind.CLOSE : Kind.COMMA, String.valueOf(c), i));
+                i++;
+            } else if ("<>=!".indexOf(c) >= 0) {
+                int start = i;
+                String two = i + 1 < query.length() ? query.substring(i, i + 2) : "";
+                String operator = switch (two) {
+                    case ">=", "<=", "==", "!=", "<>" -> two;
+                    default -> c == '!' ? null : String.valueOf(c);
+                };
+                if (operator == null) {
+                    throw new CohortQuerySyntaxException("Expected '!='", query, start);
+                }
+                tokens.add(new Token(Kind.OPERATOR, operator, start));
+                i += operator.length();
+            } else {
+                throw new CohortQuerySyntaxException("Unexpected '" + c + "'", query, i);
+            }
+        }
+        tokens.add(new Token(Kind.END, "", query.length()));
+        return tokens;
+    }
+
+    /**
+     * @return the tokens as one canonical string: single spaces, upper-case keywords,
+     * lower-case fields and one spelling per operator, so that queries differing only
+     * in layout share a cache entry
+     */
+    static String normalize(List<Token> tokens) {
+        StringBuilder normalized = new StringBuilder();
+        for (Token token : tokens) {
+            if (token.kind() == Kind.END) {
+                break;
+            }
+            if (!normalized.isEmpty()) {
+                normalized.append(' ');
+            }
+            String text = token.text();
+            normalized.append(switch (token.kind()) {
+                case WORD -> {
+                    String upper = text.toUpperCase(Locale.ROOT);
+                    String lower = text.toLowerCase(Locale.ROOT);
+                    yield KEYWORDS.contains(upper) ? upper : FIELDS.contains(lower) ? lower : text;
+                }
+                case STRING -> "'" + text.replace("'", "''") + "'";
+                case OPERATOR -> switch (text) {
+                    case "==" -> "=";
+                    case "<>" -> "!=";
+                    default -> text;
+                };
+                default -> text;
+            });
+        }
+        return normalized.toString();
+    }
+
+    private Expression or() {
+        Expression expression = and();
+        while (peek().is("OR")) {
+            next++;
+            expression = new OrExpression(expression, and());
+        }
+        return expression;
+    }
+
+    private Expression and() {
+        Expression expression = unary();
+        while (peek().is("AND")) {
+            next++;
+            expression = new AndExpression(expression, unary());
+        }
+        return expression;
+    }
+
+    private Expression unary() {
+        Token token = peek();
+        if (token.is("NOT")) {
+            next++;
+            return new NotExpression(unary());
+        }
+        if (token.kind() == Kind.OPEN) {
+            next++;
+            Expression inner = or();
+            Token close = peek();
+            if (close.kind() != Kind.CLOSE) {
+                throw error("Expected ')' to close the '(' at column " + (token.position() + 1), close);
+            }
+            next++;
+            return inner;
+        }
+        return condition();
+    }
+
+    private Expression condition() {
+        Token field = peek();
+        if (field.kind() != Kind.WORD || KEYWORDS.contains(field.text().toUpperCase(Locale.ROOT))) {
+            throw error("Expected a condition on age, gender or status", field);
+        }
+        next++;
+        String name = field.text().toLowerCase(Locale.ROOT);
+        return switch (name) {
+            case "age" -> age();
+            case "gender" -> textCondition(PatientGenderExpression::new);
+            case "status" -> textCondition(AppointmentStatusExpression::new);
+            default -> throw error("Unknown field '" + field.text() + "'; expected age, gender or status",
+                    field.position());
+        };
+    }
+
+    private Expression age() {
+        Token operator = peek();
+        if (operator.kind() != Kind.OPERATOR) {
+            throw error("Expected a comparison after age", operator);
+        }
+        next++;
+        Token value = peek();
+        if (value.kind() != Kind.NUMBER) {
+            throw error("Expected a whole number of years", value);
+        }
+        next++;
+        int years;
+        try {
+            years = Integer.parseInt(value.text());
+        } catch (NumberFormatException e) {
+            throw error("Age is too large", value.position());
+        }
+        return switch (operator.text()) {
+            case "!=", "<>" -> new NotExpression(new PatientAgeExpression("=", years));
+            default -> new PatientAgeExpression(operator.text(), years);
+        };
+    }
+
+    private Expression textCondition(Function<String, Expression> equalTo) {
+        Token token = peek();
+        boolean negated = false;
+        if (token.is("NOT")) {
+            negated = true;
+            next++;
+            token = peek();
+            if (!token.is("IN")) {
+                throw error("Expected IN after NOT", token);
+            }
+        }
+        if (token.is("IN")) {
+            next++;
+            Expression any = null;
+            for (String value : valueList()) {
+                Expression equal = equalTo.apply(value);
+                any = any == null ? equal : new OrExpression(any, equal);
+            }
+            return negated ? new NotExpression(any) : any;
+        }
+        if (token.kind() != Kind.OPERATOR) {
+            throw error("Expected =, != or IN", token);
+        }
+        next++;
+        Expression equal = equalTo.apply(value());
+        return switch (token.text()) {
+            case "=", "==" -> equal;
+            case "!=", "<>" -> new NotExpression(equal);
+            default -> throw error("Only =, != and IN compare text", token);
+        };
+    }
+
+    private List<String> valueList() {
+        Token open = peek();
+        if (open.kind() != Kind.OPEN) {
+            throw error("Expected '(' to start the list", open);
+        }
+        next++;
+        List<String> values = new ArrayList<>();
+        values.add(value());
+        while (peek().kind() == Kind.COMMA) {
+            next++;
+            values.add(value());
+        }
+        Token close = peek();
+        if (close.kind() != Kind.CLOSE) {
+            throw error("Expected ',' or ')' in the list", close);
+        }
+        next++;
+        return values;
+    }
+
+    private String value() {
+        Token token = peek();
+        boolean bareWord = token.kind() == Kind.WORD && !KEYWORDS.contains(token.text().toUpperCase(Locale.ROOT));
+        if (token.kind() != Kind.STRING && !bareWord) {
+            throw error("Expected a value", token);
+        }
+        next++;
+        return token.text();
+    }
+
+    private Token peek() {
+        return tokens.get(next);
+    }
+
+    private CohortQuerySyntaxException error(String problem, Token found) {
+        return error(problem + ", found " + (found.kind() == Kind.END ? "end of query" : "'" + found.text() + "'"),
+                found.position());
+    }
+
+    private CohortQuerySyntaxException error(String problem, int position) {
+        return new CohortQuerySyntaxException(problem, query, position);
+    }
+}
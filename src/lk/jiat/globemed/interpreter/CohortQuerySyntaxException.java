@@ -0,0 +1,30 @@
+package lk.jiat.globemed.interpreter;
+
+/**
+ * A cohort query that does not parse. The message names the column and repeats the
+ * query with a caret under the offending spot.
+ */
+public class CohortQuerySyntaxException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String query;
+    private final int position;
+
+    CohortQuerySyntaxException(String problem, String query, int position) {
+        super(problem + " at column " + (position + 1) + "\n" + query + "\n" + " ".repeat(position) + "^");
+        this.query = query;
+        this.position = position;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * @return the zero-based offset into {@link #getQuery()}
+     */
+    public int getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,90 @@
+package lk.jiat.globemed.interpreter;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * An {@link Expression} split into an HQL condition for the database and a residual
+ * for the parts that have no translation. A row matches the expression exactly when it
+ * satisfies the condition and the residual, so the query may return extra rows but
+ * never misses one.
+ */
+public final class CompiledExpression {
+
+    private final QueryTarget target;
+    private final LocalDate today;
+    private final String where;
+    private final Map<String, Object> parameters;
+    private final Expression residual;
+    private final CompiledPredicate<Object> residualTest;
+
+    CompiledExpression(QueryTarget target, LocalDate today, String where, Map<String, Object> parameters,
+            Expression residual) {
+        this.target = target;
+        this.today = today;
+        this.where = where;
+        this.parameters = Collections.unmodifiableMap(parameters);
+        this.residual = residual;
+        this.residualTest = residual != null ? PredicateCompiler.compile(residual, target, Object.class) : null;
+    }
+
+    public QueryTarget getTarget() {
+        return target;
+    }
+
+    /**
+     * @return an HQL boolean over {@link QueryTarget#getAlias()}, with named parameters
+     * from {@link #getParameters()}
+     */
+    public String getWhere() {
+        return where;
+    }
+
+    public Map<String, Object> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * @return what is left to check in memory, or {@code null} if the condition is exact
+     */
+    public Expression getResidual() {
+        return residual;
+    }
+
+    public boolean isExact() {
+        return residual == null;
+    }
+
+    /**
+     * @param row a row already known to satisfy {@link #getWhere()}
+     */
+    public boolean matches(Object row) {
+        return residualTest == null || residualTest.on(today).test(row);
+    }
+
+    /**
+     * @return the rows of a query on {@link #getWhere()} that also pass the residual
+     */
+    public <T> List<T> filter(List<T> rows) {
+        if (residual == null) {
+            return rows;
+        }
+        Predicate<Object> test = residualTest.on(today);
+        List<T> matching = new ArrayList<>();
+        for (T row : rows) {
+            if (test.test(row)) {
+                matching.add(row);
+            }
+        }
+        return matching;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledExpression{where=" + where + ", parameters=" + parameters + ", residual=" + residual + "}";
+    }
+}
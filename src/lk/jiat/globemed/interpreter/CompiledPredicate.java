@@ -0,0 +1,77 @@
+package lk.jiat.globemed.interpreter;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * An {@link Expression} compiled by {@link PredicateCompiler}. Bind it to a date with
+ * {@link #on(LocalDate)} once per batch of rows; the bound predicate is thread-safe and
+ * can be reused for the whole batch, in parallel if need be.
+ */
+public final class CompiledPredicate<T> {
+
+    private final Expression source;
+    private final PredicateCompiler.Plan<T> plan;
+
+    CompiledPredicate(Expression source, PredicateCompiler.Plan<T> plan) {
+        this.source = source;
+        this.plan = plan;
+    }
+
+    public Expression getSource() {
+        return source;
+    }
+
+    /**
+     * @param today the date ages are counted to, as {@link PatientAgeExpression} does
+     */
+    public Predicate<T> on(LocalDate today) {
+        return plan.bind(today);
+    }
+
+    /**
+     * @return {@code true} if the result does not depend on the row
+     */
+    public boolean isConstant() {
+        return plan.constant() != null;
+    }
+
+    public List<T> filter(Collection<? extends T> rows) {
+        if (Boolean.FALSE.equals(plan.constant())) {
+            return new ArrayList<>();
+        }
+        Predicate<T> test = on(LocalDate.now());
+        List<T> matching = new ArrayList<>();
+        for (T row : rows) {
+            if (test.test(row)) {
+                matching.add(row);
+            }
+        }
+        return matching;
+    }
+
+    public long count(Collection<? extends T> rows) {
+        if (plan.constant() != null) {
+            return plan.constant() ? rows.size() : 0;
+        }
+        Predicate<T> test = on(LocalDate.now());
+        long count = 0;
+        for (T row : rows) {
+            if (test.test(row)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the folded plan, junctions in the order they will next be tried
+     */
+    @Override
+    public String toString() {
+        return plan.toString();
+    }
+}
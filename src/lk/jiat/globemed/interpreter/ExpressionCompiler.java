@@ -0,0 +1,173 @@
+package lk.jiat.globemed.interpreter;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Translates an {@link Expression} tree into an HQL condition, so the filter runs in
+ * the database instead of over every row loaded into memory. Age comparisons become
+ * bounds on the date of birth, which the {@code patients.dob} index can serve.
+ * <p>
+ * Nodes this compiler does not know, and age bounds that would have to reach into the
+ * future, are left in the residual of the {@link CompiledExpression} and checked in
+ * memory. Only those parts are: under an AND the other side still goes to the
+ * database.
+ */
+public final class ExpressionCompiler {
+
+    private static final String TRUE = "1 = 1";
+    private static final String FALSE = "1 = 0";
+    private static final int MAX_AGE = 10_000;
+
+    private final QueryTarget target;
+    private final LocalDate today;
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+
+    private ExpressionCompiler(QueryTarget target, LocalDate today) {
+        this.target = target;
+        this.today = today;
+    }
+
+    public static CompiledExpression compile(Expression expression, QueryTarget target) {
+        return compile(expression, target, LocalDate.now());
+    }
+
+    /**
+     * @param today the date ages are counted to, as {@link PatientAgeExpression} does
+     */
+    public static CompiledExpression compile(Expression expression, QueryTarget target, LocalDate today) {
+        if (expression == null) {
+            throw new IllegalArgumentException("Nothing to compile: the expression is null");
+        }
+        if (target == null) {
+            throw new IllegalArgumentException("A query target is required");
+        }
+        ExpressionCompiler compiler = new ExpressionCompiler(target, today);
+        Fragment fragment = compiler.translate(expression);
+        return new CompiledExpression(target, today, fragment.where(), compiler.parameters, fragment.residual());
+    }
+
+    /**
+     * {@code where} holds for every row the node holds for; the node holds exactly when
+     * both {@code where} and {@code residual} do.
+     */
+    private record Fragment(String where, Expression residual) {
+
+        static Fragment exact(String where) {
+            return new Fragment(where, null);
+        }
+
+        static Fragment inMemory(Expression residual) {
+            return new Fragment(TRUE, residual);
+        }
+
+        boolean isExact() {
+            return residual == null;
+        }
+    }
+
+    private Fragment translate(Expression expression) {
+        if (expression instanceof AndExpression and) {
+            Fragment left = translate(and.getExpr1());
+            Fragment right = translate(and.getExpr2());
+            Expression residual = left.isExact() ? right.residual()
+                    : right.isExact() ? left.residual()
+                    : new AndExpression(left.residual(), right.residual());
+            return new Fragment("(" + left.where() + " AND " + right.where() + ")", residual);
+        }
+        if (expression instanceof OrExpression or) {
+            Fragment left = translate(or.getExpr1());
+            Fragment right = translate(or.getExpr2());
+            // Either side may hold, so a residual on one side needs the whole OR rechecked.
+            return new Fragment("(" + left.where() + " OR " + right.where() + ")",
+                    left.isExact() && right.isExact() ? null : or);
+        }
+        if (expression instanceof NotExpression not) {
+            int mark = parameters.size();
+            Fragment inner = translate(not.getExpression());
+            if (!inner.isExact()) {
+                // The negation of a superset says nothing; drop it and check the NOT in memory.
+                discardParametersFrom(mark);
+                return Fragment.inMemory(not);
+            }
+            // Leaves are never NULL in SQL, so NOT means the same there as in interpret().
+            return Fragment.exact("NOT " + inner.where());
+        }
+        if (expression instanceof PatientAgeExpression age) {
+            return age(age);
+        }
+        if (expression instanceof PatientGenderExpression gender) {
+            return equalsIgnoreCase(target.getPatientPath() + ".gender", gender.getGender());
+        }
+        if (expression instanceof AppointmentStatusExpression status) {
+            if (target.getAppointmentPath() == null) {
+                return Fragment.exact(FALSE);
+            }
+            return equalsIgnoreCase(target.getAppointmentPath() + ".status", status.getStatus());
+        }
+        return Fragment.inMemory(expression);
+    }
+
+    private Fragment equalsIgnoreCase(String path, String value) {
+        if (value == null) {
+            return Fragment.exact(FALSE);
+        }
+        return Fragment.exact("(" + path + " IS NOT NULL AND LOWER(" + path + ") = :"
+                + parameter(value.toLowerCase(Locale.ROOT)) + ")");
+    }
+
+    private Fragment age(PatientAgeExpression expression) {
+        String dob = target.getPatientPath() + ".dob";
+        int age = expression.getAge();
+        String operator = expression.getOperator() != null ? expression.getOperator() : "";
+        String bounds;
+        switch (operator) {
+            case ">=" -> bounds = atLeast(dob, age);
+            case ">" -> bounds = atLeast(dob, age + 1);
+            case "<" -> bounds = below(dob, age);
+            case "<=" -> bounds = below(dob, age + 1);
+            case "=", "==" -> bounds = bounded(age) && bounded(age + 1)
+                    ? atLeast(dob, age) + " AND " + below(dob, age + 1) : null;
+            default -> {
+                // interpret() is false for an operator it does not know.
+                return Fragment.exact(FALSE);
+            }
+        }
+        if (bounds == null) {
+            return new Fragment(dob + " IS NOT NULL", expression);
+        }
+        return Fragment.exact("(" + dob + " IS NOT NULL AND " + bounds + ")");
+    }
+
+    /**
+     * Age is at least {@code years} when the birthday that many years on has come, i.e.
+     * the date of birth is on or before today that many years ago. A future date of birth
+     * counts as age 0, which no bound on the date expresses, so years below 1 are left
+     * to memory, as are ages past any calendar.
+     */
+    private String atLeast(String dob, int years) {
+        return bounded(years) ? dob + " <= :" + parameter(today.minusYears(years)) : null;
+    }
+
+    private String below(String dob, int years) {
+        return bounded(years) ? dob + " > :" + parameter(today.minusYears(years)) : null;
+    }
+
+    private static boolean bounded(int years) {
+        return years >= 1 && years <= MAX_AGE;
+    }
+
+    private void discardParametersFrom(int mark) {
+        while (parameters.size() > mark) {
+            parameters.remove("arg" + (parameters.size() - 1));
+        }
+    }
+
+    private String parameter(Object value) {
+        String name = "arg" + parameters.size();
+        parameters.put(name, value);
+        return name;
+    }
+}
@@ -13,6 +13,10 @@ public class NotExpression implements Expression {
         return !expression.interpret(context);
     }
 
+    public Expression getExpression() {
+        return expression;
+    }
+
     @Override
     public String toString() {
         return String.format("NOT (%s)", expression.toString());
@@ -44,6 +44,14 @@ public class PatientAgeExpression implements Expression {
         return Period.between(dob, LocalDate.now()).getYears();
     }
 
+    public String getOperator() {
+        return operator;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
     @Override
     public String toString() {
         return String.format("age %s %d", operator, age);
@@ -20,6 +20,10 @@ public class PatientGenderExpression implements Expression {
         return patient.getGender().equalsIgnoreCase(gender);
     }
 
+    public String getGender() {
+        return gender;
+    }
+
     @Override
     public String toString() {
         return String.format("gender = '%s'", gender);
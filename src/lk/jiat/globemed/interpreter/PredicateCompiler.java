@@ -0,0 +1,371 @@
+package lk.jiat.globemed.interpreter;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import lk.jiat.globemed.model.Appointment;
+import lk.jiat.globemed.model.Patient;
+
+/**
+ * Compiles an {@link Expression} tree into a plan of specialized {@link Predicate}s, for
+ * filtering rows already in memory without going through {@code interpret} for each
+ * one. Operators are resolved once at compile time; constant branches are folded away;
+ * nested ANDs and ORs are flattened. Binding the plan to a date turns every age test
+ * into a comparison against a fixed date-of-birth cutoff, and its AND and OR lists
+ * reorder themselves after watching which children decide the outcome most cheaply.
+ * <p>
+ * Nodes other than the interpreter's own are kept and evaluated through
+ * {@code interpret}.
+ */
+public final class PredicateCompiler {
+
+    private static final int MAX_AGE = 10_000;
+
+    private static final double LEAF_COST = 1;
+    private static final double AGE_COST = 2;
+    private static final double INTERPRET_COST = 50;
+
+    private PredicateCompiler() {
+    }
+
+    public static CompiledPredicate<Patient> forPatients(Expression expression) {
+        return compile(expression, QueryTarget.PATIENT, Patient.class);
+    }
+
+    public static CompiledPredicate<Appointment> forAppointments(Expression expression) {
+        return compile(expression, QueryTarget.APPOINTMENT, Appointment.class);
+    }
+
+    static <T> CompiledPredicate<T> compile(Expression expression, QueryTarget target, Class<T> type) {
+        if (expression == null) {
+            throw new IllegalArgumentException("Nothing to compile: the expression is null");
+        }
+        if (!type.isAssignableFrom(target.getType())) {
+            throw new IllegalArgumentException(target + " rows are not " + type.getSimpleName());
+        }
+        return new CompiledPredicate<>(expression, new Planner<T>(target).plan(expression));
+    }
+
+    /**
+     * A compiled node, not yet tied to a date.
+     */
+    interface Plan<T> {
+
+        Predicate<T> bind(LocalDate today);
+
+        /**
+         * @return rough relative cost of one test, for ordering siblings
+         */
+        double cost();
+
+        /**
+         * @return the folded value, or {@code null} if the node depends on the row
+         */
+        default Boolean constant() {
+            return null;
+        }
+    }
+
+    private static final class Planner<T> {
+
+        private final QueryTarget target;
+        private final Function<T, Patient> patientOf;
+        private final Function<T, Appointment> appointmentOf;
+
+        Planner(QueryTarget target) {
+            this.target = target;
+            if (target == QueryTarget.APPOINTMENT) {
+                this.patientOf = row -> ((Appointment) row).getPatient();
+                this.appointmentOf = row -> (Appointment) row;
+            } else {
+                this.patientOf = row -> (Patient) row;
+                this.appointmentOf = null;
+            }
+        }
+
+        Plan<T> plan(Expression expression) {
+            if (expression instanceof AndExpression and) {
+                return junction(true, List.of(plan(and.getExpr1()), plan(and.getExpr2())));
+            }
+            if (expression instanceof OrExpression or) {
+                return junction(false, List.of(plan(or.getExpr1()), plan(or.getExpr2())));
+            }
+            if (expression instanceof NotExpression not) {
+                return not(plan(not.getExpression()));
+            }
+            if (expression instanceof PatientAgeExpression age) {
+                return age(age.getOperator(), age.getAge());
+            }
+            if (expression instanceof PatientGenderExpression gender) {
+                return gender(gender.getGender());
+            }
+            if (expression instanceof AppointmentStatusExpression status) {
+                return status(status.getStatus());
+            }
+            return new Interpreted<>(expression, target);
+        }
+
+        private Plan<T> junction(boolean and, List<Plan<T>> parts) {
+            List<Plan<T>> children = new ArrayList<>();
+            for (Plan<T> part : parts) {
+                Boolean constant = part.constant();
+                if (constant != null) {
+                    // FALSE decides an AND, TRUE an OR; the other value drops out.
+                    if (constant != and) {
+                        return new Constant<>(!and);
+                    }
+                    continue;
+                }
+                if (part instanceof Junction<T> nested && nested.and == and) {
+                    children.addAll(nested.children);
+                } else {
+                    children.add(part);
+                }
+            }
+            if (children.isEmpty()) {
+                return new Constant<>(and);
+            }
+            return children.size() == 1 ? children.get(0) : new Junction<>(and, children);
+        }
+
+        private Plan<T> not(Plan<T> child) {
+            Boolean constant = child.constant();
+            if (constant != null) {
+                return new Constant<>(!constant);
+            }
+            if (child instanceof Not<T> not) {
+                return not.child;
+            }
+            return new Not<>(child);
+        }
+
+        private Plan<T> age(String operator, int age) {
+            if (operator == null) {
+                return new Constant<>(false);
+            }
+            return switch (operator) {
+                case ">=" -> new AgeRange<>(patientOf, (long) age, null, operator + " " + age);
+                case ">" -> new AgeRange<>(patientOf, age + 1L, null, operator + " " + age);
+                case "<" -> new AgeRange<>(patientOf, null, (long) age, operator + " " + age);
+                case "<=" -> new AgeRange<>(patientOf, null, age + 1L, operator + " " + age);
+                case "=", "==" -> new AgeRange<>(patientOf, (long) age, age + 1L, operator + " " + age);
+                // interpret() is false for an operator it does not know.
+                default -> new Constant<>(false);
+            };
+        }
+
+        private Plan<T> gender(String gender) {
+            if (gender == null) {
+                return new Constant<>(false);
+            }
+            return new Leaf<>("gender = '" + gender + "'", row -> {
+                Patient patient = patientOf.apply(row);
+                return patient != null && gender.equalsIgnoreCase(patient.getGender());
+            });
+        }
+
+        private Plan<T> status(String status) {
+            if (status == null || appointmentOf == null) {
+                return new Constant<>(false);
+            }
+            return new Leaf<>("status = '" + status + "'", row -> {
+                Appointment appointment = appointmentOf.apply(row);
+                return appointment != null && status.equalsIgnoreCase(appointment.getStatus());
+            });
+        }
+    }
+
+    private record Constant<T>(boolean value) implements Plan<T> {
+
+        @Override
+        public Predicate<T> bind(LocalDate today) {
+            return value ? row -> true : row -> false;
+        }
+
+        @Override
+        public double cost() {
+            return 0;
+        }
+
+        @Override
+        public Boolean constant() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(value).toUpperCase();
+        }
+    }
+
+    private record Leaf<T>(String description, Predicate<T> test) implements Plan<T> {
+
+        @Override
+        public Predicate<T> bind(LocalDate today) {
+            return test;
+        }
+
+        @Override
+        public double cost() {
+            return LEAF_COST;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    /**
+     * Age in {@code [atLeast, below)} years, either end open when {@code null}.
+     */
+    private record AgeRange<T>(Function<T, Patient> patientOf, Long atLeast, Long below, String description)
+            implements Plan<T> {
+
+        @Override
+        public Predicate<T> bind(LocalDate today) {
+            if (!bounded(atLeast) || !bounded(below)) {
+                // Future dates of birth count as age 0, which no cutoff expresses.
+                return row -> {
+                    Patient patient = patientOf.apply(row);
+                    if (patient == null || patient.getDob() == null) {
+                        return false;
+                    }
+                    long age = Period.between(patient.getDob(), today).getYears();
+                    return (atLeast == null || age >= atLeast) && (below == null || age < below);
+                };
+            }
+            // Age is at least n once the date of birth is on or before today n years ago.
+            LocalDate latest = atLeast != null ? today.minusYears(atLeast) : LocalDate.MAX;
+            LocalDate after = below != null ? today.minusYears(below) : LocalDate.MIN;
+            return row -> {
+                Patient patient = patientOf.apply(row);
+                LocalDate dob = patient != null ? patient.getDob() : null;
+                return dob != null && !dob.isAfter(latest) && dob.isAfter(after);
+            };
+        }
+
+        private static boolean bounded(Long years) {
+            return years == null || (years >= 1 && years <= MAX_AGE);
+        }
+
+        @Override
+        public double cost() {
+            return AGE_COST;
+        }
+
+        @Override
+        public String toString() {
+            return "age " + description;
+        }
+    }
+
+    private record Interpreted<T>(Expression expression, QueryTarget target) implements Plan<T> {
+
+        @Override
+        public Predicate<T> bind(LocalDate today) {
+            return row -> expression.interpret(target.contextFor(row));
+        }
+
+        @Override
+        public double cost() {
+            return INTERPRET_COST;
+        }
+
+        @Override
+        public String toString() {
+            return expression.toString();
+        }
+    }
+
+    private record Not<T>(Plan<T> child) implements Plan<T> {
+
+        @Override
+        public Predicate<T> bind(LocalDate today) {
+            return child.bind(today).negate();
+        }
+
+        @Override
+        public double cost() {
+            return child.cost();
+        }
+
+        @Override
+        public String toString() {
+            return "NOT (" + child + ")";
+        }
+    }
+
+    /**
+     * An AND or OR over two or more children. The order that worked best in the last
+     * binding is where the next one starts.
+     */
+    static final class Junction<T> implements Plan<T> {
+
+        private final boolean and;
+        private final List<Plan<T>> children;
+        private volatile int[] order;
+
+        private Junction(boolean and, List<Plan<T>> children) {
+            this.and = and;
+            this.children = List.copyOf(children);
+            int[] initial = new int[children.size()];
+            for (int i = 0; i < initial.length; i++) {
+                initial[i] = i;
+            }
+            // Cheapest first until there is something better to go on.
+            this.order = sortedByCost(initial);
+        }
+
+        @Override
+        public Predicate<T> bind(LocalDate today) {
+            List<Predicate<T>> bound = new ArrayList<>(children.size());
+            for (Plan<T> child : children) {
+                bound.add(child.bind(today));
+            }
+            return new AdaptiveJunction<>(this, bound, order);
+        }
+
+        @Override
+        public double cost() {
+            double cost = 0;
+            for (Plan<T> child : children) {
+                cost += child.cost();
+            }
+            return cost;
+        }
+
+        void learned(int[] order) {
+            this.order = order;
+        }
+
+        double childCost(int index) {
+            return children.get(index).cost();
+        }
+
+        boolean isAnd() {
+            return and;
+        }
+
+        private int[] sortedByCost(int[] indexes) {
+            return Arrays.stream(indexes).boxed()
+                    .sorted(Comparator.comparingDouble(this::childCost))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+
+        @Override
+        public String toString() {
+            List<String> parts = new ArrayList<>();
+            for (int index : order) {
+                parts.add(children.get(index).toString());
+            }
+            return "(" + String.join(and ? " AND " : " OR ", parts) + ")";
+        }
+    }
+}
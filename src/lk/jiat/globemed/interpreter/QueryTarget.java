@@ -0,0 +1,66 @@
+package lk.jiat.globemed.interpreter;
+
+import lk.jiat.globemed.model.Appointment;
+import lk.jiat.globemed.model.Patient;
+
+/**
+ * The entity an {@link Expression} is run against, with the HQL paths its nodes refer to
+ * and the {@link QueryContext} {@code interpret} expects for one row.
+ */
+public enum QueryTarget {
+
+    PATIENT(Patient.class, "p", "p", null),
+    APPOINTMENT(Appointment.class, "a", "a.patient", "a");
+
+    private final Class<?> type;
+    private final String alias;
+    private final String patientPath;
+    private final String appointmentPath;
+
+    QueryTarget(Class<?> type, String alias, String patientPath, String appointmentPath) {
+        this.type = type;
+        this.alias = alias;
+        this.patientPath = patientPath;
+        this.appointmentPath = appointmentPath;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    /**
+     * @return the path to the patient, never {@code null}
+     */
+    String getPatientPath() {
+        return patientPath;
+    }
+
+    /**
+     * @return the path to the appointment, or {@code null} if rows have none
+     */
+    String getAppointmentPath() {
+        return appointmentPath;
+    }
+
+    /**
+     * @return the variables {@code interpret} reads for {@code row}, an instance of
+     * {@link #getType()}
+     */
+    public QueryContext contextFor(Object row) {
+        if (!type.isInstance(row)) {
+            throw new IllegalArgumentException("Not a " + type.getSimpleName() + ": " + row);
+        }
+        QueryContext context = new QueryContext();
+        if (row instanceof Appointment appointment) {
+            context.setVariable("appointment", appointment);
+            context.setVariable("patient", appointment.getPatient());
+        } else {
+            context.setVariable("patient", row);
+        }
+        return context;
+    }
+}
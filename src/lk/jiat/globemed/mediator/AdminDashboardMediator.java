@@ -1,13 +1,23 @@
 package lk.jiat.globemed.mediator;
 
 import java.awt.Component;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableModel;
+import javax.swing.table.TableRowSorter;
+import lk.jiat.globemed.search.GlobalSearch;
+import lk.jiat.globemed.search.SearchType;
 
 public class AdminDashboardMediator implements DashboardMediator {
 
+    private static final int USER_SEARCH_LIMIT = 500;
+
     private Map<String, Component> components;
 
     private JButton addUserBtn;
@@ -166,7 +176,7 @@ public class AdminDashboardMediator implements DashboardMediator {
 
                     if (result == JOptionPane.YES_OPTION) {
                         DefaultTableModel model = (DefaultTableModel) userTable.getModel();
-                        model.removeRow(selectedRow);
+                        model.removeRow(userTable.convertRowIndexToModel(selectedRow));
 
                         updateStatus("Deleted user: " + userName);
 
@@ -198,20 +208,35 @@ public class AdminDashboardMediator implements DashboardMediator {
     private void filterTable(String searchText, String roleFilter) {
         System.out.println("🔍 Filtering table: search='" + searchText + "', role='" + roleFilter + "'");
 
-        int visibleRows = calculateVisibleRows(searchText, roleFilter);
-        updateStatus(String.format("Showing %d users", visibleRows));
+        if (userTable.getRowSorter() instanceof TableRowSorter<? extends TableModel> sorter) {
+            sorter.setRowFilter(userFilter(searchText, roleFilter));
+        }
+        updateStatus(String.format("Showing %d users", userTable.getRowCount()));
     }
 
-    private int calculateVisibleRows(String searchText, String roleFilter) {
-
-        int totalRows = userTable.getRowCount();
-        if (searchText != null && !searchText.isEmpty()) {
-            totalRows = Math.max(1, totalRows - 2);
+    /**
+     * Matches users found by {@link GlobalSearch} (column 0 holds the id) in the selected
+     * role (column 3); {@code null} when nothing is filtered.
+     */
+    private RowFilter<TableModel, Integer> userFilter(String searchText, String roleFilter) {
+        List<RowFilter<TableModel, Integer>> filters = new ArrayList<>();
+        if (searchText != null && !searchText.isBlank()) {
+            if (GlobalSearch.isReady()) {
+                Set<Long> matches = GlobalSearch.matchingIds(searchText, SearchType.STAFF, USER_SEARCH_LIMIT);
+                filters.add(new RowFilter<>() {
+                    @Override
+                    public boolean include(Entry<? extends TableModel, ? extends Integer> entry) {
+                        return entry.getValue(0) instanceof Long id && matches.contains(id);
+                    }
+                });
+            } else {
+                filters.add(RowFilter.regexFilter("(?i)" + Pattern.quote(searchText.trim()), 1, 2, 3));
+            }
         }
         if (roleFilter != null && !"All".equals(roleFilter)) {
-            totalRows = Math.max(1, totalRows - 1);
+            filters.add(RowFilter.regexFilter("^" + Pattern.quote(roleFilter) + "$", 3));
         }
-        return totalRows;
+        return filters.isEmpty() ? null : RowFilter.andFilter(filters);
     }
 
     private void showAddUserDialog() {
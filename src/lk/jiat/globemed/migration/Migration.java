@@ -0,0 +1,26 @@
+package lk.jiat.globemed.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * One versioned schema change. Versions are applied in ascending order and recorded
+ * in {@code schema_history} so each runs exactly once per database.
+ */
+public interface Migration {
+
+    int getVersion();
+
+    String getDescription();
+
+    /**
+     * @return a checksum of the migration's content, or null if it has none (Java migrations)
+     */
+    Integer getChecksum();
+
+    void migrate(Connection connection) throws SQLException;
+
+    boolean isUndoable();
+
+    void undo(Connection connection) throws SQLException;
+}
@@ -0,0 +1,34 @@
+package lk.jiat.globemed.migration;
+
+import java.util.List;
+
+/**
+ * Every schema migration, in version order. Add new ones at the end; never edit or
+ * renumber one that has shipped.
+ */
+public final class Migrations {
+
+    /**
+     * Databases created by the old hbm2ddl=update setup already have this schema; the
+     * migrator records it as applied instead of running it.
+     */
+    static final int BASELINE_VERSION = 1;
+
+    private Migrations() {
+    }
+
+    public static List<Migration> all() {
+        return List.of(
+                new SqlMigration(1, "baseline schema",
+                        "db/migration/V1__baseline_schema.sql"),
+                new SqlMigration(2, "id sequence tables",
+                        "db/migration/V2__id_sequence_tables.sql"),
+                new SqlMigration(3, "composite indexes for list and lookup queries",
+                        "db/migration/V3__composite_indexes.sql",
+                        "db/migration/U3__composite_indexes.sql"),
+                new SqlMigration(4, "patient date of birth index",
+                        "db/migration/V4__patient_dob_index.sql",
+                        "db/migration/U4__patient_dob_index.sql")
+        );
+    }
+}
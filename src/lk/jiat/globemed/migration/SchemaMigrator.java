@@ -0,0 +1,293 @@
+package lk.jiat.globemed.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import javax.sql.DataSource;
+import lk.jiat.globemed.util.ConnectionPool;
+import lk.jiat.globemed.util.ConnectionPoolConfig;
+import org.hibernate.cfg.Configuration;
+
+/**
+ * Applies pending {@link Migration}s at startup and records them in {@code schema_history}.
+ * On MySQL a named lock keeps two clients starting at once from migrating together.
+ */
+public class SchemaMigrator {
+
+    private static final String LOCK_NAME = "globemed_schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+    // Any table from the original schema; its presence means the database predates migrations.
+    private static final String BASELINE_MARKER_TABLE = "patients";
+
+    private final DataSource dataSource;
+    private final List<Migration> migrations;
+
+    public SchemaMigrator(DataSource dataSource, List<Migration> migrations) {
+        this.dataSource = dataSource;
+        this.migrations = new ArrayList<>(migrations);
+        this.migrations.sort(Comparator.comparingInt(Migration::getVersion));
+        for (int i = 1; i < this.migrations.size(); i++) {
+            if (this.migrations.get(i).getVersion() == this.migrations.get(i - 1).getVersion()) {
+                throw new IllegalArgumentException("Duplicate migration version: " + this.migrations.get(i).getVersion());
+            }
+        }
+    }
+
+    /**
+     * @return the number of migrations applied
+     */
+    public int migrate() {
+        return locked(connection -> {
+            Map<Integer, AppliedMigration> applied = loadHistory(connection);
+            verify(applied);
+
+            if (applied.isEmpty() && tableExists(connection, BASELINE_MARKER_TABLE)) {
+                Migration baseline = find(Migrations.BASELINE_VERSION);
+                record(connection, baseline, "<< baseline >> " + baseline.getDescription(), 0);
+                applied.put(baseline.getVersion(), new AppliedMigration(baseline.getChecksum()));
+                System.out.println("📋 Existing schema found, recorded as baseline V" + baseline.getVersion());
+            }
+
+            int latest = applied.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+            int count = 0;
+            for (Migration migration : migrations) {
+                if (applied.containsKey(migration.getVersion())) {
+                    continue;
+                }
+                if (migration.getVersion() < latest) {
+                    throw new IllegalStateException("Migration V" + migration.getVersion()
+                            + " is older than the applied V" + latest + " and was never run");
+                }
+                apply(connection, migration);
+                count++;
+            }
+            if (count == 0) {
+                System.out.println("✅ Schema is up to date (V" + Math.max(latest, 0) + ")");
+            }
+            return count;
+        });
+    }
+
+    /**
+     * Undoes applied migrations newer than {@code targetVersion}, newest first.
+     *
+     * @return the number of migrations undone
+     */
+    public int rollbackTo(int targetVersion) {
+        return locked(connection -> {
+            Map<Integer, AppliedMigration> applied = loadHistory(connection);
+            List<Integer> versions = new ArrayList<>(applied.keySet());
+            versions.sort(Comparator.reverseOrder());
+
+            int count = 0;
+            for (int version : versions) {
+                if (version <= targetVersion) {
+                    break;
+                }
+                Migration migration = find(version);
+                if (!migration.isUndoable()) {
+                    throw new IllegalStateException("Cannot roll back past V" + version + ": it has no undo script");
+                }
+                connection.setAutoCommit(false);
+                try {
+                    migration.undo(connection);
+                    try (PreparedStatement delete = connection.prepareStatement(
+                            "DELETE FROM schema_history WHERE version = ?")) {
+                        delete.setInt(1, version);
+                        delete.executeUpdate();
+                    }
+                    connection.commit();
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+                System.out.println("↩️ Rolled back schema migration V" + version + " - " + migration.getDescription());
+                count++;
+            }
+            return count;
+        });
+    }
+
+    public void printStatus() {
+        locked(connection -> {
+            Map<Integer, AppliedMigration> applied = loadHistory(connection);
+            for (Migration migration : migrations) {
+                AppliedMigration entry = applied.get(migration.getVersion());
+                System.out.printf("V%-4d %-50s %s%n", migration.getVersion(), migration.getDescription(),
+                        entry == null ? "pending" : "applied " + entry.installedOn);
+            }
+            return null;
+        });
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        long start = System.nanoTime();
+        connection.setAutoCommit(false);
+        try {
+            migration.migrate(connection);
+            record(connection, migration, migration.getDescription(), (System.nanoTime() - start) / 1_000_000);
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            // MySQL commits each DDL statement implicitly, so earlier statements of this
+            // migration may already be in place.
+            throw new SQLException("Migration V" + migration.getVersion() + " failed; statements before the "
+                    + "failing one may already be applied and need to be reverted by hand. " + e.getMessage(), e);
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        System.out.println("✅ Applied schema migration V" + migration.getVersion() + " - " + migration.getDescription());
+    }
+
+    private void verify(Map<Integer, AppliedMigration> applied) {
+        for (Map.Entry<Integer, AppliedMigration> entry : applied.entrySet()) {
+            Migration migration = migrations.stream()
+                    .filter(m -> m.getVersion() == entry.getKey())
+                    .findFirst()
+                    .orElse(null);
+            if (migration == null) {
+                System.err.println("⚠️ Database has migration V" + entry.getKey() + " which this build does not know");
+            } else if (!Objects.equals(migration.getChecksum(), entry.getValue().checksum)) {
+                throw new IllegalStateException("Migration V" + entry.getKey()
+                        + " was changed after it was applied; add a new migration instead");
+            }
+        }
+    }
+
+    private Migration find(int version) {
+        return migrations.stream()
+                .filter(m -> m.getVersion() == version)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No migration with version " + version));
+    }
+
+    private void record(Connection connection, Migration migration, String description, long executionMillis)
+            throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO schema_history (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)")) {
+            insert.setInt(1, migration.getVersion());
+            insert.setString(2, description);
+            if (migration.getChecksum() != null) {
+                insert.setInt(3, migration.getChecksum());
+            } else {
+                insert.setNull(3, java.sql.Types.INTEGER);
+            }
+            insert.setLong(4, executionMillis);
+            insert.executeUpdate();
+        }
+    }
+
+    private Map<Integer, AppliedMigration> loadHistory(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS schema_history ("
+                    + "version INT NOT NULL PRIMARY KEY, "
+                    + "description VARCHAR(200) NOT NULL, "
+                    + "checksum INT, "
+                    + "installed_on TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+                    + "execution_ms BIGINT NOT NULL)");
+        }
+
+        Map<Integer, AppliedMigration> applied = new TreeMap<>();
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT version, checksum, installed_on FROM schema_history")) {
+            while (rs.next()) {
+                int checksum = rs.getInt(2);
+                AppliedMigration entry = new AppliedMigration(rs.wasNull() ? null : checksum);
+                entry.installedOn = String.valueOf(rs.getTimestamp(3));
+                applied.put(rs.getInt(1), entry);
+            }
+        }
+        return applied;
+    }
+
+    private boolean tableExists(Connection connection, String table) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getTables(connection.getCatalog(), null, table, new String[]{"TABLE"})) {
+            return rs.next();
+        }
+    }
+
+    private <T> T locked(SqlWork<T> work) {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean mysql = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+            if (mysql) {
+                acquireLock(connection);
+            }
+            try {
+                return work.run(connection);
+            } finally {
+                if (mysql) {
+                    try (PreparedStatement release = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+                        release.setString(1, LOCK_NAME);
+                        release.execute();
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Schema migration failed: " + e.getMessage(), e);
+        }
+    }
+
+    private void acquireLock(Connection connection) throws SQLException {
+        try (PreparedStatement lock = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            lock.setString(1, LOCK_NAME);
+            lock.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = lock.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for another client to finish migrating the schema");
+                }
+            }
+        }
+    }
+
+    /**
+     * Command-line entry point: {@code info}, {@code migrate} or {@code rollback <version>}.
+     */
+    public static void main(String[] args) {
+        String command = args.length > 0 ? args[0] : "info";
+        try (ConnectionPool pool = new ConnectionPool(
+                ConnectionPoolConfig.load(new Configuration().configure().getProperties()))) {
+            SchemaMigrator migrator = new SchemaMigrator(pool, Migrations.all());
+            switch (command) {
+                case "migrate":
+                    migrator.migrate();
+                    break;
+                case "rollback":
+                    if (args.length < 2) {
+                        throw new IllegalArgumentException("Usage: rollback <target version>");
+                    }
+                    migrator.rollbackTo(Integer.parseInt(args[1]));
+                    break;
+                case "info":
+                    migrator.printStatus();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown command: " + command + " (expected info, migrate or rollback)");
+            }
+        }
+    }
+
+    private interface SqlWork<T> {
+
+        T run(Connection connection) throws SQLException;
+    }
+
+    private static class AppliedMigration {
+
+        private final Integer checksum;
+        private String installedOn;
+
+        AppliedMigration(Integer checksum) {
+            this.checksum = checksum;
+        }
+    }
+}
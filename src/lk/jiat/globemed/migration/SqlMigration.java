@@ -0,0 +1,114 @@
+package lk.jiat.globemed.migration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A migration backed by a SQL script on the classpath, with an optional undo script.
+ * Statements end with a semicolon at the end of a line; lines starting with
+ * {@code --} are comments.
+ */
+public class SqlMigration implements Migration {
+
+    private final int version;
+    private final String description;
+    private final String script;
+    private final String undoScript;
+
+    public SqlMigration(int version, String description, String script, String undoScript) {
+        this.version = version;
+        this.description = description;
+        this.script = script;
+        this.undoScript = undoScript;
+    }
+
+    public SqlMigration(int version, String description, String script) {
+        this(version, description, script, null);
+    }
+
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public Integer getChecksum() {
+        CRC32 crc = new CRC32();
+        crc.update(read(script).getBytes(StandardCharsets.UTF_8));
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public void migrate(Connection connection) throws SQLException {
+        execute(connection, script);
+    }
+
+    @Override
+    public boolean isUndoable() {
+        return undoScript != null;
+    }
+
+    @Override
+    public void undo(Connection connection) throws SQLException {
+        if (undoScript == null) {
+            throw new IllegalStateException("Migration V" + version + " has no undo script");
+        }
+        execute(connection, undoScript);
+    }
+
+    private void execute(Connection connection, String resource) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : split(read(resource))) {
+                try {
+                    statement.execute(sql);
+                } catch (SQLException e) {
+                    throw new SQLException(resource + ": " + e.getMessage() + "\n  in: " + sql, e.getSQLState(), e);
+                }
+            }
+        }
+    }
+
+    static List<String> split(String text) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : text.split("\\R")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            current.append(current.length() > 0 ? " " : "").append(trimmed);
+            if (trimmed.endsWith(";")) {
+                current.setLength(current.length() - 1);
+                statements.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            statements.add(current.toString());
+        }
+        return statements;
+    }
+
+    private static String read(String resource) {
+        try (InputStream in = SqlMigration.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Migration script not found on classpath: " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read migration script " + resource, e);
+        }
+    }
+}
@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 public class BillingRecord {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "billing_records_seq")
+    @SequenceGenerator(name = "billing_records_seq", sequenceName = "billing_records_seq", allocationSize = 50)
     private Long id;
 
     private double amount;
@@ -9,7 +9,8 @@ import java.util.List;
 public class Medication {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "medications_seq")
+    @SequenceGenerator(name = "medications_seq", sequenceName = "medications_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 100)
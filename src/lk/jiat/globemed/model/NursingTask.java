@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 public class NursingTask {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "nursing_tasks_seq")
+    @SequenceGenerator(name = "nursing_tasks_seq", sequenceName = "nursing_tasks_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 200)
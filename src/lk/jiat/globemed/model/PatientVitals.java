@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 public class PatientVitals {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "patient_vitals_seq")
+    @SequenceGenerator(name = "patient_vitals_seq", sequenceName = "patient_vitals_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -7,7 +7,8 @@ import jakarta.persistence.*;
 public class PrescriptionItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "prescription_items_seq")
+    @SequenceGenerator(name = "prescription_items_seq", sequenceName = "prescription_items_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -1,35 +1,119 @@
 package lk.jiat.globemed.report;
 
-import java.io.FileWriter;
-import java.io.PrintWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import lk.jiat.globemed.dto.AppointmentRow;
+import lk.jiat.globemed.dto.BillingRow;
+import lk.jiat.globemed.dto.PrescriptionRow;
+import lk.jiat.globemed.dto.StaffRow;
+import lk.jiat.globemed.dto.VitalsRow;
+import lk.jiat.globemed.model.AuditLog;
+import lk.jiat.globemed.model.Patient;
 import lk.jiat.globemed.model.Staff;
 
+/**
+ * Writes each visited dataset to the file as CSV, replacing its contents; see
+ * {@link CsvWriter} for the format. Rows are written as they arrive, so a stream of any
+ * length is exported without being held.
+ */
 public class CSVReportVisitor implements ReportVisitor {
 
-    private final String filepath;
+    private final Path file;
+    private final boolean gzip;
+    private long rowsWritten;
 
+    public CSVReportVisitor(Path file, boolean gzip) {
+        this.file = file;
+        this.gzip = gzip;
+    }
+
+    /**
+     * Gzip-compresses the output when {@code filepath} ends in {@code .gz}.
+     */
     public CSVReportVisitor(String filepath) {
-        this.filepath = filepath;
+        this(Path.of(filepath), filepath.toLowerCase().endsWith(".gz"));
+    }
+
+    /**
+     * @return the data rows in the last file written, not counting the header
+     */
+    public long getRowsWritten() {
+        return rowsWritten;
     }
 
     @Override
     public void visitStaffList(List<Staff> staffList) {
-        try (PrintWriter out = new PrintWriter(new FileWriter(filepath))) {
-            out.println("id,name,email,role");
-            for (Staff s : staffList) {
-                String role = s.getRole() != null ? s.getRole().getName() : "";
-                out.printf("%d,%s,%s,%s%n", s.getId(), escapeCsv(s.getName()), escapeCsv(s.getEmail()), escapeCsv(role));
-            }
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to write CSV report", e);
-        }
+        write(staffList.stream(), s -> new Object[]{s.getId(), s.getName(), s.getEmail(),
+            s.getRole() != null ? s.getRole().getName() : null},
+                "id", "name", "email", "role");
+    }
+
+    @Override
+    public void visitStaff(Stream<StaffRow> staff) {
+        write(staff, s -> new Object[]{s.id(), s.name(), s.email(), s.roleName()},
+                "id", "name", "email", "role");
+    }
+
+    @Override
+    public void visitPatients(Stream<Patient> patients) {
+        write(patients, p -> new Object[]{p.getId(), p.getFirstName(), p.getLastName(), p.getDob(),
+            p.getGender(), p.getContactNumber(), p.getAddress()},
+                "id", "first_name", "last_name", "dob", "gender", "contact_number", "address");
+    }
+
+    @Override
+    public void visitAppointments(Stream<AppointmentRow> appointments) {
+        write(appointments, a -> new Object[]{a.id(), a.appointmentDateTime(), a.status(), a.patientName(),
+            a.doctorName()},
+                "id", "appointment_time", "status", "patient", "doctor");
+    }
+
+    @Override
+    public void visitBilling(Stream<BillingRow> billing) {
+        write(billing, b -> new Object[]{b.id(), b.patientName(), b.amount(), b.paymentMethod(), b.status(),
+            b.createdAt()},
+                "id", "patient", "amount", "payment_method", "status", "created_at");
+    }
+
+    @Override
+    public void visitPrescriptions(Stream<PrescriptionRow> prescriptions) {
+        write(prescriptions, p -> new Object[]{p.id(), p.patientName(), p.doctorName(), p.prescribedDate(),
+            p.status(), p.itemCount(), p.totalCost()},
+                "id", "patient", "doctor", "prescribed_date", "status", "item_count", "total_cost");
     }
 
-    private String escapeCsv(String v) {
-        if (v == null) {
-            return "";
+    @Override
+    public void visitVitals(Stream<VitalsRow> vitals) {
+        write(vitals, v -> new Object[]{v.id(), v.patientId(), v.patientName(), v.nurseName(), v.recordedAt(),
+            v.temperature(), v.systolicBP(), v.diastolicBP(), v.heartRate(), v.respiratoryRate(),
+            v.oxygenSaturation(), v.weight(), v.height(), v.notes()},
+                "id", "patient_id", "patient", "nurse", "recorded_at", "temperature", "systolic_bp",
+                "diastolic_bp", "heart_rate", "respiratory_rate", "oxygen_saturation", "weight", "height", "notes");
+    }
+
+    @Override
+    public void visitAuditLogs(Stream<AuditLog> auditLogs) {
+        write(auditLogs, a -> new Object[]{a.getId(), a.getPerformedAt(), a.getPerformedBy(), a.getAction(),
+            a.getEntityName(), a.getEntityId(), a.getDetails()},
+                "id", "performed_at", "performed_by", "action", "entity", "entity_id", "details");
+    }
+
+    private <T> void write(Stream<T> rows, Function<T, Object[]> fields, Object... header) {
+        rowsWritten = 0;
+        try (CsvWriter out = CsvWriter.open(file, gzip)) {
+            out.writeRecord(header);
+            Iterator<T> it = rows.iterator();
+            while (it.hasNext()) {
+                out.writeRecord(fields.apply(it.next()));
+                rowsWritten++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write CSV report to " + file, e);
         }
-        return v.replace(",", " ");
     }
 }
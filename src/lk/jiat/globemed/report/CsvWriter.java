@@ -0,0 +1,186 @@
+package lk.jiat.globemed.report;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes RFC 4180 records as UTF-8 to a file, optionally gzip-compressed. Fields are
+ * encoded into one large buffer that goes to the channel only when full, so a record
+ * costs no system call of its own.
+ * <p>
+ * A field is quoted when it contains a comma, a quote or a line break, with its quotes
+ * doubled; {@code null} is written as an empty field and anything else by
+ * {@code toString()}. Records end with CRLF.
+ */
+public final class CsvWriter implements Closeable {
+
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final int GZIP_BUFFER_BYTES = 1 << 16;
+    private static final String LINE_END = "\r\n";
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final CharBuffer chars = CharBuffer.allocate(8192);
+    private long records;
+
+    private CsvWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Creates {@code file}, replacing whatever was there.
+     */
+    public static CsvWriter open(Path file, boolean gzip) throws IOException {
+        FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        if (!gzip) {
+            return new CsvWriter(fileChannel);
+        }
+        try {
+            return new CsvWriter(Channels.newChannel(
+                    new GZIPOutputStream(Channels.newOutputStream(fileChannel), GZIP_BUFFER_BYTES)));
+        } catch (IOException | RuntimeException e) {
+            fileChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens {@code file} to add records after its current contents, creating it if needed.
+     */
+    public static CsvWriter append(Path file) throws IOException {
+        return new CsvWriter(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND,
+                StandardOpenOption.WRITE));
+    }
+
+    public void writeRecord(Object... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                put(',');
+            }
+            if (fields[i] != null) {
+                writeField(fields[i].toString());
+            }
+        }
+        put(LINE_END);
+        records++;
+    }
+
+    /**
+     * @return the records written so far, header included
+     */
+    public long getRecordCount() {
+        return records;
+    }
+
+    /**
+     * Hands everything written so far to the channel, so it is kept even if this process
+     * dies before {@link #close()}.
+     */
+    public void flush() throws IOException {
+        flushChars();
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            chars.flip();
+            encode(true);
+            while (encoder.flush(bytes).isOverflow()) {
+                drain();
+            }
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeField(String value) throws IOException {
+        if (!needsQuotes(value)) {
+            put(value);
+            return;
+        }
+        put('"');
+        int start = 0;
+        for (int quote = value.indexOf('"'); quote >= 0; quote = value.indexOf('"', quote + 1)) {
+            put(value, start, quote + 1);
+            put('"');
+            start = quote + 1;
+        }
+        put(value, start, value.length());
+        put('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void put(char c) throws IOException {
+        if (!chars.hasRemaining()) {
+            flushChars();
+        }
+        chars.put(c);
+    }
+
+    private void put(String s) throws IOException {
+        put(s, 0, s.length());
+    }
+
+    private void put(String s, int start, int end) throws IOException {
+        while (start < end) {
+            if (!chars.hasRemaining()) {
+                flushChars();
+            }
+            int n = Math.min(end - start, chars.remaining());
+            chars.put(s, start, start + n);
+            start += n;
+        }
+    }
+
+    private void flushChars() throws IOException {
+        chars.flip();
+        encode(false);
+        // Keeps the high half of a surrogate pair split across two flushes.
+        chars.compact();
+    }
+
+    private void encode(boolean endOfInput) throws IOException {
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (!result.isOverflow()) {
+                return;
+            }
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
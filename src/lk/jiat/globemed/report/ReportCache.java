@@ -0,0 +1,290 @@
+package lk.jiat.globemed.report;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Rendered reports, kept until a committed write in this application touches an entity
+ * they were built from, or until they are {@code REPORT_CACHE_MAX_AGE_SECONDS} old,
+ * which bounds how long writes from other workstations go unseen. {@link #refresh}
+ * renders a report again for a user who asks for fresh figures.
+ * Entries are gzip-compressed in memory. Once they take more than
+ * {@code REPORT_CACHE_MAX_BYTES}, the least recently used move to files under
+ * {@code REPORT_CACHE_SPILL_DIR} when that is set, and are dropped otherwise.
+ * <p>
+ * A report rendered while one of its entities was written is returned but not kept,
+ * since it may have read the data from before the write.
+ */
+public final class ReportCache {
+
+    private static final int MAX_ENTRIES = 256;
+    private static final long MAX_BYTES;
+    private static final long MAX_AGE_NANOS;
+    private static final Path SPILL_DIR;
+
+    static {
+        Dotenv env = Dotenv.configure().ignoreIfMissing().ignoreIfMalformed().load();
+        String maxBytes = env.get("REPORT_CACHE_MAX_BYTES");
+        String maxAge = env.get("REPORT_CACHE_MAX_AGE_SECONDS");
+        String spillDir = env.get("REPORT_CACHE_SPILL_DIR");
+        MAX_BYTES = maxBytes == null || maxBytes.isBlank() ? 4L << 20 : Long.parseLong(maxBytes.trim());
+        MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(
+                maxAge == null || maxAge.isBlank() ? 300 : Long.parseLong(maxAge.trim()));
+        SPILL_DIR = spillDir == null || spillDir.isBlank() ? null : Path.of(spillDir.trim());
+    }
+
+    private record Key(String report, List<Object> parameters) {
+    }
+
+    private static final class Entry {
+
+        final Set<Class<?>> sources;
+        final long renderedAt;
+        byte[] compressed;
+        Path spilled;
+
+        Entry(Set<Class<?>> sources, long renderedAt, byte[] compressed) {
+            this.sources = sources;
+            this.renderedAt = renderedAt;
+            this.compressed = compressed;
+        }
+    }
+
+    // Access order, so iteration starts from the least recently used entry.
+    private static final Map<Key, Entry> ENTRIES = new LinkedHashMap<>(16, 0.75f, true);
+    private static final Map<Class<?>, Long> WRITES = new HashMap<>();
+
+    private static long memoryBytes;
+    private static Path spillFiles;
+    private static long hits;
+    private static long misses;
+    private static long spills;
+    private static long invalidations;
+    private static long expirations;
+
+    private ReportCache() {
+    }
+
+    /**
+     * @param report names the report, unique among everything cached here
+     * @param sources the entities the report reads; a committed write to any of them
+     * drops it
+     * @param render builds the report on a miss; if it throws, nothing is kept
+     * @param parameters whatever else the report depends on, compared with {@code equals}
+     */
+    public static String get(String report, Set<Class<?>> sources, Supplier<String> render, Object... parameters) {
+        return lookup(false, report, sources, render, parameters);
+    }
+
+    /**
+     * Like {@link #get}, but renders the report even when a copy is cached, and keeps
+     * the new one in its place.
+     */
+    public static String refresh(String report, Set<Class<?>> sources, Supplier<String> render,
+            Object... parameters) {
+        return lookup(true, report, sources, render, parameters);
+    }
+
+    private static String lookup(boolean refresh, String report, Set<Class<?>> sources, Supplier<String> render,
+            Object... parameters) {
+        ReportCacheListener.install();
+        Key key = new Key(report, List.of(parameters));
+
+        if (!refresh) {
+            String cached = read(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        Map<Class<?>, Long> writesBefore = new HashMap<>();
+        synchronized (ReportCache.class) {
+            misses++;
+            for (Class<?> source : sources) {
+                writesBefore.put(source, WRITES.getOrDefault(source, 0L));
+            }
+        }
+        long renderedAt = System.nanoTime();
+        String text = render.get();
+        byte[] compressed = compress(text);
+        synchronized (ReportCache.class) {
+            for (Map.Entry<Class<?>, Long> before : writesBefore.entrySet()) {
+                if (WRITES.getOrDefault(before.getKey(), 0L).longValue() != before.getValue()) {
+                    return text;
+                }
+            }
+            remove(key);
+            ENTRIES.put(key, new Entry(Set.copyOf(sources), renderedAt, compressed));
+            memoryBytes += compressed.length;
+            trim();
+        }
+        return text;
+    }
+
+    /**
+     * Drops every report built from {@code type}.
+     */
+    public static synchronized void invalidate(Class<?> type) {
+        WRITES.merge(type, 1L, Long::sum);
+        Iterator<Map.Entry<Key, Entry>> entries = ENTRIES.entrySet().iterator();
+        while (entries.hasNext()) {
+            Entry entry = entries.next().getValue();
+            if (entry.sources.contains(type)) {
+                entries.remove();
+                discard(entry);
+                invalidations++;
+            }
+        }
+    }
+
+    public static synchronized void clear() {
+        for (Entry entry : ENTRIES.values()) {
+            discard(entry);
+        }
+        ENTRIES.clear();
+    }
+
+    public static synchronized String getStatisticsSummary() {
+        long onDisk = ENTRIES.values().stream().filter(entry -> entry.spilled != null).count();
+        return String.format(
+                "entries=%d (%d on disk) memory=%d bytes hits=%d misses=%d invalidations=%d expirations=%d spills=%d",
+                ENTRIES.size(), onDisk, memoryBytes, hits, misses, invalidations, expirations, spills);
+    }
+
+    private static String read(Key key) {
+        Entry entry;
+        byte[] compressed;
+        Path spilled;
+        synchronized (ReportCache.class) {
+            entry = ENTRIES.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.renderedAt > MAX_AGE_NANOS) {
+                remove(key);
+                expirations++;
+                return null;
+            }
+            compressed = entry.compressed;
+            spilled = entry.spilled;
+        }
+
+        String text;
+        if (compressed != null) {
+            text = decompress(compressed);
+        } else {
+            try {
+                text = decompress(Files.readAllBytes(spilled));
+            } catch (IOException | UncheckedIOException e) {
+                // Deleted by an invalidation meanwhile, or lost: render it again.
+                synchronized (ReportCache.class) {
+                    if (ENTRIES.get(key) == entry) {
+                        remove(key);
+                    }
+                }
+                return null;
+            }
+        }
+        synchronized (ReportCache.class) {
+            hits++;
+        }
+        return text;
+    }
+
+    private static void remove(Key key) {
+        Entry entry = ENTRIES.remove(key);
+        if (entry != null) {
+            discard(entry);
+        }
+    }
+
+    private static void discard(Entry entry) {
+        if (entry.compressed != null) {
+            memoryBytes -= entry.compressed.length;
+            entry.compressed = null;
+        }
+        if (entry.spilled != null) {
+            try {
+                Files.deleteIfExists(entry.spilled);
+            } catch (IOException e) {
+                System.err.println("Could not delete cached report " + entry.spilled + ": " + e.getMessage());
+            }
+            entry.spilled = null;
+        }
+    }
+
+    private static void trim() {
+        Iterator<Entry> entries = ENTRIES.values().iterator();
+        while (ENTRIES.size() > MAX_ENTRIES) {
+            discard(entries.next());
+            entries.remove();
+        }
+        entries = ENTRIES.values().iterator();
+        while (memoryBytes > MAX_BYTES && entries.hasNext()) {
+            Entry entry = entries.next();
+            if (entry.compressed != null && !spill(entry)) {
+                discard(entry);
+                entries.remove();
+            }
+        }
+    }
+
+    private static boolean spill(Entry entry) {
+        if (SPILL_DIR == null) {
+            return false;
+        }
+        try {
+            if (spillFiles == null) {
+                spillFiles = Files.createTempDirectory(Files.createDirectories(SPILL_DIR), "globemed-reports-");
+                spillFiles.toFile().deleteOnExit();
+            }
+            Path file = Files.createTempFile(spillFiles, "report-", ".gz");
+            // Registered after the directory, so deleted before it.
+            file.toFile().deleteOnExit();
+            Files.write(file, entry.compressed);
+            memoryBytes -= entry.compressed.length;
+            entry.compressed = null;
+            entry.spilled = file;
+            spills++;
+            return true;
+        } catch (IOException e) {
+            System.err.println("Could not spill a cached report to " + SPILL_DIR + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static byte[] compress(String text) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // In-memory streams do not throw.
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String decompress(byte[] compressed) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
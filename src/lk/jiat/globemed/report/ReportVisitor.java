@@ -1,10 +1,36 @@
 package lk.jiat.globemed.report;
 
 import java.util.List;
+import java.util.stream.Stream;
+import lk.jiat.globemed.dto.AppointmentRow;
+import lk.jiat.globemed.dto.BillingRow;
+import lk.jiat.globemed.dto.PrescriptionRow;
+import lk.jiat.globemed.dto.StaffRow;
+import lk.jiat.globemed.dto.VitalsRow;
+import lk.jiat.globemed.model.AuditLog;
+import lk.jiat.globemed.model.Patient;
 import lk.jiat.globemed.model.Staff;
 
+/**
+ * A report over one dataset at a time. The stream-taking methods are handed rows as the
+ * database returns them; the caller closes the stream.
+ */
 public interface ReportVisitor {
 
     void visitStaffList(List<Staff> staffList);
 
+    void visitStaff(Stream<StaffRow> staff);
+
+    void visitPatients(Stream<Patient> patients);
+
+    void visitAppointments(Stream<AppointmentRow> appointments);
+
+    void visitBilling(Stream<BillingRow> billing);
+
+    void visitPrescriptions(Stream<PrescriptionRow> prescriptions);
+
+    void visitVitals(Stream<VitalsRow> vitals);
+
+    void visitAuditLogs(Stream<AuditLog> auditLogs);
+
 }
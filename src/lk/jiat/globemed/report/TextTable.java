@@ -0,0 +1,86 @@
+package lk.jiat.globemed.report;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * A fixed-width text table written straight to a {@link Writer}, one row at a time.
+ * Cells are padded by hand rather than through {@code String.format}, so a row costs
+ * little more than its own text. Immutable, so one table can serve every report.
+ */
+public final class TextTable {
+
+    private static final String SPACES = " ".repeat(64);
+    private static final String ELLIPSIS = "...";
+
+    /**
+     * A column {@code width} characters wide. A truncated column shortens longer values
+     * to one less than its width, ending in "...", so they never run into the next one.
+     */
+    public record Column(String title, int width, boolean truncates) {
+
+        public static Column of(String title, int width) {
+            return new Column(title, width, false);
+        }
+
+        public Column truncated() {
+            return new Column(title, width, true);
+        }
+    }
+
+    private final List<Column> columns;
+    private final String rule;
+
+    /**
+     * @param ruleWidth length of the line drawn under the titles
+     */
+    public TextTable(int ruleWidth, Column... columns) {
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("A table needs at least one column");
+        }
+        this.columns = List.of(columns);
+        this.rule = "─".repeat(ruleWidth);
+    }
+
+    public void writeHeader(Writer out) throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            writeCell(out, i, columns.get(i).title());
+        }
+        out.write('\n');
+        out.write(rule);
+        out.write('\n');
+    }
+
+    /**
+     * @param cells one value per column, written with {@link String#valueOf(Object)}
+     */
+    public void writeRow(Writer out, Object... cells) throws IOException {
+        if (cells.length != columns.size()) {
+            throw new IllegalArgumentException("Expected " + columns.size() + " cells, got " + cells.length);
+        }
+        for (int i = 0; i < cells.length; i++) {
+            writeCell(out, i, String.valueOf(cells[i]));
+        }
+        out.write('\n');
+    }
+
+    private void writeCell(Writer out, int index, String text) throws IOException {
+        Column column = columns.get(index);
+        if (index > 0) {
+            out.write(' ');
+        }
+        int length = text.length();
+        if (column.truncates() && length > column.width() - 1) {
+            length = Math.max(0, column.width() - 1 - ELLIPSIS.length());
+            out.write(text, 0, length);
+            out.write(ELLIPSIS);
+            length += ELLIPSIS.length();
+        } else {
+            out.write(text);
+        }
+        for (int padding = column.width() - length; padding > 0; padding -= SPACES.length()) {
+            out.write(SPACES, 0, Math.min(padding, SPACES.length()));
+        }
+    }
+}
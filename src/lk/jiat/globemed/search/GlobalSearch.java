@@ -0,0 +1,115 @@
+package lk.jiat.globemed.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lk.jiat.globemed.dao.AppointmentDao;
+import lk.jiat.globemed.dao.AsyncDao;
+import lk.jiat.globemed.dao.MedicationDao;
+import lk.jiat.globemed.dao.PatientDao;
+import lk.jiat.globemed.dao.StaffDao;
+import lk.jiat.globemed.util.IndexLifecycle;
+
+/**
+ * In-memory, ranked search over patients, staff, medications and appointments. The
+ * index is read from the database at startup, one query per type in parallel, and
+ * then kept current from committed Hibernate writes, so searching never touches the
+ * database. Until the first build finishes {@link #isReady()} is {@code false} and
+ * callers should fall back to a query.
+ */
+public final class GlobalSearch {
+
+    private static final InvertedIndex INDEX = new InvertedIndex();
+    private static final IndexLifecycle<SearchDocument.Key> LIFECYCLE = new IndexLifecycle<>("Search index", "🔎",
+            SearchIndexListener::install, GlobalSearch::buildIndex, () -> INDEX.size() + " documents");
+
+    private GlobalSearch() {
+    }
+
+    /**
+     * Starts keeping the index current and builds it in the background; calling it again
+     * returns the first build.
+     *
+     * @return the number of documents indexed, once the build is done
+     */
+    public static CompletableFuture<Integer> start() {
+        return LIFECYCLE.start();
+    }
+
+    /**
+     * Re-reads everything, for changes made outside this application. Returns the
+     * running build if there is one.
+     */
+    public static CompletableFuture<Integer> rebuild() {
+        return LIFECYCLE.rebuild();
+    }
+
+    public static boolean isReady() {
+        return LIFECYCLE.isReady();
+    }
+
+    public static int size() {
+        return INDEX.size();
+    }
+
+    public static List<SearchResult> search(String query, int limit) {
+        return INDEX.search(query, null, limit);
+    }
+
+    public static List<SearchResult> search(String query, SearchType type, int limit) {
+        return INDEX.search(query, type, limit);
+    }
+
+    /**
+     * @return ids of the best {@code limit} matches of one type, best first
+     */
+    public static Set<Long> matchingIds(String query, SearchType type, int limit) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (SearchResult result : INDEX.search(query, type, limit)) {
+            ids.add(result.id());
+        }
+        return ids;
+    }
+
+    static void indexed(SearchDocument document) {
+        LIFECYCLE.changed(document.key());
+        INDEX.put(document);
+    }
+
+    static void removed(SearchDocument.Key key) {
+        LIFECYCLE.changed(key);
+        INDEX.remove(key);
+    }
+
+    private static CompletableFuture<Integer> buildIndex(Set<SearchDocument.Key> changedDuringBuild) {
+        List<CompletableFuture<List<SearchDocument>>> parts = List.of(
+                load(new PatientDao()::findAll, SearchDocuments::patient),
+                load(new StaffDao()::findAll, SearchDocuments::staff),
+                load(new MedicationDao()::findRows, SearchDocuments::medication),
+                load(new AppointmentDao()::findRows, SearchDocuments::appointment));
+
+        return CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new))
+                .thenApply(done -> {
+                    List<SearchDocument> snapshot = new ArrayList<>();
+                    parts.forEach(part -> snapshot.addAll(part.join()));
+                    INDEX.reconcile(snapshot, changedDuringBuild);
+                    return INDEX.size();
+                });
+    }
+
+    private static <T> CompletableFuture<List<SearchDocument>> load(Supplier<List<T>> fetch,
+            Function<T, SearchDocument> toDocument) {
+        return AsyncDao.supply(() -> {
+            List<T> items = fetch.get();
+            List<SearchDocument> documents = new ArrayList<>(items.size());
+            for (T item : items) {
+                documents.add(toDocument.apply(item));
+            }
+            return documents;
+        });
+    }
+}
@@ -0,0 +1,238 @@
+package lk.jiat.globemed.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Token postings over {@link SearchDocument}s. Terms of one or two characters are
+ * looked up in prefix postings; longer terms in trigram postings, which find a term
+ * anywhere inside a token, not just at its start. Candidates come from the most
+ * selective query term and every term must match (AND).
+ * <p>
+ * Thread-safe; searches share a read lock and updates take the write lock.
+ */
+final class InvertedIndex {
+
+    private static final int MAX_PREFIX = 2;
+    private static final int GRAM = 3;
+
+    private static final Comparator<SearchResult> RANKING = Comparator
+            .comparingDouble(SearchResult::score).reversed()
+            .thenComparingInt(result -> result.title().length())
+            .thenComparing(SearchResult::title);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<SearchDocument.Key, Integer> ordinals = new HashMap<>();
+    private final List<SearchDocument> documents = new ArrayList<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final Map<String, Set<Integer>> prefixPostings = new HashMap<>();
+    private final Map<String, Set<Integer>> gramPostings = new HashMap<>();
+
+    void put(SearchDocument document) {
+        lock.writeLock().lock();
+        try {
+            putLocked(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(SearchDocument.Key key) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Brings the index in line with {@code snapshot}, a full read of the database,
+     * leaving alone the documents in {@code newer}: those changed after the snapshot
+     * was taken and are already up to date.
+     */
+    void reconcile(Collection<SearchDocument> snapshot, Set<SearchDocument.Key> newer) {
+        lock.writeLock().lock();
+        try {
+            Set<SearchDocument.Key> present = new HashSet<>();
+            for (SearchDocument document : snapshot) {
+                present.add(document.key());
+                if (!newer.contains(document.key())) {
+                    putLocked(document);
+                }
+            }
+            for (SearchDocument.Key key : new ArrayList<>(ordinals.keySet())) {
+                if (!present.contains(key) && !newer.contains(key)) {
+                    removeLocked(key);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param type only documents of this type, or {@code null} for all
+     */
+    List<SearchResult> search(String query, SearchType type, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive: " + limit);
+        }
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(SearchDocument.tokenize(query)));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Set<Integer> candidates = null;
+            for (String term : terms) {
+                Set<Integer> termCandidates = candidates(term);
+                if (termCandidates.isEmpty()) {
+                    return List.of();
+                }
+                if (candidates == null || termCandidates.size() < candidates.size()) {
+                    candidates = termCandidates;
+                }
+            }
+
+            PriorityQueue<SearchResult> top = new PriorityQueue<>(limit + 1, RANKING.reversed());
+            for (int ordinal : candidates) {
+                SearchDocument document = documents.get(ordinal);
+                if (type != null && document.key().type() != type) {
+                    continue;
+                }
+                double score = 0;
+                for (String term : terms) {
+                    double termScore = document.score(term);
+                    if (termScore == 0) {
+                        score = 0;
+                        break;
+                    }
+                    score += termScore;
+                }
+                // Most candidates of a broad query lose to the current top; skip building them.
+                if (score > 0 && (top.size() < limit || score >= top.peek().score())) {
+                    top.add(document.toResult(score));
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+
+            List<SearchResult> results = new ArrayList<>(top);
+            results.sort(RANKING);
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Set<Integer> candidates(String term) {
+        if (term.length() <= MAX_PREFIX) {
+            return prefixPostings.getOrDefault(term, Set.of());
+        }
+        List<Set<Integer>> postings = new ArrayList<>();
+        for (String gram : grams(term)) {
+            Set<Integer> posting = gramPostings.get(gram);
+            if (posting == null) {
+                return Set.of();
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        if (postings.size() == 1) {
+            return postings.get(0);
+        }
+        // Sharing every trigram is necessary, not sufficient; scoring checks the token.
+        Set<Integer> result = new HashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !result.isEmpty(); i++) {
+            result.retainAll(postings.get(i));
+        }
+        return result;
+    }
+
+    private void putLocked(SearchDocument document) {
+        removeLocked(document.key());
+        document.freeze();
+        int ordinal;
+        if (freeOrdinals.isEmpty()) {
+            ordinal = documents.size();
+            documents.add(document);
+        } else {
+            ordinal = freeOrdinals.pop();
+            documents.set(ordinal, document);
+        }
+        ordinals.put(document.key(), ordinal);
+        for (String token : document.tokens().keySet()) {
+            for (String prefix : prefixes(token)) {
+                prefixPostings.computeIfAbsent(prefix, p -> new HashSet<>()).add(ordinal);
+            }
+            for (String gram : grams(token)) {
+                gramPostings.computeIfAbsent(gram, g -> new HashSet<>()).add(ordinal);
+            }
+        }
+    }
+
+    private void removeLocked(SearchDocument.Key key) {
+        Integer ordinal = ordinals.remove(key);
+        if (ordinal == null) {
+            return;
+        }
+        SearchDocument document = documents.get(ordinal);
+        for (String token : document.tokens().keySet()) {
+            for (String prefix : prefixes(token)) {
+                removePosting(prefixPostings, prefix, ordinal);
+            }
+            for (String gram : grams(token)) {
+                removePosting(gramPostings, gram, ordinal);
+            }
+        }
+        documents.set(ordinal, null);
+        freeOrdinals.push(ordinal);
+    }
+
+    private static void removePosting(Map<String, Set<Integer>> postings, String term, int ordinal) {
+        Set<Integer> posting = postings.get(term);
+        if (posting != null && posting.remove(ordinal) && posting.isEmpty()) {
+            postings.remove(term);
+        }
+    }
+
+    private static List<String> prefixes(String token) {
+        List<String> prefixes = new ArrayList<>(MAX_PREFIX);
+        for (int length = 1; length <= Math.min(MAX_PREFIX, token.length()); length++) {
+            prefixes.add(token.substring(0, length));
+        }
+        return prefixes;
+    }
+
+    private static Set<String> grams(String token) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= token.length(); i++) {
+            grams.add(token.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
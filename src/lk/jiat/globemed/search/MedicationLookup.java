@@ -0,0 +1,96 @@
+package lk.jiat.globemed.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import lk.jiat.globemed.dao.AsyncDao;
+import lk.jiat.globemed.dao.MedicationDao;
+import lk.jiat.globemed.dto.MedicationRow;
+import lk.jiat.globemed.model.Medication;
+import lk.jiat.globemed.util.IndexLifecycle;
+
+/**
+ * Type-ahead medication lookup that forgives typos: "amoxicilin" and "ibuprofn" find
+ * what was meant. Built from the formulary at startup and kept current from committed
+ * Hibernate writes, the same way as {@link GlobalSearch}. Until the first build
+ * finishes {@link #isReady()} is {@code false} and callers should fall back to a query.
+ */
+public final class MedicationLookup {
+
+    private static final TrigramIndex INDEX = new TrigramIndex();
+    private static final IndexLifecycle<Long> LIFECYCLE = new IndexLifecycle<>("Medication lookup", "💊",
+            SearchIndexListener::install, MedicationLookup::buildIndex, () -> INDEX.size() + " medications");
+
+    private MedicationLookup() {
+    }
+
+    /**
+     * Starts keeping the lookup current and builds it in the background; calling it
+     * again returns the first build.
+     *
+     * @return the number of medications indexed, once the build is done
+     */
+    public static CompletableFuture<Integer> start() {
+        return LIFECYCLE.start();
+    }
+
+    /**
+     * Re-reads the formulary, for changes made outside this application. Returns the
+     * running build if there is one.
+     */
+    public static CompletableFuture<Integer> rebuild() {
+        return LIFECYCLE.rebuild();
+    }
+
+    public static boolean isReady() {
+        return LIFECYCLE.isReady();
+    }
+
+    public static int size() {
+        return INDEX.size();
+    }
+
+    /**
+     * @return the best {@code limit} matches, best first; every word of {@code query}
+     * must match the start of a word in the name, strength or manufacturer, allowing one
+     * typo in words of four to six letters and two in longer ones
+     */
+    public static List<MedicationMatch> lookup(String query, int limit) {
+        return INDEX.lookup(query, limit);
+    }
+
+    /**
+     * @return ids of the best {@code limit} matches, best first
+     */
+    public static Set<Long> matchingIds(String query, int limit) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (MedicationMatch match : INDEX.lookup(query, limit)) {
+            ids.add(match.id());
+        }
+        return ids;
+    }
+
+    static void indexed(Medication medication) {
+        LIFECYCLE.changed(medication.getId());
+        INDEX.put(medication.getId(), medication.getName(), medication.getStrength(), medication.getManufacturer());
+    }
+
+    static void removed(Long id) {
+        LIFECYCLE.changed(id);
+        INDEX.remove(id);
+    }
+
+    private static CompletableFuture<Integer> buildIndex(Set<Long> changedDuringBuild) {
+        return AsyncDao.supply(new MedicationDao()::findRows)
+                .thenApply(rows -> {
+                    List<TrigramIndex.Entry> snapshot = new ArrayList<>(rows.size());
+                    for (MedicationRow row : rows) {
+                        snapshot.add(TrigramIndex.entry(row.id(), row.name(), row.strength(), row.manufacturer()));
+                    }
+                    INDEX.reconcile(snapshot, changedDuringBuild);
+                    return INDEX.size();
+                });
+    }
+}
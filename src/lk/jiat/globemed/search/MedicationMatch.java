@@ -0,0 +1,8 @@
+package lk.jiat.globemed.search;
+
+/**
+ * A medication found by {@link MedicationLookup}. {@code edits} is the number of typos
+ * forgiven to match it; 0 for an exact or prefix match.
+ */
+public record MedicationMatch(Long id, String name, String strength, String manufacturer, int edits, double score) {
+}
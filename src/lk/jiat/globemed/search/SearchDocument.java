@@ -0,0 +1,130 @@
+package lk.jiat.globemed.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The searchable form of an entity: what a hit shows and the tokens it is found by.
+ * Each token keeps the weight of the most important field it came from, so a match on
+ * a name outranks the same match on, say, a manufacturer.
+ */
+final class SearchDocument {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private static final double EXACT = 1.0;
+    private static final double PREFIX = 0.6;
+    private static final double INFIX = 0.25;
+
+    record Key(SearchType type, Long id) {
+    }
+
+    private final Key key;
+    private final String title;
+    private final String detail;
+    private final Map<String, Float> tokens = new HashMap<>();
+    // Flat copies of tokens for scoring, which runs for every candidate of every query.
+    private String[] scoredTokens;
+    private float[] scoredWeights;
+    private float maxWeight;
+
+    SearchDocument(SearchType type, Long id, String title, String detail) {
+        this.key = new Key(type, id);
+        this.title = title;
+        this.detail = detail;
+    }
+
+    SearchDocument field(String text, float weight) {
+        for (String token : tokenize(text)) {
+            tokens.merge(token, weight, Math::max);
+        }
+        return this;
+    }
+
+    Key key() {
+        return key;
+    }
+
+    Map<String, Float> tokens() {
+        return Collections.unmodifiableMap(tokens);
+    }
+
+    /**
+     * @return how well {@code term} matches the best of this document's tokens, or 0;
+     * only valid once {@link #freeze()} has run
+     */
+    double score(String term) {
+        double best = 0;
+        for (int i = 0; i < scoredTokens.length; i++) {
+            String token = scoredTokens[i];
+            double match;
+            if (token.equals(term)) {
+                match = EXACT;
+            } else if (token.startsWith(term)) {
+                // Prefer "jo" -> "joe" over "jo" -> "johnathan".
+                match = PREFIX * (0.5 + 0.5 * term.length() / token.length());
+            } else if (token.contains(term)) {
+                match = INFIX;
+            } else {
+                continue;
+            }
+            best = Math.max(best, match * scoredWeights[i]);
+            if (match == EXACT && scoredWeights[i] == maxWeight) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Prepares the document for scoring; called by the index when it is added.
+     */
+    void freeze() {
+        String[] flatTokens = new String[tokens.size()];
+        float[] flatWeights = new float[tokens.size()];
+        float max = 0;
+        int i = 0;
+        for (Map.Entry<String, Float> entry : tokens.entrySet()) {
+            flatTokens[i] = entry.getKey();
+            flatWeights[i] = entry.getValue();
+            max = Math.max(max, entry.getValue());
+            i++;
+        }
+        scoredWeights = flatWeights;
+        maxWeight = max;
+        scoredTokens = flatTokens;
+    }
+
+    SearchResult toResult(double score) {
+        return new SearchResult(key.type(), key.id(), title, detail, score);
+    }
+
+    String title() {
+        return title;
+    }
+
+    /**
+     * Lower-cased, accent-free runs of letters and digits.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> result = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (!token.isEmpty()) {
+                result.add(token);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,90 @@
+package lk.jiat.globemed.search;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import lk.jiat.globemed.dto.AppointmentRow;
+import lk.jiat.globemed.dto.MedicationRow;
+import lk.jiat.globemed.model.Appointment;
+import lk.jiat.globemed.model.Medication;
+import lk.jiat.globemed.model.Patient;
+import lk.jiat.globemed.model.Staff;
+
+/**
+ * Which fields of each entity are searchable, and how much a match on each counts.
+ */
+final class SearchDocuments {
+
+    private static final DateTimeFormatter APPOINTMENT_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private SearchDocuments() {
+    }
+
+    static SearchDocument patient(Patient patient) {
+        String name = join(patient.getFirstName(), patient.getLastName());
+        return new SearchDocument(SearchType.PATIENT, patient.getId(), name, text(patient.getContactNumber()))
+                .field(name, 1.0f)
+                .field(patient.getContactNumber(), 0.8f)
+                .field(patient.getAddress(), 0.3f);
+    }
+
+    static SearchDocument staff(Staff staff) {
+        String role = staff.getRole() != null ? staff.getRole().getName() : null;
+        return new SearchDocument(SearchType.STAFF, staff.getId(), text(staff.getName()),
+                join(role, staff.getEmail()))
+                .field(staff.getName(), 1.0f)
+                .field(staff.getEmail(), 0.7f)
+                .field(role, 0.4f);
+    }
+
+    static SearchDocument medication(Medication medication) {
+        return medication(medication.getId(), medication.getName(), medication.getCategory(),
+                medication.getManufacturer(), medication.getStrength());
+    }
+
+    static SearchDocument medication(MedicationRow row) {
+        return medication(row.id(), row.name(), row.category(), row.manufacturer(), row.strength());
+    }
+
+    static SearchDocument appointment(Appointment appointment) {
+        return appointment(appointment.getId(), appointment.getAppointmentDateTime(), appointment.getStatus(),
+                appointment.getPatient() != null ? appointment.getPatient().getFullName() : null,
+                appointment.getDoctor() != null ? appointment.getDoctor().getName() : null);
+    }
+
+    static SearchDocument appointment(AppointmentRow row) {
+        return appointment(row.id(), row.appointmentDateTime(), row.status(), row.patientName(), row.doctorName());
+    }
+
+    private static SearchDocument medication(Long id, String name, String category, String manufacturer,
+            String strength) {
+        return new SearchDocument(SearchType.MEDICATION, id, join(name, strength), join(category, manufacturer))
+                .field(name, 1.0f)
+                .field(strength, 0.5f)
+                .field(category, 0.5f)
+                .field(manufacturer, 0.4f);
+    }
+
+    private static SearchDocument appointment(Long id, LocalDateTime dateTime, String status,
+            String patientName, String doctorName) {
+        String when = dateTime != null ? dateTime.format(APPOINTMENT_TIME) : null;
+        return new SearchDocument(SearchType.APPOINTMENT, id, join(patientName, doctorName != null ? "with " + doctorName : null),
+                join(when, status))
+                .field(patientName, 0.8f)
+                .field(doctorName, 0.8f)
+                .field(status, 0.3f);
+    }
+
+    private static String join(String first, String second) {
+        if (first == null || first.isBlank()) {
+            return text(second);
+        }
+        if (second == null || second.isBlank()) {
+            return first;
+        }
+        return first + " " + second;
+    }
+
+    private static String text(String value) {
+        return value != null ? value : "";
+    }
+}
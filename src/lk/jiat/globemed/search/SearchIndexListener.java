@@ -0,0 +1,136 @@
+package lk.jiat.globemed.search;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import lk.jiat.globemed.dao.AppointmentDao;
+import lk.jiat.globemed.dao.AsyncDao;
+import lk.jiat.globemed.dto.AppointmentRow;
+import lk.jiat.globemed.model.Appointment;
+import lk.jiat.globemed.model.Medication;
+import lk.jiat.globemed.model.Patient;
+import lk.jiat.globemed.model.Staff;
+import lk.jiat.globemed.util.HibernateUtil;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Applies committed writes of indexed entities to {@link GlobalSearch}, and of
+ * medications to {@link MedicationLookup}. Rolled-back writes never reach either index.
+ * Renaming a patient or doctor also re-indexes their appointments, which are found by
+ * those names.
+ */
+final class SearchIndexListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private static final Set<Class<?>> INDEXED = Set.of(Patient.class, Staff.class, Medication.class, Appointment.class);
+
+    private static boolean installed;
+
+    private final AppointmentDao appointmentDao = new AppointmentDao();
+
+    /**
+     * Registers the listener with the session factory; only the first call does anything.
+     */
+    static synchronized void install() {
+        if (installed) {
+            return;
+        }
+        SearchIndexListener listener = new SearchIndexListener();
+        EventListenerRegistry registry = HibernateUtil.getSessionFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+        installed = true;
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return INDEXED.contains(persister.getMappedClass());
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        indexed(event.getEntity(), false);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        indexed(event.getEntity(), true);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        Object entity = event.getEntity();
+        SearchType type = typeOf(entity);
+        if (type != null && event.getId() instanceof Long id) {
+            GlobalSearch.removed(new SearchDocument.Key(type, id));
+            if (type == SearchType.MEDICATION) {
+                MedicationLookup.removed(id);
+            }
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    private void indexed(Object entity, boolean updated) {
+        if (entity instanceof Patient patient) {
+            GlobalSearch.indexed(SearchDocuments.patient(patient));
+            if (updated) {
+                reindexAppointments(() -> appointmentDao.findRowsByPatient(patient.getId()));
+            }
+        } else if (entity instanceof Staff staff) {
+            GlobalSearch.indexed(SearchDocuments.staff(staff));
+            if (updated) {
+                reindexAppointments(() -> appointmentDao.findRowsByDoctor(staff.getId()));
+            }
+        } else if (entity instanceof Medication medication) {
+            GlobalSearch.indexed(SearchDocuments.medication(medication));
+            MedicationLookup.indexed(medication);
+        } else if (entity instanceof Appointment appointment) {
+            GlobalSearch.indexed(SearchDocuments.appointment(appointment));
+        }
+    }
+
+    private void reindexAppointments(Supplier<List<AppointmentRow>> rows) {
+        AsyncDao.run(() -> rows.get().forEach(row -> GlobalSearch.indexed(SearchDocuments.appointment(row))))
+                .exceptionally(error -> {
+                    System.err.println("Could not re-index appointments: " + error.getMessage());
+                    return null;
+                });
+    }
+
+    private static SearchType typeOf(Object entity) {
+        if (entity instanceof Patient) {
+            return SearchType.PATIENT;
+        } else if (entity instanceof Staff) {
+            return SearchType.STAFF;
+        } else if (entity instanceof Medication) {
+            return SearchType.MEDICATION;
+        } else if (entity instanceof Appointment) {
+            return SearchType.APPOINTMENT;
+        }
+        return null;
+    }
+}
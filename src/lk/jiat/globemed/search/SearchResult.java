@@ -0,0 +1,7 @@
+package lk.jiat.globemed.search;
+
+/**
+ * One ranked hit from {@link GlobalSearch}; a higher score is a better match.
+ */
+public record SearchResult(SearchType type, Long id, String title, String detail, double score) {
+}
@@ -0,0 +1,18 @@
+package lk.jiat.globemed.search;
+
+public enum SearchType {
+    PATIENT("Patient"),
+    STAFF("Staff"),
+    MEDICATION("Medication"),
+    APPOINTMENT("Appointment");
+
+    private final String label;
+
+    SearchType(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,456 @@
+package lk.jiat.globemed.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typo-tolerant lookup over medication name, strength and manufacturer. The distinct
+ * words of all entries form a vocabulary, indexed by trigrams padded at the front so
+ * that every trigram of a correctly typed prefix is also a trigram of the word. A query
+ * term is compared only with the words sharing enough of its trigrams to be within the
+ * allowed number of edits, by the edit distance (with transpositions) to the closest
+ * prefix of the word; each word then points at the entries containing it. A formulary
+ * repeats the same few thousand words, so this stays fast as the entries grow.
+ * <p>
+ * Thread-safe; lookups share a read lock and updates take the write lock.
+ */
+final class TrigramIndex {
+
+    private static final int GRAM = 3;
+    private static final String PAD = "  ";
+
+    private static final float NAME = 1.0f;
+    private static final float STRENGTH = 0.6f;
+    private static final float MANUFACTURER = 0.5f;
+
+    private static final float EXACT = 1.0f;
+    private static final float PREFIX = 0.8f;
+    private static final float ONE_EDIT = 0.6f;
+    private static final float PER_EXTRA_EDIT = 0.2f;
+
+    private static final Comparator<MedicationMatch> RANKING = Comparator
+            .comparingDouble(MedicationMatch::score).reversed()
+            .thenComparingInt(MedicationMatch::edits)
+            .thenComparingInt(match -> match.name().length())
+            .thenComparing(MedicationMatch::name);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final Map<String, Word> vocabulary = new HashMap<>();
+    private final List<Word> words = new ArrayList<>();
+    private final Deque<Integer> freeWordOrdinals = new ArrayDeque<>();
+    private final Map<String, Set<Integer>> gramPostings = new HashMap<>();
+
+    void put(Long id, String name, String strength, String manufacturer) {
+        Entry entry = new Entry(id, name, strength, manufacturer);
+        lock.writeLock().lock();
+        try {
+            putLocked(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Brings the index in line with {@code snapshot}, a full read of the database,
+     * leaving alone the ids in {@code newer}: those changed after the snapshot was taken
+     * and are already up to date.
+     */
+    void reconcile(Collection<Entry> snapshot, Set<Long> newer) {
+        lock.writeLock().lock();
+        try {
+            Set<Long> present = new HashSet<>();
+            for (Entry entry : snapshot) {
+                present.add(entry.id);
+                if (!newer.contains(entry.id)) {
+                    putLocked(entry);
+                }
+            }
+            for (Long id : new ArrayList<>(ordinals.keySet())) {
+                if (!present.contains(id) && !newer.contains(id)) {
+                    removeLocked(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<MedicationMatch> lookup(String query, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive: " + limit);
+        }
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(SearchDocument.tokenize(query)));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        // The longest term has the most trigrams, so it narrows the candidates the most.
+        terms.sort(Comparator.comparingInt(String::length).reversed());
+
+        lock.readLock().lock();
+        try {
+            int size = entries.size();
+            float[] scores = new float[size];
+            int[] edits = new int[size];
+            float[] termScores = new float[size];
+            int[] termEdits = new int[size];
+            int[] touched = new int[size];
+            int[] candidates = null;
+            int candidateCount = 0;
+
+            for (String term : terms) {
+                int touchedCount = 0;
+                for (WordMatch match : matchWords(term)) {
+                    Word word = match.word;
+                    for (int i = 0; i < word.size; i++) {
+                        int ordinal = word.entryOrdinals[i];
+                        float score = match.score * word.weights[i];
+                        if (termScores[ordinal] == 0) {
+                            touched[touchedCount++] = ordinal;
+                        }
+                        if (score > termScores[ordinal]) {
+                            termScores[ordinal] = score;
+                            termEdits[ordinal] = match.edits;
+                        }
+                    }
+                }
+                if (candidates == null) {
+                    candidates = new int[touchedCount];
+                    System.arraycopy(touched, 0, candidates, 0, touchedCount);
+                    candidateCount = touchedCount;
+                }
+                int matched = 0;
+                for (int i = 0; i < candidateCount; i++) {
+                    int ordinal = candidates[i];
+                    if (termScores[ordinal] > 0) {
+                        scores[ordinal] += termScores[ordinal];
+                        edits[ordinal] += termEdits[ordinal];
+                        candidates[matched++] = ordinal;
+                    }
+                }
+                for (int i = 0; i < touchedCount; i++) {
+                    termScores[touched[i]] = 0;
+                }
+                candidateCount = matched;
+                if (candidateCount == 0) {
+                    return List.of();
+                }
+            }
+
+            PriorityQueue<MedicationMatch> top = new PriorityQueue<>(limit + 1, RANKING.reversed());
+            for (int i = 0; i < candidateCount; i++) {
+                int ordinal = candidates[i];
+                Entry entry = entries.get(ordinal);
+                // Most candidates of a broad query lose to the current top; skip building them.
+                if (top.size() < limit || outranks(scores[ordinal], edits[ordinal], entry.name, top.peek())) {
+                    top.add(new MedicationMatch(entry.id, entry.name, entry.strength, entry.manufacturer,
+                            edits[ordinal], scores[ordinal]));
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+            List<MedicationMatch> results = new ArrayList<>(top);
+            results.sort(RANKING);
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@link #RANKING} of a candidate not yet built against the worst match kept so far.
+     */
+    private static boolean outranks(float score, int edits, String name, MedicationMatch worst) {
+        if (score != worst.score()) {
+            return score > worst.score();
+        }
+        if (edits != worst.edits()) {
+            return edits < worst.edits();
+        }
+        if (name.length() != worst.name().length()) {
+            return name.length() < worst.name().length();
+        }
+        return name.compareTo(worst.name()) < 0;
+    }
+
+    static Entry entry(Long id, String name, String strength, String manufacturer) {
+        return new Entry(id, name, strength, manufacturer);
+    }
+
+    /**
+     * Short terms must be typed right; longer ones may have one or two typos.
+     */
+    static int allowedEdits(String term) {
+        if (term.length() <= 3) {
+            return 0;
+        }
+        return term.length() <= 6 ? 1 : 2;
+    }
+
+    private List<WordMatch> matchWords(String term) {
+        int maxEdits = allowedEdits(term);
+        List<String> grams = grams(term);
+        // A substitution changes at most three trigrams; a swap of adjacent letters, which
+        // counts as one edit, can change four.
+        int needed = Math.max(1, grams.size() - (GRAM + 1) * maxEdits);
+        int[] shared = new int[words.size()];
+        List<Integer> touched = new ArrayList<>();
+        for (String gram : grams) {
+            Set<Integer> posting = gramPostings.get(gram);
+            if (posting == null) {
+                continue;
+            }
+            for (int wordOrdinal : posting) {
+                if (shared[wordOrdinal]++ == 0) {
+                    touched.add(wordOrdinal);
+                }
+            }
+        }
+
+        List<WordMatch> matches = new ArrayList<>();
+        for (int wordOrdinal : touched) {
+            if (shared[wordOrdinal] >= needed) {
+                String word = words.get(wordOrdinal).text;
+                if (word.equals(term)) {
+                    matches.add(new WordMatch(words.get(wordOrdinal), EXACT, 0));
+                } else if (word.startsWith(term)) {
+                    matches.add(new WordMatch(words.get(wordOrdinal), PREFIX, 0));
+                } else if (maxEdits > 0) {
+                    int distance = prefixDistance(term, word, maxEdits);
+                    if (distance <= maxEdits) {
+                        matches.add(new WordMatch(words.get(wordOrdinal),
+                                ONE_EDIT - PER_EXTRA_EDIT * (distance - 1), distance));
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    private void putLocked(Entry entry) {
+        removeLocked(entry.id);
+        int ordinal;
+        if (freeOrdinals.isEmpty()) {
+            ordinal = entries.size();
+            entries.add(entry);
+        } else {
+            ordinal = freeOrdinals.pop();
+            entries.set(ordinal, entry);
+        }
+        ordinals.put(entry.id, ordinal);
+        for (int i = 0; i < entry.tokens.length; i++) {
+            word(entry.tokens[i]).add(ordinal, entry.weights[i]);
+        }
+    }
+
+    private void removeLocked(Long id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal == null) {
+            return;
+        }
+        for (String token : entries.get(ordinal).tokens) {
+            Word word = vocabulary.get(token);
+            word.remove(ordinal);
+            if (word.size == 0) {
+                forget(word);
+            }
+        }
+        entries.set(ordinal, null);
+        freeOrdinals.push(ordinal);
+    }
+
+    private Word word(String token) {
+        Word word = vocabulary.get(token);
+        if (word != null) {
+            return word;
+        }
+        int wordOrdinal = freeWordOrdinals.isEmpty() ? words.size() : freeWordOrdinals.pop();
+        word = new Word(token, wordOrdinal);
+        if (wordOrdinal == words.size()) {
+            words.add(word);
+        } else {
+            words.set(wordOrdinal, word);
+        }
+        vocabulary.put(token, word);
+        for (String gram : new HashSet<>(grams(token))) {
+            gramPostings.computeIfAbsent(gram, g -> new HashSet<>()).add(wordOrdinal);
+        }
+        return word;
+    }
+
+    private void forget(Word word) {
+        vocabulary.remove(word.text);
+        for (String gram : new HashSet<>(grams(word.text))) {
+            Set<Integer> posting = gramPostings.get(gram);
+            if (posting != null && posting.remove(word.ordinal) && posting.isEmpty()) {
+                gramPostings.remove(gram);
+            }
+        }
+        words.set(word.ordinal, null);
+        freeWordOrdinals.push(word.ordinal);
+    }
+
+    private static List<String> grams(String token) {
+        String padded = PAD + token;
+        List<String> grams = new ArrayList<>(token.length());
+        for (int i = 0; i + GRAM <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    /**
+     * Edit distance, counting an adjacent swap as one edit, between {@code term} and the
+     * closest prefix of {@code token}; anything above {@code max} is reported as
+     * {@code max + 1}.
+     */
+    static int prefixDistance(String term, String token, int max) {
+        int m = term.length();
+        int n = Math.min(token.length(), m + max);
+        int[] before = new int[n + 1];
+        int[] previous = new int[n + 1];
+        int[] current = new int[n + 1];
+        for (int j = 0; j <= n; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= m; i++) {
+            current[0] = i;
+            int rowMin = i;
+            char a = term.charAt(i - 1);
+            for (int j = 1; j <= n; j++) {
+                char b = token.charAt(j - 1);
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1),
+                        previous[j - 1] + (a == b ? 0 : 1));
+                if (i > 1 && j > 1 && a == token.charAt(j - 2) && term.charAt(i - 2) == b) {
+                    value = Math.min(value, before[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = before;
+            before = previous;
+            previous = current;
+            current = recycled;
+        }
+        int best = previous[0];
+        for (int j = 1; j <= n; j++) {
+            best = Math.min(best, previous[j]);
+        }
+        return Math.min(best, max + 1);
+    }
+
+    private record WordMatch(Word word, float score, int edits) {
+    }
+
+    /**
+     * A distinct token and the weight it carries in each entry that contains it, kept in
+     * plain arrays because lookups walk them for every matching word.
+     */
+    private static final class Word {
+
+        private final String text;
+        private final int ordinal;
+        private int[] entryOrdinals = new int[4];
+        private float[] weights = new float[4];
+        private int size;
+
+        private Word(String text, int ordinal) {
+            this.text = text;
+            this.ordinal = ordinal;
+        }
+
+        private void add(int entryOrdinal, float weight) {
+            if (size == entryOrdinals.length) {
+                entryOrdinals = Arrays.copyOf(entryOrdinals, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            entryOrdinals[size] = entryOrdinal;
+            weights[size] = weight;
+            size++;
+        }
+
+        private void remove(int entryOrdinal) {
+            for (int i = 0; i < size; i++) {
+                if (entryOrdinals[i] == entryOrdinal) {
+                    size--;
+                    entryOrdinals[i] = entryOrdinals[size];
+                    weights[i] = weights[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    static final class Entry {
+
+        private final Long id;
+        private final String name;
+        private final String strength;
+        private final String manufacturer;
+        private final String[] tokens;
+        private final float[] weights;
+
+        private Entry(Long id, String name, String strength, String manufacturer) {
+            this.id = id;
+            this.name = name != null ? name : "";
+            this.strength = strength;
+            this.manufacturer = manufacturer;
+
+            Map<String, Float> weighted = new HashMap<>();
+            addTokens(weighted, name, NAME);
+            addTokens(weighted, strength, STRENGTH);
+            addTokens(weighted, manufacturer, MANUFACTURER);
+            this.tokens = new String[weighted.size()];
+            this.weights = new float[weighted.size()];
+            int i = 0;
+            for (Map.Entry<String, Float> token : weighted.entrySet()) {
+                tokens[i] = token.getKey();
+                weights[i] = token.getValue();
+                i++;
+            }
+        }
+
+        private static void addTokens(Map<String, Float> weighted, String text, float weight) {
+            for (String token : SearchDocument.tokenize(text)) {
+                weighted.merge(token, weight, Math::max);
+            }
+        }
+    }
+}
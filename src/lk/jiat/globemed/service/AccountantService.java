@@ -4,15 +4,24 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import lk.jiat.globemed.dao.AppointmentDao;
 import lk.jiat.globemed.dao.BillingDao;
 import lk.jiat.globemed.dao.PrescriptionDao;
+import lk.jiat.globemed.dao.RowCriteria;
+import lk.jiat.globemed.dto.BillingRow;
 import lk.jiat.globemed.model.BillingRecord;
 import lk.jiat.globemed.model.Patient;
+import lk.jiat.globemed.report.ReportCache;
+import lk.jiat.globemed.util.UnitOfWork;
 
 public class AccountantService {
 
+    // Billing reports show patient names, so renaming a patient changes them too.
+    private static final Set<Class<?>> REPORT_SOURCES = Set.of(BillingRecord.class, Patient.class);
+
     private final BillingDao billingDao = new BillingDao();
     private final AppointmentDao appointmentDao = new AppointmentDao();
     private final PrescriptionDao prescriptionDao = new PrescriptionDao();
@@ -29,33 +38,37 @@ public class AccountantService {
     }
 
     public void processPayment(Long billingId, String paymentMethod) {
-        BillingRecord billing = billingDao.findById(billingId);
-        if (billing == null) {
-            throw new IllegalArgumentException("Billing record not found");
-        }
+        UnitOfWork.inTransaction(session -> {
+            BillingRecord billing = billingDao.findById(billingId);
+            if (billing == null) {
+                throw new IllegalArgumentException("Billing record not found");
+            }
 
-        if (!"Pending".equals(billing.getStatus())) {
-            throw new IllegalArgumentException("Payment already processed or rejected");
-        }
+            if (!"Pending".equals(billing.getStatus())) {
+                throw new IllegalArgumentException("Payment already processed or rejected");
+            }
 
-        billing.setPaymentMethod(paymentMethod);
-        billing.setStatus("Paid");
-        billingDao.update(billing);
+            billing.setPaymentMethod(paymentMethod);
+            billing.setStatus("Paid");
+            billingDao.update(billing);
 
-        System.out.println("Payment processed for billing #" + billingId + " - Amount: $"
-                + String.format("%.2f", billing.getAmount()));
+            System.out.println("Payment processed for billing #" + billingId + " - Amount: $"
+                    + String.format("%.2f", billing.getAmount()));
+        });
     }
 
     public void rejectPayment(Long billingId, String reason) {
-        BillingRecord billing = billingDao.findById(billingId);
-        if (billing == null) {
-            throw new IllegalArgumentException("Billing record not found");
-        }
+        UnitOfWork.inTransaction(session -> {
+            BillingRecord billing = billingDao.findById(billingId);
+            if (billing == null) {
+                throw new IllegalArgumentException("Billing record not found");
+            }
 
-        billing.setStatus("Rejected");
-        billingDao.update(billing);
+            billing.setStatus("Rejected");
+            billingDao.update(billing);
 
-        System.out.println("Payment rejected for billing #" + billingId + " - Reason: " + reason);
+            System.out.println("Payment rejected for billing #" + billingId + " - Reason: " + reason);
+        });
     }
 
     public List<BillingRecord> getAllBillingRecords() {
@@ -74,6 +87,14 @@ public class AccountantService {
         return getBillingRecordsByStatus("Paid");
     }
 
+    public List<BillingRow> getBillingRows() {
+        return billingDao.findRows();
+    }
+
+    public List<BillingRow> getBillingRowsByStatus(String status) {
+        return billingDao.findRows(RowCriteria.all().status(status));
+    }
+
     public List<BillingRecord> getPatientBillingHistory(Long patientId) {
         return billingDao.findByPatientId(patientId);
     }
@@ -102,6 +123,38 @@ public class AccountantService {
     }
 
     public String generateFinancialReport() {
+        return generateFinancialReport(false);
+    }
+
+    /**
+     * @param refresh render from the database even if a cached copy is still valid
+     */
+    public String generateFinancialReport(boolean refresh) {
+        return refresh ? ReportCache.refresh("ACCOUNTANT_FINANCIAL", REPORT_SOURCES, this::renderFinancialReport)
+                : ReportCache.get("ACCOUNTANT_FINANCIAL", REPORT_SOURCES, this::renderFinancialReport);
+    }
+
+    public String generateRevenueReport(LocalDateTime startDate, LocalDateTime endDate) {
+        return generateRevenueReport(startDate, endDate, false);
+    }
+
+    public String generateRevenueReport(LocalDateTime startDate, LocalDateTime endDate, boolean refresh) {
+        Supplier<String> render = () -> renderRevenueReport(startDate, endDate);
+        return refresh ? ReportCache.refresh("REVENUE", REPORT_SOURCES, render, startDate, endDate)
+                : ReportCache.get("REVENUE", REPORT_SOURCES, render, startDate, endDate);
+    }
+
+    public String generateOutstandingPaymentsReport() {
+        return generateOutstandingPaymentsReport(false);
+    }
+
+    public String generateOutstandingPaymentsReport(boolean refresh) {
+        return refresh
+                ? ReportCache.refresh("OUTSTANDING_PAYMENTS", REPORT_SOURCES, this::renderOutstandingPaymentsReport)
+                : ReportCache.get("OUTSTANDING_PAYMENTS", REPORT_SOURCES, this::renderOutstandingPaymentsReport);
+    }
+
+    private String renderFinancialReport() {
         Map<String, Object> stats = getFinancialStatistics();
         List<BillingRecord> allRecords = billingDao.findAll();
 
@@ -147,10 +200,8 @@ public class AccountantService {
         return report.toString();
     }
 
-    public String generateRevenueReport(LocalDateTime startDate, LocalDateTime endDate) {
-        List<BillingRecord> records = billingDao.findAll().stream()
-                .filter(r -> r.getCreatedAt().isAfter(startDate) && r.getCreatedAt().isBefore(endDate))
-                .collect(Collectors.toList());
+    private String renderRevenueReport(LocalDateTime startDate, LocalDateTime endDate) {
+        List<BillingRow> records = billingDao.findRows(RowCriteria.all().between(startDate, endDate));
 
         StringBuilder report = new StringBuilder();
         report.append("=== REVENUE REPORT ===\n");
@@ -159,13 +210,13 @@ public class AccountantService {
         report.append("Generated: ").append(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))).append("\n\n");
 
         double totalRevenue = records.stream()
-                .filter(r -> "Paid".equals(r.getStatus()))
-                .mapToDouble(BillingRecord::getAmount)
+                .filter(r -> "Paid".equals(r.status()))
+                .mapToDouble(BillingRow::amount)
                 .sum();
 
         double pendingRevenue = records.stream()
-                .filter(r -> "Pending".equals(r.getStatus()))
-                .mapToDouble(BillingRecord::getAmount)
+                .filter(r -> "Pending".equals(r.status()))
+                .mapToDouble(BillingRow::amount)
                 .sum();
 
         report.append("💰 REVENUE SUMMARY:\n\n");
@@ -176,10 +227,10 @@ public class AccountantService {
         report.append("Potential Total: $").append(String.format("%.2f", totalRevenue + pendingRevenue)).append("\n\n");
 
         Map<String, Double> dailyRevenue = records.stream()
-                .filter(r -> "Paid".equals(r.getStatus()))
+                .filter(r -> "Paid".equals(r.status()))
                 .collect(Collectors.groupingBy(
-                        r -> r.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")),
-                        Collectors.summingDouble(BillingRecord::getAmount)
+                        r -> r.createdAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")),
+                        Collectors.summingDouble(BillingRow::amount)
                 ));
 
         report.append("📅 DAILY BREAKDOWN:\n\n");
@@ -192,7 +243,7 @@ public class AccountantService {
         return report.toString();
     }
 
-    public String generateOutstandingPaymentsReport() {
+    private String renderOutstandingPaymentsReport() {
         List<BillingRecord> pendingRecords = getPendingPayments();
 
         StringBuilder report = new StringBuilder();
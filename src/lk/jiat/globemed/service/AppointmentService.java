@@ -3,8 +3,12 @@ package lk.jiat.globemed.service;
 import java.time.LocalDateTime;
 import java.util.List;
 import lk.jiat.globemed.dao.AppointmentDao;
+import lk.jiat.globemed.dao.PageRequest;
+import lk.jiat.globemed.dao.RowCriteria;
+import lk.jiat.globemed.dto.AppointmentRow;
 import lk.jiat.globemed.model.Appointment;
 import lk.jiat.globemed.model.Staff;
+import lk.jiat.globemed.util.UnitOfWork;
 
 public class AppointmentService {
 
@@ -29,6 +33,18 @@ public class AppointmentService {
         return appointmentDao.findAll();
     }
 
+    public List<AppointmentRow> findAllRows() {
+        return appointmentDao.findRows();
+    }
+
+    public List<AppointmentRow> findRows(PageRequest page) {
+        return appointmentDao.findRows(RowCriteria.all(), page);
+    }
+
+    public long countRows() {
+        return appointmentDao.countRows(RowCriteria.all());
+    }
+
     public List<Appointment> findByPatientId(Long patientId) {
         return appointmentDao.findByPatientId(patientId);
     }
@@ -38,23 +54,27 @@ public class AppointmentService {
     }
 
     public Appointment cancelAppointment(Long appointmentId, String reason) {
-        Appointment ap = appointmentDao.findById(appointmentId);
-        if (ap == null) {
-            throw new IllegalArgumentException("Appointment not found: " + appointmentId);
-        }
-        ap.setStatus("Cancelled");
-
-        return appointmentDao.update(ap);
+        return UnitOfWork.fromTransaction(session -> {
+            Appointment ap = appointmentDao.findById(appointmentId);
+            if (ap == null) {
+                throw new IllegalArgumentException("Appointment not found: " + appointmentId);
+            }
+            ap.setStatus("Cancelled");
+
+            return appointmentDao.update(ap);
+        });
     }
 
     public Appointment rescheduleAppointment(Long appointmentId, LocalDateTime newDateTime) {
-        Appointment ap = appointmentDao.findById(appointmentId);
-        if (ap == null) {
-            throw new IllegalArgumentException("Appointment not found: " + appointmentId);
-        }
-        ap.setAppointmentDateTime(newDateTime);
-        ap.setStatus("Rescheduled");
-        return appointmentDao.update(ap);
+        return UnitOfWork.fromTransaction(session -> {
+            Appointment ap = appointmentDao.findById(appointmentId);
+            if (ap == null) {
+                throw new IllegalArgumentException("Appointment not found: " + appointmentId);
+            }
+            ap.setAppointmentDateTime(newDateTime);
+            ap.setStatus("Rescheduled");
+            return appointmentDao.update(ap);
+        });
     }
 
     public Appointment updateAppointment(Appointment appointment) {
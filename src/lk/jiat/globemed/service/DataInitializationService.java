@@ -4,9 +4,7 @@ import java.util.Arrays;
 import java.util.HashSet;
 import lk.jiat.globemed.dao.*;
 import lk.jiat.globemed.model.*;
-import lk.jiat.globemed.util.HibernateUtil;
-import org.hibernate.Session;
-import org.hibernate.Transaction;
+import lk.jiat.globemed.util.UnitOfWork;
 
 public class DataInitializationService {
 
@@ -19,9 +17,11 @@ public class DataInitializationService {
         try {
             System.out.println("🔄 Initializing system data...");
 
-            initializePermissions();
-            initializeRoles();
-            initializeDefaultUsers();
+            UnitOfWork.inTransaction(session -> {
+                initializePermissions();
+                initializeRoles();
+                initializeDefaultUsers();
+            });
 
             // initializeSamplePatients();
             // initializeHospitalStructure();
@@ -48,12 +48,8 @@ public class DataInitializationService {
                 Permission permission = new Permission();
                 permission.setName(permName);
 
-                try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-                    Transaction tx = session.beginTransaction();
-                    session.persist(permission);
-                    tx.commit();
-                    System.out.println("✅ Created permission: " + permName);
-                }
+                UnitOfWork.inTransaction(session -> session.persist(permission));
+                System.out.println("✅ Created permission: " + permName);
             }
         }
     }
@@ -65,12 +61,8 @@ public class DataInitializationService {
             adminRole.setName("Admin");
             adminRole.setPermissions(new HashSet<>(permissionDao.findAll()));
 
-            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-                Transaction tx = session.beginTransaction();
-                session.persist(adminRole);
-                tx.commit();
-                System.out.println("✅ Created Admin role with all permissions");
-            }
+            UnitOfWork.inTransaction(session -> session.persist(adminRole));
+            System.out.println("✅ Created Admin role with all permissions");
         }
 
         // Doctor
@@ -86,12 +78,8 @@ public class DataInitializationService {
                     permissionDao.findByName("VIEW_REPORTS")
             )));
 
-            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-                Transaction tx = session.beginTransaction();
-                session.persist(doctorRole);
-                tx.commit();
-                System.out.println("✅ Created Doctor role");
-            }
+            UnitOfWork.inTransaction(session -> session.persist(doctorRole));
+            System.out.println("✅ Created Doctor role");
         }
 
         // Nurse
@@ -105,12 +93,8 @@ public class DataInitializationService {
                     permissionDao.findByName("MANAGE_APPOINTMENTS")
             )));
 
-            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-                Transaction tx = session.beginTransaction();
-                session.persist(nurseRole);
-                tx.commit();
-                System.out.println("✅ Created Nurse role");
-            }
+            UnitOfWork.inTransaction(session -> session.persist(nurseRole));
+            System.out.println("✅ Created Nurse role");
         }
 
         // Pharmacist
@@ -123,12 +107,8 @@ public class DataInitializationService {
                     permissionDao.findByName("VIEW_BILLING")
             )));
 
-            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-                Transaction tx = session.beginTransaction();
-                session.persist(pharmacistRole);
-                tx.commit();
-                System.out.println("✅ Created Pharmacist role");
-            }
+            UnitOfWork.inTransaction(session -> session.persist(pharmacistRole));
+            System.out.println("✅ Created Pharmacist role");
         }
 
         // Accountant
@@ -143,12 +123,8 @@ public class DataInitializationService {
                     permissionDao.findByName("GENERATE_REPORTS")
             )));
 
-            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-                Transaction tx = session.beginTransaction();
-                session.persist(accountantRole);
-                tx.commit();
-                System.out.println("✅ Created Accountant role");
-            }
+            UnitOfWork.inTransaction(session -> session.persist(accountantRole));
+            System.out.println("✅ Created Accountant role");
         }
     }
 
@@ -161,12 +137,8 @@ public class DataInitializationService {
             admin.setPassword("admin123");
             admin.setRole(roleDao.findByName("Admin"));
 
-            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-                Transaction tx = session.beginTransaction();
-                session.persist(admin);
-                tx.commit();
-                System.out.println("✅ Created default admin user: admin@globemed.lk / admin123");
-            }
+            UnitOfWork.inTransaction(session -> session.persist(admin));
+            System.out.println("✅ Created default admin user: admin@globemed.lk / admin123");
         }
 
         System.out.println("ℹ️  Additional sample users can be created through the Admin Dashboard");
@@ -0,0 +1,72 @@
+package lk.jiat.globemed.service;
+
+import java.util.stream.Stream;
+import lk.jiat.globemed.dao.*;
+import lk.jiat.globemed.dto.AppointmentRow;
+import lk.jiat.globemed.dto.BillingRow;
+import lk.jiat.globemed.dto.PrescriptionRow;
+import lk.jiat.globemed.dto.StaffRow;
+import lk.jiat.globemed.dto.VitalsRow;
+import lk.jiat.globemed.model.AuditLog;
+import lk.jiat.globemed.model.Patient;
+import lk.jiat.globemed.report.ReportVisitor;
+
+/**
+ * Hands whole tables to a {@link ReportVisitor}. Each dataset is read as a stream in id
+ * order through a stateless session, so the visitor sees one row at a time and an export
+ * takes the same memory whatever the table's size.
+ */
+public class ExportService {
+
+    public enum Dataset {
+        PATIENTS, APPOINTMENTS, BILLING, PRESCRIPTIONS, VITALS, AUDIT_LOGS, STAFF
+    }
+
+    private final PatientDao patientDao = new PatientDao();
+    private final AppointmentDao appointmentDao = new AppointmentDao();
+    private final BillingDao billingDao = new BillingDao();
+    private final PrescriptionDao prescriptionDao = new PrescriptionDao();
+    private final PatientVitalsDao vitalsDao = new PatientVitalsDao();
+    private final AuditDao auditDao = new AuditDao();
+    private final StaffDao staffDao = new StaffDao();
+
+    public void export(Dataset dataset, ReportVisitor visitor) {
+        switch (dataset) {
+            case PATIENTS -> {
+                try (Stream<Patient> rows = patientDao.streamAll()) {
+                    visitor.visitPatients(rows);
+                }
+            }
+            case APPOINTMENTS -> {
+                try (Stream<AppointmentRow> rows = appointmentDao.streamRowsById(RowCriteria.all())) {
+                    visitor.visitAppointments(rows);
+                }
+            }
+            case BILLING -> {
+                try (Stream<BillingRow> rows = billingDao.streamRowsById(RowCriteria.all())) {
+                    visitor.visitBilling(rows);
+                }
+            }
+            case PRESCRIPTIONS -> {
+                try (Stream<PrescriptionRow> rows = prescriptionDao.streamRowsById(RowCriteria.all())) {
+                    visitor.visitPrescriptions(rows);
+                }
+            }
+            case VITALS -> {
+                try (Stream<VitalsRow> rows = vitalsDao.streamRows()) {
+                    visitor.visitVitals(rows);
+                }
+            }
+            case AUDIT_LOGS -> {
+                try (Stream<AuditLog> rows = auditDao.streamAll()) {
+                    visitor.visitAuditLogs(rows);
+                }
+            }
+            case STAFF -> {
+                try (Stream<StaffRow> rows = staffDao.streamRows()) {
+                    visitor.visitStaff(rows);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package lk.jiat.globemed.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import lk.jiat.globemed.importer.BulkImporter;
+import lk.jiat.globemed.importer.ImportProgress;
+import lk.jiat.globemed.importer.ImportTargets;
+
+/**
+ * Loads CSV files of new records in bulk; see {@link BulkImporter} for how rows are
+ * checked, rejected and resumed, and {@link ImportTargets} for the columns each dataset
+ * takes.
+ */
+public class ImportService {
+
+    public enum Dataset {
+        PATIENTS, STAFF, MEDICATIONS
+    }
+
+    /**
+     * @param performedBy who the audit entries of imported staff name
+     */
+    public ImportProgress importFile(Dataset dataset, Path source, String performedBy,
+            Consumer<ImportProgress> progress) throws IOException {
+        ImportProgress result = switch (dataset) {
+            case PATIENTS -> new BulkImporter<>(ImportTargets.patients()).run(source, progress);
+            case STAFF -> new BulkImporter<>(ImportTargets.staff(performedBy)).run(source, progress);
+            case MEDICATIONS -> new BulkImporter<>(ImportTargets.medications()).run(source, progress);
+        };
+        SystemStatusService.invalidateStatistics();
+        return result;
+    }
+}
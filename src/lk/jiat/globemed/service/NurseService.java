@@ -2,6 +2,7 @@ package lk.jiat.globemed.service;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -9,14 +10,22 @@ import lk.jiat.globemed.dao.AppointmentDao;
 import lk.jiat.globemed.dao.NursingTaskDao;
 import lk.jiat.globemed.dao.PatientDao;
 import lk.jiat.globemed.dao.PatientVitalsDao;
+import lk.jiat.globemed.dao.RowCriteria;
+import lk.jiat.globemed.dto.AppointmentRow;
+import lk.jiat.globemed.dto.NursingTaskRow;
 import lk.jiat.globemed.model.Appointment;
 import lk.jiat.globemed.model.NursingTask;
 import lk.jiat.globemed.model.Patient;
 import lk.jiat.globemed.model.PatientVitals;
 import lk.jiat.globemed.model.Staff;
+import lk.jiat.globemed.search.GlobalSearch;
+import lk.jiat.globemed.search.SearchType;
+import lk.jiat.globemed.util.UnitOfWork;
 
 public class NurseService {
 
+    private static final int PATIENT_SEARCH_LIMIT = 200;
+
     private final PatientVitalsDao vitalsDao = new PatientVitalsDao();
     private final NursingTaskDao taskDao = new NursingTaskDao();
     private final AppointmentDao appointmentDao = new AppointmentDao();
@@ -49,6 +58,10 @@ public class NurseService {
         return vitalsDao.getLatestVitalsForPatient(patientId);
     }
 
+    public Map<Long, PatientVitals> getLatestVitals(Collection<Long> patientIds) {
+        return vitalsDao.getLatestVitalsForPatients(patientIds);
+    }
+
     public List<PatientVitals> getAbnormalVitals() {
         return vitalsDao.findAbnormalVitals();
     }
@@ -74,6 +87,10 @@ public class NurseService {
         return taskDao.findByAssignedNurseId(nurseId);
     }
 
+    public List<NursingTaskRow> getTaskRowsForNurse(Long nurseId) {
+        return taskDao.findRowsByAssignedNurseId(nurseId);
+    }
+
     public List<NursingTask> getPendingTasksForNurse(Long nurseId) {
         return taskDao.findTasksByNurseAndStatus(nurseId, "Pending");
     }
@@ -83,39 +100,45 @@ public class NurseService {
     }
 
     public void completeTask(Long taskId, String completionNotes) {
-        NursingTask task = taskDao.findById(taskId);
-        if (task == null) {
-            throw new IllegalArgumentException("Task not found");
-        }
+        UnitOfWork.inTransaction(session -> {
+            NursingTask task = taskDao.findById(taskId);
+            if (task == null) {
+                throw new IllegalArgumentException("Task not found");
+            }
 
-        task.markAsCompleted(completionNotes);
-        taskDao.update(task);
+            task.markAsCompleted(completionNotes);
+            taskDao.update(task);
 
-        System.out.println("Task completed: " + task.getTitle());
+            System.out.println("Task completed: " + task.getTitle());
+        });
     }
 
     public void startTask(Long taskId) {
-        NursingTask task = taskDao.findById(taskId);
-        if (task == null) {
-            throw new IllegalArgumentException("Task not found");
-        }
+        UnitOfWork.inTransaction(session -> {
+            NursingTask task = taskDao.findById(taskId);
+            if (task == null) {
+                throw new IllegalArgumentException("Task not found");
+            }
 
-        task.markAsInProgress();
-        taskDao.update(task);
+            task.markAsInProgress();
+            taskDao.update(task);
 
-        System.out.println("Task started: " + task.getTitle());
+            System.out.println("Task started: " + task.getTitle());
+        });
     }
 
     public void cancelTask(Long taskId, String reason) {
-        NursingTask task = taskDao.findById(taskId);
-        if (task == null) {
-            throw new IllegalArgumentException("Task not found");
-        }
+        UnitOfWork.inTransaction(session -> {
+            NursingTask task = taskDao.findById(taskId);
+            if (task == null) {
+                throw new IllegalArgumentException("Task not found");
+            }
 
-        task.cancel(reason);
-        taskDao.update(task);
+            task.cancel(reason);
+            taskDao.update(task);
 
-        System.out.println("Task cancelled: " + task.getTitle());
+            System.out.println("Task cancelled: " + task.getTitle());
+        });
     }
 
     public List<NursingTask> getOverdueTasks() {
@@ -136,16 +159,32 @@ public class NurseService {
         return appointmentDao.findByStatus("Scheduled");
     }
 
+    public List<AppointmentRow> getTodaysAppointmentRows() {
+        LocalDateTime startOfDay = LocalDateTime.now().toLocalDate().atStartOfDay();
+        LocalDateTime endOfDay = startOfDay.plusDays(1).minusSeconds(1);
+        return appointmentDao.findRows(RowCriteria.all().between(startOfDay, endOfDay));
+    }
+
+    public List<AppointmentRow> getScheduledAppointmentRows() {
+        return appointmentDao.findRows(RowCriteria.all().status("Scheduled"));
+    }
+
+    public List<AppointmentRow> getAllAppointmentRows() {
+        return appointmentDao.findRows();
+    }
+
     public void updateAppointmentStatus(Long appointmentId, String status) {
-        Appointment appointment = appointmentDao.findById(appointmentId);
-        if (appointment == null) {
-            throw new IllegalArgumentException("Appointment not found");
-        }
+        UnitOfWork.inTransaction(session -> {
+            Appointment appointment = appointmentDao.findById(appointmentId);
+            if (appointment == null) {
+                throw new IllegalArgumentException("Appointment not found");
+            }
 
-        appointment.setStatus(status);
-        appointmentDao.update(appointment);
+            appointment.setStatus(status);
+            appointmentDao.update(appointment);
 
-        System.out.println("Appointment status updated: " + status);
+            System.out.println("Appointment status updated: " + status);
+        });
     }
 
     public List<Patient> getAllPatients() {
@@ -153,9 +192,11 @@ public class NurseService {
     }
 
     public List<Patient> searchPatients(String searchTerm) {
-        return patientDao.findAll().stream()
-                .filter(p -> p.getFullName().toLowerCase().contains(searchTerm.toLowerCase()))
-                .collect(Collectors.toList());
+        if (!GlobalSearch.isReady()) {
+            return patientDao.search(RowCriteria.all().text(searchTerm));
+        }
+        return patientDao.findAllById(List.copyOf(
+                GlobalSearch.matchingIds(searchTerm, SearchType.PATIENT, PATIENT_SEARCH_LIMIT)));
     }
 
     public Map<String, Object> getNursingStatistics(Long nurseId) {
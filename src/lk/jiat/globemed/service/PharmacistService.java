@@ -10,9 +10,13 @@ import lk.jiat.globemed.model.Medication;
 import lk.jiat.globemed.model.Prescription;
 import lk.jiat.globemed.model.PrescriptionItem;
 import lk.jiat.globemed.model.Staff;
+import lk.jiat.globemed.search.MedicationLookup;
+import lk.jiat.globemed.util.UnitOfWork;
 
 public class PharmacistService {
 
+    private static final int MEDICATION_SEARCH_LIMIT = 200;
+
     private final MedicationDao medicationDao = new MedicationDao();
     private final PrescriptionDao prescriptionDao = new PrescriptionDao();
 
@@ -27,61 +31,67 @@ public class PharmacistService {
     }
 
     public void dispenseMedication(Long medicationId, int quantity, String notes) {
-        Medication medication = medicationDao.findById(medicationId);
-        if (medication == null) {
-            throw new IllegalArgumentException("Medication not found");
-        }
+        Medication medication = UnitOfWork.fromTransaction(session -> {
+            Medication m = medicationDao.findById(medicationId);
+            if (m == null) {
+                throw new IllegalArgumentException("Medication not found");
+            }
 
-        if (medication.getStockQuantity() < quantity) {
-            throw new IllegalArgumentException("Insufficient stock. Available: "
-                    + medication.getStockQuantity() + ", Requested: " + quantity);
-        }
+            if (m.getStockQuantity() < quantity) {
+                throw new IllegalArgumentException("Insufficient stock. Available: "
+                        + m.getStockQuantity() + ", Requested: " + quantity);
+            }
 
-        medication.dispense(quantity);
-        medicationDao.update(medication);
+            m.dispense(quantity);
+            return medicationDao.update(m);
+        });
 
         System.out.println("Dispensed " + quantity + " units of " + medication.getName()
                 + (notes != null && !notes.isEmpty() ? " - Notes: " + notes : ""));
     }
 
     public void restockMedication(Long medicationId, int quantity) {
-        Medication medication = medicationDao.findById(medicationId);
-        if (medication == null) {
-            throw new IllegalArgumentException("Medication not found");
-        }
+        Medication medication = UnitOfWork.fromTransaction(session -> {
+            Medication m = medicationDao.findById(medicationId);
+            if (m == null) {
+                throw new IllegalArgumentException("Medication not found");
+            }
 
-        medication.restock(quantity);
-        medicationDao.update(medication);
+            m.restock(quantity);
+            return medicationDao.update(m);
+        });
 
         System.out.println("Restocked " + quantity + " units of " + medication.getName()
                 + ". New stock: " + medication.getStockQuantity());
     }
 
     public void fillPrescription(Long prescriptionId, Staff pharmacist) {
-        Prescription prescription = prescriptionDao.findById(prescriptionId);
-        if (prescription == null) {
-            throw new IllegalArgumentException("Prescription not found");
-        }
+        UnitOfWork.inTransaction(session -> {
+            Prescription prescription = prescriptionDao.findById(prescriptionId);
+            if (prescription == null) {
+                throw new IllegalArgumentException("Prescription not found");
+            }
 
-        if (!prescription.canBeFilled()) {
-            throw new IllegalArgumentException("Prescription cannot be filled. Status: " + prescription.getStatus());
-        }
+            if (!prescription.canBeFilled()) {
+                throw new IllegalArgumentException("Prescription cannot be filled. Status: " + prescription.getStatus());
+            }
 
-        for (PrescriptionItem item : prescription.getItems()) {
-            if (!item.canBeFilled()) {
-                throw new IllegalArgumentException("Insufficient stock for " + item.getMedication().getName()
-                        + ". Available: " + item.getMedication().getStockQuantity()
-                        + ", Required: " + item.getQuantity());
+            for (PrescriptionItem item : prescription.getItems()) {
+                if (!item.canBeFilled()) {
+                    throw new IllegalArgumentException("Insufficient stock for " + item.getMedication().getName()
+                            + ". Available: " + item.getMedication().getStockQuantity()
+                            + ", Required: " + item.getQuantity());
+                }
             }
-        }
 
-        for (PrescriptionItem item : prescription.getItems()) {
-            item.getMedication().dispense(item.getQuantity());
-            medicationDao.update(item.getMedication());
-        }
+            for (PrescriptionItem item : prescription.getItems()) {
+                item.getMedication().dispense(item.getQuantity());
+                medicationDao.update(item.getMedication());
+            }
 
-        prescription.markAsFilled(pharmacist);
-        prescriptionDao.update(prescription);
+            prescription.markAsFilled(pharmacist);
+            prescriptionDao.update(prescription);
+        });
 
         System.out.println("Prescription #" + prescriptionId + " filled by " + pharmacist.getName());
     }
@@ -102,8 +112,15 @@ public class PharmacistService {
         return prescriptionDao.findPending();
     }
 
+    /**
+     * Best matches first, forgiving typos once {@link MedicationLookup} is ready;
+     * until then a plain "name contains" query.
+     */
     public List<Medication> searchMedicationsByName(String name) {
-        return medicationDao.findByName(name);
+        if (!MedicationLookup.isReady()) {
+            return medicationDao.findByName(name);
+        }
+        return medicationDao.findAllById(List.copyOf(MedicationLookup.matchingIds(name, MEDICATION_SEARCH_LIMIT)));
     }
 
     public List<Medication> getMedicationsByCategory(String category) {
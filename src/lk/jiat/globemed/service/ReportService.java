@@ -1,268 +1,419 @@
 package lk.jiat.globemed.service;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
 import lk.jiat.globemed.dao.*;
+import lk.jiat.globemed.dto.AppointmentRow;
+import lk.jiat.globemed.dto.BillingRow;
+import lk.jiat.globemed.dto.GroupTotal;
+import lk.jiat.globemed.dto.StaffRow;
 import lk.jiat.globemed.model.*;
-
+import lk.jiat.globemed.report.ReportCache;
+import lk.jiat.globemed.report.TextTable;
+import lk.jiat.globemed.report.TextTable.Column;
+import lk.jiat.globemed.util.UnitOfWork;
+
+/**
+ * Plain-text reports. Each one is written to a {@link Writer} as its rows are read:
+ * the summaries come first from aggregate queries, then the detail rows are streamed
+ * through a stateless session, so only one row is in memory at a time however large
+ * the table. The {@code generate} methods render the same text into a string for
+ * on-screen viewing, and are cached until a write touches what they read;
+ * {@link #generateReportBundle()} renders all four from one snapshot instead.
+ */
 public class ReportService {
 
+    private static final DateTimeFormatter GENERATED_AT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final int RECENT_TRANSACTIONS = 10;
+    private static final List<String> REPORT_TYPES = List.of("PATIENT", "STAFF", "FINANCIAL", "APPOINTMENT");
+
+    private static final TextTable PATIENTS = new TextTable(90,
+            Column.of("ID", 5), Column.of("Name", 25).truncated(), Column.of("Gender", 15),
+            Column.of("Email/Contact", 30).truncated(), Column.of("DOB", 15));
+    private static final TextTable STAFF = new TextTable(85,
+            Column.of("ID", 5), Column.of("Name", 30).truncated(), Column.of("Email", 35).truncated(),
+            Column.of("Role", 15));
+    private static final TextTable TRANSACTIONS = new TextTable(67,
+            Column.of("ID", 5), Column.of("Amount", 15), Column.of("Status", 12), Column.of("Method", 15),
+            Column.of("Date", 20));
+    private static final TextTable APPOINTMENTS = new TextTable(87,
+            Column.of("ID", 5), Column.of("Patient", 25).truncated(), Column.of("Doctor", 25).truncated(),
+            Column.of("Date/Time", 20), Column.of("Status", 12));
+
     private final PatientDao patientDao = new PatientDao();
     private final StaffDao staffDao = new StaffDao();
     private final AppointmentDao appointmentDao = new AppointmentDao();
     private final BillingDao billingDao = new BillingDao();
 
     public String generatePatientReport() {
-        StringBuilder report = new StringBuilder();
+        return generateReport("PATIENT", false);
+    }
+
+    public String generateStaffReport() {
+        return generateReport("STAFF", false);
+    }
 
+    public String generateFinancialReport() {
+        return generateReport("FINANCIAL", false);
+    }
+
+    public String generateAppointmentReport() {
+        return generateReport("APPOINTMENT", false);
+    }
+
+    /**
+     * Renders one report from the database again, replacing its cached copy, for a user
+     * who asked for fresh figures.
+     *
+     * @param reportType PATIENT, STAFF, FINANCIAL or APPOINTMENT
+     */
+    public String refreshReport(String reportType) {
+        return generateReport(reportType, true);
+    }
+
+    private String generateReport(String reportType, boolean refresh) {
+        return switch (reportType) {
+            case "PATIENT" -> cached("PATIENT", Set.of(Patient.class), this::streamPatientReport, refresh);
+            case "STAFF" -> cached("STAFF", Set.of(Staff.class, Role.class), this::streamStaffReport, refresh);
+            case "FINANCIAL" -> cached("FINANCIAL", Set.of(BillingRecord.class), this::streamFinancialReport,
+                    refresh);
+            case "APPOINTMENT" -> cached("APPOINTMENT", Set.of(Appointment.class, Patient.class, Staff.class),
+                    this::streamAppointmentReport, refresh);
+            default -> throw new IllegalArgumentException("Unknown report type: " + reportType);
+        };
+    }
+
+    /**
+     * Writes one report as UTF-8, for saving straight to a file.
+     *
+     * @param reportType PATIENT, STAFF, FINANCIAL or APPOINTMENT
+     */
+    public void writeReport(String reportType, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        switch (reportType) {
+            case "PATIENT" -> writePatientReport(writer);
+            case "STAFF" -> writeStaffReport(writer);
+            case "FINANCIAL" -> writeFinancialReport(writer);
+            case "APPOINTMENT" -> writeAppointmentReport(writer);
+            default -> throw new IllegalArgumentException("Unknown report type: " + reportType);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Renders all four reports in parallel from one read-only snapshot, so their figures
+     * agree with each other and every table is read once.
+     *
+     * @return each report's text keyed by PATIENT, STAFF, FINANCIAL and APPOINTMENT, in
+     * that order
+     */
+    public Map<String, String> generateReportBundle() {
+        Map<String, String> reports = new LinkedHashMap<>();
+        Snapshot snapshot;
         try {
-            List<Patient> patients = patientDao.findAll();
+            snapshot = UnitOfWork.fromSnapshot(session -> loadSnapshot());
+        } catch (RuntimeException e) {
+            for (String type : REPORT_TYPES) {
+                reports.put(type, "Error generating " + type.toLowerCase() + " report: " + e.getMessage());
+            }
+            return reports;
+        }
 
-            report.append("=== GLOBEMED PATIENT REPORT ===\n");
-            report.append("Generated: ").append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date())).append("\n\n");
+        Map<String, ReportBody> bodies = new LinkedHashMap<>();
+        bodies.put("PATIENT", out -> renderPatientReport(out, snapshot.takenAt(),
+                snapshot.patientsByGender(), snapshot.patients().iterator()));
+        bodies.put("STAFF", out -> renderStaffReport(out, snapshot.takenAt(),
+                snapshot.staffByRole(), snapshot.staff().iterator()));
+        bodies.put("FINANCIAL", out -> renderFinancialReport(out, snapshot.takenAt(),
+                snapshot.billingByStatus(), snapshot.paidByMethod(), snapshot.recentBilling()));
+        bodies.put("APPOINTMENT", out -> renderAppointmentReport(out, snapshot.takenAt(),
+                snapshot.appointmentsByStatus(), snapshot.appointments().iterator()));
+
+        Map<String, ForkJoinTask<String>> tasks = new LinkedHashMap<>();
+        bodies.forEach((type, body) -> tasks.put(type, ForkJoinPool.commonPool().submit(
+                () -> render(out -> guarded(out, type.toLowerCase(), () -> body.writeTo(out))))));
+        tasks.forEach((type, task) -> reports.put(type, task.join()));
+        return reports;
+    }
+
+    public void writePatientReport(Writer out) throws IOException {
+        guarded(out, "patient", () -> streamPatientReport(out));
+    }
+
+    public void writeStaffReport(Writer out) throws IOException {
+        guarded(out, "staff", () -> streamStaffReport(out));
+    }
+
+    public void writeFinancialReport(Writer out) throws IOException {
+        guarded(out, "financial", () -> streamFinancialReport(out));
+    }
+
+    public void writeAppointmentReport(Writer out) throws IOException {
+        guarded(out, "appointment", () -> streamAppointmentReport(out));
+    }
+
+    private void streamPatientReport(Writer out) throws IOException {
+        Map<String, Long> byGender = patientDao.countsByGender();
+        try (Stream<Patient> patients = patientDao.streamAll()) {
+            renderPatientReport(out, LocalDateTime.now(), byGender, patients.iterator());
+        }
+    }
 
-            report.append("📊 PATIENT SUMMARY:\n");
-            report.append("Total Patients: ").append(patients.size()).append("\n\n");
+    private void streamStaffReport(Writer out) throws IOException {
+        Map<String, Long> byRole = staffDao.countsByRole();
+        try (Stream<StaffRow> staff = staffDao.streamRows()) {
+            renderStaffReport(out, LocalDateTime.now(), byRole, staff.iterator());
+        }
+    }
 
-            long maleCount = patients.stream().mapToLong(p -> "Male".equalsIgnoreCase(p.getGender()) ? 1 : 0).sum();
-            long femaleCount = patients.stream().mapToLong(p -> "Female".equalsIgnoreCase(p.getGender()) ? 1 : 0).sum();
+    private void streamFinancialReport(Writer out) throws IOException {
+        renderFinancialReport(out, LocalDateTime.now(),
+                billingDao.totalsByStatus(),
+                billingDao.paidTotalsByPaymentMethod(),
+                billingDao.findRows(RowCriteria.all(), PageRequest.of(0, RECENT_TRANSACTIONS)));
+    }
 
-            report.append("👥 GENDER DISTRIBUTION:\n");
-            report.append("Male: ").append(maleCount).append(" (").append(String.format("%.1f", (maleCount * 100.0 / patients.size()))).append("%)\n");
-            report.append("Female: ").append(femaleCount).append(" (").append(String.format("%.1f", (femaleCount * 100.0 / patients.size()))).append("%)\n\n");
+    private void streamAppointmentReport(Writer out) throws IOException {
+        Map<String, Long> byStatus = appointmentDao.countsByStatus();
+        try (Stream<AppointmentRow> appointments = appointmentDao.streamRows(RowCriteria.all())) {
+            renderAppointmentReport(out, LocalDateTime.now(), byStatus, appointments.iterator());
+        }
+    }
 
-            report.append("📋 PATIENT DETAILS:\n");
-            report.append(String.format("%-5s %-25s %-15s %-30s %-15s\n", "ID", "Name", "Gender", "Email/Contact", "DOB"));
-            report.append("─".repeat(90)).append("\n");
+    /**
+     * Everything the four reports read, taken in one transaction.
+     */
+    private record Snapshot(LocalDateTime takenAt,
+            Map<String, Long> patientsByGender, List<Patient> patients,
+            Map<String, Long> staffByRole, List<StaffRow> staff,
+            List<GroupTotal> billingByStatus, List<GroupTotal> paidByMethod, List<BillingRow> recentBilling,
+            Map<String, Long> appointmentsByStatus, List<AppointmentRow> appointments) {
+    }
 
-            for (Patient patient : patients) {
-                String name = patient.getFirstName() + " " + patient.getLastName();
-                if (name.length() > 24) {
-                    name = name.substring(0, 21) + "...";
-                }
+    private Snapshot loadSnapshot() {
+        return new Snapshot(LocalDateTime.now(),
+                patientDao.countsByGender(), patientDao.findAll(SortOrder.ASCENDING),
+                staffDao.countsByRole(), staffDao.findRows(),
+                billingDao.totalsByStatus(), billingDao.paidTotalsByPaymentMethod(),
+                billingDao.findRows(RowCriteria.all(), PageRequest.of(0, RECENT_TRANSACTIONS)),
+                appointmentDao.countsByStatus(), appointmentDao.findRows(RowCriteria.all()));
+    }
 
-                String contact = patient.getContactNumber() != null ? patient.getContactNumber() : "N/A";
-                if (contact.length() > 29) {
-                    contact = contact.substring(0, 26) + "...";
-                }
+    private void renderPatientReport(Writer out, LocalDateTime generatedAt, Map<String, Long> byGender,
+            Iterator<Patient> patients) throws IOException {
+        long total = sum(byGender);
+        long maleCount = byGender.getOrDefault("male", 0L);
+        long femaleCount = byGender.getOrDefault("female", 0L);
 
-                String dob = patient.getDob() != null ? patient.getDob().toString() : "N/A";
+        writeTitle(out, "PATIENT", generatedAt);
 
-                report.append(String.format("%-5s %-25s %-15s %-30s %-15s\n",
-                        patient.getId(),
-                        name,
-                        patient.getGender() != null ? patient.getGender() : "N/A",
-                        contact,
-                        dob));
-            }
+        out.write("📊 PATIENT SUMMARY:\n");
+        out.write("Total Patients: " + total + "\n\n");
 
-            report.append("\n=== END OF PATIENT REPORT ===");
+        out.write("👥 GENDER DISTRIBUTION:\n");
+        out.write("Male: " + maleCount + " (" + String.format("%.1f", maleCount * 100.0 / total) + "%)\n");
+        out.write("Female: " + femaleCount + " (" + String.format("%.1f", femaleCount * 100.0 / total) + "%)\n\n");
 
-        } catch (Exception e) {
-            report.append("Error generating patient report: ").append(e.getMessage());
+        out.write("📋 PATIENT DETAILS:\n");
+        PATIENTS.writeHeader(out);
+
+        while (patients.hasNext()) {
+            Patient patient = patients.next();
+            PATIENTS.writeRow(out,
+                    patient.getId(),
+                    patient.getFirstName() + " " + patient.getLastName(),
+                    orNa(patient.getGender()),
+                    orNa(patient.getContactNumber()),
+                    patient.getDob() != null ? patient.getDob() : "N/A");
         }
 
-        return report.toString();
+        out.write("\n=== END OF PATIENT REPORT ===");
     }
 
-    public String generateStaffReport() {
-        StringBuilder report = new StringBuilder();
+    private void renderStaffReport(Writer out, LocalDateTime generatedAt, Map<String, Long> byRole,
+            Iterator<StaffRow> staff) throws IOException {
+        writeTitle(out, "STAFF", generatedAt);
 
-        try {
-            List<Staff> staffList = staffDao.findAll();
-
-            report.append("=== GLOBEMED STAFF REPORT ===\n");
-            report.append("Generated: ").append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date())).append("\n\n");
-
-            report.append("👨‍⚕️ STAFF SUMMARY:\n");
-            report.append("Total Staff: ").append(staffList.size()).append("\n\n");
-
-            report.append("📊 ROLE DISTRIBUTION:\n");
-            staffList.stream()
-                    .collect(java.util.stream.Collectors.groupingBy(
-                            s -> s.getRole() != null ? s.getRole().getName() : "No Role",
-                            java.util.stream.Collectors.counting()))
-                    .forEach((role, count)
-                            -> report.append(role).append(": ").append(count).append("\n"));
-
-            report.append("\n📋 STAFF DETAILS:\n");
-            report.append(String.format("%-5s %-30s %-35s %-15s\n", "ID", "Name", "Email", "Role"));
-            report.append("─".repeat(85)).append("\n");
-
-            for (Staff staff : staffList) {
-                String name = staff.getName();
-                if (name != null && name.length() > 29) {
-                    name = name.substring(0, 26) + "...";
-                }
-
-                String email = staff.getEmail();
-                if (email != null && email.length() > 34) {
-                    email = email.substring(0, 31) + "...";
-                }
-
-                String role = staff.getRole() != null ? staff.getRole().getName() : "No Role";
-
-                report.append(String.format("%-5s %-30s %-35s %-15s\n",
-                        staff.getId(),
-                        name != null ? name : "N/A",
-                        email != null ? email : "N/A",
-                        role));
+        out.write("👨‍⚕️ STAFF SUMMARY:\n");
+        out.write("Total Staff: " + sum(byRole) + "\n\n");
+
+        out.write("📊 ROLE DISTRIBUTION:\n");
+        for (Map.Entry<String, Long> role : byRole.entrySet()) {
+            out.write((role.getKey() != null ? role.getKey() : "No Role") + ": " + role.getValue() + "\n");
+        }
+
+        out.write("\n📋 STAFF DETAILS:\n");
+        STAFF.writeHeader(out);
+
+        while (staff.hasNext()) {
+            StaffRow row = staff.next();
+            STAFF.writeRow(out,
+                    row.id(),
+                    orNa(row.name()),
+                    orNa(row.email()),
+                    row.roleName() != null ? row.roleName() : "No Role");
+        }
+
+        out.write("\n=== END OF STAFF REPORT ===");
+    }
+
+    private void renderFinancialReport(Writer out, LocalDateTime generatedAt, List<GroupTotal> byStatus,
+            List<GroupTotal> byMethod, List<BillingRow> recent) throws IOException {
+        long totalCount = 0;
+        long paidCount = 0;
+        long pendingCount = 0;
+        double totalRevenue = 0.0;
+        double pendingAmount = 0.0;
+        for (GroupTotal status : byStatus) {
+            totalCount += status.count();
+            if ("Paid".equalsIgnoreCase(status.group())) {
+                paidCount += status.count();
+                totalRevenue += status.amount();
+            } else if ("Pending".equalsIgnoreCase(status.group())) {
+                pendingCount += status.count();
+                pendingAmount += status.amount();
             }
+        }
+
+        writeTitle(out, "FINANCIAL", generatedAt);
+
+        out.write("💰 FINANCIAL SUMMARY:\n");
+        out.write("Total Billing Records: " + totalCount + "\n");
+        out.write("Total Revenue (Paid): $" + String.format("%.2f", totalRevenue) + "\n");
+        out.write("Pending Amount: $" + String.format("%.2f", pendingAmount) + "\n");
+        out.write("Paid Bills: " + paidCount + "\n");
+        out.write("Pending Bills: " + pendingCount + "\n\n");
+
+        out.write("💳 PAYMENT METHOD BREAKDOWN:\n");
+        for (GroupTotal method : byMethod) {
+            out.write((method.group() != null ? method.group() : "Unknown") + ": $"
+                    + String.format("%.2f", method.amount()) + "\n");
+        }
 
-            report.append("\n=== END OF STAFF REPORT ===");
+        out.write("\n📋 RECENT TRANSACTIONS:\n");
+        TRANSACTIONS.writeHeader(out);
 
-        } catch (Exception e) {
-            report.append("Error generating staff report: ").append(e.getMessage());
+        for (BillingRow billing : recent) {
+            TRANSACTIONS.writeRow(out,
+                    billing.id(),
+                    "$" + String.format("%.2f", billing.amount()),
+                    orNa(billing.status()),
+                    orNa(billing.paymentMethod()),
+                    billing.createdAt() != null ? DATE_TIME.format(billing.createdAt()) : "N/A");
         }
 
-        return report.toString();
+        out.write("\n=== END OF FINANCIAL REPORT ===");
     }
 
-    public String generateFinancialReport() {
-        StringBuilder report = new StringBuilder();
+    private void renderAppointmentReport(Writer out, LocalDateTime generatedAt, Map<String, Long> byStatus,
+            Iterator<AppointmentRow> appointments) throws IOException {
+        writeTitle(out, "APPOINTMENT", generatedAt);
 
-        try {
-            List<BillingRecord> billingRecords = billingDao.findAll();
-
-            report.append("=== GLOBEMED FINANCIAL REPORT ===\n");
-            report.append("Generated: ").append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date())).append("\n\n");
-
-            report.append("💰 FINANCIAL SUMMARY:\n");
-            report.append("Total Billing Records: ").append(billingRecords.size()).append("\n");
-
-            double totalRevenue = billingRecords.stream()
-                    .filter(b -> "Paid".equalsIgnoreCase(b.getStatus()))
-                    .mapToDouble(BillingRecord::getAmount)
-                    .sum();
-
-            double pendingAmount = billingRecords.stream()
-                    .filter(b -> "Pending".equalsIgnoreCase(b.getStatus()))
-                    .mapToDouble(BillingRecord::getAmount)
-                    .sum();
-
-            long paidCount = billingRecords.stream()
-                    .mapToLong(b -> "Paid".equalsIgnoreCase(b.getStatus()) ? 1 : 0)
-                    .sum();
-
-            long pendingCount = billingRecords.stream()
-                    .mapToLong(b -> "Pending".equalsIgnoreCase(b.getStatus()) ? 1 : 0)
-                    .sum();
-
-            report.append("Total Revenue (Paid): $").append(String.format("%.2f", totalRevenue)).append("\n");
-            report.append("Pending Amount: $").append(String.format("%.2f", pendingAmount)).append("\n");
-            report.append("Paid Bills: ").append(paidCount).append("\n");
-            report.append("Pending Bills: ").append(pendingCount).append("\n\n");
-
-            report.append("💳 PAYMENT METHOD BREAKDOWN:\n");
-            billingRecords.stream()
-                    .filter(b -> "Paid".equalsIgnoreCase(b.getStatus()))
-                    .collect(java.util.stream.Collectors.groupingBy(
-                            b -> b.getPaymentMethod() != null ? b.getPaymentMethod() : "Unknown",
-                            java.util.stream.Collectors.summingDouble(BillingRecord::getAmount)))
-                    .forEach((method, amount)
-                            -> report.append(method).append(": $").append(String.format("%.2f", amount)).append("\n"));
-
-            report.append("\n📋 RECENT TRANSACTIONS:\n");
-            report.append(String.format("%-5s %-15s %-12s %-15s %-20s\n", "ID", "Amount", "Status", "Method", "Date"));
-            report.append("─".repeat(67)).append("\n");
-
-            billingRecords.stream()
-                    .sorted((a, b) -> {
-                        if (a.getCreatedAt() == null && b.getCreatedAt() == null) {
-                            return 0;
-                        }
-                        if (a.getCreatedAt() == null) {
-                            return 1;
-                        }
-                        if (b.getCreatedAt() == null) {
-                            return -1;
-                        }
-                        return b.getCreatedAt().compareTo(a.getCreatedAt());
-                    })
-                    .limit(10)
-                    .forEach(billing -> {
-                        String date = billing.getCreatedAt() != null
-                                ? new SimpleDateFormat("yyyy-MM-dd HH:mm").format(java.sql.Timestamp.valueOf(billing.getCreatedAt())) : "N/A";
-
-                        report.append(String.format("%-5s $%-14.2f %-12s %-15s %-20s\n",
-                                billing.getId(),
-                                billing.getAmount(),
-                                billing.getStatus() != null ? billing.getStatus() : "N/A",
-                                billing.getPaymentMethod() != null ? billing.getPaymentMethod() : "N/A",
-                                date));
-                    });
-
-            report.append("\n=== END OF FINANCIAL REPORT ===");
-
-        } catch (Exception e) {
-            report.append("Error generating financial report: ").append(e.getMessage());
+        out.write("📅 APPOINTMENT SUMMARY:\n");
+        out.write("Total Appointments: " + sum(byStatus) + "\n\n");
+
+        out.write("📊 STATUS DISTRIBUTION:\n");
+        for (Map.Entry<String, Long> status : byStatus.entrySet()) {
+            out.write((status.getKey() != null ? status.getKey() : "Unknown") + ": " + status.getValue() + "\n");
+        }
+
+        out.write("\n📋 APPOINTMENT DETAILS:\n");
+        APPOINTMENTS.writeHeader(out);
+
+        while (appointments.hasNext()) {
+            AppointmentRow row = appointments.next();
+            APPOINTMENTS.writeRow(out,
+                    row.id(),
+                    orNa(row.patientName()),
+                    orNa(row.doctorName()),
+                    row.appointmentDateTime() != null ? DATE_TIME.format(row.appointmentDateTime()) : "N/A",
+                    orNa(row.status()));
         }
 
-        return report.toString();
+        out.write("\n=== END OF APPOINTMENT REPORT ===");
     }
 
-    public String generateAppointmentReport() {
-        StringBuilder report = new StringBuilder();
+    private void writeTitle(Writer out, String name, LocalDateTime generatedAt) throws IOException {
+        out.write("=== GLOBEMED " + name + " REPORT ===\n");
+        out.write("Generated: " + GENERATED_AT.format(generatedAt) + "\n\n");
+    }
 
+    /**
+     * Runs {@code body}, writing a failure into the report text the way every report
+     * always has, rather than throwing it.
+     */
+    private static void guarded(Writer out, String name, ReportWork work) throws IOException {
         try {
-            List<Appointment> appointments = appointmentDao.findAll();
-
-            report.append("=== GLOBEMED APPOINTMENT REPORT ===\n");
-            report.append("Generated: ").append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date())).append("\n\n");
-
-            report.append("📅 APPOINTMENT SUMMARY:\n");
-            report.append("Total Appointments: ").append(appointments.size()).append("\n\n");
-
-            report.append("📊 STATUS DISTRIBUTION:\n");
-            appointments.stream()
-                    .collect(java.util.stream.Collectors.groupingBy(
-                            a -> a.getStatus() != null ? a.getStatus() : "Unknown",
-                            java.util.stream.Collectors.counting()))
-                    .forEach((status, count)
-                            -> report.append(status).append(": ").append(count).append("\n"));
-
-            report.append("\n📋 APPOINTMENT DETAILS:\n");
-            report.append(String.format("%-5s %-25s %-25s %-20s %-12s\n", "ID", "Patient", "Doctor", "Date/Time", "Status"));
-            report.append("─".repeat(87)).append("\n");
-
-            for (Appointment appointment : appointments) {
-                String patientName = "N/A";
-                if (appointment.getPatient() != null) {
-                    patientName = appointment.getPatient().getFirstName() + " " + appointment.getPatient().getLastName();
-                    if (patientName.length() > 24) {
-                        patientName = patientName.substring(0, 21) + "...";
-                    }
-                }
-
-                String doctorName = "N/A";
-                if (appointment.getDoctor() != null) {
-                    doctorName = appointment.getDoctor().getName();
-                    if (doctorName != null && doctorName.length() > 24) {
-                        doctorName = doctorName.substring(0, 21) + "...";
-                    }
-                }
-
-                String dateTime = "N/A";
-                if (appointment.getAppointmentDateTime() != null) {
-                    dateTime = new SimpleDateFormat("yyyy-MM-dd HH:mm").format(
-                            java.sql.Timestamp.valueOf(appointment.getAppointmentDateTime()));
-                }
-
-                report.append(String.format("%-5s %-25s %-25s %-20s %-12s\n",
-                        appointment.getId(),
-                        patientName,
-                        doctorName,
-                        dateTime,
-                        appointment.getStatus() != null ? appointment.getStatus() : "N/A"));
-            }
+            work.run();
+        } catch (RuntimeException e) {
+            out.write("Error generating " + name + " report: " + e.getMessage());
+        }
+    }
+
+    private static String orNa(String value) {
+        return value != null ? value : "N/A";
+    }
+
+    /**
+     * @return the total of grouped counts, such as a DAO's {@code countsBy...} map
+     */
+    static long sum(Map<String, Long> counts) {
+        long total = 0;
+        for (long count : counts.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    private interface ReportBody {
+
+        void writeTo(Writer out) throws IOException;
+    }
+
+    private interface ReportWork {
 
-            report.append("\n=== END OF APPOINTMENT REPORT ===");
+        void run() throws IOException;
+    }
 
-        } catch (Exception e) {
-            report.append("Error generating appointment report: ").append(e.getMessage());
+    /**
+     * Serves the report from {@link ReportCache} until one of {@code sources} is written
+     * or it ages out, or renders it afresh when {@code refresh} is set. A failed report is
+     * shown but not cached.
+     */
+    private static String cached(String type, Set<Class<?>> sources, ReportBody body, boolean refresh) {
+        try {
+            return refresh ? ReportCache.refresh(type, sources, () -> render(body))
+                    : ReportCache.get(type, sources, () -> render(body));
+        } catch (RuntimeException e) {
+            return "Error generating " + type.toLowerCase() + " report: " + e.getMessage();
         }
+    }
 
-        return report.toString();
+    private static String render(ReportBody body) {
+        StringWriter out = new StringWriter();
+        try {
+            body.writeTo(out);
+        } catch (IOException e) {
+            // A StringWriter does not throw.
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
     }
 }
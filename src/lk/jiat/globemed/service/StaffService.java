@@ -2,7 +2,7 @@ package lk.jiat.globemed.service;
 
 import java.util.List;
 import java.util.Stack;
-import lk.jiat.globemed.dao.AuditDao;
+import lk.jiat.globemed.dao.AuditWriter;
 import lk.jiat.globemed.dao.RoleDao;
 import lk.jiat.globemed.dao.StaffDao;
 import lk.jiat.globemed.dao.StaffDaoAuditDecorator;
@@ -12,7 +12,7 @@ import lk.jiat.globemed.model.Staff;
 public class StaffService {
 
     private final StaffDao rawDao = new StaffDao();
-    private final StaffDaoAuditDecorator staffDao = new StaffDaoAuditDecorator(rawDao, new AuditDao());
+    private final StaffDaoAuditDecorator staffDao = new StaffDaoAuditDecorator(rawDao, AuditWriter.getDefault());
 
     private final RoleDao roleDao = new RoleDao();
 
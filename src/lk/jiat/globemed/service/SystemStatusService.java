@@ -2,113 +2,119 @@ package lk.jiat.globemed.service;
 
 import java.util.HashMap;
 import java.util.Map;
-import lk.jiat.globemed.dao.*;
+import lk.jiat.globemed.dao.AppointmentDao;
+import lk.jiat.globemed.dao.AuditWriter;
+import lk.jiat.globemed.dao.BillingDao;
+import lk.jiat.globemed.dao.ReferenceDataCache;
+import lk.jiat.globemed.dao.StaffDao;
+import lk.jiat.globemed.dto.GroupTotal;
+import lk.jiat.globemed.report.ReportCache;
 import lk.jiat.globemed.util.HibernateUtil;
+import lk.jiat.globemed.util.UnitOfWork;
 import org.hibernate.Session;
 
 public class SystemStatusService {
 
-    private final PatientDao patientDao = new PatientDao();
+    private static final long SNAPSHOT_TTL_MILLIS = 30_000;
+
+    // Shared by every instance: the dashboard and startup each create their own service.
+    private static final Object SNAPSHOT_LOCK = new Object();
+    private static volatile Snapshot snapshot;
+
     private final StaffDao staffDao = new StaffDao();
     private final AppointmentDao appointmentDao = new AppointmentDao();
     private final BillingDao billingDao = new BillingDao();
 
     public Map<String, Object> getSystemStatistics() {
-        Map<String, Object> stats = new HashMap<>();
-
-        try {
-
-            stats.put("totalPatients", patientDao.findAll().size());
-
-            stats.put("totalStaff", staffDao.findAll().size());
-            stats.put("totalDoctors", getStaffCountByRole("Doctor"));
-            stats.put("totalNurses", getStaffCountByRole("Nurse"));
-            stats.put("totalPharmacists", getStaffCountByRole("Pharmacist"));
-            stats.put("totalAccountants", getStaffCountByRole("Accountant"));
-            stats.put("totalAdmins", getStaffCountByRole("Admin"));
-
-            stats.put("totalAppointments", appointmentDao.findAll().size());
-            stats.put("scheduledAppointments", getAppointmentCountByStatus("Scheduled"));
-            stats.put("completedAppointments", getAppointmentCountByStatus("Completed"));
-            stats.put("cancelledAppointments", getAppointmentCountByStatus("Cancelled"));
-
-            stats.put("totalBillingRecords", billingDao.findAll().size());
-            stats.put("paidBills", getBillingCountByStatus("Paid"));
-            stats.put("pendingBills", getBillingCountByStatus("Pending"));
-            stats.put("totalRevenue", getTotalRevenue());
-
-            stats.put("databaseConnected", isDatabaseConnected());
-            stats.put("systemInitialized", isSystemInitialized());
-
-        } catch (Exception e) {
-            System.err.println("Error getting system statistics: " + e.getMessage());
-            stats.put("error", e.getMessage());
-        }
-
+        Map<String, Object> stats = new HashMap<>(currentSnapshot());
+        stats.put("connectionPool", HibernateUtil.getConnectionPool().getStatusSummary());
+        stats.put("referenceDataCache", ReferenceDataCache.getStatisticsSummary());
+        stats.put("reportCache", ReportCache.getStatisticsSummary());
+        stats.put("auditWriter", AuditWriter.getDefault().getStatisticsSummary());
         return stats;
     }
 
-    private long getStaffCountByRole(String roleName) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return (Long) session.createQuery(
-                    "SELECT COUNT(s) FROM Staff s WHERE s.role.name = :roleName")
-                    .setParameter("roleName", roleName)
-                    .getSingleResult();
-        } catch (Exception e) {
-            return 0;
-        }
+    /**
+     * Drops the cached snapshot so the next call reads fresh counts.
+     */
+    public static void invalidateStatistics() {
+        snapshot = null;
     }
 
-    private long getAppointmentCountByStatus(String status) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return (Long) session.createQuery(
-                    "SELECT COUNT(a) FROM Appointment a WHERE a.status = :status")
-                    .setParameter("status", status)
-                    .getSingleResult();
-        } catch (Exception e) {
-            return 0;
+    private Map<String, Object> currentSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null && !current.isExpired()) {
+            return current.stats;
         }
-    }
 
-    private long getBillingCountByStatus(String status) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return (Long) session.createQuery(
-                    "SELECT COUNT(b) FROM BillingRecord b WHERE b.status = :status")
-                    .setParameter("status", status)
-                    .getSingleResult();
-        } catch (Exception e) {
-            return 0;
+        synchronized (SNAPSHOT_LOCK) {
+            current = snapshot;
+            if (current != null && !current.isExpired()) {
+                return current.stats;
+            }
+
+            Map<String, Object> stats = new HashMap<>();
+            try {
+                stats.putAll(UnitOfWork.fromSession(this::loadStatistics));
+                snapshot = new Snapshot(stats);
+            } catch (Exception e) {
+                System.err.println("Error getting system statistics: " + e.getMessage());
+                stats.put("databaseConnected", false);
+                stats.put("systemInitialized", false);
+                stats.put("error", e.getMessage());
+            }
+            return stats;
         }
     }
 
-    private double getTotalRevenue() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            Double revenue = (Double) session.createQuery(
-                    "SELECT SUM(b.amount) FROM BillingRecord b WHERE b.status = 'Paid'")
-                    .getSingleResult();
-            return revenue != null ? revenue : 0.0;
-        } catch (Exception e) {
-            return 0.0;
-        }
-    }
+    /**
+     * Runs inside one session; the DAO calls join it.
+     */
+    private Map<String, Object> loadStatistics(Session session) {
+        Map<String, Object> stats = new HashMap<>();
 
-    private boolean isDatabaseConnected() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            session.createNativeQuery("SELECT 1").getSingleResult();
-            return true;
-        } catch (Exception e) {
-            return false;
+        Object[] totals = session.createSelectionQuery(
+                "SELECT (SELECT COUNT(p) FROM Patient p), (SELECT COUNT(r) FROM Role r), (SELECT COUNT(x) FROM Permission x)",
+                Object[].class)
+                .getSingleResult();
+        stats.put("totalPatients", ((Number) totals[0]).longValue());
+        stats.put("systemInitialized", ((Number) totals[1]).longValue() > 0 && ((Number) totals[2]).longValue() > 0);
+
+        Map<String, Long> staffByRole = staffDao.countsByRole();
+        stats.put("totalStaff", ReportService.sum(staffByRole));
+        stats.put("totalDoctors", staffByRole.getOrDefault("Doctor", 0L));
+        stats.put("totalNurses", staffByRole.getOrDefault("Nurse", 0L));
+        stats.put("totalPharmacists", staffByRole.getOrDefault("Pharmacist", 0L));
+        stats.put("totalAccountants", staffByRole.getOrDefault("Accountant", 0L));
+        stats.put("totalAdmins", staffByRole.getOrDefault("Admin", 0L));
+
+        Map<String, Long> appointmentsByStatus = appointmentDao.countsByStatus();
+        stats.put("totalAppointments", ReportService.sum(appointmentsByStatus));
+        stats.put("scheduledAppointments", appointmentsByStatus.getOrDefault("Scheduled", 0L));
+        stats.put("completedAppointments", appointmentsByStatus.getOrDefault("Completed", 0L));
+        stats.put("cancelledAppointments", appointmentsByStatus.getOrDefault("Cancelled", 0L));
+
+        long totalBills = 0;
+        long paidBills = 0;
+        long pendingBills = 0;
+        double revenue = 0.0;
+        for (GroupTotal status : billingDao.totalsByStatus()) {
+            totalBills += status.count();
+            if ("Paid".equals(status.group())) {
+                paidBills = status.count();
+                revenue = status.amount();
+            } else if ("Pending".equals(status.group())) {
+                pendingBills = status.count();
+            }
         }
-    }
+        stats.put("totalBillingRecords", totalBills);
+        stats.put("paidBills", paidBills);
+        stats.put("pendingBills", pendingBills);
+        stats.put("totalRevenue", revenue);
 
-    private boolean isSystemInitialized() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            Long roleCount = (Long) session.createQuery("SELECT COUNT(r) FROM Role r").getSingleResult();
-            Long permissionCount = (Long) session.createQuery("SELECT COUNT(p) FROM Permission p").getSingleResult();
-            return roleCount > 0 && permissionCount > 0;
-        } catch (Exception e) {
-            return false;
-        }
+        // Reaching this point means every query above ran.
+        stats.put("databaseConnected", true);
+        return stats;
     }
 
     public String getSystemHealthSummary() {
@@ -122,8 +128,26 @@ public class SystemStatusService {
         summary.append("Total Staff: ").append(stats.get("totalStaff")).append("\n");
         summary.append("Total Appointments: ").append(stats.get("totalAppointments")).append("\n");
         summary.append("Total Revenue: $").append(String.format("%.2f", stats.get("totalRevenue"))).append("\n");
+        summary.append("Connection Pool: ").append(stats.get("connectionPool")).append("\n");
+        summary.append("Reference Data Cache: ").append(stats.get("referenceDataCache")).append("\n");
+        summary.append("Report Cache: ").append(stats.get("reportCache")).append("\n");
+        summary.append("Audit Writer: ").append(stats.get("auditWriter")).append("\n");
         summary.append("===============================");
 
         return summary.toString();
     }
+
+    private static final class Snapshot {
+
+        private final Map<String, Object> stats;
+        private final long takenAt = System.currentTimeMillis();
+
+        Snapshot(Map<String, Object> stats) {
+            this.stats = Map.copyOf(stats);
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - takenAt > SNAPSHOT_TTL_MILLIS;
+        }
+    }
 }
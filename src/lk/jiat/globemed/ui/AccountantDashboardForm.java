@@ -4,11 +4,12 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Supplier;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import lk.jiat.globemed.dao.BillingDao;
 import lk.jiat.globemed.dao.PatientDao;
+import lk.jiat.globemed.dao.RowCriteria;
+import lk.jiat.globemed.dto.BillingRow;
 import lk.jiat.globemed.model.BillingRecord;
 import lk.jiat.globemed.model.Staff;
 import lk.jiat.globemed.service.AccountantService;
@@ -21,6 +22,7 @@ public class AccountantDashboardForm extends JFrame {
     private final BillingService billingService = new BillingService();
     private final BillingDao billingDao = new BillingDao();
     private final PatientDao patientDao = new PatientDao();
+    private final BackgroundLoader loader = new BackgroundLoader(this);
 
     private JLabel lblTitle;
     private JButton btnLogout;
@@ -28,7 +30,7 @@ public class AccountantDashboardForm extends JFrame {
     private JTabbedPane tabMain;
 
     private JTable tblBilling;
-    private DefaultTableModel billingTableModel;
+    private PagedTableModel<BillingRow> billingTableModel;
     private JButton btnProcessPayment;
     private JButton btnRejectPayment;
     private JButton btnCreateBilling;
@@ -37,7 +39,7 @@ public class AccountantDashboardForm extends JFrame {
     private JLabel lblFinancialStats;
 
     private JTable tblPayments;
-    private DefaultTableModel paymentsTableModel;
+    private PagedTableModel<BillingRow> paymentsTableModel;
     private JButton btnViewPaymentDetails;
     private JButton btnRefreshPayments;
     private JComboBox<String> cmbPaymentMethodFilter;
@@ -47,6 +49,9 @@ public class AccountantDashboardForm extends JFrame {
     private JButton btnGenerateRevenueReport;
     private JButton btnGenerateOutstandingReport;
     private JButton btnExportReport;
+    private JButton btnRefreshReport;
+    // Re-renders the report on screen past the report cache; null until one is shown.
+    private Supplier<String> refreshShownReport;
 
     public AccountantDashboardForm() {
         initComponents();
@@ -70,6 +75,7 @@ public class AccountantDashboardForm extends JFrame {
         JPanel headerRight = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         btnProfile = new JButton("Profile");
         btnLogout = new JButton("Logout");
+        headerRight.add(loader.getIndicator());
         headerRight.add(btnProfile);
         headerRight.add(btnLogout);
 
@@ -106,14 +112,17 @@ public class AccountantDashboardForm extends JFrame {
 
         tabBilling.add(topPanel, BorderLayout.NORTH);
 
-        String[] columnNames = {"ID", "Patient", "Amount", "Payment Method", "Status", "Created Date"};
-        billingTableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
-        tblBilling = new JTable(billingTableModel);
+        billingTableModel = new PagedTableModel<>(List.of(
+                PagedTableModel.column("ID", "id", BillingRow::id),
+                PagedTableModel.column("Patient", "patientName", BillingRow::patientName),
+                PagedTableModel.column("Amount", "amount", (BillingRow record) -> String.format("$%.2f", record.amount())),
+                PagedTableModel.column("Payment Method", "paymentMethod", BillingRow::paymentMethod),
+                PagedTableModel.column("Status", "status", BillingRow::status),
+                PagedTableModel.column("Created Date", "createdAt",
+                        (BillingRow record) -> record.createdAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")))
+        ));
+        tblBilling = new JTable();
+        billingTableModel.install(tblBilling);
         tblBilling.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         tblBilling.getTableHeader().setReorderingAllowed(false);
 
@@ -170,14 +179,19 @@ public class AccountantDashboardForm extends JFrame {
 
         tabPayments.add(filterPanel, BorderLayout.NORTH);
 
-        String[] columnNames = {"ID", "Patient", "Amount", "Payment Method", "Status", "Date", "Time"};
-        paymentsTableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
-        tblPayments = new JTable(paymentsTableModel);
+        paymentsTableModel = new PagedTableModel<>(List.of(
+                PagedTableModel.column("ID", "id", BillingRow::id),
+                PagedTableModel.column("Patient", "patientName", BillingRow::patientName),
+                PagedTableModel.column("Amount", "amount", (BillingRow record) -> String.format("$%.2f", record.amount())),
+                PagedTableModel.column("Payment Method", "paymentMethod", BillingRow::paymentMethod),
+                PagedTableModel.column("Status", "status", BillingRow::status),
+                PagedTableModel.column("Date", "createdAt",
+                        (BillingRow record) -> record.createdAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"))),
+                PagedTableModel.column("Time", null,
+                        (BillingRow record) -> record.createdAt().format(DateTimeFormatter.ofPattern("HH:mm")))
+        ));
+        tblPayments = new JTable();
+        paymentsTableModel.install(tblPayments);
         tblPayments.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         tblPayments.getTableHeader().setReorderingAllowed(false);
 
@@ -206,11 +220,13 @@ public class AccountantDashboardForm extends JFrame {
         btnGenerateRevenueReport = new JButton("Revenue Report");
         btnGenerateOutstandingReport = new JButton("Outstanding Payments");
         btnExportReport = new JButton("Export Report");
+        btnRefreshReport = new JButton("🔄 Refresh");
 
         buttonPanel.add(btnGenerateFinancialReport);
         buttonPanel.add(btnGenerateRevenueReport);
         buttonPanel.add(btnGenerateOutstandingReport);
         buttonPanel.add(btnExportReport);
+        buttonPanel.add(btnRefreshReport);
 
         tabReports.add(buttonPanel, BorderLayout.NORTH);
 
@@ -256,6 +272,7 @@ public class AccountantDashboardForm extends JFrame {
         btnGenerateRevenueReport.addActionListener(this::generateRevenueReportAction);
         btnGenerateOutstandingReport.addActionListener(this::generateOutstandingReportAction);
         btnExportReport.addActionListener(this::exportReportAction);
+        btnRefreshReport.addActionListener(this::refreshReportAction);
 
         loadBillingData();
         loadPaymentsData();
@@ -263,64 +280,28 @@ public class AccountantDashboardForm extends JFrame {
     }
 
     private void loadBillingData() {
-        try {
-            List<BillingRecord> billingRecords = billingDao.findAll();
-            billingTableModel.setRowCount(0);
-
-            for (BillingRecord record : billingRecords) {
-                Object[] row = {
-                    record.getId(),
-                    record.getPatient().getFullName(),
-                    String.format("$%.2f", record.getAmount()),
-                    record.getPaymentMethod(),
-                    record.getStatus(),
-                    record.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))
-                };
-                billingTableModel.addRow(row);
-            }
-
-            updateFinancialStats();
-            System.out.println("Loaded " + billingRecords.size() + " billing records");
+        String selectedStatus = (String) cmbStatusFilter.getSelectedItem();
+        RowCriteria criteria = RowCriteria.all().status("All".equals(selectedStatus) ? null : selectedStatus);
 
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Error loading billing data: " + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
+        billingTableModel.setSource(PagedTableModel.RowSource.of(
+                () -> billingDao.countRows(criteria),
+                page -> billingDao.findRows(criteria, page)));
+        updateFinancialStats();
     }
 
     private void loadPaymentsData() {
-        try {
-            List<BillingRecord> paidRecords = accountantService.getPaidRecords();
-            paymentsTableModel.setRowCount(0);
-
-            for (BillingRecord record : paidRecords) {
-                Object[] row = {
-                    record.getId(),
-                    record.getPatient().getFullName(),
-                    String.format("$%.2f", record.getAmount()),
-                    record.getPaymentMethod(),
-                    record.getStatus(),
-                    record.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")),
-                    record.getCreatedAt().format(DateTimeFormatter.ofPattern("HH:mm"))
-                };
-                paymentsTableModel.addRow(row);
-            }
-
-            System.out.println("Loaded " + paidRecords.size() + " payment records");
+        String selectedMethod = (String) cmbPaymentMethodFilter.getSelectedItem();
+        RowCriteria criteria = RowCriteria.all()
+                .status("Paid")
+                .paymentMethod("All".equals(selectedMethod) ? null : selectedMethod);
 
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Error loading payment data: " + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
+        paymentsTableModel.setSource(PagedTableModel.RowSource.of(
+                () -> billingDao.countRows(criteria),
+                page -> billingDao.findRows(criteria, page)));
     }
 
     private void updateFinancialStats() {
-        try {
-            Map<String, Object> stats = accountantService.getFinancialStatistics();
+        loader.load("statistics", accountantService::getFinancialStatistics, stats -> {
             String statsText = String.format(
                     "Revenue: $%.2f | Total: %s | Paid: %s | Pending: %s | Rejected: %s",
                     stats.get("totalRevenue"),
@@ -330,70 +311,15 @@ public class AccountantDashboardForm extends JFrame {
                     stats.get("rejectedRecords")
             );
             lblFinancialStats.setText(statsText);
-        } catch (Exception e) {
-            lblFinancialStats.setText("Error loading statistics");
-        }
+        });
     }
 
     private void filterBillingByStatus() {
-        String selectedStatus = (String) cmbStatusFilter.getSelectedItem();
-        if ("All".equals(selectedStatus)) {
-            loadBillingData();
-            return;
-        }
-
-        try {
-            List<BillingRecord> filteredRecords = accountantService.getBillingRecordsByStatus(selectedStatus);
-            billingTableModel.setRowCount(0);
-
-            for (BillingRecord record : filteredRecords) {
-                Object[] row = {
-                    record.getId(),
-                    record.getPatient().getFullName(),
-                    String.format("$%.2f", record.getAmount()),
-                    record.getPaymentMethod(),
-                    record.getStatus(),
-                    record.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))
-                };
-                billingTableModel.addRow(row);
-            }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Error filtering billing records: " + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        loadBillingData();
     }
 
     private void filterPaymentsByMethod() {
-        String selectedMethod = (String) cmbPaymentMethodFilter.getSelectedItem();
-        if ("All".equals(selectedMethod)) {
-            loadPaymentsData();
-            return;
-        }
-
-        try {
-            List<BillingRecord> allPaidRecords = accountantService.getPaidRecords();
-            paymentsTableModel.setRowCount(0);
-
-            for (BillingRecord record : allPaidRecords) {
-                if (record.getPaymentMethod().equals(selectedMethod)) {
-                    Object[] row = {
-                        record.getId(),
-                        record.getPatient().getFullName(),
-                        String.format("$%.2f", record.getAmount()),
-                        record.getPaymentMethod(),
-                        record.getStatus(),
-                        record.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")),
-                        record.getCreatedAt().format(DateTimeFormatter.ofPattern("HH:mm"))
-                    };
-                    paymentsTableModel.addRow(row);
-                }
-            }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Error filtering payments: " + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        loadPaymentsData();
     }
 
     private void processPaymentAction(ActionEvent e) {
@@ -553,6 +479,7 @@ public class AccountantDashboardForm extends JFrame {
             String report = accountantService.generateFinancialReport();
             txtReportArea.setText(report);
             txtReportArea.setCaretPosition(0);
+            refreshShownReport = () -> accountantService.generateFinancialReport(true);
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(this,
                     "Error generating financial report: " + ex.getMessage(),
@@ -587,6 +514,7 @@ public class AccountantDashboardForm extends JFrame {
             String report = accountantService.generateRevenueReport(startDate, endDate);
             txtReportArea.setText(report);
             txtReportArea.setCaretPosition(0);
+            refreshShownReport = () -> accountantService.generateRevenueReport(startDate, endDate, true);
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(this,
                     "Error generating revenue report: " + ex.getMessage(),
@@ -599,6 +527,7 @@ public class AccountantDashboardForm extends JFrame {
             String report = accountantService.generateOutstandingPaymentsReport();
             txtReportArea.setText(report);
             txtReportArea.setCaretPosition(0);
+            refreshShownReport = () -> accountantService.generateOutstandingPaymentsReport(true);
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(this,
                     "Error generating outstanding payments report: " + ex.getMessage(),
@@ -606,6 +535,24 @@ public class AccountantDashboardForm extends JFrame {
         }
     }
 
+    private void refreshReportAction(ActionEvent e) {
+        if (refreshShownReport == null) {
+            JOptionPane.showMessageDialog(this,
+                    "No report to refresh. Please generate a report first.",
+                    "No Report", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        try {
+            String report = refreshShownReport.get();
+            txtReportArea.setText(report);
+            txtReportArea.setCaretPosition(0);
+        } catch (Exception ex) {
+            JOptionPane.showMessageDialog(this,
+                    "Error refreshing report: " + ex.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     private void exportReportAction(ActionEvent e) {
         if (txtReportArea.getText().trim().isEmpty()) {
             JOptionPane.showMessageDialog(this,
@@ -4,16 +4,27 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableRowSorter;
 import lk.jiat.globemed.dao.StaffDao;
+import lk.jiat.globemed.importer.BulkImporter;
 import lk.jiat.globemed.model.Staff;
+import lk.jiat.globemed.report.CSVReportVisitor;
+import lk.jiat.globemed.search.GlobalSearch;
+import lk.jiat.globemed.search.SearchType;
+import lk.jiat.globemed.service.ExportService;
+import lk.jiat.globemed.service.ImportService;
 import lk.jiat.globemed.service.ReportService;
 import lk.jiat.globemed.service.SecurityService;
 import lk.jiat.globemed.service.SystemStatusService;
 
 public class AdminDashboardForm extends JFrame {
 
+    private static final int USER_SEARCH_LIMIT = 500;
+
     private Staff currentUser;
 
     private JPanel headerPanel;
@@ -35,8 +46,13 @@ public class AdminDashboardForm extends JFrame {
     private final StaffDao staffDao = new StaffDao();
     private final SystemStatusService statusService = new SystemStatusService();
     private final ReportService reportService = new ReportService();
+    private final ExportService exportService = new ExportService();
+    private final ImportService importService = new ImportService();
+    private final BackgroundLoader loader = new BackgroundLoader(this);
 
     private DefaultTableModel userTableModel;
+    private TableRowSorter<DefaultTableModel> userSorter;
+    private JTextField txtSearchUsers;
     private JTextArea txtSystemStatus;
     private JButton btnRefreshUsers;
     private JButton btnSystemStatus;
@@ -45,6 +61,8 @@ public class AdminDashboardForm extends JFrame {
     private JButton btnFinancialReport;
     private JButton btnAppointmentReport;
     private JButton btnExportReport;
+    private JButton btnExportData;
+    private JButton btnImportData;
     private JTextField txtSystemName;
     private JTextField txtSystemVersion;
     private JCheckBox chkEmailNotifications;
@@ -84,6 +102,8 @@ public class AdminDashboardForm extends JFrame {
         btnFinancialReport.addActionListener(e -> generateSpecificReport("FINANCIAL"));
         btnAppointmentReport.addActionListener(e -> generateSpecificReport("APPOINTMENT"));
         btnExportReport.addActionListener(this::exportReportAction);
+        btnExportData.addActionListener(this::exportDataAction);
+        btnImportData.addActionListener(this::importDataAction);
 
         btnSaveSettings.addActionListener(this::saveSettingsAction);
 
@@ -91,6 +111,7 @@ public class AdminDashboardForm extends JFrame {
         btnEditUser.addActionListener(this::editUserAction);
         btnRemoveUser.addActionListener(this::removeUserAction);
         btnRefreshUsers.addActionListener(e -> loadUsersData());
+        new DebouncedSearch(txtSearchUsers, this::searchUsers);
 
         lstNav.addListSelectionListener(ev -> {
             if (!ev.getValueIsAdjusting()) {
@@ -140,6 +161,7 @@ public class AdminDashboardForm extends JFrame {
         btnProfile = new JButton("👤 Profile");
         btnAppointments = new JButton("📅 Appointments");
         btnLogout = new JButton("🚪 Logout");
+        headerRight.add(loader.getIndicator());
         headerRight.add(btnProfile);
         headerRight.add(btnAppointments);
         headerRight.add(btnLogout);
@@ -185,6 +207,15 @@ public class AdminDashboardForm extends JFrame {
         tblUsers = new JTable(userTableModel);
         tblUsers.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         tblUsers.getTableHeader().setReorderingAllowed(false);
+        userSorter = new TableRowSorter<>(userTableModel);
+        tblUsers.setRowSorter(userSorter);
+
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        searchPanel.add(new JLabel("🔍 Search:"));
+        txtSearchUsers = new JTextField(20);
+        txtSearchUsers.setToolTipText("Search users by name, email or role");
+        searchPanel.add(txtSearchUsers);
+        tabUsers.add(searchPanel, BorderLayout.NORTH);
 
         JScrollPane scrollPane = new JScrollPane(tblUsers);
         scrollPane.setBorder(BorderFactory.createTitledBorder("System Users"));
@@ -267,6 +298,18 @@ public class AdminDashboardForm extends JFrame {
         gbc.gridwidth = 1;
         reportPanel.add(btnExportReport, gbc);
 
+        btnExportData = new JButton("🗃️ Export Data (CSV)");
+        gbc.gridx = 0;
+        gbc.gridy = 6;
+        gbc.gridwidth = 1;
+        reportPanel.add(btnExportData, gbc);
+
+        btnImportData = new JButton("📥 Import Data (CSV)");
+        gbc.gridx = 1;
+        gbc.gridy = 6;
+        gbc.gridwidth = 1;
+        reportPanel.add(btnImportData, gbc);
+
         tabReports.add(reportPanel, BorderLayout.NORTH);
 
         txtSystemStatus = new JTextArea(15, 40);
@@ -361,28 +404,31 @@ public class AdminDashboardForm extends JFrame {
     }
 
     private void loadUsersData() {
-        try {
-            List<Staff> allStaff = staffDao.findAll();
-            userTableModel.setRowCount(0);
-
-            for (Staff staff : allStaff) {
-                Object[] row = {
-                    staff.getId(),
-                    staff.getName(),
-                    staff.getEmail(),
-                    staff.getRole() != null ? staff.getRole().getName() : "No Role",
-                    "Active"
-                };
-                userTableModel.addRow(row);
-            }
+        loader.loadTable("users", staffDao::findAll, userTableModel, staff -> new Object[]{
+            staff.getId(),
+            staff.getName(),
+            staff.getEmail(),
+            staff.getRole() != null ? staff.getRole().getName() : "No Role",
+            "Active"
+        });
+    }
 
-            System.out.println("✅ Loaded " + allStaff.size() + " users into table");
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Error loading users: " + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
+    private void searchUsers(String text) {
+        if (text.isEmpty()) {
+            userSorter.setRowFilter(null);
+            return;
+        }
+        if (!GlobalSearch.isReady()) {
+            userSorter.setRowFilter(RowFilter.regexFilter("(?i)" + Pattern.quote(text), 1, 2, 3));
+            return;
         }
+        Set<Long> matches = GlobalSearch.matchingIds(text, SearchType.STAFF, USER_SEARCH_LIMIT);
+        userSorter.setRowFilter(new RowFilter<DefaultTableModel, Integer>() {
+            @Override
+            public boolean include(Entry<? extends DefaultTableModel, ? extends Integer> entry) {
+                return matches.contains((Long) entry.getValue(0));
+            }
+        });
     }
 
     private void addUserAction(ActionEvent e) {
@@ -415,7 +461,7 @@ public class AdminDashboardForm extends JFrame {
             return;
         }
 
-        Long userId = (Long) userTableModel.getValueAt(selectedRow, 0);
+        Long userId = (Long) tblUsers.getValueAt(selectedRow, 0);
         Staff staffToEdit = staffDao.findById(userId);
 
         if (staffToEdit == null) {
@@ -454,9 +500,9 @@ public class AdminDashboardForm extends JFrame {
             return;
         }
 
-        Long userId = (Long) userTableModel.getValueAt(selectedRow, 0);
-        String userName = (String) userTableModel.getValueAt(selectedRow, 1);
-        String userEmail = (String) userTableModel.getValueAt(selectedRow, 2);
+        Long userId = (Long) tblUsers.getValueAt(selectedRow, 0);
+        String userName = (String) tblUsers.getValueAt(selectedRow, 1);
+        String userEmail = (String) tblUsers.getValueAt(selectedRow, 2);
 
         if (currentUser != null && currentUser.getId().equals(userId)) {
             JOptionPane.showMessageDialog(this,
@@ -495,7 +541,7 @@ public class AdminDashboardForm extends JFrame {
     }
 
     private void generateReportAction(ActionEvent e) {
-        String[] reportTypes = {"Patient Report", "Staff Report", "Financial Report", "Appointment Report", "System Status"};
+        String[] reportTypes = {"Patient Report", "Staff Report", "Financial Report", "Appointment Report", "All Reports", "System Status"};
         String selectedType = (String) JOptionPane.showInputDialog(this,
                 "Select report type:",
                 "Generate Report",
@@ -504,11 +550,54 @@ public class AdminDashboardForm extends JFrame {
                 reportTypes,
                 reportTypes[0]);
 
-        if (selectedType != null) {
+        if ("All Reports".equals(selectedType)) {
+            loader.load("report-bundle", reportService::generateReportBundle, this::showReportBundle);
+        } else if (selectedType != null) {
             generateSpecificReport(selectedType.split(" ")[0].toUpperCase());
         }
     }
 
+    /**
+     * Shows the reports of one bundle as tabs. Saving writes the text on screen, so a
+     * saved report matches the others taken with it.
+     */
+    private void showReportBundle(Map<String, String> reports) {
+        JDialog reportDialog = new JDialog(this, "All Reports", true);
+        reportDialog.setSize(700, 550);
+        reportDialog.setLocationRelativeTo(this);
+
+        JTabbedPane tabs = new JTabbedPane();
+        reports.forEach((type, content) -> {
+            JTextArea reportArea = new JTextArea(content);
+            reportArea.setEditable(false);
+            reportArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+            reportArea.setCaretPosition(0);
+            tabs.addTab(type.charAt(0) + type.substring(1).toLowerCase(), new JScrollPane(reportArea));
+        });
+        reportDialog.add(tabs, BorderLayout.CENTER);
+
+        List<String> types = List.copyOf(reports.keySet());
+        JPanel buttonPanel = new JPanel(new FlowLayout());
+        JButton saveButton = new JButton("Save As...");
+        saveButton.addActionListener(ev -> {
+            String type = types.get(tabs.getSelectedIndex());
+            chooseReportFile(reportDialog, type).ifPresent(path -> loader.load("report-" + type, () -> {
+                try {
+                    return java.nio.file.Files.writeString(path, reports.get(type));
+                } catch (java.io.IOException ex) {
+                    throw new java.io.UncheckedIOException(ex);
+                }
+            }, saved -> reportSaved(reportDialog, saved)));
+        });
+        buttonPanel.add(saveButton);
+        JButton closeButton = new JButton("Close");
+        closeButton.addActionListener(ev -> reportDialog.dispose());
+        buttonPanel.add(closeButton);
+        reportDialog.add(buttonPanel, BorderLayout.SOUTH);
+
+        reportDialog.setVisible(true);
+    }
+
     private void generateSpecificReport(String reportType) {
         try {
             String reportContent = "";
@@ -542,6 +631,17 @@ public class AdminDashboardForm extends JFrame {
             reportDialog.add(scrollPane, BorderLayout.CENTER);
 
             JPanel buttonPanel = new JPanel(new FlowLayout());
+            JButton refreshButton = new JButton("🔄 Refresh");
+            // Skips the report cache, for figures written since the cached copy was taken.
+            refreshButton.addActionListener(ev -> loader.load("report-" + reportType,
+                    () -> reportService.refreshReport(reportType), refreshed -> {
+                        reportArea.setText(refreshed);
+                        reportArea.setCaretPosition(0);
+                    }));
+            buttonPanel.add(refreshButton);
+            JButton saveButton = new JButton("Save As...");
+            saveButton.addActionListener(ev -> saveReport(reportDialog, reportType));
+            buttonPanel.add(saveButton);
             JButton closeButton = new JButton("Close");
             closeButton.addActionListener(ev -> reportDialog.dispose());
             buttonPanel.add(closeButton);
@@ -557,6 +657,40 @@ public class AdminDashboardForm extends JFrame {
         }
     }
 
+    /**
+     * Regenerates the report straight into the chosen file, so a large one is never
+     * held in memory as a whole.
+     */
+    private void saveReport(Component parent, String reportType) {
+        chooseReportFile(parent, reportType).ifPresent(path -> loader.load("report-" + reportType, () -> {
+            try (java.io.OutputStream out = java.nio.file.Files.newOutputStream(path)) {
+                reportService.writeReport(reportType, out);
+                return path;
+            } catch (java.io.IOException ex) {
+                throw new java.io.UncheckedIOException(ex);
+            }
+        }, saved -> reportSaved(parent, saved)));
+    }
+
+    private java.util.Optional<java.nio.file.Path> chooseReportFile(Component parent, String reportType) {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Save Report");
+        fileChooser.setSelectedFile(new java.io.File("GlobeMed_" + reportType + "_Report_"
+                + java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"))
+                + ".txt"));
+
+        if (fileChooser.showSaveDialog(parent) != JFileChooser.APPROVE_OPTION) {
+            return java.util.Optional.empty();
+        }
+        return java.util.Optional.of(fileChooser.getSelectedFile().toPath());
+    }
+
+    private void reportSaved(Component parent, java.nio.file.Path saved) {
+        JOptionPane.showMessageDialog(parent,
+                "Report saved to:\n" + saved.toAbsolutePath(),
+                "Save Successful", JOptionPane.INFORMATION_MESSAGE);
+    }
+
     private void showSystemStatusAction(ActionEvent e) {
         try {
             String statusInfo = statusService.getSystemHealthSummary();
@@ -603,6 +737,77 @@ public class AdminDashboardForm extends JFrame {
         }
     }
 
+    /**
+     * Exports a whole table as CSV, gzip-compressed when the file name ends in
+     * {@code .gz}. Rows are streamed from the database into the file in the background.
+     */
+    private void exportDataAction(ActionEvent e) {
+        ExportService.Dataset dataset = (ExportService.Dataset) JOptionPane.showInputDialog(this,
+                "Select data to export:", "Export Data", JOptionPane.QUESTION_MESSAGE, null,
+                ExportService.Dataset.values(), ExportService.Dataset.PATIENTS);
+        if (dataset == null) {
+            return;
+        }
+
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Export Data");
+        fileChooser.setSelectedFile(new java.io.File("GlobeMed_" + dataset + "_"
+                + java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"))
+                + ".csv"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        String path = fileChooser.getSelectedFile().getPath();
+        loader.load("export-" + dataset, () -> {
+            CSVReportVisitor visitor = new CSVReportVisitor(path);
+            exportService.export(dataset, visitor);
+            return visitor.getRowsWritten();
+        }, rows -> JOptionPane.showMessageDialog(this,
+                rows + " rows exported to:\n" + java.nio.file.Path.of(path).toAbsolutePath(),
+                "Export Successful", JOptionPane.INFORMATION_MESSAGE));
+    }
+
+    /**
+     * Imports a CSV file of patients, staff or medications in the background, showing
+     * progress in the system information area. Running it again on a file that was
+     * interrupted carries on where it stopped.
+     */
+    private void importDataAction(ActionEvent e) {
+        ImportService.Dataset dataset = (ImportService.Dataset) JOptionPane.showInputDialog(this,
+                "Select data to import:", "Import Data", JOptionPane.QUESTION_MESSAGE, null,
+                ImportService.Dataset.values(), ImportService.Dataset.PATIENTS);
+        if (dataset == null) {
+            return;
+        }
+
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Import " + dataset);
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        java.nio.file.Path source = fileChooser.getSelectedFile().toPath();
+        String performedBy = currentUser != null ? currentUser.getEmail() : "Unknown User";
+        tabMain.setSelectedIndex(1);
+        loader.load("import-" + dataset, () -> {
+            try {
+                return importService.importFile(dataset, source, performedBy, progress -> SwingUtilities.invokeLater(
+                        () -> txtSystemStatus.setText("Importing " + dataset + " from " + source + "\n" + progress)));
+            } catch (java.io.IOException ex) {
+                throw new java.io.UncheckedIOException(ex);
+            }
+        }, result -> {
+            txtSystemStatus.setText("Imported " + dataset + " from " + source + "\n" + result);
+            String message = result.imported() + " rows imported.";
+            if (result.rejected() > 0) {
+                message += "\n" + result.rejected() + " rows rejected; see:\n"
+                        + BulkImporter.getRejectFile(source).toAbsolutePath();
+            }
+            JOptionPane.showMessageDialog(this, message, "Import Complete", JOptionPane.INFORMATION_MESSAGE);
+        });
+    }
+
     private void exportReportAction(ActionEvent e) {
         String content = txtSystemStatus.getText();
         if (content.trim().isEmpty()) {
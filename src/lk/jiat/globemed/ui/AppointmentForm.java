@@ -5,9 +5,9 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import lk.jiat.globemed.dao.PatientDao;
 import lk.jiat.globemed.dao.StaffDao;
+import lk.jiat.globemed.dto.AppointmentRow;
 import lk.jiat.globemed.model.Appointment;
 import lk.jiat.globemed.model.Patient;
 import lk.jiat.globemed.model.Staff;
@@ -20,6 +20,7 @@ import lk.jiat.globemed.service.command.RescheduleAppointmentCommand;
 public class AppointmentForm extends JFrame {
 
     private JTable tblAppointments;
+    private PagedTableModel<AppointmentRow> appointmentsModel;
     private JButton btnNew;
     private JButton btnCancel;
     private JButton btnReschedule;
@@ -123,7 +124,18 @@ public class AppointmentForm extends JFrame {
         gbc.gridwidth = 2;
         left.add(actionBtns, gbc);
 
+        appointmentsModel = new PagedTableModel<>(List.of(
+                PagedTableModel.column("ID", "id", AppointmentRow::id),
+                PagedTableModel.column("DateTime", "appointmentDateTime",
+                        (AppointmentRow a) -> a.appointmentDateTime() != null ? a.appointmentDateTime().format(dtf) : ""),
+                PagedTableModel.column("Status", "status", AppointmentRow::status),
+                PagedTableModel.column("Patient", "patientName",
+                        (AppointmentRow a) -> a.patientName() != null ? a.patientName() : ""),
+                PagedTableModel.column("Doctor", "doctorName",
+                        (AppointmentRow a) -> a.doctorName() != null ? a.doctorName() : "")
+        ));
         tblAppointments = new JTable();
+        appointmentsModel.install(tblAppointments);
         JScrollPane tableScroll = new JScrollPane(tblAppointments);
 
         JSplitPane split = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, left, tableScroll);
@@ -172,25 +184,8 @@ public class AppointmentForm extends JFrame {
     }
 
     private void refreshAppointmentsTable() {
-        try {
-            List<Appointment> appts = appointmentService.findAll();
-            String[] cols = {"ID", "DateTime", "Status", "Patient", "Doctor"};
-            DefaultTableModel m = new DefaultTableModel(cols, 0) {
-                @Override
-                public boolean isCellEditable(int r, int c) {
-                    return false;
-                }
-            };
-            for (Appointment a : appts) {
-                String dt = a.getAppointmentDateTime() != null ? a.getAppointmentDateTime().format(dtf) : "";
-                String patient = a.getPatient() != null ? (a.getPatient().getFirstName() + " " + a.getPatient().getLastName()) : "";
-                String doc = a.getDoctor() != null ? a.getDoctor().getName() : "";
-                m.addRow(new Object[]{a.getId(), dt, a.getStatus(), patient, doc});
-            }
-            tblAppointments.setModel(m);
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Failed to load appointments: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        appointmentsModel.setSource(PagedTableModel.RowSource.of(
+                appointmentService::countRows, appointmentService::findRows));
     }
 
     private void onCreateAppointment() {
@@ -0,0 +1,215 @@
+package lk.jiat.globemed.ui;
+
+import java.awt.Component;
+import java.awt.Window;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.swing.JComponent;
+import javax.swing.JOptionPane;
+import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
+import javax.swing.table.DefaultTableModel;
+import lk.jiat.globemed.dao.AsyncDao;
+
+/**
+ * Loads dashboard data off the EDT through {@link AsyncDao}. Every load has a name;
+ * starting one cancels the unfinished load of the same name, so only the latest
+ * refresh or filter change reaches the screen. Table rows are built off the EDT and
+ * added in batches so a long list does not hold up repaints. The indicator is
+ * visible while anything is loading.
+ * <p>
+ * Cancelled loads are not interrupted, since a query interrupted inside JDBC costs the
+ * pool its connection; a superseded load runs to the end and its result is dropped.
+ * <p>
+ * Call it from the EDT only; results are delivered there too.
+ */
+public class BackgroundLoader {
+
+    private static final int BATCH_SIZE = 250;
+
+    private final Component owner;
+    private final JProgressBar indicator = new JProgressBar();
+    private final Map<String, Load> inFlight = new LinkedHashMap<>();
+
+    public BackgroundLoader(Component owner) {
+        this.owner = owner;
+        indicator.setIndeterminate(true);
+        indicator.setStringPainted(true);
+        indicator.setVisible(false);
+        if (owner instanceof Window window) {
+            window.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosed(WindowEvent e) {
+                    cancelAll();
+                }
+            });
+        }
+    }
+
+    public JComponent getIndicator() {
+        return indicator;
+    }
+
+    public <T> void load(String name, Supplier<T> fetch, Consumer<T> onLoaded) {
+        start(name, fetch, (load, result) -> {
+            finish(name, load);
+            onLoaded.accept(result);
+        });
+    }
+
+    public <T> void loadTable(String name, Supplier<List<T>> fetch, DefaultTableModel model,
+            Function<T, Object[]> toRow) {
+        loadTable(name, fetch, model, toRow, null);
+    }
+
+    /**
+     * Replaces the rows of {@code model} with {@code fetch}'s result, then calls
+     * {@code onLoaded} (if given) once every row is in.
+     */
+    public <T> void loadTable(String name, Supplier<List<T>> fetch, DefaultTableModel model,
+            Function<T, Object[]> toRow, Consumer<List<T>> onLoaded) {
+        start(name, () -> {
+            List<T> items = fetch.get();
+            List<Object[]> rows = new ArrayList<>(items.size());
+            for (T item : items) {
+                rows.add(toRow.apply(item));
+            }
+            return new Rows<>(items, rows);
+        }, (load, rows) -> {
+            model.setRowCount(0);
+            publish(name, load, model, rows, 0, onLoaded);
+        });
+    }
+
+    public boolean isLoading(String name) {
+        return inFlight.containsKey(name);
+    }
+
+    public void cancel(String name) {
+        Load load = inFlight.remove(name);
+        if (load != null) {
+            load.future.cancel(false);
+            updateIndicator();
+        }
+    }
+
+    public void cancelAll() {
+        for (Load load : inFlight.values()) {
+            load.future.cancel(false);
+        }
+        inFlight.clear();
+        updateIndicator();
+    }
+
+    private <T> void start(String name, Supplier<T> fetch, Delivery<T> delivery) {
+        cancel(name);
+
+        CompletableFuture<T> future = AsyncDao.supply(fetch);
+        Load load = new Load(future);
+        inFlight.put(name, load);
+        updateIndicator();
+
+        future.whenCompleteAsync((result, error) -> {
+            if (inFlight.get(name) != load) {
+                return;
+            }
+            if (error != null) {
+                finish(name, load);
+                report(name, error);
+                return;
+            }
+            delivery.deliver(load, result);
+        }, SwingUtilities::invokeLater);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void publish(String name, Load load, DefaultTableModel model, Rows<T> rows, int from,
+            Consumer<List<T>> onLoaded) {
+        int to = Math.min(from + BATCH_SIZE, rows.rows.size());
+        if (to > from) {
+            // DefaultTableModel keeps each row as a Vector<Object> behind a raw signature.
+            Vector<Vector<Object>> data = (Vector<Vector<Object>>) (Vector<?>) model.getDataVector();
+            for (int i = from; i < to; i++) {
+                data.add(new Vector<>(Arrays.asList(rows.rows.get(i))));
+            }
+            model.fireTableRowsInserted(from, to - 1);
+        }
+
+        if (to < rows.rows.size()) {
+            // Yield between batches so input and repaints are handled while the rest arrives.
+            SwingUtilities.invokeLater(() -> {
+                if (inFlight.get(name) == load) {
+                    publish(name, load, model, rows, to, onLoaded);
+                }
+            });
+            return;
+        }
+
+        finish(name, load);
+        if (onLoaded != null) {
+            onLoaded.accept(rows.items);
+        }
+    }
+
+    private void finish(String name, Load load) {
+        inFlight.remove(name, load);
+        updateIndicator();
+    }
+
+    private void report(String name, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof CancellationException) {
+            return;
+        }
+        cause.printStackTrace();
+        JOptionPane.showMessageDialog(owner,
+                "Error loading " + name + ": " + cause.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    private void updateIndicator() {
+        if (inFlight.isEmpty()) {
+            indicator.setVisible(false);
+            return;
+        }
+        indicator.setString("Loading " + String.join(", ", inFlight.keySet()) + "…");
+        indicator.setVisible(true);
+    }
+
+    private interface Delivery<T> {
+
+        void deliver(Load load, T result);
+    }
+
+    private static final class Load {
+
+        private final CompletableFuture<?> future;
+
+        Load(CompletableFuture<?> future) {
+            this.future = future;
+        }
+    }
+
+    private static final class Rows<T> {
+
+        private final List<T> items;
+        private final List<Object[]> rows;
+
+        Rows(List<T> items, List<Object[]> rows) {
+            this.items = items;
+            this.rows = rows;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package lk.jiat.globemed.ui;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+import javax.swing.JTextField;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * Runs a search once the user stops typing in a text field instead of on every
+ * keystroke; Enter searches straight away. The search receives the trimmed text and
+ * is skipped when the text has not changed since the last one. Searches should go
+ * through {@link BackgroundLoader} or {@link PagedTableModel}, which cancel the query
+ * a newer search replaces.
+ */
+public class DebouncedSearch {
+
+    private static final int DEFAULT_DELAY_MS = 300;
+
+    private final JTextField field;
+    private final Consumer<String> search;
+    private final Timer timer;
+    private String lastText;
+
+    public DebouncedSearch(JTextField field, Consumer<String> search) {
+        this(field, DEFAULT_DELAY_MS, search);
+    }
+
+    public DebouncedSearch(JTextField field, int delayMs, Consumer<String> search) {
+        this.field = field;
+        this.search = search;
+        this.lastText = field.getText().trim();
+        this.timer = new Timer(delayMs, e -> fire(false));
+        timer.setRepeats(false);
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+        });
+        field.addActionListener(e -> fire(true));
+    }
+
+    /**
+     * Drops a search that is waiting for the user to stop typing.
+     */
+    public void cancel() {
+        timer.stop();
+    }
+
+    private void fire(boolean force) {
+        timer.stop();
+        if (!field.isShowing()) {
+            return;
+        }
+        String text = field.getText().trim();
+        if (!force && Objects.equals(text, lastText)) {
+            return;
+        }
+        lastText = text;
+        search.accept(text);
+    }
+}
@@ -6,9 +6,9 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.function.Supplier;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
-import lk.jiat.globemed.model.Appointment;
 import lk.jiat.globemed.model.Patient;
 import lk.jiat.globemed.model.Staff;
 import lk.jiat.globemed.service.AppointmentService;
@@ -19,6 +19,7 @@ public class DoctorDashboardForm extends JFrame {
     private final Staff loggedInDoctor;
     private final AppointmentService appointmentService;
     private final PatientService patientService;
+    private final BackgroundLoader loader = new BackgroundLoader(this);
 
     private JTable appointmentTable;
     private JTable patientTable;
@@ -113,6 +114,7 @@ public class DoctorDashboardForm extends JFrame {
         JButton btnLogout = new JButton("Logout");
         btnLogout.addActionListener(e -> logout());
 
+        topPanel.add(loader.getIndicator());
         topPanel.add(new JLabel("Doctor Dashboard - Dr. " + loggedInDoctor.getName()));
         topPanel.add(btnLogout);
 
@@ -121,42 +123,31 @@ public class DoctorDashboardForm extends JFrame {
     }
 
     private void loadAppointments() {
-        appointmentTableModel.setRowCount(0);
-        List<Appointment> appointments = appointmentService.getAppointmentsForDoctor(loggedInDoctor);
-        for (Appointment a : appointments) {
-            appointmentTableModel.addRow(new Object[]{
-                a.getId(),
-                a.getPatient().getFullName(),
-                a.getAppointmentDateTime(),
-                a.getStatus()
-            });
-        }
+        loader.loadTable("appointments", () -> appointmentService.getAppointmentsForDoctor(loggedInDoctor),
+                appointmentTableModel, a -> new Object[]{
+                    a.getId(),
+                    a.getPatient().getFullName(),
+                    a.getAppointmentDateTime(),
+                    a.getStatus()
+                });
     }
 
     private void loadPatients() {
-        patientTableModel.setRowCount(0);
         // Show all patients instead of just those with appointments
-        List<Patient> patients = patientService.findAll();
-        for (Patient p : patients) {
-            patientTableModel.addRow(new Object[]{
-                p.getId(),
-                p.getFullName(),
-                p.getContactNumber()
-            });
-        }
+        showPatients(patientService::findAll);
     }
-    
+
     private void loadMyPatients() {
-        patientTableModel.setRowCount(0);
         // Show only patients who have appointments with this doctor
-        List<Patient> patients = patientService.findByDoctor(loggedInDoctor.getId());
-        for (Patient p : patients) {
-            patientTableModel.addRow(new Object[]{
-                p.getId(),
-                p.getFullName(),
-                p.getContactNumber()
-            });
-        }
+        showPatients(() -> patientService.findByDoctor(loggedInDoctor.getId()));
+    }
+
+    private void showPatients(Supplier<List<Patient>> fetch) {
+        loader.loadTable("patients", fetch, patientTableModel, p -> new Object[]{
+            p.getId(),
+            p.getFullName(),
+            p.getContactNumber()
+        });
     }
 
     private void onNewAppointment(ActionEvent e) {
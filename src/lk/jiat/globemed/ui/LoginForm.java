@@ -1,8 +1,10 @@
 package lk.jiat.globemed.ui;
 
+import java.time.Duration;
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import lk.jiat.globemed.dao.AsyncDao;
 import lk.jiat.globemed.dao.StaffDao;
-import lk.jiat.globemed.model.Staff;
 
 /**
  *
@@ -11,6 +13,7 @@ import lk.jiat.globemed.model.Staff;
 public class LoginForm extends javax.swing.JFrame {
 
     private static final java.util.logging.Logger logger = java.util.logging.Logger.getLogger(LoginForm.class.getName());
+    private static final Duration LOGIN_TIMEOUT = Duration.ofSeconds(15);
     private StaffDao staffDao = new StaffDao();
 
     public LoginForm() {
@@ -111,27 +114,26 @@ public class LoginForm extends javax.swing.JFrame {
             return;
         }
 
-        Staff staff = staffDao.findByEmail(email);
-
-        if (staff != null && staff.getPassword().equals(password)) {
-//            JOptionPane.showMessageDialog(this,
-//                    "Welcome " + staff.getName() + "!",
-//                    "Login Success",
-//                    JOptionPane.INFORMATION_MESSAGE);
-
-            // TODO: Redirect based on role
-//            new DashboardForm(staff).setVisible(true);
-//            this.dispose();
-//             
-            DashboardRouter.openDashboardForStaff(staff);
-            this.dispose();
-
-        } else {
-            JOptionPane.showMessageDialog(this,
-                    "Invalid Email or Password.",
-                    "Login Failed",
-                    JOptionPane.ERROR_MESSAGE);
-        }
+        jButton1.setEnabled(false);
+        AsyncDao.supply(() -> staffDao.findByEmail(email), LOGIN_TIMEOUT)
+                .whenCompleteAsync((staff, error) -> {
+                    jButton1.setEnabled(true);
+                    if (error != null) {
+                        logger.log(java.util.logging.Level.SEVERE, "Login lookup failed", error);
+                        JOptionPane.showMessageDialog(this,
+                                "Could not reach the database. Please try again.",
+                                "Login Error",
+                                JOptionPane.ERROR_MESSAGE);
+                    } else if (staff != null && staff.getPassword().equals(password)) {
+                        DashboardRouter.openDashboardForStaff(staff);
+                        this.dispose();
+                    } else {
+                        JOptionPane.showMessageDialog(this,
+                                "Invalid Email or Password.",
+                                "Login Failed",
+                                JOptionPane.ERROR_MESSAGE);
+                    }
+                }, SwingUtilities::invokeLater);
     }//GEN-LAST:event_jButton1ActionPerformed
 
     /**
@@ -5,12 +5,15 @@ import java.awt.event.ActionEvent;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import lk.jiat.globemed.dao.AppointmentDao;
 import lk.jiat.globemed.dao.PatientDao;
+import lk.jiat.globemed.dto.AppointmentRow;
+import lk.jiat.globemed.dto.NursingTaskRow;
 import lk.jiat.globemed.model.Appointment;
-import lk.jiat.globemed.model.NursingTask;
 import lk.jiat.globemed.model.Patient;
 import lk.jiat.globemed.model.PatientVitals;
 import lk.jiat.globemed.model.Staff;
@@ -22,6 +25,7 @@ public class NurseDashboardForm extends JFrame {
     private final NurseService nurseService = new NurseService();
     private final PatientDao patientDao = new PatientDao();
     private final AppointmentDao appointmentDao = new AppointmentDao();
+    private final BackgroundLoader loader = new BackgroundLoader(this);
 
     private JLabel lblTitle;
     private JButton btnLogout;
@@ -80,6 +84,7 @@ public class NurseDashboardForm extends JFrame {
         JPanel headerRight = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         btnProfile = new JButton("Profile");
         btnLogout = new JButton("Logout");
+        headerRight.add(loader.getIndicator());
         headerRight.add(btnProfile);
         headerRight.add(btnLogout);
 
@@ -308,7 +313,7 @@ public class NurseDashboardForm extends JFrame {
         btnViewVitalHistory.addActionListener(this::viewVitalHistoryAction);
         btnRefreshPatients.addActionListener(e -> loadPatientsData());
 
-        txtSearchPatients.addActionListener(e -> searchPatients());
+        new DebouncedSearch(txtSearchPatients, text -> searchPatients());
 
         btnCompleteTask.addActionListener(this::completeTaskAction);
         btnStartTask.addActionListener(this::startTaskAction);
@@ -334,119 +339,89 @@ public class NurseDashboardForm extends JFrame {
     }
 
     private void loadPatientsData() {
-
-        try {
-            List<Patient> patients = nurseService.getAllPatients();
-            patientsTableModel.setRowCount(0);
-
-            for (Patient patient : patients) {
-                PatientVitals latestVitals = nurseService.getLatestVitals(patient.getId());
-                String lastVitals = latestVitals != null
-                        ? latestVitals.getRecordedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")) : "None";
-
-                int age = patient.getDob() != null
-                        ? java.time.Period.between(patient.getDob(), java.time.LocalDate.now()).getYears() : 0;
-
-                Object[] row = {
-                    patient.getId(),
-                    patient.getFullName(),
-                    age > 0 ? age : "N/A",
-                    patient.getGender() != null ? patient.getGender() : "N/A",
-                    patient.getContactNumber() != null ? patient.getContactNumber() : "N/A",
-                    lastVitals,
-                    "Active"
-                };
-                patientsTableModel.addRow(row);
-            }
-
-            updatePatientStats();
-            System.out.println("Loaded " + patients.size() + " patients");
-
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Error loading patients: " + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
+        showPatients(nurseService::getAllPatients);
+        updatePatientStats();
     }
 
     private void loadTasksData() {
-        try {
-            List<NursingTask> tasks = currentUser != null
-                    ? nurseService.getTasksForNurse(currentUser.getId())
-                    : List.of();
-
-            tasksTableModel.setRowCount(0);
-
-            for (NursingTask task : tasks) {
-                Object[] row = {
-                    task.getId(),
-                    task.getTitle(),
-                    task.getPatient() != null ? task.getPatient().getFullName() : "General",
-                    task.getPriority(),
-                    task.getStatus(),
-                    task.getDueDateTime() != null
-                    ? task.getDueDateTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")) : "N/A",
-                    task.getTaskType()
-                };
-                tasksTableModel.addRow(row);
-            }
-
-            System.out.println("Loaded " + tasks.size() + " tasks");
-
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Error loading tasks: " + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
+        showTasks(task -> true);
     }
 
     private void loadAppointmentsData() {
+        showAppointments(nurseService::getTodaysAppointmentRows);
+    }
 
-        try {
-            List<Appointment> appointments = nurseService.getTodaysAppointments();
-            appointmentsTableModel.setRowCount(0);
-
-            for (Appointment appointment : appointments) {
-                Object[] row = {
-                    appointment.getId(),
-                    appointment.getPatient().getFullName(),
-                    appointment.getDoctor().getName(),
-                    appointment.getAppointmentDateTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")),
-                    appointment.getStatus()
-                };
-                appointmentsTableModel.addRow(row);
-            }
-
-            System.out.println("Loaded " + appointments.size() + " appointments");
-
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Error loading appointments: " + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
+    private void updatePatientStats() {
+        if (currentUser == null) {
+            return;
         }
+        Long nurseId = currentUser.getId();
+        loader.load("statistics", () -> nurseService.getNursingStatistics(nurseId), stats -> {
+            String statsText = String.format(
+                    "Tasks: %s | Pending: %s | In Progress: %s | Completed: %s | Overdue: %s",
+                    stats.get("totalTasks"),
+                    stats.get("pendingTasks"),
+                    stats.get("inProgressTasks"),
+                    stats.get("completedTasks"),
+                    stats.get("overdueTasks")
+            );
+            lblPatientStats.setText(statsText);
+        });
     }
 
-    private void updatePatientStats() {
+    private void showPatients(Supplier<List<Patient>> fetch) {
+        loader.loadTable("patients", () -> {
+            List<Patient> patients = fetch.get();
+            Map<Long, PatientVitals> latestVitalsByPatient = nurseService.getLatestVitals(
+                    patients.stream().map(Patient::getId).toList());
+            return patients.stream()
+                    .map(patient -> new PatientEntry(patient, latestVitalsByPatient.get(patient.getId())))
+                    .toList();
+        }, patientsTableModel, entry -> {
+            Patient patient = entry.patient();
+            String lastVitals = entry.latestVitals() != null
+                    ? entry.latestVitals().getRecordedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")) : "None";
+
+            int age = patient.getDob() != null
+                    ? java.time.Period.between(patient.getDob(), java.time.LocalDate.now()).getYears() : 0;
+
+            return new Object[]{
+                patient.getId(),
+                patient.getFullName(),
+                age > 0 ? age : "N/A",
+                patient.getGender() != null ? patient.getGender() : "N/A",
+                patient.getContactNumber() != null ? patient.getContactNumber() : "N/A",
+                lastVitals,
+                "Active"
+            };
+        });
+    }
 
-        try {
-            if (currentUser != null) {
-                Map<String, Object> stats = nurseService.getNursingStatistics(currentUser.getId());
-                String statsText = String.format(
-                        "Tasks: %s | Pending: %s | In Progress: %s | Completed: %s | Overdue: %s",
-                        stats.get("totalTasks"),
-                        stats.get("pendingTasks"),
-                        stats.get("inProgressTasks"),
-                        stats.get("completedTasks"),
-                        stats.get("overdueTasks")
-                );
-                lblPatientStats.setText(statsText);
-            }
-        } catch (Exception e) {
-            lblPatientStats.setText("Error loading statistics");
-        }
+    private void showTasks(Predicate<NursingTaskRow> filter) {
+        Long nurseId = currentUser != null ? currentUser.getId() : null;
+        loader.loadTable("tasks", () -> nurseId != null
+                ? nurseService.getTaskRowsForNurse(nurseId).stream().filter(filter).toList()
+                : List.<NursingTaskRow>of(),
+                tasksTableModel, task -> new Object[]{
+                    task.id(),
+                    task.title(),
+                    task.patientName() != null ? task.patientName() : "General",
+                    task.priority(),
+                    task.status(),
+                    task.dueDateTime() != null
+                    ? task.dueDateTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")) : "N/A",
+                    task.taskType()
+                });
+    }
+
+    private void showAppointments(Supplier<List<AppointmentRow>> fetch) {
+        loader.loadTable("appointments", fetch, appointmentsTableModel, appointment -> new Object[]{
+            appointment.id(),
+            appointment.patientName(),
+            appointment.doctorName(),
+            appointment.appointmentDateTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")),
+            appointment.status()
+        });
     }
 
     private void searchPatients() {
@@ -457,34 +432,7 @@ public class NurseDashboardForm extends JFrame {
             return;
         }
 
-        try {
-            List<Patient> filteredPatients = nurseService.searchPatients(searchTerm);
-            patientsTableModel.setRowCount(0);
-
-            for (Patient patient : filteredPatients) {
-                PatientVitals latestVitals = nurseService.getLatestVitals(patient.getId());
-                String lastVitals = latestVitals != null
-                        ? latestVitals.getRecordedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")) : "None";
-
-                int age = patient.getDob() != null
-                        ? java.time.Period.between(patient.getDob(), java.time.LocalDate.now()).getYears() : 0;
-
-                Object[] row = {
-                    patient.getId(),
-                    patient.getFullName(),
-                    age > 0 ? age : "N/A",
-                    patient.getGender() != null ? patient.getGender() : "N/A",
-                    patient.getContactNumber() != null ? patient.getContactNumber() : "N/A",
-                    lastVitals,
-                    "Active"
-                };
-                patientsTableModel.addRow(row);
-            }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Error searching patients: " + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        showPatients(() -> nurseService.searchPatients(searchTerm));
     }
 
     private void filterTasksByStatus() {
@@ -494,32 +442,7 @@ public class NurseDashboardForm extends JFrame {
             return;
         }
 
-        try {
-            List<NursingTask> allTasks = currentUser != null
-                    ? nurseService.getTasksForNurse(currentUser.getId()) : List.of();
-
-            tasksTableModel.setRowCount(0);
-
-            for (NursingTask task : allTasks) {
-                if (task.getStatus().equals(selectedStatus)) {
-                    Object[] row = {
-                        task.getId(),
-                        task.getTitle(),
-                        task.getPatient() != null ? task.getPatient().getFullName() : "General",
-                        task.getPriority(),
-                        task.getStatus(),
-                        task.getDueDateTime() != null
-                        ? task.getDueDateTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")) : "N/A",
-                        task.getTaskType()
-                    };
-                    tasksTableModel.addRow(row);
-                }
-            }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Error filtering tasks: " + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        showTasks(task -> task.status().equals(selectedStatus));
     }
 
     private void filterTasksByPriority() {
@@ -529,74 +452,27 @@ public class NurseDashboardForm extends JFrame {
             return;
         }
 
-        try {
-            List<NursingTask> allTasks = currentUser != null
-                    ? nurseService.getTasksForNurse(currentUser.getId()) : List.of();
-
-            tasksTableModel.setRowCount(0);
-
-            for (NursingTask task : allTasks) {
-                if (task.getPriority().equals(selectedPriority)) {
-                    Object[] row = {
-                        task.getId(),
-                        task.getTitle(),
-                        task.getPatient() != null ? task.getPatient().getFullName() : "General",
-                        task.getPriority(),
-                        task.getStatus(),
-                        task.getDueDateTime() != null
-                        ? task.getDueDateTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")) : "N/A",
-                        task.getTaskType()
-                    };
-                    tasksTableModel.addRow(row);
-                }
-            }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Error filtering tasks: " + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        showTasks(task -> task.priority().equals(selectedPriority));
     }
 
     private void filterAppointments() {
         String selectedFilter = (String) cmbAppointmentFilter.getSelectedItem();
 
-        try {
-            List<Appointment> appointments;
-
-            switch (selectedFilter) {
-                case "Today":
-                    appointments = nurseService.getTodaysAppointments();
-                    break;
-                case "Scheduled":
-                    appointments = nurseService.getScheduledAppointments();
-                    break;
-                default:
-                    appointments = appointmentDao.findAll();
-                    break;
-            }
-
-            appointmentsTableModel.setRowCount(0);
-
-            for (Appointment appointment : appointments) {
-                if ("All".equals(selectedFilter)
-                        || appointment.getStatus().equals(selectedFilter)
-                        || "Today".equals(selectedFilter)
-                        || "Scheduled".equals(selectedFilter)) {
-
-                    Object[] row = {
-                        appointment.getId(),
-                        appointment.getPatient().getFullName(),
-                        appointment.getDoctor().getName(),
-                        appointment.getAppointmentDateTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")),
-                        appointment.getStatus()
-                    };
-                    appointmentsTableModel.addRow(row);
-                }
-            }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Error filtering appointments: " + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
+        switch (selectedFilter) {
+            case "Today":
+                showAppointments(nurseService::getTodaysAppointmentRows);
+                break;
+            case "Scheduled":
+                showAppointments(nurseService::getScheduledAppointmentRows);
+                break;
+            case "All":
+                showAppointments(nurseService::getAllAppointmentRows);
+                break;
+            default:
+                showAppointments(() -> nurseService.getAllAppointmentRows().stream()
+                        .filter(appointment -> appointment.status().equals(selectedFilter))
+                        .toList());
+                break;
         }
     }
 
@@ -913,4 +789,7 @@ public class NurseDashboardForm extends JFrame {
             }
         }
     }
+
+    private record PatientEntry(Patient patient, PatientVitals latestVitals) {
+    }
 }
@@ -0,0 +1,344 @@
+package lk.jiat.globemed.ui;
+
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import javax.swing.JOptionPane;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.JTableHeader;
+import javax.swing.table.TableColumn;
+import lk.jiat.globemed.dao.AsyncDao;
+import lk.jiat.globemed.dao.PageRequest;
+import lk.jiat.globemed.dao.SortOrder;
+
+/**
+ * A read-only table model that holds only the pages the table has asked for. The row
+ * count comes from a count query; a page is fetched in the background the first time
+ * one of its rows is painted, and a bounded number of pages is kept, least recently
+ * used first out. Clicking a sortable column header re-sorts in the database.
+ * <p>
+ * Rows of a page that is still loading show as blank cells. Use from the EDT only.
+ * Superseded loads are cancelled without interrupting them, since a query interrupted
+ * inside JDBC costs the pool its connection; their results are dropped by generation.
+ */
+public class PagedTableModel<R> extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int DEFAULT_CACHED_PAGES = 20;
+    // Pages requested while scrolling past them are dropped once this many are waiting.
+    private static final int MAX_PENDING_PAGES = 4;
+
+    /**
+     * Where the rows come from: a count and a page query over the same filter.
+     */
+    public interface RowSource<R> {
+
+        long count();
+
+        List<R> fetch(PageRequest page);
+
+        static <R> RowSource<R> of(LongSupplier count, Function<PageRequest, List<R>> fetch) {
+            return new RowSource<>() {
+                @Override
+                public long count() {
+                    return count.getAsLong();
+                }
+
+                @Override
+                public List<R> fetch(PageRequest page) {
+                    return fetch.apply(page);
+                }
+            };
+        }
+    }
+
+    public static final class Column<R> {
+
+        private final String name;
+        private final String sortKey;
+        private final Function<R, ?> value;
+
+        private Column(String name, String sortKey, Function<R, ?> value) {
+            this.name = name;
+            this.sortKey = sortKey;
+            this.value = value;
+        }
+    }
+
+    /**
+     * @param sortKey the row property the DAO sorts by, or {@code null} if the column
+     * is not sortable
+     */
+    public static <R> Column<R> column(String name, String sortKey, Function<R, ?> value) {
+        return new Column<>(name, sortKey, value);
+    }
+
+    private final List<Column<R>> columns;
+    private final int pageSize;
+    private final Map<Integer, Page<R>> pages;
+    private final Map<Integer, CompletableFuture<Page<R>>> pending = new LinkedHashMap<>();
+
+    private RowSource<R> source;
+    private CompletableFuture<Long> countLoad;
+    private int rowCount;
+    private int generation;
+    private int sortColumn = -1;
+    private SortOrder sortOrder = SortOrder.ASCENDING;
+    private boolean errorShown;
+    private JTable table;
+
+    public PagedTableModel(List<Column<R>> columns) {
+        this(columns, DEFAULT_PAGE_SIZE, DEFAULT_CACHED_PAGES);
+    }
+
+    public PagedTableModel(List<Column<R>> columns, int pageSize, int maxCachedPages) {
+        if (pageSize < 1 || maxCachedPages < 1) {
+            throw new IllegalArgumentException("pageSize and maxCachedPages must be positive");
+        }
+        this.columns = List.copyOf(columns);
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Page<R>> eldest) {
+                return size() > maxCachedPages;
+            }
+        };
+    }
+
+    /**
+     * Shows this model in {@code table} and sorts by a column when its header is clicked.
+     */
+    public void install(JTable table) {
+        this.table = table;
+        table.setModel(this);
+        table.setRowSorter(null);
+        JTableHeader header = table.getTableHeader();
+        header.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int viewColumn = header.columnAtPoint(e.getPoint());
+                if (viewColumn >= 0) {
+                    sortBy(table.convertColumnIndexToModel(viewColumn));
+                }
+            }
+        });
+    }
+
+    /**
+     * Switches to a new filter or query and reloads from the first row.
+     */
+    public void setSource(RowSource<R> source) {
+        this.source = source;
+        refresh();
+    }
+
+    /**
+     * Drops every cached page and re-reads the row count, keeping the current sort.
+     */
+    public void refresh() {
+        if (source == null) {
+            return;
+        }
+        invalidatePages();
+        errorShown = false;
+        if (countLoad != null) {
+            countLoad.cancel(false);
+        }
+
+        int loadGeneration = generation;
+        RowSource<R> countSource = source;
+        CompletableFuture<Long> load = AsyncDao.supply(countSource::count);
+        countLoad = load;
+        load.whenCompleteAsync((count, error) -> {
+            if (loadGeneration != generation) {
+                return;
+            }
+            if (error != null) {
+                report(error);
+                return;
+            }
+            setRowCount((int) Math.min(count, Integer.MAX_VALUE));
+        }, SwingUtilities::invokeLater);
+        fireTableDataChanged();
+    }
+
+    public void sortBy(int column) {
+        Column<R> sorted = columns.get(column);
+        if (sorted.sortKey == null) {
+            return;
+        }
+        if (column == sortColumn) {
+            sortOrder = sortOrder == SortOrder.ASCENDING ? SortOrder.DESCENDING : SortOrder.ASCENDING;
+        } else {
+            sortColumn = column;
+            sortOrder = SortOrder.ASCENDING;
+        }
+        updateHeaders();
+        invalidatePages();
+        fireTableDataChanged();
+    }
+
+    /**
+     * @return the row at {@code rowIndex}, or {@code null} while its page is loading
+     */
+    public R getRow(int rowIndex) {
+        Page<R> page = pageFor(rowIndex);
+        int offset = rowIndex % pageSize;
+        return page != null && offset < page.items.size() ? page.items.get(offset) : null;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns.get(column).name;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        Page<R> page = pageFor(rowIndex);
+        int offset = rowIndex % pageSize;
+        return page != null && offset < page.cells.size() ? page.cells.get(offset)[columnIndex] : null;
+    }
+
+    @Override
+    public boolean isCellEditable(int rowIndex, int columnIndex) {
+        return false;
+    }
+
+    private Page<R> pageFor(int rowIndex) {
+        int pageIndex = rowIndex / pageSize;
+        Page<R> page = pages.get(pageIndex);
+        if (page == null) {
+            requestPage(pageIndex);
+        }
+        return page;
+    }
+
+    private void requestPage(int pageIndex) {
+        if (source == null || pending.containsKey(pageIndex)) {
+            return;
+        }
+        if (pending.size() >= MAX_PENDING_PAGES) {
+            Iterator<CompletableFuture<Page<R>>> oldest = pending.values().iterator();
+            oldest.next().cancel(false);
+            oldest.remove();
+        }
+
+        int loadGeneration = generation;
+        RowSource<R> pageSource = source;
+        PageRequest request = PageRequest.of(pageIndex * pageSize, pageSize);
+        if (sortColumn >= 0) {
+            request = request.sortedBy(columns.get(sortColumn).sortKey, sortOrder);
+        }
+        PageRequest pageRequest = request;
+
+        CompletableFuture<Page<R>> load = AsyncDao.supply(() -> toPage(pageSource.fetch(pageRequest)));
+        pending.put(pageIndex, load);
+        load.whenCompleteAsync((page, error) -> {
+            pending.remove(pageIndex, load);
+            if (loadGeneration != generation) {
+                return;
+            }
+            if (error != null) {
+                report(error);
+                return;
+            }
+            pages.put(pageIndex, page);
+            int first = pageIndex * pageSize;
+            int last = Math.min(first + pageSize, rowCount) - 1;
+            if (last >= first) {
+                fireTableRowsUpdated(first, last);
+            }
+        }, SwingUtilities::invokeLater);
+    }
+
+    private Page<R> toPage(List<R> items) {
+        List<Object[]> cells = new ArrayList<>(items.size());
+        for (R item : items) {
+            Object[] row = new Object[columns.size()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = columns.get(i).value.apply(item);
+            }
+            cells.add(row);
+        }
+        return new Page<>(items, cells);
+    }
+
+    private void invalidatePages() {
+        generation++;
+        for (CompletableFuture<Page<R>> load : pending.values()) {
+            load.cancel(false);
+        }
+        pending.clear();
+        pages.clear();
+    }
+
+    private void setRowCount(int count) {
+        int previous = rowCount;
+        rowCount = count;
+        if (count > previous) {
+            fireTableRowsInserted(previous, count - 1);
+        } else if (count < previous) {
+            fireTableRowsDeleted(count, previous - 1);
+        }
+    }
+
+    private void updateHeaders() {
+        if (table == null) {
+            return;
+        }
+        for (int i = 0; i < table.getColumnCount(); i++) {
+            TableColumn tableColumn = table.getColumnModel().getColumn(i);
+            int modelColumn = tableColumn.getModelIndex();
+            String arrow = modelColumn != sortColumn ? "" : sortOrder == SortOrder.ASCENDING ? " ▲" : " ▼";
+            tableColumn.setHeaderValue(columns.get(modelColumn).name + arrow);
+        }
+        table.getTableHeader().repaint();
+    }
+
+    private void report(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof CancellationException || errorShown) {
+            return;
+        }
+        // One dialog per refresh; every visible page failing would otherwise stack them up.
+        errorShown = true;
+        cause.printStackTrace();
+        JOptionPane.showMessageDialog(table,
+                "Error loading rows: " + cause.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    private static final class Page<R> {
+
+        private final List<R> items;
+        private final List<Object[]> cells;
+
+        Page(List<R> items, List<Object[]> cells) {
+            this.items = items;
+            this.cells = cells;
+        }
+    }
+}
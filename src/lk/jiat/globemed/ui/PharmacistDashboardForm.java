@@ -4,14 +4,16 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.Map;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import lk.jiat.globemed.dao.MedicationDao;
 import lk.jiat.globemed.dao.PrescriptionDao;
+import lk.jiat.globemed.dao.RowCriteria;
+import lk.jiat.globemed.dto.MedicationRow;
+import lk.jiat.globemed.dto.PrescriptionRow;
 import lk.jiat.globemed.model.Medication;
 import lk.jiat.globemed.model.Prescription;
 import lk.jiat.globemed.model.Staff;
+import lk.jiat.globemed.search.MedicationLookup;
 import lk.jiat.globemed.service.PharmacistService;
 
 public class PharmacistDashboardForm extends JFrame {
@@ -20,6 +22,9 @@ public class PharmacistDashboardForm extends JFrame {
     private final PharmacistService pharmacistService = new PharmacistService();
     private final MedicationDao medicationDao = new MedicationDao();
     private final PrescriptionDao prescriptionDao = new PrescriptionDao();
+    private final BackgroundLoader loader = new BackgroundLoader(this);
+
+    private static final int MEDICATION_SEARCH_LIMIT = 500;
 
     private JLabel lblTitle;
     private JButton btnLogout;
@@ -27,7 +32,7 @@ public class PharmacistDashboardForm extends JFrame {
     private JTabbedPane tabMain;
 
     private JTable tblMedications;
-    private DefaultTableModel medicationTableModel;
+    private PagedTableModel<MedicationRow> medicationTableModel;
     private JButton btnAddMedication;
     private JButton btnEditMedication;
     private JButton btnDispense;
@@ -38,7 +43,7 @@ public class PharmacistDashboardForm extends JFrame {
     private JLabel lblInventoryStats;
 
     private JTable tblPrescriptions;
-    private DefaultTableModel prescriptionTableModel;
+    private PagedTableModel<PrescriptionRow> prescriptionTableModel;
     private JButton btnFillPrescription;
     private JButton btnViewPrescription;
     private JButton btnRefreshPrescriptions;
@@ -72,6 +77,7 @@ public class PharmacistDashboardForm extends JFrame {
         JPanel headerRight = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         btnProfile = new JButton("👤 Profile");
         btnLogout = new JButton("🚪 Logout");
+        headerRight.add(loader.getIndicator());
         headerRight.add(btnProfile);
         headerRight.add(btnLogout);
 
@@ -114,14 +120,20 @@ public class PharmacistDashboardForm extends JFrame {
 
         tabInventory.add(topPanel, BorderLayout.NORTH);
 
-        String[] columnNames = {"ID", "Name", "Category", "Stock", "Min Stock", "Unit Price", "Dosage Form", "Status", "Expiry"};
-        medicationTableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
-        tblMedications = new JTable(medicationTableModel);
+        medicationTableModel = new PagedTableModel<>(List.of(
+                PagedTableModel.column("ID", "id", MedicationRow::id),
+                PagedTableModel.column("Name", "name", MedicationRow::name),
+                PagedTableModel.column("Category", "category", MedicationRow::category),
+                PagedTableModel.column("Stock", "stockQuantity", MedicationRow::stockQuantity),
+                PagedTableModel.column("Min Stock", "minimumStock", MedicationRow::minimumStock),
+                PagedTableModel.column("Unit Price", "unitPrice", (MedicationRow med) -> String.format("$%.2f", med.unitPrice())),
+                PagedTableModel.column("Dosage Form", "dosageForm",
+                        (MedicationRow med) -> med.dosageForm() + (med.strength() != null ? " (" + med.strength() + ")" : "")),
+                PagedTableModel.column("Status", "status", MedicationRow::status),
+                PagedTableModel.column("Expiry", "expiryDate",
+                        (MedicationRow med) -> med.expiryDate() != null ? med.expiryDate().toString() : "N/A")));
+        tblMedications = new JTable();
+        medicationTableModel.install(tblMedications);
         tblMedications.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         tblMedications.getTableHeader().setReorderingAllowed(false);
 
@@ -183,14 +195,21 @@ public class PharmacistDashboardForm extends JFrame {
 
         tabPrescriptions.add(filterPanel, BorderLayout.NORTH);
 
-        String[] columnNames = {"ID", "Patient", "Doctor", "Prescribed Date", "Status", "Items", "Total Cost"};
-        prescriptionTableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
-        tblPrescriptions = new JTable(prescriptionTableModel);
+        prescriptionTableModel = new PagedTableModel<>(List.of(
+                PagedTableModel.column("ID", "id", PrescriptionRow::id),
+                PagedTableModel.column("Patient", "patientName",
+                        (PrescriptionRow prescription) -> prescription.patientName() != null ? prescription.patientName() : "Unknown"),
+                PagedTableModel.column("Doctor", "doctorName",
+                        (PrescriptionRow prescription) -> prescription.doctorName() != null ? prescription.doctorName() : "Unknown"),
+                PagedTableModel.column("Prescribed Date", "prescribedDate",
+                        (PrescriptionRow prescription) -> prescription.prescribedDate() != null
+                        ? prescription.prescribedDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")) : "N/A"),
+                PagedTableModel.column("Status", "status", PrescriptionRow::status),
+                PagedTableModel.column("Items", "itemCount", (PrescriptionRow prescription) -> prescription.itemCount() + " items"),
+                PagedTableModel.column("Total Cost", "totalCost",
+                        (PrescriptionRow prescription) -> String.format("$%.2f", prescription.totalCost()))));
+        tblPrescriptions = new JTable();
+        prescriptionTableModel.install(tblPrescriptions);
         tblPrescriptions.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         tblPrescriptions.getTableHeader().setReorderingAllowed(false);
 
@@ -263,7 +282,7 @@ public class PharmacistDashboardForm extends JFrame {
         btnRestock.addActionListener(this::restockMedicationAction);
         btnRefreshInventory.addActionListener(e -> loadMedicationsData());
 
-        txtSearchMedication.addActionListener(e -> searchMedications());
+        new DebouncedSearch(txtSearchMedication, text -> searchMedications());
         cmbCategoryFilter.addActionListener(e -> filterMedicationsByCategory());
 
         btnFillPrescription.addActionListener(this::fillPrescriptionAction);
@@ -283,78 +302,36 @@ public class PharmacistDashboardForm extends JFrame {
     }
 
     private void loadMedicationsData() {
+        showMedications();
+        updateInventoryStats();
+    }
 
-        try {
-            List<Medication> medications = medicationDao.findAll();
-            medicationTableModel.setRowCount(0);
-
-            for (Medication med : medications) {
-                Object[] row = {
-                    med.getId(),
-                    med.getName(),
-                    med.getCategory(),
-                    med.getStockQuantity(),
-                    med.getMinimumStock(),
-                    String.format("$%.2f", med.getUnitPrice()),
-                    med.getDosageForm() + (med.getStrength() != null ? " (" + med.getStrength() + ")" : ""),
-                    med.getStatus(),
-                    med.getExpiryDate() != null ? med.getExpiryDate().toString() : "N/A"
-                };
-                medicationTableModel.addRow(row);
-            }
-
-            updateInventoryStats();
-            System.out.println("Loaded " + medications.size() + " medications");
-
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Error loading medications: " + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
+    private void showMedications() {
+        String selectedCategory = (String) cmbCategoryFilter.getSelectedItem();
+        String text = txtSearchMedication.getText();
+        RowCriteria filter = RowCriteria.all()
+                .category(selectedCategory == null || "All Categories".equals(selectedCategory) ? null : selectedCategory);
+        // The lookup forgives typos; the query is only the fallback while it builds.
+        RowCriteria criteria = text.isBlank() ? filter
+                : MedicationLookup.isReady() ? filter.ids(MedicationLookup.matchingIds(text, MEDICATION_SEARCH_LIMIT))
+                : filter.text(text);
+
+        medicationTableModel.setSource(PagedTableModel.RowSource.of(
+                () -> medicationDao.countRows(criteria),
+                page -> medicationDao.findRows(criteria, page)));
     }
 
     private void loadPrescriptionsData() {
+        String selectedStatus = (String) cmbStatusFilter.getSelectedItem();
+        RowCriteria criteria = RowCriteria.all().status("All".equals(selectedStatus) ? null : selectedStatus);
 
-        try {
-            List<Prescription> prescriptions = prescriptionDao.findAll();
-            prescriptionTableModel.setRowCount(0);
-
-            for (Prescription prescription : prescriptions) {
-                String patientName = prescription.getPatient() != null
-                        ? prescription.getPatient().getFullName() : "Unknown";
-                String doctorName = prescription.getDoctor() != null
-                        ? prescription.getDoctor().getName() : "Unknown";
-                String prescribedDate = prescription.getPrescribedDate() != null
-                        ? prescription.getPrescribedDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")) : "N/A";
-                int itemCount = prescription.getItems() != null ? prescription.getItems().size() : 0;
-
-                Object[] row = {
-                    prescription.getId(),
-                    patientName,
-                    doctorName,
-                    prescribedDate,
-                    prescription.getStatus(),
-                    itemCount + " items",
-                    String.format("$%.2f", prescription.getTotalCost())
-                };
-                prescriptionTableModel.addRow(row);
-            }
-
-            System.out.println("Loaded " + prescriptions.size() + " prescriptions");
-
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Error loading prescriptions: " + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
+        prescriptionTableModel.setSource(PagedTableModel.RowSource.of(
+                () -> prescriptionDao.countRows(criteria),
+                page -> prescriptionDao.findRows(criteria, page)));
     }
 
     private void updateInventoryStats() {
-
-        try {
-            Map<String, Object> stats = pharmacistService.getPharmacyStatistics();
+        loader.load("statistics", pharmacistService::getPharmacyStatistics, stats -> {
             String statsText = String.format(
                     "Total: %s | Available: %s | Low Stock: %s | Expired: %s | Value: $%.2f",
                     stats.get("totalMedications"),
@@ -364,137 +341,29 @@ public class PharmacistDashboardForm extends JFrame {
                     stats.get("totalInventoryValue")
             );
             lblInventoryStats.setText(statsText);
-        } catch (Exception e) {
-            lblInventoryStats.setText("Error loading statistics");
-        }
+        });
     }
 
     private void loadCategoryFilter() {
-        try {
-            List<String> categories = pharmacistService.getMedicationCategories();
+        loader.load("categories", pharmacistService::getMedicationCategories, categories -> {
             cmbCategoryFilter.removeAllItems();
             cmbCategoryFilter.addItem("All Categories");
             for (String category : categories) {
                 cmbCategoryFilter.addItem(category);
             }
-        } catch (Exception e) {
-            System.err.println("Error loading categories: " + e.getMessage());
-        }
+        });
     }
 
     private void searchMedications() {
-
-        String searchTerm = txtSearchMedication.getText().trim().toLowerCase();
-        if (searchTerm.isEmpty()) {
-            loadMedicationsData();
-            return;
-        }
-
-        try {
-            List<Medication> allMedications = medicationDao.findAll();
-            medicationTableModel.setRowCount(0);
-
-            for (Medication med : allMedications) {
-                if (med.getName().toLowerCase().contains(searchTerm)
-                        || med.getCategory().toLowerCase().contains(searchTerm)
-                        || med.getManufacturer().toLowerCase().contains(searchTerm)) {
-
-                    Object[] row = {
-                        med.getId(),
-                        med.getName(),
-                        med.getCategory(),
-                        med.getStockQuantity(),
-                        med.getMinimumStock(),
-                        String.format("$%.2f", med.getUnitPrice()),
-                        med.getDosageForm() + (med.getStrength() != null ? " (" + med.getStrength() + ")" : ""),
-                        med.getStatus(),
-                        med.getExpiryDate() != null ? med.getExpiryDate().toString() : "N/A"
-                    };
-                    medicationTableModel.addRow(row);
-                }
-            }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Error searching medications: " + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        showMedications();
     }
 
     private void filterMedicationsByCategory() {
-
-        String selectedCategory = (String) cmbCategoryFilter.getSelectedItem();
-
-        if ("All Categories".equals(selectedCategory)) {
-            loadMedicationsData();
-            return;
-        }
-
-        try {
-            List<Medication> allMedications = medicationDao.findAll();
-            medicationTableModel.setRowCount(0);
-
-            for (Medication med : allMedications) {
-                if (med.getCategory().equals(selectedCategory)) {
-                    Object[] row = {
-                        med.getId(),
-                        med.getName(),
-                        med.getCategory(),
-                        med.getStockQuantity(),
-                        med.getMinimumStock(),
-                        String.format("$%.2f", med.getUnitPrice()),
-                        med.getDosageForm() + (med.getStrength() != null ? " (" + med.getStrength() + ")" : ""),
-                        med.getStatus(),
-                        med.getExpiryDate() != null ? med.getExpiryDate().toString() : "N/A"
-                    };
-                    medicationTableModel.addRow(row);
-                }
-            }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Error filtering medications: " + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        showMedications();
     }
 
     private void filterPrescriptionsByStatus() {
-
-        String selectedStatus = (String) cmbStatusFilter.getSelectedItem();
-        if ("All".equals(selectedStatus)) {
-            loadPrescriptionsData();
-            return;
-        }
-
-        try {
-            List<Prescription> allPrescriptions = prescriptionDao.findAll();
-            prescriptionTableModel.setRowCount(0);
-
-            for (Prescription prescription : allPrescriptions) {
-                if (prescription.getStatus().equals(selectedStatus)) {
-                    String patientName = prescription.getPatient() != null
-                            ? prescription.getPatient().getFullName() : "Unknown";
-                    String doctorName = prescription.getDoctor() != null
-                            ? prescription.getDoctor().getName() : "Unknown";
-                    String prescribedDate = prescription.getPrescribedDate() != null
-                            ? prescription.getPrescribedDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")) : "N/A";
-                    int itemCount = prescription.getItems() != null ? prescription.getItems().size() : 0;
-
-                    Object[] row = {
-                        prescription.getId(),
-                        patientName,
-                        doctorName,
-                        prescribedDate,
-                        prescription.getStatus(),
-                        itemCount + " items",
-                        String.format("$%.2f", prescription.getTotalCost())
-                    };
-                    prescriptionTableModel.addRow(row);
-                }
-            }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Error filtering prescriptions: " + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        loadPrescriptionsData();
     }
 
     private void addMedicationAction(ActionEvent e) {
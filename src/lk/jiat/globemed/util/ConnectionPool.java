@@ -0,0 +1,472 @@
+package lk.jiat.globemed.util;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * Bounded JDBC connection pool handed to Hibernate as its DataSource.
+ * Borrowers wait at most the configured acquire timeout; idle connections are
+ * validated before reuse, retired after the idle timeout, and connections held past
+ * the leak threshold are reported with the stack trace of the code that took them.
+ */
+public class ConnectionPool implements DataSource, ConnectionPoolMXBean, AutoCloseable {
+
+    private static final long HOUSEKEEPING_PERIOD_MS = 5_000;
+    private static final int WAIT_SAMPLES = 1024;
+
+    private final ConnectionPoolConfig config;
+    private final Semaphore permits;
+    // Returned connections go on the front so the most recently used one is reused first.
+    private final Deque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger waitingThreads = new AtomicInteger();
+    private final AtomicLong acquiredCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong validationFailureCount = new AtomicLong();
+    private final AtomicLongArray waitSamples = new AtomicLongArray(WAIT_SAMPLES);
+    private final AtomicLong waitSampleCount = new AtomicLong();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    public ConnectionPool(ConnectionPoolConfig config) {
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxSize(), true);
+
+        if (config.getDriverClass() != null) {
+            try {
+                Class.forName(config.getDriverClass());
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("JDBC driver not found: " + config.getDriverClass(), e);
+            }
+        }
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = config.getLeakThresholdMillis() > 0
+                ? Math.max(250, Math.min(config.getLeakThresholdMillis() / 2, HOUSEKEEPING_PERIOD_MS))
+                : HOUSEKEEPING_PERIOD_MS;
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        waitingThreads.incrementAndGet();
+        try {
+            if (!permits.tryAcquire(config.getAcquireTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLTransientConnectionException("No database connection available within "
+                        + config.getAcquireTimeoutMillis() + " ms (" + getStatusSummary() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+        } finally {
+            waitingThreads.decrementAndGet();
+        }
+
+        try {
+            PooledConnection connection = takeIdle();
+            if (connection == null) {
+                connection = open();
+            }
+            recordWait(System.nanoTime() - start);
+            acquiredCount.incrementAndGet();
+            return connection.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pooled connections always use the configured credentials");
+    }
+
+    private PooledConnection takeIdle() {
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            if (isUsable(connection)) {
+                return connection;
+            }
+            validationFailureCount.incrementAndGet();
+            destroy(connection);
+        }
+        return null;
+    }
+
+    private boolean isUsable(PooledConnection connection) {
+        long idleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connection.lastUsedAt);
+        if (idleMillis < config.getValidateAfterIdleMillis()) {
+            return true;
+        }
+        try {
+            return connection.raw.isValid(config.getValidationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection raw = DriverManager.getConnection(config.getUrl(), config.getUsername(), config.getPassword());
+        totalConnections.incrementAndGet();
+        return new PooledConnection(raw, raw.getTransactionIsolation());
+    }
+
+    private void release(PooledConnection connection) {
+        borrowed.remove(connection);
+        try {
+            if (!closed && connection.reset()) {
+                connection.lastUsedAt = System.nanoTime();
+                idle.offerFirst(connection);
+            } else {
+                destroy(connection);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void destroy(PooledConnection connection) {
+        totalConnections.decrementAndGet();
+        try {
+            connection.raw.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    private void housekeep() {
+        try {
+            reportLeaks();
+            retireIdle();
+            fillMinIdle();
+        } catch (RuntimeException e) {
+            System.err.println("Connection pool housekeeping failed: " + e.getMessage());
+        }
+    }
+
+    private void reportLeaks() {
+        long threshold = config.getLeakThresholdMillis();
+        if (threshold <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (PooledConnection connection : borrowed) {
+            long heldMillis = TimeUnit.NANOSECONDS.toMillis(now - connection.borrowedAt);
+            if (heldMillis >= threshold && !connection.leakReported) {
+                connection.leakReported = true;
+                leakCount.incrementAndGet();
+                System.err.println("⚠️ Possible connection leak: connection held for " + heldMillis
+                        + " ms by thread " + connection.borrowedBy);
+                if (connection.borrowSite != null) {
+                    connection.borrowSite.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void retireIdle() {
+        long now = System.nanoTime();
+        // Oldest connections sit at the back of the deque.
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext() && totalConnections.get() > config.getMinIdle()) {
+            PooledConnection connection = it.next();
+            long idleMillis = TimeUnit.NANOSECONDS.toMillis(now - connection.lastUsedAt);
+            if (idleMillis >= config.getIdleTimeoutMillis() && idle.remove(connection)) {
+                destroy(connection);
+            }
+        }
+    }
+
+    private void fillMinIdle() {
+        while (!closed && totalConnections.get() < config.getMinIdle() && permits.tryAcquire()) {
+            try {
+                PooledConnection connection = open();
+                connection.lastUsedAt = System.nanoTime();
+                idle.offerLast(connection);
+            } catch (SQLException e) {
+                System.err.println("Could not pre-open pooled connection: " + e.getMessage());
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private void recordWait(long nanos) {
+        int slot = (int) (waitSampleCount.getAndIncrement() % WAIT_SAMPLES);
+        waitSamples.set(slot, nanos);
+    }
+
+    private double waitPercentileMillis(double percentile) {
+        int count = (int) Math.min(waitSampleCount.get(), WAIT_SAMPLES);
+        if (count == 0) {
+            return 0.0;
+        }
+        long[] samples = new long[count];
+        for (int i = 0; i < count; i++) {
+            samples[i] = waitSamples.get(i);
+        }
+        Arrays.sort(samples);
+        int index = Math.max(0, (int) Math.ceil(percentile * count) - 1);
+        return samples[index] / 1_000_000.0;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            destroy(connection);
+        }
+    }
+
+    public String getStatusSummary() {
+        return String.format("active=%d, idle=%d, total=%d/%d, waiting=%d, wait p50=%.1fms p95=%.1fms p99=%.1fms, timeouts=%d, leaks=%d",
+                getActiveConnections(), getIdleConnections(), getTotalConnections(), getMaxConnections(),
+                getThreadsAwaitingConnection(), getWaitTimeP50Millis(), getWaitTimeP95Millis(),
+                getWaitTimeP99Millis(), getAcquisitionTimeouts(), getLeaksDetected());
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return borrowed.size();
+    }
+
+    @Override
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    @Override
+    public int getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    @Override
+    public int getMaxConnections() {
+        return config.getMaxSize();
+    }
+
+    @Override
+    public int getThreadsAwaitingConnection() {
+        return waitingThreads.get();
+    }
+
+    @Override
+    public long getConnectionsAcquired() {
+        return acquiredCount.get();
+    }
+
+    @Override
+    public long getAcquisitionTimeouts() {
+        return timeoutCount.get();
+    }
+
+    @Override
+    public long getLeaksDetected() {
+        return leakCount.get();
+    }
+
+    @Override
+    public long getValidationFailures() {
+        return validationFailureCount.get();
+    }
+
+    @Override
+    public double getWaitTimeP50Millis() {
+        return waitPercentileMillis(0.50);
+    }
+
+    @Override
+    public double getWaitTimeP95Millis() {
+        return waitPercentileMillis(0.95);
+    }
+
+    @Override
+    public double getWaitTimeP99Millis() {
+        return waitPercentileMillis(0.99);
+    }
+
+    @Override
+    public double getWaitTimeMaxMillis() {
+        return waitPercentileMillis(1.0);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() {
+        return Logger.getLogger(ConnectionPool.class.getPackageName());
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    private class PooledConnection {
+
+        private final Connection raw;
+        private final int defaultIsolation;
+        private boolean isolationChanged;
+        private boolean readOnlyChanged;
+        private volatile long lastUsedAt = System.nanoTime();
+        private volatile long borrowedAt;
+        private volatile String borrowedBy;
+        private volatile Throwable borrowSite;
+        private volatile boolean leakReported;
+
+        PooledConnection(Connection raw, int defaultIsolation) {
+            this.raw = raw;
+            this.defaultIsolation = defaultIsolation;
+        }
+
+        Connection lease() {
+            borrowedAt = System.nanoTime();
+            borrowedBy = Thread.currentThread().getName();
+            borrowSite = config.getLeakThresholdMillis() > 0 ? new Throwable("Connection borrowed here") : null;
+            leakReported = false;
+            borrowed.add(this);
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new Lease(this));
+        }
+
+        /**
+         * Undoes per-borrower state before the connection goes back to the pool.
+         *
+         * @return false if the connection is broken and should be discarded
+         */
+        boolean reset() {
+            try {
+                if (raw.isClosed()) {
+                    return false;
+                }
+                if (!raw.getAutoCommit()) {
+                    raw.rollback();
+                    raw.setAutoCommit(true);
+                }
+                if (isolationChanged) {
+                    raw.setTransactionIsolation(defaultIsolation);
+                    isolationChanged = false;
+                }
+                if (readOnlyChanged) {
+                    raw.setReadOnly(false);
+                    readOnlyChanged = false;
+                }
+                raw.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * One checkout of a pooled connection. A fresh proxy per borrow means a stale
+     * reference cannot close or use a connection after it was handed to someone else.
+     */
+    private class Lease implements InvocationHandler {
+
+        private final PooledConnection connection;
+        private boolean returned;
+
+        Lease(PooledConnection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(connection);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || connection.raw.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + connection.raw + "]";
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if (method.getName().equals("setTransactionIsolation")) {
+                connection.isolationChanged = true;
+            } else if (method.getName().equals("setReadOnly")) {
+                connection.readOnlyChanged = true;
+            }
+            try {
+                return method.invoke(connection.raw, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
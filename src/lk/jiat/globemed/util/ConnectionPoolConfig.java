@@ -0,0 +1,112 @@
+package lk.jiat.globemed.util;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import java.util.Properties;
+
+/**
+ * Pool settings read from {@code .env} (or the process environment). Connection
+ * details fall back to the values in hibernate.cfg.xml when not set there.
+ */
+public class ConnectionPoolConfig {
+
+    private final String driverClass;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int minIdle;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final int validationTimeoutSeconds;
+    private final long validateAfterIdleMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+
+    private ConnectionPoolConfig(Dotenv env, Properties hibernate) {
+        this.driverClass = env.get("DB_DRIVER", hibernate.getProperty("hibernate.connection.driver_class"));
+        this.url = env.get("DB_URL", hibernate.getProperty("hibernate.connection.url"));
+        this.username = env.get("DB_USER", hibernate.getProperty("hibernate.connection.username"));
+        this.password = env.get("DB_PASSWORD", hibernate.getProperty("hibernate.connection.password"));
+        this.maxSize = intValue(env, "DB_POOL_MAX_SIZE", 10);
+        this.minIdle = Math.min(intValue(env, "DB_POOL_MIN_IDLE", 2), maxSize);
+        this.acquireTimeoutMillis = longValue(env, "DB_POOL_ACQUIRE_TIMEOUT_MS", 30_000);
+        this.validationTimeoutSeconds = intValue(env, "DB_POOL_VALIDATION_TIMEOUT_SECONDS", 3);
+        this.validateAfterIdleMillis = longValue(env, "DB_POOL_VALIDATE_AFTER_IDLE_MS", 5_000);
+        this.idleTimeoutMillis = longValue(env, "DB_POOL_IDLE_TIMEOUT_MS", 600_000);
+        this.leakThresholdMillis = longValue(env, "DB_POOL_LEAK_THRESHOLD_MS", 60_000);
+
+        if (url == null || url.isBlank()) {
+            throw new IllegalStateException("No JDBC URL: set DB_URL or hibernate.connection.url");
+        }
+        if (maxSize < 1) {
+            throw new IllegalStateException("DB_POOL_MAX_SIZE must be at least 1");
+        }
+    }
+
+    public static ConnectionPoolConfig load(Properties hibernateProperties) {
+        Dotenv env = Dotenv.configure().ignoreIfMissing().ignoreIfMalformed().load();
+        return new ConnectionPoolConfig(env, hibernateProperties);
+    }
+
+    private static int intValue(Dotenv env, String key, int defaultValue) {
+        return (int) longValue(env, key, defaultValue);
+    }
+
+    private static long longValue(Dotenv env, String key, long defaultValue) {
+        String value = env.get(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException(key + " must be a number, got: " + value);
+        }
+    }
+
+    public String getDriverClass() {
+        return driverClass;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getAcquireTimeoutMillis() {
+        return acquireTimeoutMillis;
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    public long getValidateAfterIdleMillis() {
+        return validateAfterIdleMillis;
+    }
+
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    /**
+     * @return how long a connection may stay checked out before it is reported as a leak, 0 to disable
+     */
+    public long getLeakThresholdMillis() {
+        return leakThresholdMillis;
+    }
+}
@@ -0,0 +1,33 @@
+package lk.jiat.globemed.util;
+
+/**
+ * Pool metrics exported over JMX as {@code lk.jiat.globemed:type=ConnectionPool}.
+ */
+public interface ConnectionPoolMXBean {
+
+    int getActiveConnections();
+
+    int getIdleConnections();
+
+    int getTotalConnections();
+
+    int getMaxConnections();
+
+    int getThreadsAwaitingConnection();
+
+    long getConnectionsAcquired();
+
+    long getAcquisitionTimeouts();
+
+    long getLeaksDetected();
+
+    long getValidationFailures();
+
+    double getWaitTimeP50Millis();
+
+    double getWaitTimeP95Millis();
+
+    double getWaitTimeP99Millis();
+
+    double getWaitTimeMaxMillis();
+}
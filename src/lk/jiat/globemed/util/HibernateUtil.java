@@ -1,7 +1,23 @@
 package lk.jiat.globemed.util;
 
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.metamodel.EntityType;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.management.ObjectName;
+import lk.jiat.globemed.migration.Migrations;
+import lk.jiat.globemed.migration.SchemaMigrator;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 
 /**
  *
@@ -9,12 +25,35 @@ import org.hibernate.cfg.Configuration;
  */
 public class HibernateUtil {
 
+    private static ConnectionPool connectionPool;
+    private static final List<Runnable> BEFORE_SHUTDOWN = new CopyOnWriteArrayList<>();
     private static final SessionFactory sessionFactory = buildSessionFactory();
 
     private static SessionFactory buildSessionFactory() {
         try {
-            return new Configuration().configure().buildSessionFactory();
+            Configuration configuration = new Configuration().configure();
+            connectionPool = new ConnectionPool(ConnectionPoolConfig.load(configuration.getProperties()));
+            new SchemaMigrator(connectionPool, Migrations.all()).migrate();
+            // The pool owns the connection settings; left in place, Hibernate would ask the
+            // DataSource for per-user connections instead of pooled ones.
+            for (Map<?, ?> settings : List.of(configuration.getProperties(),
+                    configuration.getStandardServiceRegistryBuilder().getSettings())) {
+                settings.keySet().removeAll(List.of("hibernate.connection.driver_class", "hibernate.connection.url",
+                        "hibernate.connection.username", "hibernate.connection.password",
+                        AvailableSettings.JAKARTA_JDBC_DRIVER, AvailableSettings.JAKARTA_JDBC_URL,
+                        AvailableSettings.JAKARTA_JDBC_USER, AvailableSettings.JAKARTA_JDBC_PASSWORD));
+            }
+            configuration.getProperties().put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, connectionPool);
+
+            SessionFactory factory = configuration.buildSessionFactory();
+            alignIdSequences(factory);
+            registerPoolMetrics();
+            Runtime.getRuntime().addShutdownHook(new Thread(HibernateUtil::shutdown, "hibernate-shutdown"));
+            return factory;
         } catch (Throwable ex) {
+            if (connectionPool != null) {
+                connectionPool.close();
+            }
             throw new ExceptionInInitializerError(ex);
         }
     }
@@ -22,4 +61,81 @@ public class HibernateUtil {
     public static SessionFactory getSessionFactory() {
         return sessionFactory;
     }
+
+    public static ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * Runs {@code action} at shutdown, while the session factory is still open.
+     */
+    public static void runBeforeShutdown(Runnable action) {
+        BEFORE_SHUTDOWN.add(action);
+    }
+
+    public static void shutdown() {
+        for (Runnable action : BEFORE_SHUTDOWN) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                System.err.println("Shutdown action failed: " + e.getMessage());
+            }
+        }
+        BEFORE_SHUTDOWN.clear();
+        if (sessionFactory != null && sessionFactory.isOpen()) {
+            sessionFactory.close();
+        }
+        connectionPool.close();
+    }
+
+    private static void registerPoolMetrics() {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(connectionPool, new ObjectName("lk.jiat.globemed:type=ConnectionPool"));
+        } catch (Exception e) {
+            System.err.println("Could not register connection pool metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Entities using a pooled sequence were created with AUTO_INCREMENT ids. On MySQL the
+     * sequence is emulated by a table that starts at 1, so push it past the existing rows.
+     */
+    private static void alignIdSequences(SessionFactory factory) {
+        Dialect dialect = factory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        if (dialect.getSequenceSupport().supportsSequences()) {
+            return;
+        }
+
+        try (Session session = factory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            for (EntityType<?> entity : factory.getMetamodel().getEntities()) {
+                Class<?> type = entity.getJavaType();
+                Table table = type.getAnnotation(Table.class);
+                SequenceGenerator generator = findSequenceGenerator(type);
+                if (table == null || generator == null) {
+                    continue;
+                }
+
+                long maxId = session.createNativeQuery(
+                        "SELECT COALESCE(MAX(id), 0) FROM " + table.name(), Long.class).getSingleResult();
+                long floor = maxId + generator.allocationSize() + 1;
+                session.createNativeMutationQuery(
+                        "UPDATE " + generator.sequenceName() + " SET next_val = :floor WHERE next_val < :floor")
+                        .setParameter("floor", floor)
+                        .executeUpdate();
+            }
+            tx.commit();
+        }
+    }
+
+    private static SequenceGenerator findSequenceGenerator(Class<?> type) {
+        for (Field field : type.getDeclaredFields()) {
+            SequenceGenerator generator = field.getAnnotation(SequenceGenerator.class);
+            if (generator != null) {
+                return generator;
+            }
+        }
+        return null;
+    }
 }
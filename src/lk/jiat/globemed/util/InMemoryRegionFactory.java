@@ -0,0 +1,149 @@
+package lk.jiat.globemed.util;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+/**
+ * Second-level cache regions kept in this JVM's heap. Entries expire after a TTL so
+ * changes made by other clients of the same database become visible, and entity and
+ * query regions are capped with least-recently-used eviction.
+ */
+public class InMemoryRegionFactory extends RegionFactoryTemplate {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String TTL_SECONDS = "globemed.cache.ttl_seconds";
+    public static final String MAX_ENTRIES = "globemed.cache.max_entries";
+
+    private long ttlMillis = 300_000;
+    private int maxEntries = 10_000;
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map<String, Object> configValues) {
+        ttlMillis = intSetting(configValues, TTL_SECONDS, 300) * 1000L;
+        maxEntries = intSetting(configValues, MAX_ENTRIES, 10_000);
+    }
+
+    @Override
+    protected void releaseFromUse() {
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+            DomainDataRegionBuildingContext buildingContext) {
+        return new MapStorageAccess(ttlMillis, maxEntries);
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+            SessionFactoryImplementor sessionFactory) {
+        return new MapStorageAccess(ttlMillis, maxEntries);
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+            SessionFactoryImplementor sessionFactory) {
+        // Table timestamps decide whether a cached query is stale, so they are never dropped.
+        return new MapStorageAccess(0, 0);
+    }
+
+    private static int intSetting(Map<String, Object> configValues, String key, int defaultValue) {
+        Object value = configValues.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException(key + " must be a number, got: " + value);
+        }
+    }
+
+    private static class MapStorageAccess implements DomainDataStorageAccess {
+
+        private final long ttlMillis;
+        private final Map<Object, Entry> entries;
+
+        MapStorageAccess(long ttlMillis, int maxEntries) {
+            this.ttlMillis = ttlMillis;
+            this.entries = maxEntries > 0
+                    ? Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                            return size() > maxEntries;
+                        }
+                    })
+                    : new ConcurrentHashMap<>();
+        }
+
+        @Override
+        public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt < System.currentTimeMillis()) {
+                entries.remove(key, entry);
+                return null;
+            }
+            return entry.value;
+        }
+
+        @Override
+        public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+            long expiresAt = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+            entries.put(key, new Entry(value, expiresAt));
+        }
+
+        @Override
+        public void removeFromCache(Object key, SharedSessionContractImplementor session) {
+            entries.remove(key);
+        }
+
+        @Override
+        public void clearCache(SharedSessionContractImplementor session) {
+            entries.clear();
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return getFromCache(key, null) != null;
+        }
+
+        @Override
+        public void evictData() {
+            entries.clear();
+        }
+
+        @Override
+        public void evictData(Object key) {
+            entries.remove(key);
+        }
+
+        @Override
+        public void release() {
+            entries.clear();
+        }
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+        private final long expiresAt;
+
+        Entry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
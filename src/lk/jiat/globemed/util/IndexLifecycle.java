@@ -0,0 +1,108 @@
+package lk.jiat.globemed.util;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Start and rebuild bookkeeping for an in-memory index that is read from the database
+ * in the background and kept current from committed writes. Keys written while a
+ * build is reading are collected, so that the build's older copies of them are
+ * skipped when its snapshot is reconciled into the index.
+ *
+ * @param <K> what identifies an indexed item
+ */
+public final class IndexLifecycle<K> {
+
+    private final String name;
+    private final String icon;
+    private final Runnable install;
+    private final Function<Set<K>, CompletableFuture<Integer>> build;
+    private final Supplier<String> contents;
+    // Keys written while a build is reading; its older copies of these are skipped.
+    private final Set<K> changedDuringBuild = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean ready;
+    private volatile boolean building;
+    private CompletableFuture<Integer> current;
+
+    /**
+     * @param install starts delivering committed writes to the index; called on every
+     * start, so it must be idempotent
+     * @param build reads the snapshot in the background and reconciles it into the
+     * index, skipping the keys in the set it is given; completes with the index's size
+     * @param contents what the index holds, for the log
+     */
+    public IndexLifecycle(String name, String icon, Runnable install,
+            Function<Set<K>, CompletableFuture<Integer>> build, Supplier<String> contents) {
+        this.name = name;
+        this.icon = icon;
+        this.install = install;
+        this.build = build;
+        this.contents = contents;
+    }
+
+    /**
+     * Starts keeping the index current and builds it in the background; calling it again
+     * returns the first build.
+     */
+    public synchronized CompletableFuture<Integer> start() {
+        install.run();
+        if (current == null) {
+            current = buildIndex();
+        }
+        return current;
+    }
+
+    /**
+     * Re-reads everything, for changes made outside this application. Returns the
+     * running build if there is one.
+     */
+    public synchronized CompletableFuture<Integer> rebuild() {
+        if (current == null) {
+            return start();
+        }
+        if (!current.isDone()) {
+            return current;
+        }
+        current = buildIndex();
+        return current;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Records a write to {@code key}; call it before applying the write to the index.
+     */
+    public void changed(K key) {
+        if (building) {
+            changedDuringBuild.add(key);
+        }
+    }
+
+    private CompletableFuture<Integer> buildIndex() {
+        long started = System.nanoTime();
+        changedDuringBuild.clear();
+        building = true;
+
+        return build.apply(changedDuringBuild)
+                .thenApply(size -> {
+                    building = false;
+                    changedDuringBuild.clear();
+                    ready = true;
+                    System.out.println(String.format("%s %s built: %s in %d ms",
+                            icon, name, contents.get(), (System.nanoTime() - started) / 1_000_000));
+                    return size;
+                })
+                .whenComplete((size, error) -> {
+                    if (error != null) {
+                        building = false;
+                        System.err.println("❌ " + name + " build failed: " + error.getMessage());
+                    }
+                });
+    }
+}
@@ -0,0 +1,141 @@
+package lk.jiat.globemed.util;
+
+import java.sql.Connection;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+/**
+ * Thread-bound unit of work. The outermost call opens one Session (and one
+ * transaction for the {@code *Transaction} variants); DAO calls made inside it
+ * join that Session instead of opening their own.
+ */
+public final class UnitOfWork {
+
+    private static final ThreadLocal<Session> CURRENT = new ThreadLocal<>();
+
+    private UnitOfWork() {
+    }
+
+    public static <T> T fromTransaction(Function<Session, T> work) {
+        Session current = CURRENT.get();
+        if (current != null) {
+            Transaction tx = current.getTransaction();
+            if (tx.isActive()) {
+                return joinTransaction(tx, current, work);
+            }
+            return runInNewTransaction(current, work);
+        }
+
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            CURRENT.set(session);
+            try {
+                return runInNewTransaction(session, work);
+            } finally {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public static void inTransaction(Consumer<Session> work) {
+        fromTransaction(session -> {
+            work.accept(session);
+            return null;
+        });
+    }
+
+    public static <T> T fromSession(Function<Session, T> work) {
+        Session current = CURRENT.get();
+        if (current != null) {
+            return work.apply(current);
+        }
+
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            CURRENT.set(session);
+            try {
+                return work.apply(session);
+            } finally {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public static void inSession(Consumer<Session> work) {
+        fromSession(session -> {
+            work.accept(session);
+            return null;
+        });
+    }
+
+    /**
+     * Runs {@code work} in one read-only REPEATABLE READ transaction, so every DAO call
+     * inside it sees the database as of its first query. Must be the outermost unit of
+     * work; the pool restores the connection's settings when it is returned.
+     */
+    public static <T> T fromSnapshot(Function<Session, T> work) {
+        if (CURRENT.get() != null) {
+            throw new IllegalStateException("A snapshot cannot join a unit of work already active on this thread");
+        }
+
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            session.setDefaultReadOnly(true);
+            CURRENT.set(session);
+            try {
+                return runInNewTransaction(session, s -> {
+                    // Nothing has been read yet, so the settings apply to this transaction.
+                    s.doWork(connection -> {
+                        connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+                        connection.setReadOnly(true);
+                    });
+                    return work.apply(s);
+                });
+            } finally {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    public static Session currentSession() {
+        Session current = CURRENT.get();
+        if (current == null) {
+            throw new IllegalStateException("No unit of work is active on this thread");
+        }
+        return current;
+    }
+
+    private static <T> T joinTransaction(Transaction tx, Session session, Function<Session, T> work) {
+        try {
+            return work.apply(session);
+        } catch (RuntimeException e) {
+            tx.setRollbackOnly();
+            throw e;
+        }
+    }
+
+    private static <T> T runInNewTransaction(Session session, Function<Session, T> work) {
+        Transaction tx = session.beginTransaction();
+        try {
+            T result = work.apply(session);
+            if (tx.getRollbackOnly()) {
+                tx.rollback();
+                throw new IllegalStateException("Unit of work rolled back: a nested call failed");
+            }
+            tx.commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (tx.isActive()) {
+                try {
+                    tx.rollback();
+                } catch (RuntimeException ex) {
+                    e.addSuppressed(ex);
+                }
+            }
+            throw e;
+        }
+    }
+}